@@ -0,0 +1,1171 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.data.avro;
+
+import com.linkedin.data.ByteString;
+import com.linkedin.data.Data;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.DataCodec;
+import com.linkedin.data.element.DataElement;
+import com.linkedin.data.message.Message;
+import com.linkedin.data.message.MessageList;
+import com.linkedin.data.schema.DataSchema;
+import com.linkedin.data.schema.DataSchemaConstants;
+import com.linkedin.data.schema.EnumDataSchema;
+import com.linkedin.data.schema.FixedDataSchema;
+import com.linkedin.data.schema.RecordDataSchema;
+import com.linkedin.data.schema.UnionDataSchema;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.util.Utf8;
+
+
+/**
+ * Encodes {@link DataMap}s conforming to a {@link RecordDataSchema} to Avro binary and decodes them back,
+ * without building an intermediate {@link org.apache.avro.generic.GenericRecord}.
+ *
+ * <p>
+ * The result is the same as translating with {@link DataTranslator} and encoding or decoding with Avro's
+ * generic datum writer or reader; only the order of map entries may differ. The translation rules for unions,
+ * enums, fixed, optional fields, defaults and Avro overrides are the ones of {@link DataTranslator} and
+ * {@link SchemaTranslator}.
+ *
+ * <p>
+ * How each field is translated is built once per codec from the {@link DataTranslationPlan} that
+ * {@link DataTranslator} uses for the same pair of schemas, so a codec should be created once and reused. Instances
+ * are thread-safe. Records with an Avro override are translated by their {@link CustomDataTranslator}, instantiated
+ * once per call to the codec as {@link DataTranslator} does, and encoded with Avro's generic datum writer and reader.
+ *
+ * <p>
+ * Only records are supported; the list methods of {@link DataCodec} throw {@link UnsupportedOperationException}.
+ */
+public class AvroBinaryDataCodec implements DataCodec
+{
+  private static final AvroAdapter _avroAdapter = AvroAdapterFinder.getAvroAdapter();
+
+  private final RecordDataSchema _dataSchema;
+  private final Schema _avroSchema;
+  private final Plan _plan;
+
+  /**
+   * Create a codec for the given {@link RecordDataSchema} and the Avro {@link Schema} derived from it
+   * by {@link SchemaTranslator#dataToAvroSchema(DataSchema)}.
+   *
+   * @param dataSchema provides the {@link RecordDataSchema} of the {@link DataMap}s to encode and decode.
+   */
+  public AvroBinaryDataCodec(RecordDataSchema dataSchema)
+  {
+    this(dataSchema, SchemaTranslator.dataToAvroSchema(dataSchema));
+  }
+
+  /**
+   * Create a codec for the given {@link RecordDataSchema} and Avro {@link Schema}.
+   *
+   * <p>
+   * The Avro {@link Schema} should be generated from a record schema that is compatible with the provided
+   * {@link RecordDataSchema} using {@link SchemaTranslator}. It is used both as the writer and the reader schema.
+   *
+   * @param dataSchema provides the {@link RecordDataSchema} of the {@link DataMap}s to encode and decode.
+   * @param avroSchema provides the Avro {@link Schema} of the binary data.
+   * @throws IllegalArgumentException if the Avro overrides of the {@link RecordDataSchema} are invalid.
+   */
+  public AvroBinaryDataCodec(RecordDataSchema dataSchema, Schema avroSchema)
+  {
+    _dataSchema = dataSchema;
+    _avroSchema = avroSchema;
+    _plan = new PlanCompiler().compileRoot(dataSchema, avroSchema);
+  }
+
+  public RecordDataSchema getDataSchema()
+  {
+    return _dataSchema;
+  }
+
+  public Schema getAvroSchema()
+  {
+    return _avroSchema;
+  }
+
+  @Override
+  public byte[] mapToBytes(DataMap map) throws IOException
+  {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writeMap(map, out);
+    return out.toByteArray();
+  }
+
+  @Override
+  public DataMap bytesToMap(byte[] input) throws IOException
+  {
+    final Decoder decoder = _avroAdapter.createBinaryDecoder(input);
+    final Context context = new Context();
+    try
+    {
+      return (DataMap) _plan.read(decoder, context);
+    }
+    catch (RuntimeException e)
+    {
+      throw context.exception(e);
+    }
+  }
+
+  @Override
+  public void writeMap(DataMap map, OutputStream out) throws IOException
+  {
+    final Encoder encoder = _avroAdapter.createBinaryEncoder(out);
+    final Context context = new Context();
+    try
+    {
+      _plan.write(map, encoder, context);
+    }
+    catch (RuntimeException e)
+    {
+      throw context.exception(e);
+    }
+    encoder.flush();
+  }
+
+  @Override
+  public DataMap readMap(InputStream in) throws IOException
+  {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[4096];
+    int read;
+    while ((read = in.read(buffer)) != -1)
+    {
+      out.write(buffer, 0, read);
+    }
+    return bytesToMap(out.toByteArray());
+  }
+
+  @Override
+  public byte[] listToBytes(DataList list)
+  {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " only encodes records");
+  }
+
+  @Override
+  public DataList bytesToList(byte[] input)
+  {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " only decodes records");
+  }
+
+  @Override
+  public void writeList(DataList list, OutputStream out)
+  {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " only encodes records");
+  }
+
+  @Override
+  public DataList readList(InputStream in)
+  {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " only decodes records");
+  }
+
+  /**
+   * @return the index of the given member in the Avro union, compared by identity, or -1 if it is not a member.
+   */
+  private static int unionMemberIndex(Schema avroUnion, Schema member)
+  {
+    final List<Schema> members = avroUnion.getTypes();
+    for (int i = 0; i < members.size(); i++)
+    {
+      if (members.get(i) == member)
+      {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int nullMemberIndex(Schema avroUnion)
+  {
+    final List<Schema> members = avroUnion.getTypes();
+    for (int i = 0; i < members.size(); i++)
+    {
+      if (members.get(i).getType() == Schema.Type.NULL)
+      {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * State of a single encode or decode call.
+   */
+  private static class Context implements DataTranslatorContext
+  {
+    private final Deque<Object> _path = new ArrayDeque<Object>();
+    private final MessageList<Message> _messageList = new MessageList<Message>();
+    private final Map<AvroOverride, CustomDataTranslator> _customDataTranslators = new IdentityHashMap<AvroOverride, CustomDataTranslator>();
+
+    @Override
+    public void appendMessage(String format, Object... args)
+    {
+      _messageList.add(new Message(_path.toArray(), format, args));
+    }
+
+    private DataTranslationException error(String format, Object... args)
+    {
+      appendMessage(format, args);
+      return exception(null);
+    }
+
+    private CustomDataTranslator customDataTranslator(AvroOverride avroOverride)
+    {
+      CustomDataTranslator customDataTranslator = _customDataTranslators.get(avroOverride);
+      if (customDataTranslator == null)
+      {
+        customDataTranslator = avroOverride.newCustomDataTranslator();
+        _customDataTranslators.put(avroOverride, customDataTranslator);
+      }
+      return customDataTranslator;
+    }
+
+    private void checkMessages() throws DataTranslationException
+    {
+      if (_messageList.isEmpty() == false)
+      {
+        throw exception(null);
+      }
+    }
+
+    private DataTranslationException exception(RuntimeException e)
+    {
+      final Object[] path = _messageList.isEmpty() ? _path.toArray() : _messageList.get(0).getPath();
+      final StringBuilder sb = new StringBuilder("Error processing ");
+      for (Object o : path)
+      {
+        sb.append(DataElement.SEPARATOR).append(o);
+      }
+      return new DataTranslationException(sb.toString(), _messageList, e);
+    }
+  }
+
+  /**
+   * Translation of a Pegasus schema and the corresponding Avro schema.
+   */
+  private abstract static class Plan
+  {
+    abstract void write(Object value, Encoder out, Context context) throws IOException;
+
+    abstract Object read(Decoder in, Context context) throws IOException;
+
+    /**
+     * @return true if the Avro data is always null.
+     */
+    boolean isNull()
+    {
+      return false;
+    }
+  }
+
+  /**
+   * Builds the binary {@link Plan}s from the {@link DataTranslationPlan} shared with {@link DataTranslator}, which
+   * resolves Avro overrides, union members and enum symbols for the pair of schemas.
+   */
+  private static class PlanCompiler
+  {
+    private final MessageList<Message> _messageList = new MessageList<Message>();
+    private final Map<DataTranslationPlan.Node, Plan> _plans = new IdentityHashMap<DataTranslationPlan.Node, Plan>();
+
+    private Plan compileRoot(RecordDataSchema dataSchema, Schema avroSchema)
+    {
+      final Plan plan = compile(DataTranslationPlan.getPlan(dataSchema, avroSchema).getRoot());
+      if (_messageList.isEmpty() == false)
+      {
+        throw new IllegalArgumentException("Invalid Avro override in " + dataSchema.getFullName() + ": " + _messageList);
+      }
+      return plan;
+    }
+
+    private Plan compile(DataTranslationPlan.Node node)
+    {
+      Plan plan = _plans.get(node);
+      if (plan == null)
+      {
+        for (DataTranslationPlan.PendingMessage message : node._messages)
+        {
+          _messageList.add(new Message(new Object[0], message._format, message._args));
+        }
+        plan = compileNode(node);
+        _plans.put(node, plan);
+      }
+      return plan;
+    }
+
+    private Plan compileNode(DataTranslationPlan.Node node)
+    {
+      if (node._avroOverride != null)
+      {
+        return new OverridePlan(node._dataSchema, node._avroSchema, node._avroOverride);
+      }
+
+      final DataSchema dereferencedDataSchema = node._dereferencedDataSchema;
+      final Schema avroSchema = node._avroSchema;
+      if (!node._type.name().equals(avroSchema.getType().name()))
+      {
+        return new MismatchPlan(dereferencedDataSchema, avroSchema);
+      }
+      if (node._error != null)
+      {
+        return new ErrorPlan(node._error);
+      }
+
+      switch (node._type)
+      {
+        case NULL:
+          return NullPlan.INSTANCE;
+        case BOOLEAN:
+          return BooleanPlan.INSTANCE;
+        case INT:
+          return IntPlan.INSTANCE;
+        case LONG:
+          return LongPlan.INSTANCE;
+        case FLOAT:
+          return FloatPlan.INSTANCE;
+        case DOUBLE:
+          return DoublePlan.INSTANCE;
+        case STRING:
+          return StringPlan.INSTANCE;
+        case BYTES:
+          return BytesPlan.INSTANCE;
+        case ENUM:
+          return new EnumPlan((EnumDataSchema) dereferencedDataSchema, avroSchema);
+        case FIXED:
+          return new FixedPlan((FixedDataSchema) dereferencedDataSchema, avroSchema);
+        case MAP:
+          return new MapPlan(compile(node._itemNode));
+        case ARRAY:
+          return new ArrayPlan(compile(node._itemNode));
+        case RECORD:
+          return compileRecord(node);
+        case UNION:
+          return compileUnion(node);
+        default:
+          return new MismatchPlan(dereferencedDataSchema, avroSchema);
+      }
+    }
+
+    private RecordPlan compileRecord(DataTranslationPlan.Node node)
+    {
+      final RecordDataSchema dataSchema = (RecordDataSchema) node._dereferencedDataSchema;
+      final List<Schema.Field> avroFields = node._avroSchema.getFields();
+
+      // register the plan before compiling its fields, since records may be recursive.
+      final RecordPlan plan = new RecordPlan(dataSchema.getFields().size(), avroFields.size());
+      _plans.put(node, plan);
+
+      final Map<String, DataTranslationPlan.FieldNode> fieldNodes = new HashMap<String, DataTranslationPlan.FieldNode>();
+      for (DataTranslationPlan.FieldNode fieldNode : node._fields)
+      {
+        fieldNodes.put(fieldNode._name, fieldNode);
+      }
+      for (int i = 0; i < avroFields.size(); i++)
+      {
+        final Schema.Field avroField = avroFields.get(i);
+        plan._fields[i] = compileField(fieldNodes.get(avroField.name()), avroField);
+      }
+      return plan;
+    }
+
+    private FieldPlan compileField(DataTranslationPlan.FieldNode fieldNode, Schema.Field avroField)
+    {
+      final Schema fieldAvroSchema = avroField.schema();
+      final boolean avroUnion = fieldAvroSchema.getType() == Schema.Type.UNION;
+      final int nullIndex = avroUnion ? nullMemberIndex(fieldAvroSchema) : -1;
+      if (fieldNode == null)
+      {
+        // field present in Avro schema but not in the Pegasus schema.
+        return new FieldPlan(avroField.name(), null, false, new SkipPlan(fieldAvroSchema), avroUnion, nullIndex, -1);
+      }
+
+      final RecordDataSchema.Field field = fieldNode._field;
+      if (fieldNode._optionalNonUnion)
+      {
+        if (!avroUnion)
+        {
+          return new FieldPlan(field.getName(), field, true, new MismatchPlan(field.getType(), fieldAvroSchema), false, -1, -1);
+        }
+        if (fieldNode._error != null)
+        {
+          return new FieldPlan(field.getName(), field, true, new ErrorPlan(fieldNode._error), true, nullIndex, -1);
+        }
+        // Avro schema should be union with 2 types: null and the field's type.
+        final DataTranslationPlan.UnionMember valueMember = fieldNode._valueMember;
+        if (valueMember._node == null)
+        {
+          return new FieldPlan(field.getName(), field, true,
+                               new MissingUnionMemberPlan(valueMember._key, fieldAvroSchema), true, nullIndex, -1);
+        }
+        return new FieldPlan(field.getName(), field, true, compile(valueMember._node), true, nullIndex,
+                             unionMemberIndex(fieldAvroSchema, valueMember._avroSchema));
+      }
+
+      final Plan valuePlan = fieldNode._error != null ? new ErrorPlan(fieldNode._error) : compile(fieldNode._node);
+      return new FieldPlan(field.getName(), field, false, valuePlan, avroUnion, nullIndex, -1);
+    }
+
+    private UnionPlan compileUnion(DataTranslationPlan.Node node)
+    {
+      final Schema avroSchema = node._avroSchema;
+      final List<Schema> avroMembers = avroSchema.getTypes();
+      final Map<String, UnionMember> membersByKey = new HashMap<String, UnionMember>();
+      final UnionMember[] membersByIndex = new UnionMember[avroMembers.size()];
+      for (Map.Entry<String, DataTranslationPlan.UnionMember> entry : node._membersByKey.entrySet())
+      {
+        final DataTranslationPlan.UnionMember member = entry.getValue();
+        if (member._node != null)
+        {
+          final int index = unionMemberIndex(avroSchema, member._avroSchema);
+          final UnionMember unionMember = new UnionMember(index, member._key, entry.getKey(), compile(member._node));
+          membersByKey.put(entry.getKey(), unionMember);
+          membersByIndex[index] = unionMember;
+        }
+      }
+
+      final String[] avroNames = new String[avroMembers.size()];
+      for (int i = 0; i < avroNames.length; i++)
+      {
+        avroNames[i] = DataTranslationPlan.avroMemberKey(avroMembers.get(i));
+      }
+      return new UnionPlan((UnionDataSchema) node._dereferencedDataSchema, avroSchema, membersByKey, membersByIndex,
+                           avroNames);
+    }
+  }
+
+  private static class NullPlan extends Plan
+  {
+    private static final NullPlan INSTANCE = new NullPlan();
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      if (value != Data.NULL)
+      {
+        throw context.error("value must be null for null schema");
+      }
+      out.writeNull();
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      in.readNull();
+      return Data.NULL;
+    }
+
+    @Override
+    boolean isNull()
+    {
+      return true;
+    }
+  }
+
+  private static class BooleanPlan extends Plan
+  {
+    private static final BooleanPlan INSTANCE = new BooleanPlan();
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      out.writeBoolean((Boolean) value);
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      return in.readBoolean();
+    }
+  }
+
+  private static class IntPlan extends Plan
+  {
+    private static final IntPlan INSTANCE = new IntPlan();
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      out.writeInt(((Number) value).intValue());
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      return in.readInt();
+    }
+  }
+
+  private static class LongPlan extends Plan
+  {
+    private static final LongPlan INSTANCE = new LongPlan();
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      out.writeLong(((Number) value).longValue());
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      return in.readLong();
+    }
+  }
+
+  private static class FloatPlan extends Plan
+  {
+    private static final FloatPlan INSTANCE = new FloatPlan();
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      out.writeFloat(((Number) value).floatValue());
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      return in.readFloat();
+    }
+  }
+
+  private static class DoublePlan extends Plan
+  {
+    private static final DoublePlan INSTANCE = new DoublePlan();
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      out.writeDouble(((Number) value).doubleValue());
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      return in.readDouble();
+    }
+  }
+
+  private static class StringPlan extends Plan
+  {
+    private static final StringPlan INSTANCE = new StringPlan();
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      out.writeString(new Utf8((String) value));
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      return in.readString(null).toString();
+    }
+  }
+
+  private static class BytesPlan extends Plan
+  {
+    private static final BytesPlan INSTANCE = new BytesPlan();
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      final byte[] bytes = DataTranslator.translateBytes(value);
+      out.writeBytes(bytes, 0, bytes.length);
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      final ByteBuffer byteBuffer = in.readBytes(null);
+      return ByteString.copy(byteBuffer);
+    }
+  }
+
+  private static class EnumPlan extends Plan
+  {
+    private final EnumDataSchema _dataSchema;
+    private final Schema _avroSchema;
+    private final Map<String, Integer> _ordinals = new HashMap<String, Integer>();
+    private final String[] _symbols;
+
+    private EnumPlan(EnumDataSchema dataSchema, Schema avroSchema)
+    {
+      _dataSchema = dataSchema;
+      _avroSchema = avroSchema;
+      final List<String> avroSymbols = avroSchema.getEnumSymbols();
+      _symbols = new String[avroSymbols.size()];
+      for (int i = 0; i < avroSymbols.size(); i++)
+      {
+        final String symbol = avroSymbols.get(i);
+        _symbols[i] = symbol;
+        if (dataSchema.getSymbols().contains(symbol))
+        {
+          _ordinals.put(symbol, i);
+        }
+      }
+    }
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      final String enumValue = value.toString();
+      final Integer ordinal = _ordinals.get(enumValue);
+      if (ordinal == null)
+      {
+        if (_dataSchema.getSymbols().contains(enumValue))
+        {
+          throw context.error("enum value %1$s not one of %2$s", enumValue, _avroSchema.getEnumSymbols());
+        }
+        throw context.error("enum value %1$s not one of %2$s", enumValue, _dataSchema.getSymbols());
+      }
+      out.writeEnum(ordinal);
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      final int ordinal = in.readEnum();
+      final String enumValue = ordinal >= 0 && ordinal < _symbols.length ? _symbols[ordinal] : String.valueOf(ordinal);
+      if (!_ordinals.containsKey(enumValue))
+      {
+        throw context.error("enum value %1$s not one of %2$s", enumValue, _dataSchema.getSymbols());
+      }
+      return enumValue;
+    }
+  }
+
+  private static class FixedPlan extends Plan
+  {
+    private final int _dataSize;
+    private final int _avroSize;
+
+    private FixedPlan(FixedDataSchema dataSchema, Schema avroSchema)
+    {
+      _dataSize = dataSchema.getSize();
+      _avroSize = avroSchema.getFixedSize();
+    }
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      final byte[] bytes = DataTranslator.translateBytes(value);
+      if (_dataSize != bytes.length)
+      {
+        throw context.error("ByteString size %1$d != FixedDataSchema size %2$d", bytes.length, _dataSize);
+      }
+      if (_avroSize != bytes.length)
+      {
+        throw context.error("ByteString size %1$d != Avro fixed size %2$d", bytes.length, _avroSize);
+      }
+      out.writeFixed(bytes, 0, bytes.length);
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      final byte[] bytes = new byte[_avroSize];
+      in.readFixed(bytes);
+      if (_dataSize != bytes.length)
+      {
+        throw context.error("GenericFixed size %1$d != FixedDataSchema size %2$d", bytes.length, _dataSize);
+      }
+      return ByteString.copy(bytes);
+    }
+  }
+
+  private static class MapPlan extends Plan
+  {
+    private final Plan _valuePlan;
+
+    private MapPlan(Plan valuePlan)
+    {
+      _valuePlan = valuePlan;
+    }
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      final DataMap map = (DataMap) value;
+      out.writeMapStart();
+      out.setItemCount(map.size());
+      for (Map.Entry<String, Object> entry : map.entrySet())
+      {
+        out.startItem();
+        out.writeString(new Utf8(entry.getKey()));
+        context._path.addLast(entry.getKey());
+        _valuePlan.write(entry.getValue(), out, context);
+        context._path.removeLast();
+      }
+      out.writeMapEnd();
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      long count = in.readMapStart();
+      final DataMap map = new DataMap(count > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) count);
+      while (count > 0)
+      {
+        for (long i = 0; i < count; i++)
+        {
+          final String key = in.readString(null).toString();
+          context._path.addLast(key);
+          map.put(key, _valuePlan.read(in, context));
+          context._path.removeLast();
+        }
+        count = in.mapNext();
+      }
+      return map;
+    }
+  }
+
+  private static class ArrayPlan extends Plan
+  {
+    private final Plan _itemPlan;
+
+    private ArrayPlan(Plan itemPlan)
+    {
+      _itemPlan = itemPlan;
+    }
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      final DataList list = (DataList) value;
+      out.writeArrayStart();
+      out.setItemCount(list.size());
+      for (int i = 0; i < list.size(); i++)
+      {
+        out.startItem();
+        context._path.addLast(i);
+        _itemPlan.write(list.get(i), out, context);
+        context._path.removeLast();
+      }
+      out.writeArrayEnd();
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      long count = in.readArrayStart();
+      final DataList list = new DataList(count > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) count);
+      int index = 0;
+      while (count > 0)
+      {
+        for (long i = 0; i < count; i++)
+        {
+          context._path.addLast(index++);
+          list.add(_itemPlan.read(in, context));
+          context._path.removeLast();
+        }
+        count = in.arrayNext();
+      }
+      return list;
+    }
+  }
+
+  private static class RecordPlan extends Plan
+  {
+    private final int _dataFieldCount;
+    private final FieldPlan[] _fields;
+
+    private RecordPlan(int dataFieldCount, int avroFieldCount)
+    {
+      _dataFieldCount = dataFieldCount;
+      _fields = new FieldPlan[avroFieldCount];
+    }
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      final DataMap map = (DataMap) value;
+      for (FieldPlan field : _fields)
+      {
+        context._path.addLast(field._name);
+        field.write(map, out, context);
+        context._path.removeLast();
+      }
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      final DataMap map = new DataMap(_dataFieldCount);
+      for (FieldPlan field : _fields)
+      {
+        context._path.addLast(field._name);
+        field.read(map, in, context);
+        context._path.removeLast();
+      }
+      return map;
+    }
+  }
+
+  /**
+   * Translation of an Avro record field and the Pegasus field of the same name, if any.
+   */
+  private static class FieldPlan
+  {
+    private final String _name;
+    private final RecordDataSchema.Field _field;
+    private final boolean _optionalNonUnion;
+    private final Plan _valuePlan;
+    private final boolean _avroUnion;
+    private final int _nullIndex;
+    private final int _valueIndex;
+
+    private FieldPlan(String name,
+                      RecordDataSchema.Field field,
+                      boolean optionalNonUnion,
+                      Plan valuePlan,
+                      boolean avroUnion,
+                      int nullIndex,
+                      int valueIndex)
+    {
+      _name = name;
+      _field = field;
+      _optionalNonUnion = optionalNonUnion;
+      _valuePlan = valuePlan;
+      _avroUnion = avroUnion;
+      _nullIndex = nullIndex;
+      _valueIndex = valueIndex;
+    }
+
+    private void write(DataMap map, Encoder out, Context context) throws IOException
+    {
+      final Object value = _field == null ? null : map.get(_name);
+      if (value != null)
+      {
+        if (_optionalNonUnion && _valueIndex >= 0)
+        {
+          out.writeIndex(_valueIndex);
+        }
+        _valuePlan.write(value, out, context);
+      }
+      else if (_field != null && !_field.getOptional())
+      {
+        final Object defaultValue = _field.getDefault();
+        if (defaultValue == null)
+        {
+          throw context.error("required field is absent");
+        }
+        _valuePlan.write(defaultValue, out, context);
+      }
+      else if (_nullIndex >= 0)
+      {
+        out.writeIndex(_nullIndex);
+      }
+      else if (_field == null && _valuePlan.isNull())
+      {
+        out.writeNull();
+      }
+      else
+      {
+        throw context.error("cannot find %1$s in union %2$s", DataSchemaConstants.NULL_TYPE, _name);
+      }
+    }
+
+    private void read(DataMap map, Decoder in, Context context) throws IOException
+    {
+      if (_field == null)
+      {
+        // field present in Avro data but not in the Pegasus schema.
+        _valuePlan.read(in, context);
+        return;
+      }
+
+      if (!_avroUnion)
+      {
+        final Object value = _valuePlan.read(in, context);
+        // a null Avro value means the field is absent.
+        if (!_valuePlan.isNull())
+        {
+          map.put(_name, value);
+        }
+        return;
+      }
+
+      final int index = in.readIndex();
+      if (index == _nullIndex)
+      {
+        in.readNull();
+        return;
+      }
+
+      if (_optionalNonUnion)
+      {
+        if (index != _valueIndex)
+        {
+          throw context.error("unexpected member %1$d in union of field %2$s", index, _name);
+        }
+        map.put(_name, _valuePlan.read(in, context));
+      }
+      else
+      {
+        map.put(_name, ((UnionPlan) _valuePlan).readMember(index, in, context));
+      }
+    }
+  }
+
+  private static class UnionMember
+  {
+    private final int _index;
+    private final String _avroKey;
+    private final String _dataKey;
+    private final Plan _plan;
+
+    private UnionMember(int index, String avroKey, String dataKey, Plan plan)
+    {
+      _index = index;
+      _avroKey = avroKey;
+      _dataKey = dataKey;
+      _plan = plan;
+    }
+  }
+
+  private static class UnionPlan extends Plan
+  {
+    private final UnionDataSchema _dataSchema;
+    private final Schema _avroSchema;
+    private final Map<String, UnionMember> _membersByKey;
+    private final UnionMember[] _membersByIndex;
+    private final String[] _avroNames;
+
+    private UnionPlan(UnionDataSchema dataSchema,
+                      Schema avroSchema,
+                      Map<String, UnionMember> membersByKey,
+                      UnionMember[] membersByIndex,
+                      String[] avroNames)
+    {
+      _dataSchema = dataSchema;
+      _avroSchema = avroSchema;
+      _membersByKey = membersByKey;
+      _membersByIndex = membersByIndex;
+      _avroNames = avroNames;
+    }
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      final String key;
+      final Object memberValue;
+      if (value == Data.NULL)
+      {
+        key = DataSchemaConstants.NULL_TYPE;
+        memberValue = Data.NULL;
+      }
+      else
+      {
+        final Map.Entry<String, Object> entry = ((DataMap) value).entrySet().iterator().next();
+        key = entry.getKey();
+        memberValue = entry.getValue();
+      }
+
+      final UnionMember member = _membersByKey.get(key);
+      if (member == null)
+      {
+        throw context.error("cannot find %1$s in union %2$s", key, _avroSchema);
+      }
+      out.writeIndex(member._index);
+      context._path.addLast(member._avroKey);
+      member._plan.write(memberValue, out, context);
+      context._path.removeLast();
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      return readMember(in.readIndex(), in, context);
+    }
+
+    private Object readMember(int index, Decoder in, Context context) throws IOException
+    {
+      final UnionMember member = index >= 0 && index < _membersByIndex.length ? _membersByIndex[index] : null;
+      if (member == null)
+      {
+        final String key = index >= 0 && index < _avroNames.length ? _avroNames[index] : String.valueOf(index);
+        throw context.error("cannot find %1$s in union %2$s", key, _dataSchema);
+      }
+
+      final Object memberValue = member._plan.read(in, context);
+      if (member._plan.isNull())
+      {
+        return Data.NULL;
+      }
+      final DataMap map = new DataMap(1);
+      map.put(member._dataKey, memberValue);
+      return map;
+    }
+  }
+
+  /**
+   * Translates records with an Avro override through their {@link CustomDataTranslator}.
+   */
+  private static class OverridePlan extends Plan
+  {
+    private final DataSchema _dataSchema;
+    private final Schema _avroSchema;
+    private final AvroOverride _avroOverride;
+
+    private OverridePlan(DataSchema dataSchema, Schema avroSchema, AvroOverride avroOverride)
+    {
+      _dataSchema = dataSchema;
+      _avroSchema = avroSchema;
+      _avroOverride = avroOverride;
+    }
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      final Object avroValue = context.customDataTranslator(_avroOverride).dataToAvroGeneric(context, value, _dataSchema, _avroSchema);
+      context.checkMessages();
+      new GenericDatumWriter<Object>(_avroSchema).write(avroValue, out);
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      final Object avroValue = new GenericDatumReader<Object>(_avroSchema).read(null, in);
+      final Object value = context.customDataTranslator(_avroOverride).avroGenericToData(context, avroValue, _avroSchema, _dataSchema);
+      context.checkMessages();
+      return value;
+    }
+  }
+
+  /**
+   * Reads and discards Avro data that has no Pegasus counterpart.
+   */
+  private static class SkipPlan extends Plan
+  {
+    private final Schema _avroSchema;
+
+    private SkipPlan(Schema avroSchema)
+    {
+      _avroSchema = avroSchema;
+    }
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      throw context.error("no Pegasus field for Avro field of type %1$s", _avroSchema);
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      new GenericDatumReader<Object>(_avroSchema).read(null, in);
+      return null;
+    }
+
+    @Override
+    boolean isNull()
+    {
+      return _avroSchema.getType() == Schema.Type.NULL;
+    }
+  }
+
+  private static class MissingUnionMemberPlan extends Plan
+  {
+    private final String _key;
+    private final Schema _avroSchema;
+
+    private MissingUnionMemberPlan(String key, Schema avroSchema)
+    {
+      _key = key;
+      _avroSchema = avroSchema;
+    }
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      throw context.error("cannot find %1$s in union %2$s", _key, _avroSchema);
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      throw context.error("cannot find %1$s in union %2$s", _key, _avroSchema);
+    }
+  }
+
+  /**
+   * Fails with the error found while compiling the {@link DataTranslationPlan} node, as {@link DataTranslator} does.
+   */
+  private static class ErrorPlan extends Plan
+  {
+    private final RuntimeException _error;
+
+    private ErrorPlan(RuntimeException error)
+    {
+      _error = error;
+    }
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      throw _error;
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      throw _error;
+    }
+  }
+
+  private static class MismatchPlan extends Plan
+  {
+    private final DataSchema _dataSchema;
+    private final Schema _avroSchema;
+
+    private MismatchPlan(DataSchema dataSchema, Schema avroSchema)
+    {
+      _dataSchema = dataSchema;
+      _avroSchema = avroSchema;
+    }
+
+    @Override
+    void write(Object value, Encoder out, Context context) throws IOException
+    {
+      throw context.error("Avro schema %1$s does not match %2$s", _avroSchema, _dataSchema);
+    }
+
+    @Override
+    Object read(Decoder in, Context context) throws IOException
+    {
+      throw context.error("Avro schema %1$s does not match %2$s", _avroSchema, _dataSchema);
+    }
+  }
+}
@@ -105,6 +105,28 @@ class AvroOverride
     return _customDataTranslator;
   }
 
+  /**
+   * Return a new instance of the class of {@link #getCustomDataTranslator()}, so that each
+   * translation may use its own instance of the custom data translator.
+   *
+   * @return a new instance of the custom data translator, or null if there is none.
+   */
+  CustomDataTranslator newCustomDataTranslator()
+  {
+    if (_customDataTranslator == null)
+    {
+      return null;
+    }
+    try
+    {
+      return _customDataTranslator.getClass().newInstance();
+    }
+    catch (InstantiationException | IllegalAccessException e)
+    {
+      throw new IllegalStateException(_customDataTranslatorClassName + " cannot be instantiated", e);
+    }
+  }
+
   int getAccessCount()
   {
     return _accessCount;
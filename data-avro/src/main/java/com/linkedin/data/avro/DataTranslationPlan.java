@@ -0,0 +1,458 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.data.avro;
+
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.linkedin.data.schema.ArrayDataSchema;
+import com.linkedin.data.schema.DataSchema;
+import com.linkedin.data.schema.DataSchemaConstants;
+import com.linkedin.data.schema.EnumDataSchema;
+import com.linkedin.data.schema.FixedDataSchema;
+import com.linkedin.data.schema.MapDataSchema;
+import com.linkedin.data.schema.RecordDataSchema;
+import com.linkedin.data.schema.UnionDataSchema;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.avro.Schema;
+
+
+/**
+ * Precompiled plan used by {@link DataTranslator} to translate between a {@link RecordDataSchema}
+ * and an Avro {@link Schema}.
+ *
+ * <p>
+ * A plan is a tree of {@link Node}s, one per (Pegasus schema, Avro schema) pair reachable from the
+ * root record. Each node caches what {@link DataTranslator} would otherwise derive on every call:
+ * the dereferenced schema, the {@link AvroOverride}, per-field Avro union members, union member
+ * tables indexed by Pegasus member key and by Avro branch index, and prebuilt Avro enum symbols.
+ *
+ * <p>
+ * Plans are immutable once compiled and are cached per schema pair, keyed by identity, so they may be
+ * shared across threads. {@link AvroBinaryDataCodec} builds its encoders from the same plans. The
+ * {@link CustomDataTranslator} instantiated while compiling a node with an "avro" override only validates
+ * the override; each translation uses its own instance, see {@link AvroOverride#newCustomDataTranslator()}.
+ */
+/* package scoped */
+class DataTranslationPlan
+{
+  private static final Cache<SchemaPair, DataTranslationPlan> PLAN_CACHE =
+      CacheBuilder.newBuilder().maximumSize(1000).build();
+
+  private final Node _root;
+
+  private DataTranslationPlan(Node root)
+  {
+    _root = root;
+  }
+
+  /**
+   * Return the plan for the provided schema pair, compiling and caching it on first use.
+   *
+   * @param dataSchema provides the {@link RecordDataSchema} of the data.
+   * @param avroSchema provides the Avro {@link Schema} of the data.
+   * @return the plan for the provided schema pair.
+   */
+  static DataTranslationPlan getPlan(RecordDataSchema dataSchema, Schema avroSchema)
+  {
+    SchemaPair key = new SchemaPair(dataSchema, avroSchema);
+    DataTranslationPlan plan = PLAN_CACHE.getIfPresent(key);
+    if (plan == null)
+    {
+      // concurrent callers may compile the same plan; the results are equivalent and the last one wins.
+      plan = new DataTranslationPlan(new Compiler().compile(dataSchema, avroSchema));
+      PLAN_CACHE.put(key, plan);
+    }
+    return plan;
+  }
+
+  Node getRoot()
+  {
+    return _root;
+  }
+
+  /**
+   * Message emitted by {@link AvroOverrideFactory} while compiling a node. It is replayed
+   * into the translator's message list each time the node is translated.
+   */
+  static class PendingMessage
+  {
+    final String _format;
+    final Object[] _args;
+
+    private PendingMessage(String format, Object[] args)
+    {
+      _format = format;
+      _args = args;
+    }
+  }
+
+  /**
+   * Translation plan for a single (Pegasus schema, Avro schema) pair.
+   */
+  static class Node
+  {
+    final DataSchema _dataSchema;
+    final Schema _avroSchema;
+    final DataSchema _dereferencedDataSchema;
+    final DataSchema.Type _type;
+
+    AvroOverride _avroOverride;
+    List<PendingMessage> _messages = Collections.emptyList();
+
+    // set if the schemas could not be compiled; thrown when the node is translated.
+    RuntimeException _error;
+
+    // MAP values and ARRAY items.
+    Node _itemNode;
+
+    // RECORD fields in Pegasus field order.
+    FieldNode[] _fields;
+
+    // UNION members by Pegasus member key and by Avro branch index.
+    Map<String, UnionMember> _membersByKey;
+    UnionMember[] _membersByIndex;
+
+    // ENUM symbols, mapping each Pegasus symbol to its Avro enum symbol.
+    Map<String, Object> _enumSymbols;
+
+    // FIXED size.
+    int _fixedSize;
+
+    private Node(DataSchema dataSchema, Schema avroSchema)
+    {
+      _dataSchema = dataSchema;
+      _avroSchema = avroSchema;
+      _dereferencedDataSchema = dataSchema.getDereferencedDataSchema();
+      _type = _dereferencedDataSchema.getType();
+    }
+  }
+
+  /**
+   * Translation plan for a single field of a record.
+   */
+  static class FieldNode
+  {
+    final RecordDataSchema.Field _field;
+    final String _name;
+    final Schema _avroSchema;
+    final boolean _optionalNonUnion;
+    final boolean _optionalUnion;
+
+    // node for the field value; for optional non-union fields it is compiled against the non-null Avro union member.
+    Node _node;
+
+    // Avro union members for optional non-union fields.
+    UnionMember _valueMember;
+    UnionMember _nullMember;
+
+    // set if the Avro field schema is not usable, e.g. an optional field that is not an Avro union.
+    RuntimeException _error;
+
+    private FieldNode(RecordDataSchema.Field field, Schema avroSchema)
+    {
+      _field = field;
+      _name = field.getName();
+      _avroSchema = avroSchema;
+      boolean isUnion = field.getType().getDereferencedType() == DataSchema.Type.UNION;
+      _optionalNonUnion = field.getOptional() && isUnion == false;
+      _optionalUnion = field.getOptional() && isUnion;
+    }
+  }
+
+  /**
+   * Matching Pegasus and Avro union members.
+   *
+   * <p>
+   * If there is no matching member on one side, {@link #_node} is null and the
+   * member key is retained for the error message.
+   */
+  static class UnionMember
+  {
+    final String _key;
+    final DataSchema _dataSchema;
+    final Schema _avroSchema;
+    final Node _node;
+
+    private UnionMember(String key, DataSchema dataSchema, Schema avroSchema, Node node)
+    {
+      _key = key;
+      _dataSchema = dataSchema;
+      _avroSchema = avroSchema;
+      _node = node;
+    }
+  }
+
+  private static class Compiler
+  {
+    private final List<PendingMessage> _emitted = new ArrayList<PendingMessage>();
+    private final AvroOverrideMap _avroOverrideMap = new AvroOverrideMap(new AvroOverrideFactory()
+    {
+      {
+        setInstantiateCustomDataTranslator(true);
+      }
+
+      @Override
+      void emitMessage(String format, Object... args)
+      {
+        _emitted.add(new PendingMessage(format, args));
+      }
+    });
+    private final IdentityHashMap<DataSchema, List<PendingMessage>> _messages =
+        new IdentityHashMap<DataSchema, List<PendingMessage>>();
+    private final IdentityHashMap<DataSchema, Map<Schema, Node>> _nodes =
+        new IdentityHashMap<DataSchema, Map<Schema, Node>>();
+    private final AvroAdapter _avroAdapter = AvroAdapterFinder.getAvroAdapter();
+
+    private Node compile(DataSchema dataSchema, Schema avroSchema)
+    {
+      Map<Schema, Node> nodes = _nodes.get(dataSchema);
+      if (nodes == null)
+      {
+        nodes = new IdentityHashMap<Schema, Node>();
+        _nodes.put(dataSchema, nodes);
+      }
+      Node node = nodes.get(avroSchema);
+      if (node == null)
+      {
+        // register before compiling children so that recursive schemas terminate.
+        node = new Node(dataSchema, avroSchema);
+        nodes.put(avroSchema, node);
+        try
+        {
+          node._avroOverride = getAvroOverride(dataSchema);
+          List<PendingMessage> messages = _messages.get(node._dereferencedDataSchema);
+          if (messages != null)
+          {
+            node._messages = messages;
+          }
+          if (node._avroOverride == null)
+          {
+            compileChildren(node);
+          }
+        }
+        catch (RuntimeException e)
+        {
+          node._error = e;
+        }
+      }
+      return node;
+    }
+
+    /**
+     * Return the {@link AvroOverride} of the provided schema, recording any messages emitted
+     * while creating it against the dereferenced schema so that every node of the schema replays them.
+     */
+    private AvroOverride getAvroOverride(DataSchema schema)
+    {
+      int emitted = _emitted.size();
+      AvroOverride avroOverride = _avroOverrideMap.getAvroOverride(schema);
+      if (_emitted.size() > emitted)
+      {
+        _messages.put(schema.getDereferencedDataSchema(),
+                      new ArrayList<PendingMessage>(_emitted.subList(emitted, _emitted.size())));
+      }
+      return avroOverride;
+    }
+
+    private void compileChildren(Node node)
+    {
+      Schema avroSchema = node._avroSchema;
+      switch (node._type)
+      {
+        case ENUM:
+          List<String> symbols = ((EnumDataSchema) node._dereferencedDataSchema).getSymbols();
+          Map<String, Object> enumSymbols = new HashMap<String, Object>(symbols.size() * 2);
+          for (String symbol : symbols)
+          {
+            enumSymbols.put(symbol, _avroAdapter.createEnumSymbol(avroSchema, symbol));
+          }
+          node._enumSymbols = enumSymbols;
+          break;
+        case FIXED:
+          node._fixedSize = ((FixedDataSchema) node._dereferencedDataSchema).getSize();
+          break;
+        case MAP:
+          node._itemNode = compile(((MapDataSchema) node._dereferencedDataSchema).getValues(), avroSchema.getValueType());
+          break;
+        case ARRAY:
+          node._itemNode = compile(((ArrayDataSchema) node._dereferencedDataSchema).getItems(), avroSchema.getElementType());
+          break;
+        case RECORD:
+          compileRecord(node);
+          break;
+        case UNION:
+          compileUnion(node);
+          break;
+        default:
+          break;
+      }
+    }
+
+    private void compileRecord(Node node)
+    {
+      Schema avroSchema = node._avroSchema;
+      List<RecordDataSchema.Field> fields = ((RecordDataSchema) node._dereferencedDataSchema).getFields();
+      // fail early if the Avro schema is not a record.
+      avroSchema.getFields();
+      List<FieldNode> fieldNodes = new ArrayList<FieldNode>(fields.size());
+      for (RecordDataSchema.Field field : fields)
+      {
+        Schema.Field avroField = avroSchema.getField(field.getName());
+        if (avroField == null)
+        {
+          // field present in Pegasus schema but there is no field for it in Avro schema.
+          continue;
+        }
+        FieldNode fieldNode = new FieldNode(field, avroField.schema());
+        try
+        {
+          if (fieldNode._optionalNonUnion)
+          {
+            // Avro schema should be union with 2 types: null and the field's type.
+            fieldNode._valueMember = findUnionMember(field.getType(), fieldNode._avroSchema);
+            fieldNode._nullMember = findUnionMember(DataSchemaConstants.NULL_DATA_SCHEMA, fieldNode._avroSchema);
+            fieldNode._node = fieldNode._valueMember._node;
+          }
+          else
+          {
+            fieldNode._node = compile(field.getType(), fieldNode._avroSchema);
+          }
+        }
+        catch (RuntimeException e)
+        {
+          fieldNode._error = e;
+        }
+        fieldNodes.add(fieldNode);
+      }
+      node._fields = fieldNodes.toArray(new FieldNode[fieldNodes.size()]);
+    }
+
+    private void compileUnion(Node node)
+    {
+      UnionDataSchema unionDataSchema = (UnionDataSchema) node._dereferencedDataSchema;
+      Schema avroSchema = node._avroSchema;
+
+      Map<String, UnionMember> membersByKey = new HashMap<String, UnionMember>();
+      for (DataSchema memberDataSchema : unionDataSchema.getTypes())
+      {
+        membersByKey.put(memberDataSchema.getUnionMemberKey(), findUnionMember(memberDataSchema, avroSchema));
+      }
+
+      List<Schema> avroMembers = avroSchema.getTypes();
+      UnionMember[] membersByIndex = new UnionMember[avroMembers.size()];
+      for (int i = 0; i < membersByIndex.length; i++)
+      {
+        Schema memberAvroSchema = avroMembers.get(i);
+        String key = avroMemberKey(memberAvroSchema);
+        DataSchema memberDataSchema = unionDataSchema.getType(key);
+        if (memberDataSchema == null)
+        {
+          for (DataSchema dataSchema : unionDataSchema.getTypes())
+          {
+            AvroOverride avroOverride = getAvroOverride(dataSchema);
+            if (avroOverride != null && avroOverride.getAvroSchemaFullName().equals(key))
+            {
+              memberDataSchema = dataSchema;
+              break;
+            }
+          }
+        }
+        membersByIndex[i] = memberDataSchema == null ?
+          new UnionMember(key, null, memberAvroSchema, null) :
+          new UnionMember(memberDataSchema.getUnionMemberKey(),
+                          memberDataSchema,
+                          memberAvroSchema,
+                          compile(memberDataSchema, memberAvroSchema));
+      }
+
+      node._membersByKey = membersByKey;
+      node._membersByIndex = membersByIndex;
+    }
+
+    /**
+     * Find the member of the Avro union that corresponds to the provided Pegasus schema.
+     *
+     * @return the matching member keyed by its Avro name, or a member with a null node
+     *         keyed by the name that was looked up if there is no match.
+     */
+    private UnionMember findUnionMember(DataSchema dataSchema, Schema avroSchema)
+    {
+      AvroOverride avroOverride = getAvroOverride(dataSchema);
+      String key = (avroOverride == null ? dataSchema.getUnionMemberKey() : avroOverride.getAvroSchemaFullName());
+      for (Schema member : avroSchema.getTypes())
+      {
+        String name = avroMemberKey(member);
+        if (name.equals(key))
+        {
+          return new UnionMember(name, dataSchema, member, compile(dataSchema, member));
+        }
+      }
+      return new UnionMember(key, dataSchema, avroSchema, null);
+    }
+  }
+
+  static String avroMemberKey(Schema member)
+  {
+    switch (member.getType())
+    {
+      case ENUM:
+      case FIXED:
+      case RECORD:
+        return member.getFullName();
+      default:
+        return member.getType().toString().toLowerCase();
+    }
+  }
+
+  /**
+   * Cache key that compares both schemas by identity.
+   */
+  private static class SchemaPair
+  {
+    private final DataSchema _dataSchema;
+    private final Schema _avroSchema;
+
+    private SchemaPair(DataSchema dataSchema, Schema avroSchema)
+    {
+      _dataSchema = dataSchema;
+      _avroSchema = avroSchema;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      if (obj == null || obj.getClass() != SchemaPair.class)
+      {
+        return false;
+      }
+      SchemaPair other = (SchemaPair) obj;
+      return _dataSchema == other._dataSchema && _avroSchema == other._avroSchema;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return System.identityHashCode(_dataSchema) * 31 + System.identityHashCode(_avroSchema);
+    }
+  }
+}
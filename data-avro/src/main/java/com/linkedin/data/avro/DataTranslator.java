@@ -16,6 +16,8 @@
 
 package com.linkedin.data.avro;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.linkedin.data.ByteString;
 import com.linkedin.data.Data;
 import com.linkedin.data.DataList;
@@ -23,22 +25,16 @@ import com.linkedin.data.DataMap;
 import com.linkedin.data.element.DataElement;
 import com.linkedin.data.message.Message;
 import com.linkedin.data.message.MessageList;
-import com.linkedin.data.schema.ArrayDataSchema;
-import com.linkedin.data.schema.DataSchema;
 import com.linkedin.data.schema.DataSchemaConstants;
 import com.linkedin.data.schema.EnumDataSchema;
-import com.linkedin.data.schema.FixedDataSchema;
-import com.linkedin.data.schema.MapDataSchema;
 import com.linkedin.data.schema.RecordDataSchema;
-import com.linkedin.data.schema.UnionDataSchema;
 import java.nio.ByteBuffer;
-import java.util.AbstractMap;
 import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.HashMap;
-import java.util.List;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericArray;
@@ -68,7 +64,13 @@ public class DataTranslator implements DataTranslatorContext
    */
   public static GenericRecord dataMapToGenericRecord(DataMap map, RecordDataSchema dataSchema) throws DataTranslationException
   {
-    Schema avroSchema = SchemaTranslator.dataToAvroSchema(dataSchema);
+    Schema avroSchema = AVRO_SCHEMA_CACHE.getIfPresent(dataSchema);
+    if (avroSchema == null)
+    {
+      // reuse the derived schema so that the plan cached for this pair of schemas is found on later calls.
+      avroSchema = SchemaTranslator.dataToAvroSchema(dataSchema);
+      AVRO_SCHEMA_CACHE.put(dataSchema, avroSchema);
+    }
     return dataMapToGenericRecord(map, dataSchema, avroSchema);
   }
 
@@ -92,7 +94,8 @@ public class DataTranslator implements DataTranslatorContext
     DataMapToGenericRecordTranslator translator = new DataMapToGenericRecordTranslator();
     try
     {
-      GenericRecord avroRecord = (GenericRecord) translator.translate(map, dataSchema, avroSchema);
+      DataTranslationPlan plan = DataTranslationPlan.getPlan(dataSchema, avroSchema);
+      GenericRecord avroRecord = (GenericRecord) translator.translate(map, plan.getRoot());
       translator.checkMessageListForErrorsAndThrowDataTranslationException();
       return avroRecord;
     }
@@ -116,7 +119,8 @@ public class DataTranslator implements DataTranslatorContext
     AvroGenericToDataTranslator translator = new AvroGenericToDataTranslator();
     try
     {
-      DataMap dataMap = (DataMap) translator.translate(record, dataSchema, avroSchema);
+      DataTranslationPlan plan = DataTranslationPlan.getPlan(dataSchema, avroSchema);
+      DataMap dataMap = (DataMap) translator.translate(record, plan.getRoot());
       translator.checkMessageListForErrorsAndThrowDataTranslationException();
       return dataMap;
     }
@@ -126,24 +130,14 @@ public class DataTranslator implements DataTranslatorContext
     }
   }
 
+  // keyed by identity; entries are dropped once the RecordDataSchema is no longer referenced.
+  private static final Cache<RecordDataSchema, Schema> AVRO_SCHEMA_CACHE = CacheBuilder.newBuilder().weakKeys().build();
+
   private static final GenericData _genericData = GenericData.get();
 
   protected final Deque<Object> _path = new ArrayDeque<Object>();
   protected final MessageList<Message> _messageList = new MessageList<Message>();
-  protected final AvroOverrideFactory _avroOverrideFactory = new AvroOverrideFactory()
-  {
-    {
-      setInstantiateCustomDataTranslator(true);
-    }
-
-    @Override
-    void emitMessage(String format, Object... args)
-    {
-      appendMessage(format, args);
-    }
-  };
-
-  protected final AvroOverrideMap _avroOverrideMap = new AvroOverrideMap(_avroOverrideFactory);
+  private final Map<AvroOverride, CustomDataTranslator> _customDataTranslators = new IdentityHashMap<AvroOverride, CustomDataTranslator>();
 
   protected DataTranslator()
   {
@@ -155,10 +149,34 @@ public class DataTranslator implements DataTranslatorContext
     _messageList.add(new Message(_path.toArray(), format, args));
   }
 
+  /**
+   * Replay messages recorded while compiling the node and throw if the node could not be compiled.
+   */
+  /**
+   * Return the {@link CustomDataTranslator} of the provided {@link AvroOverride} for this translation.
+   * Custom data translators are instantiated once per translation, so they need not be thread-safe.
+   */
+  CustomDataTranslator customDataTranslator(AvroOverride avroOverride)
+  {
+    CustomDataTranslator customDataTranslator = _customDataTranslators.get(avroOverride);
+    if (customDataTranslator == null)
+    {
+      customDataTranslator = avroOverride.newCustomDataTranslator();
+      _customDataTranslators.put(avroOverride, customDataTranslator);
+    }
+    return customDataTranslator;
+  }
 
-  protected AvroOverride getAvroOverride(DataSchema schema)
+  void checkNode(DataTranslationPlan.Node node)
   {
-    return _avroOverrideMap.getAvroOverride(schema);
+    for (DataTranslationPlan.PendingMessage message : node._messages)
+    {
+      appendMessage(message._format, message._args);
+    }
+    if (node._error != null)
+    {
+      throw node._error;
+    }
   }
 
   protected void checkMessageListForErrorsAndThrowDataTranslationException()
@@ -180,18 +198,17 @@ public class DataTranslator implements DataTranslatorContext
   {
     private final static Object BAD_RESULT = CustomDataTranslator.DATA_BAD_RESULT;
 
-    private Object translate(Object value, DataSchema dataSchema, Schema avroSchema)
+    private Object translate(Object value, DataTranslationPlan.Node node)
     {
-      AvroOverride avroOverride = getAvroOverride(dataSchema);
+      checkNode(node);
+      AvroOverride avroOverride = node._avroOverride;
       if (avroOverride != null)
       {
-        return avroOverride.getCustomDataTranslator().avroGenericToData(this, value, avroSchema, dataSchema);
+        return customDataTranslator(avroOverride).avroGenericToData(this, value, node._avroSchema, node._dataSchema);
       }
 
-      DataSchema dereferencedDataSchema = dataSchema.getDereferencedDataSchema();
-      DataSchema.Type type = dereferencedDataSchema.getType();
       Object result;
-      switch (type)
+      switch (node._type)
       {
         case NULL:
           if (value != null)
@@ -228,10 +245,11 @@ public class DataTranslator implements DataTranslatorContext
           break;
         case ENUM:
           String enumValue = value.toString();
-          EnumDataSchema enumDataSchema = (EnumDataSchema) dereferencedDataSchema;
-          if (enumDataSchema.getSymbols().contains(enumValue) == false)
+          if (node._enumSymbols.containsKey(enumValue) == false)
           {
-            appendMessage("enum value %1$s not one of %2$s", enumValue, enumDataSchema.getSymbols());
+            appendMessage("enum value %1$s not one of %2$s",
+                          enumValue,
+                          ((EnumDataSchema) node._dereferencedDataSchema).getSymbols());
             result = BAD_RESULT;
             break;
           }
@@ -240,12 +258,11 @@ public class DataTranslator implements DataTranslatorContext
         case FIXED:
           GenericFixed fixed = (GenericFixed) value;
           byte[] fixedBytes = fixed.bytes();
-          FixedDataSchema fixedDataSchema = (FixedDataSchema) dereferencedDataSchema;
-          if (fixedDataSchema.getSize() != fixedBytes.length)
+          if (node._fixedSize != fixedBytes.length)
           {
             appendMessage("GenericFixed size %1$d != FixedDataSchema size %2$d",
                           fixedBytes.length,
-                          fixedDataSchema.getSize());
+                          node._fixedSize);
             result = BAD_RESULT;
             break;
           }
@@ -255,14 +272,13 @@ public class DataTranslator implements DataTranslatorContext
         case MAP:
           @SuppressWarnings("unchecked")
           Map<?, Object> map = (Map<?, Object>) value;
-          DataSchema valueDataSchema = ((MapDataSchema) dereferencedDataSchema).getValues();
-          Schema valueAvroSchema = avroSchema.getValueType();
+          DataTranslationPlan.Node valueNode = node._itemNode;
           DataMap dataMap = new DataMap(map.size());
           for (Map.Entry<?, Object> entry : map.entrySet())
           {
             String key = entry.getKey().toString();
             _path.addLast(key);
-            Object entryValue = translate(entry.getValue(), valueDataSchema, valueAvroSchema);
+            Object entryValue = translate(entry.getValue(), valueNode);
             _path.removeLast();
             dataMap.put(key, entryValue);
           }
@@ -270,13 +286,12 @@ public class DataTranslator implements DataTranslatorContext
           break;
         case ARRAY:
           GenericArray<?> list = (GenericArray<?>) value;
-          DataSchema elementDataSchema = ((ArrayDataSchema) dereferencedDataSchema).getItems();
-          Schema elementAvroSchema = avroSchema.getElementType();
+          DataTranslationPlan.Node elementNode = node._itemNode;
           DataList dataList = new DataList(list.size());
           for (int i = 0; i < list.size(); i++)
           {
             _path.addLast(i);
-            Object entryValue = translate(list.get(i), elementDataSchema, elementAvroSchema);
+            Object entryValue = translate(list.get(i), elementNode);
             _path.removeLast();
             dataList.add(entryValue);
           }
@@ -284,46 +299,47 @@ public class DataTranslator implements DataTranslatorContext
           break;
         case RECORD:
           GenericRecord record = (GenericRecord) value;
-          RecordDataSchema recordDataSchema = (RecordDataSchema) dereferencedDataSchema;
-          dataMap = new DataMap(avroSchema.getFields().size());
-          for (RecordDataSchema.Field field : recordDataSchema.getFields())
+          dataMap = new DataMap(node._avroSchema.getFields().size());
+          for (DataTranslationPlan.FieldNode fieldNode : node._fields)
           {
-            String fieldName = field.getName();
+            String fieldName = fieldNode._name;
             Object fieldValue = record.get(fieldName);
-            // fieldValue could be null if the Avro schema does not contain the named field or
-            // the field is present with a null value. In either case we do not add a value
-            // to the translated DataMap. We do not consider optional/required/default here
-            // either (i.e. it is not an error if a required field is missing); the user can
+            // fieldValue could be null if the field is present with a null value. Fields without
+            // a counterpart in the Avro schema are not part of the plan. In either case we do not
+            // add a value to the translated DataMap. We do not consider optional/required/default
+            // here either (i.e. it is not an error if a required field is missing); the user can
             // later call ValidateDataAgainstSchema with various
             // settings for RequiredMode to obtain the desired behaviour.
             if (fieldValue == null)
             {
               continue;
             }
-            boolean isOptional = field.getOptional();
-            DataSchema fieldDataSchema = field.getType();
-            Schema fieldAvroSchema = avroSchema.getField(fieldName).schema();
-            if (isOptional && (fieldDataSchema.getDereferencedType() != DataSchema.Type.UNION))
+            if (fieldNode._error != null)
+            {
+              throw fieldNode._error;
+            }
+            if (fieldNode._optionalNonUnion)
             {
               // Avro schema should be union with 2 types: null and the field's type.
-              Map.Entry<String, Schema> fieldAvroEntry = findUnionMember(fieldDataSchema, fieldAvroSchema);
-              if (fieldAvroEntry == null)
+              DataTranslationPlan.UnionMember fieldMember = fieldNode._valueMember;
+              if (fieldMember._node == null)
               {
+                appendMessage("cannot find %1$s in union %2$s", fieldMember._key, fieldMember._avroSchema);
                 continue;
               }
-              fieldAvroSchema = fieldAvroEntry.getValue();
             }
             _path.addLast(fieldName);
-            dataMap.put(fieldName, translate(fieldValue, fieldDataSchema, fieldAvroSchema));
+            dataMap.put(fieldName, translate(fieldValue, fieldNode._node));
             _path.removeLast();
           }
           result = dataMap;
           break;
         case UNION:
-          UnionDataSchema unionDataSchema = (UnionDataSchema) dereferencedDataSchema;
-          Map.Entry<DataSchema, Schema> memberSchemas = findUnionMemberSchema(value, unionDataSchema, avroSchema);
-          if (memberSchemas == null)
+          int index = _genericData.resolveUnion(node._avroSchema, value);
+          DataTranslationPlan.UnionMember member = node._membersByIndex[index];
+          if (member._node == null)
           {
+            appendMessage("cannot find %1$s in union %2$s for value %3$s", member._key, node._dereferencedDataSchema, value);
             result = BAD_RESULT;
             break;
           }
@@ -334,81 +350,38 @@ public class DataTranslator implements DataTranslatorContext
           }
           else
           {
-            DataSchema memberDataSchema = memberSchemas.getKey();
-            Schema memberAvroSchema = memberSchemas.getValue();
-            String key = memberDataSchema.getUnionMemberKey();
+            String key = member._key;
             dataMap = new DataMap(1);
             _path.addLast(key);
-            dataMap.put(key, translate(value, memberDataSchema, memberAvroSchema));
+            dataMap.put(key, translate(value, member._node));
             _path.removeLast();
             result = dataMap;
           }
           break;
         default:
-          appendMessage("schema type unknown %1$s", dereferencedDataSchema.getType()) ;
+          appendMessage("schema type unknown %1$s", node._type) ;
           result = BAD_RESULT;
           break;
       }
       return result;
     }
-
-    private final Map.Entry<DataSchema, Schema> findUnionMemberSchema(Object value, UnionDataSchema unionDataSchema, Schema avroSchema)
-    {
-      int index = _genericData.resolveUnion(avroSchema, value);
-      Schema memberAvroSchema = avroSchema.getTypes().get(index);
-      String key;
-      switch (memberAvroSchema.getType())
-      {
-        case ENUM:
-        case FIXED:
-        case RECORD:
-          key = memberAvroSchema.getFullName();
-          break;
-        default:
-          key = memberAvroSchema.getType().toString().toLowerCase();
-      }
-      DataSchema memberDataSchema = unionDataSchema.getType(key);
-      if (memberDataSchema == null)
-      {
-        for (DataSchema dataSchema : unionDataSchema.getTypes())
-        {
-          AvroOverride avroOverride = getAvroOverride(dataSchema);
-          if (avroOverride != null)
-          {
-            if (avroOverride.getAvroSchemaFullName().equals(key))
-            {
-              memberDataSchema = dataSchema;
-              break;
-            }
-          }
-        }
-      }
-      if (memberDataSchema == null)
-      {
-        appendMessage("cannot find %1$s in union %2$s for value %3$s", key, unionDataSchema, value);
-        return null;
-      }
-      return new AbstractMap.SimpleEntry<DataSchema, Schema>(memberDataSchema, memberAvroSchema);
-    }
   }
 
   private static class DataMapToGenericRecordTranslator extends DataTranslator
   {
     private static final Object BAD_RESULT = CustomDataTranslator.AVRO_BAD_RESULT;
-    private final AvroAdapter _avroAdapter = AvroAdapterFinder.getAvroAdapter();
 
-    private Object translate(Object value, DataSchema dataSchema, Schema avroSchema)
+    private Object translate(Object value, DataTranslationPlan.Node node)
     {
-      AvroOverride avroOverride = getAvroOverride(dataSchema);
+      checkNode(node);
+      AvroOverride avroOverride = node._avroOverride;
       if (avroOverride != null)
       {
-        return avroOverride.getCustomDataTranslator().dataToAvroGeneric(this, value, dataSchema, avroSchema);
+        return customDataTranslator(avroOverride).dataToAvroGeneric(this, value, node._dataSchema, node._avroSchema);
       }
 
-      DataSchema dereferencedDataSchema = dataSchema.getDereferencedDataSchema();
-      DataSchema.Type type = dereferencedDataSchema.getType();
       Object result;
-      switch (type)
+      switch (node._type)
       {
         case NULL:
           if (value != Data.NULL)
@@ -442,40 +415,40 @@ public class DataTranslator implements DataTranslatorContext
           break;
         case ENUM:
           String enumValue = value.toString();
-          EnumDataSchema enumDataSchema = (EnumDataSchema) dereferencedDataSchema;
-          if (enumDataSchema.getSymbols().contains(enumValue) == false)
+          Object enumSymbol = node._enumSymbols.get(enumValue);
+          if (enumSymbol == null)
           {
-            appendMessage("enum value %1$s not one of %2$s", enumValue, enumDataSchema.getSymbols());
+            appendMessage("enum value %1$s not one of %2$s",
+                          enumValue,
+                          ((EnumDataSchema) node._dereferencedDataSchema).getSymbols());
             result = BAD_RESULT;
             break;
           }
-          result = _avroAdapter.createEnumSymbol(avroSchema, enumValue);
+          result = enumSymbol;
           break;
         case FIXED:
           byte[] bytes = translateBytes(value);
-          FixedDataSchema fixedDataSchema = (FixedDataSchema) dereferencedDataSchema;
-          if (fixedDataSchema.getSize() != bytes.length)
+          if (node._fixedSize != bytes.length)
           {
             appendMessage("ByteString size %1$d != FixedDataSchema size %2$d",
                           bytes.length,
-                          fixedDataSchema.getSize());
+                          node._fixedSize);
             result = null;
             break;
           }
-          GenericData.Fixed fixed = new GenericData.Fixed(avroSchema);
+          GenericData.Fixed fixed = new GenericData.Fixed(node._avroSchema);
           fixed.bytes(bytes);
           result = fixed;
           break;
         case MAP:
           DataMap map = (DataMap) value;
-          DataSchema valueDataSchema = ((MapDataSchema) dereferencedDataSchema).getValues();
-          Schema valueAvroSchema = avroSchema.getValueType();
+          DataTranslationPlan.Node valueNode = node._itemNode;
           Map<String, Object> avroMap = new HashMap<String, Object>(map.size());
           for (Map.Entry<String, Object> entry : map.entrySet())
           {
             String key = entry.getKey();
             _path.addLast(key);
-            Object entryAvroValue = translate(entry.getValue(), valueDataSchema, valueAvroSchema);
+            Object entryAvroValue = translate(entry.getValue(), valueNode);
             _path.removeLast();
             avroMap.put(key, entryAvroValue);
           }
@@ -483,13 +456,12 @@ public class DataTranslator implements DataTranslatorContext
           break;
         case ARRAY:
           DataList list = (DataList) value;
-          DataSchema elementDataSchema = ((ArrayDataSchema) dereferencedDataSchema).getItems();
-          Schema elementAvroSchema = avroSchema.getElementType();
-          GenericData.Array<Object> avroList = new GenericData.Array<Object>(list.size(), avroSchema);
+          DataTranslationPlan.Node elementNode = node._itemNode;
+          GenericData.Array<Object> avroList = new GenericData.Array<Object>(list.size(), node._avroSchema);
           for (int i = 0; i < list.size(); i++)
           {
             _path.addLast(i);
-            Object entryAvroValue = translate(list.get(i), elementDataSchema, elementAvroSchema);
+            Object entryAvroValue = translate(list.get(i), elementNode);
             _path.removeLast();
             avroList.add(entryAvroValue);
           }
@@ -497,57 +469,52 @@ public class DataTranslator implements DataTranslatorContext
           break;
         case RECORD:
           map = (DataMap) value;
-          RecordDataSchema recordDataSchema = (RecordDataSchema) dereferencedDataSchema;
-          GenericData.Record avroRecord = new GenericData.Record(avroSchema);
-          for (RecordDataSchema.Field field : recordDataSchema.getFields())
+          GenericData.Record avroRecord = new GenericData.Record(node._avroSchema);
+          // fields present in Pegasus schema without a field in the Avro schema are not part of the plan.
+          // TODO: Whether and how to indicate this condition to clients.
+          for (DataTranslationPlan.FieldNode fieldNode : node._fields)
           {
-            String fieldName = field.getName();
-            DataSchema fieldDataSchema = field.getType();
-            Schema.Field avroField = avroSchema.getField(fieldName);
-            if (avroField == null)
+            String fieldName = fieldNode._name;
+            _path.addLast(fieldName);
+            if (fieldNode._error != null)
             {
-              // field present in input but there is no field for it in Avro schema.
-              // TODO: Whether and how to indicate this condition to clients.
-              continue;
+              throw fieldNode._error;
             }
-            _path.addLast(fieldName);
-            Schema fieldAvroSchema = avroField.schema();
             Object fieldValue = map.get(fieldName);
-            boolean isOptional = field.getOptional();
-            if (isOptional)
+            DataTranslationPlan.Node fieldValueNode = fieldNode._node;
+            if (fieldNode._optionalNonUnion)
             {
-              if (fieldDataSchema.getDereferencedType() != DataSchema.Type.UNION)
+              DataTranslationPlan.UnionMember fieldMember =
+                (fieldValue == null ? fieldNode._nullMember : fieldNode._valueMember);
+              if (fieldMember._node == null)
               {
-                if (fieldValue == null)
-                {
-                  fieldValue = Data.NULL;
-                  fieldDataSchema = DataSchemaConstants.NULL_DATA_SCHEMA;
-                }
-                Map.Entry<String, Schema> fieldAvroEntry = findUnionMember(fieldDataSchema, fieldAvroSchema);
-                if (fieldAvroEntry == null)
-                {
-                  _path.removeLast();
-                  continue;
-                }
-                fieldAvroSchema = fieldAvroEntry.getValue();
+                appendMessage("cannot find %1$s in union %2$s", fieldMember._key, fieldMember._avroSchema);
+                _path.removeLast();
+                continue;
               }
-              else
+              if (fieldValue == null)
+              {
+                fieldValue = Data.NULL;
+              }
+              fieldValueNode = fieldMember._node;
+            }
+            else if (fieldNode._optionalUnion)
+            {
+              // already a union
+              if (fieldValue == null)
               {
-                // already a union
-                if (fieldValue == null)
-                {
-                  // field is not present
-                  fieldValue = Data.NULL;
-                  fieldDataSchema = DataSchemaConstants.NULL_DATA_SCHEMA;
-                }
+                // field is not present
+                avroRecord.put(fieldName, null);
+                _path.removeLast();
+                continue;
               }
             }
             else if (fieldValue == null)
             {
-              Object defaultValue = field.getDefault();
+              Object defaultValue = fieldNode._field.getDefault();
               if (defaultValue != null)
               {
-                Object fieldAvroValue = translate(defaultValue, fieldDataSchema, fieldAvroSchema);
+                Object fieldAvroValue = translate(defaultValue, fieldValueNode);
                 avroRecord.put(fieldName, fieldAvroValue);
               }
               else
@@ -557,14 +524,13 @@ public class DataTranslator implements DataTranslatorContext
               _path.removeLast();
               continue;
             }
-            Object fieldAvroValue = translate(fieldValue, fieldDataSchema, fieldAvroSchema);
+            Object fieldAvroValue = translate(fieldValue, fieldValueNode);
             avroRecord.put(fieldName, fieldAvroValue);
             _path.removeLast();
           }
           result = avroRecord;
           break;
         case UNION:
-          UnionDataSchema unionDataSchema = (UnionDataSchema) dereferencedDataSchema;
           String key;
           Object memberValue;
           if (value == Data.NULL)
@@ -579,21 +545,20 @@ public class DataTranslator implements DataTranslatorContext
             key = entry.getKey();
             memberValue = entry.getValue();
           }
-          DataSchema memberDataSchema = unionDataSchema.getType(key);
-          Map.Entry<String, Schema> memberAvroEntry = findUnionMember(memberDataSchema, avroSchema);
-          if (memberAvroEntry == null)
+          DataTranslationPlan.UnionMember member = node._membersByKey.get(key);
+          if (member == null || member._node == null)
           {
+            appendMessage("cannot find %1$s in union %2$s", member == null ? key : member._key, node._avroSchema);
             result = BAD_RESULT;
             break;
           }
-          Schema memberAvroSchema = memberAvroEntry.getValue();
-          _path.addLast(memberAvroEntry.getKey());
-          Object memberAvroValue = translate(memberValue, memberDataSchema, memberAvroSchema);
+          _path.addLast(member._key);
+          Object memberAvroValue = translate(memberValue, member._node);
           _path.removeLast();
           result = memberAvroValue;
           break;
         default:
-          appendMessage("schema type unknown %1$s", dereferencedDataSchema.getType());
+          appendMessage("schema type unknown %1$s", node._type);
           result = BAD_RESULT;
           break;
       }
@@ -601,32 +566,7 @@ public class DataTranslator implements DataTranslatorContext
     }
   }
 
-  protected Map.Entry<String, Schema> findUnionMember(DataSchema dataSchema, Schema avroSchema)
-  {
-    AvroOverride avroOverride = getAvroOverride(dataSchema);
-    String key = (avroOverride == null ? dataSchema.getUnionMemberKey() : avroOverride.getAvroSchemaFullName());
-    List<Schema> members = avroSchema.getTypes();
-    for (Schema member : members)
-    {
-      String name;
-      switch (member.getType())
-      {
-        case ENUM:
-        case FIXED:
-        case RECORD:
-          name = member.getFullName();
-          break;
-        default:
-          name = member.getType().toString().toLowerCase();
-      }
-      if (name.equals(key))
-        return new AbstractMap.SimpleEntry<String, Schema>(name, member);
-    }
-    appendMessage("cannot find %1$s in union %2$s", key, avroSchema);
-    return null;
-  }
-
-  private static byte[] translateBytes(Object value)
+  static byte[] translateBytes(Object value)
   {
     byte[] bytes = (value.getClass() == ByteString.class) ?
       ((ByteString) value).copyBytes() :
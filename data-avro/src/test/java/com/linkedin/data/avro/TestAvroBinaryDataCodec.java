@@ -0,0 +1,139 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.data.avro;
+
+import com.linkedin.data.DataMap;
+import com.linkedin.data.TestUtil;
+import com.linkedin.data.avro.util.AvroUtil;
+import com.linkedin.data.schema.RecordDataSchema;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+
+public class TestAvroBinaryDataCodec
+{
+  private static final String SCHEMA =
+    "{\n" +
+    "  \"type\" : \"record\",\n" +
+    "  \"name\" : \"Foo\",\n" +
+    "  \"namespace\" : \"com.linkedin.test\",\n" +
+    "  \"fields\" : [\n" +
+    "    { \"name\" : \"int\", \"type\" : \"int\" },\n" +
+    "    { \"name\" : \"long\", \"type\" : \"long\", \"optional\" : true },\n" +
+    "    { \"name\" : \"float\", \"type\" : \"float\", \"default\" : 1.5 },\n" +
+    "    { \"name\" : \"double\", \"type\" : \"double\", \"optional\" : true },\n" +
+    "    { \"name\" : \"boolean\", \"type\" : \"boolean\", \"optional\" : true },\n" +
+    "    { \"name\" : \"string\", \"type\" : { \"type\" : \"typeref\", \"name\" : \"StringRef\", \"ref\" : \"string\" }, \"optional\" : true },\n" +
+    "    { \"name\" : \"bytes\", \"type\" : \"bytes\", \"optional\" : true },\n" +
+    "    { \"name\" : \"enum\", \"type\" : { \"type\" : \"enum\", \"name\" : \"Fruits\", \"symbols\" : [ \"APPLE\", \"ORANGE\" ] }, \"optional\" : true },\n" +
+    "    { \"name\" : \"fixed\", \"type\" : { \"type\" : \"fixed\", \"name\" : \"Fixed2\", \"size\" : 2 }, \"optional\" : true },\n" +
+    "    { \"name\" : \"array\", \"type\" : { \"type\" : \"array\", \"items\" : \"int\" }, \"optional\" : true },\n" +
+    "    { \"name\" : \"map\", \"type\" : { \"type\" : \"map\", \"values\" : \"string\" }, \"optional\" : true },\n" +
+    "    { \"name\" : \"union\", \"type\" : [ \"null\", \"int\", \"string\", { \"type\" : \"record\", \"name\" : \"Bar\", \"fields\" : [ { \"name\" : \"x\", \"type\" : \"int\" } ] } ], \"optional\" : true },\n" +
+    "    { \"name\" : \"unionWithoutNull\", \"type\" : [ \"int\", \"Bar\" ], \"optional\" : true },\n" +
+    "    { \"name\" : \"record\", \"type\" : \"Bar\", \"optional\" : true },\n" +
+    "    { \"name\" : \"next\", \"type\" : \"Foo\", \"optional\" : true }\n" +
+    "  ]\n" +
+    "}\n";
+
+  @DataProvider
+  public Object[][] validData()
+  {
+    return new Object[][]
+    {
+      { "{ \"int\" : 1 }" },
+      { "{ \"int\" : 1, \"float\" : 2.5 }" },
+      { "{ \"int\" : -1, \"long\" : 1234567890123, \"double\" : 3.25, \"boolean\" : true, \"string\" : \"\\u00e9t\\u00e9\" }" },
+      { "{ \"int\" : 1, \"bytes\" : \"\\u0000\\u00ff\", \"enum\" : \"ORANGE\", \"fixed\" : \"\\u0001\\u0002\" }" },
+      { "{ \"int\" : 1, \"array\" : [ 1, 2, 3 ], \"map\" : { \"key\" : \"value\" } }" },
+      { "{ \"int\" : 1, \"array\" : [], \"map\" : {} }" },
+      { "{ \"int\" : 1, \"union\" : null }" },
+      { "{ \"int\" : 1, \"union\" : { \"int\" : 5 } }" },
+      { "{ \"int\" : 1, \"union\" : { \"string\" : \"s\" } }" },
+      { "{ \"int\" : 1, \"union\" : { \"com.linkedin.test.Bar\" : { \"x\" : 7 } } }" },
+      { "{ \"int\" : 1, \"unionWithoutNull\" : { \"com.linkedin.test.Bar\" : { \"x\" : 7 } } }" },
+      { "{ \"int\" : 1, \"record\" : { \"x\" : 8 } }" },
+      { "{ \"int\" : 1, \"next\" : { \"int\" : 2, \"next\" : { \"int\" : 3, \"record\" : { \"x\" : 9 } } } }" }
+    };
+  }
+
+  @Test(dataProvider = "validData")
+  public void testMatchesDataTranslator(String json) throws IOException
+  {
+    final RecordDataSchema dataSchema = (RecordDataSchema) TestUtil.dataSchemaFromString(SCHEMA);
+    final Schema avroSchema = SchemaTranslator.dataToAvroSchema(dataSchema);
+    final AvroBinaryDataCodec codec = new AvroBinaryDataCodec(dataSchema, avroSchema);
+    final DataMap input = TestUtil.dataMapFromString(json);
+
+    final byte[] bytes = codec.mapToBytes(input);
+    final GenericRecord record = DataTranslator.dataMapToGenericRecord(input, dataSchema, avroSchema);
+    assertEquals(bytes, AvroUtil.bytesFromGenericRecord(record));
+
+    final DataMap expected = DataTranslator.genericRecordToDataMap(AvroUtil.genericRecordFromBytes(bytes, avroSchema), dataSchema, avroSchema);
+    assertEquals(codec.bytesToMap(bytes), expected);
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    codec.writeMap(input, out);
+    assertEquals(out.toByteArray(), bytes);
+    assertEquals(codec.readMap(new ByteArrayInputStream(bytes)), expected);
+  }
+
+  @DataProvider
+  public Object[][] invalidData()
+  {
+    return new Object[][]
+    {
+      { "{ }", "Error processing /int" },
+      { "{ \"int\" : \"string\" }", "Error processing /int" },
+      { "{ \"int\" : 1, \"enum\" : \"BANANA\" }", "enum value BANANA not one of [APPLE, ORANGE]" },
+      { "{ \"int\" : 1, \"fixed\" : \"\\u0001\" }", "ByteString size 1 != FixedDataSchema size 2" },
+      { "{ \"int\" : 1, \"union\" : { \"long\" : 5 } }", "Error processing /union" },
+      { "{ \"int\" : 1, \"array\" : [ 1, \"two\" ] }", "Error processing /array/1" },
+      { "{ \"int\" : 1, \"next\" : { \"long\" : 2 } }", "Error processing /next/int" }
+    };
+  }
+
+  @Test(dataProvider = "invalidData")
+  public void testInvalidData(String json, String expectedMessage) throws IOException
+  {
+    final AvroBinaryDataCodec codec = new AvroBinaryDataCodec((RecordDataSchema) TestUtil.dataSchemaFromString(SCHEMA));
+    try
+    {
+      codec.mapToBytes(TestUtil.dataMapFromString(json));
+      fail("Expected DataTranslationException");
+    }
+    catch (DataTranslationException e)
+    {
+      assertTrue(e.getMessage().contains(expectedMessage), e.getMessage());
+    }
+  }
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void testListsUnsupported() throws IOException
+  {
+    new AvroBinaryDataCodec((RecordDataSchema) TestUtil.dataSchemaFromString(SCHEMA)).bytesToList(new byte[0]);
+  }
+}
@@ -36,6 +36,8 @@ import org.testng.annotations.Test;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 public class TestDataTranslator
@@ -954,5 +956,34 @@ public class TestDataTranslator
     assertEquals(record.get("field2"),  new GenericData.Array<>(0, Schema.createArray(
         Schema.create(Schema.Type.STRING))));
   }
-}
 
+  @Test
+  public void testTranslationPlanCachedPerSchemaPair() throws IOException
+  {
+    final String SCHEMA =
+        "{" +
+            "   \"type\":\"record\"," +
+            "   \"name\":\"Foo\"," +
+            "   \"fields\":[" +
+            "      { \"name\":\"field1\", \"type\":\"string\" }," +
+            "      { \"name\":\"field2\", \"type\":\"Foo\", \"optional\":true }," +
+            "      { \"name\":\"field3\", \"type\":{ \"type\":\"enum\", \"name\":\"Fruits\", \"symbols\":[ \"APPLE\", \"ORANGE\" ] } }" +
+            "   ]" +
+            "}";
+    RecordDataSchema pegasusSchema = (RecordDataSchema) TestUtil.dataSchemaFromString(SCHEMA);
+    Schema avroSchema = SchemaTranslator.dataToAvroSchema(pegasusSchema);
+    Schema otherAvroSchema = SchemaTranslator.dataToAvroSchema(pegasusSchema);
+
+    DataTranslationPlan plan = DataTranslationPlan.getPlan(pegasusSchema, avroSchema);
+    assertSame(DataTranslationPlan.getPlan(pegasusSchema, avroSchema), plan);
+    assertNotSame(DataTranslationPlan.getPlan(pegasusSchema, otherAvroSchema), plan);
+
+    DataMap dataMap = TestUtil.dataMapFromString(
+      "{ \"field1\" : \"a\", \"field2\" : { \"field1\" : \"b\", \"field3\" : \"ORANGE\" }, \"field3\" : \"APPLE\" }");
+    for (Schema schema : new Schema[] { avroSchema, avroSchema, otherAvroSchema })
+    {
+      GenericRecord record = DataTranslator.dataMapToGenericRecord(dataMap, pegasusSchema, schema);
+      assertEquals(DataTranslator.genericRecordToDataMap(record, pegasusSchema, schema), dataMap);
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.data.avro.performance;
+
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.TestUtil;
+import com.linkedin.data.avro.AvroBinaryDataCodec;
+import com.linkedin.data.avro.DataTranslator;
+import com.linkedin.data.avro.SchemaTranslator;
+import com.linkedin.data.avro.util.AvroUtil;
+import com.linkedin.data.schema.RecordDataSchema;
+import java.io.IOException;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+
+/**
+ * Compares {@link AvroBinaryDataCodec} with translating through {@link GenericRecord} and encoding with Avro.
+ */
+public class TestAvroBinaryDataCodecPerformance
+{
+  private static final String SCHEMA =
+    "{\n" +
+    "  \"type\" : \"record\",\n" +
+    "  \"name\" : \"Event\",\n" +
+    "  \"fields\" : [\n" +
+    "    { \"name\" : \"id\", \"type\" : \"long\" },\n" +
+    "    { \"name\" : \"name\", \"type\" : \"string\" },\n" +
+    "    { \"name\" : \"score\", \"type\" : \"double\", \"optional\" : true },\n" +
+    "    { \"name\" : \"kind\", \"type\" : { \"type\" : \"enum\", \"name\" : \"Kind\", \"symbols\" : [ \"VIEW\", \"CLICK\" ] } },\n" +
+    "    { \"name\" : \"tags\", \"type\" : { \"type\" : \"array\", \"items\" : \"string\" } },\n" +
+    "    { \"name\" : \"payload\", \"type\" : [ \"int\", \"string\" ], \"optional\" : true },\n" +
+    "    { \"name\" : \"items\", \"type\" : { \"type\" : \"array\", \"items\" : { \"type\" : \"record\", \"name\" : \"Item\", \"fields\" : [\n" +
+    "      { \"name\" : \"sku\", \"type\" : \"string\" },\n" +
+    "      { \"name\" : \"quantity\", \"type\" : \"int\" }\n" +
+    "    ] } } }\n" +
+    "  ]\n" +
+    "}\n";
+
+  @Test
+  public void measureEncodeDecode() throws IOException
+  {
+    final int recordCount = 20000;
+    final int rounds = 5;
+
+    final RecordDataSchema dataSchema = (RecordDataSchema) TestUtil.dataSchemaFromString(SCHEMA);
+    final Schema avroSchema = SchemaTranslator.dataToAvroSchema(dataSchema);
+    final AvroBinaryDataCodec codec = new AvroBinaryDataCodec(dataSchema, avroSchema);
+    final DataMap event = createEvent();
+    final byte[] bytes = codec.mapToBytes(event);
+    assertEquals(AvroUtil.bytesFromGenericRecord(DataTranslator.dataMapToGenericRecord(event, dataSchema, avroSchema)), bytes);
+
+    for (int round = 0; round < rounds; round++)
+    {
+      long start = System.nanoTime();
+      for (int i = 0; i < recordCount; i++)
+      {
+        AvroUtil.bytesFromGenericRecord(DataTranslator.dataMapToGenericRecord(event, dataSchema, avroSchema));
+      }
+      final long genericEncode = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < recordCount; i++)
+      {
+        codec.mapToBytes(event);
+      }
+      final long directEncode = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < recordCount; i++)
+      {
+        DataTranslator.genericRecordToDataMap(AvroUtil.genericRecordFromBytes(bytes, avroSchema), dataSchema, avroSchema);
+      }
+      final long genericDecode = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < recordCount; i++)
+      {
+        codec.bytesToMap(bytes);
+      }
+      final long directDecode = System.nanoTime() - start;
+
+      System.out.println("Round " + round + " (" + recordCount + " records):");
+      System.out.println("  encode via GenericRecord (ms): " + genericEncode / 1000000);
+      System.out.println("  encode direct (ms): " + directEncode / 1000000);
+      System.out.println("  decode via GenericRecord (ms): " + genericDecode / 1000000);
+      System.out.println("  decode direct (ms): " + directDecode / 1000000);
+    }
+
+    System.out.flush();
+  }
+
+  private static DataMap createEvent()
+  {
+    final DataList tags = new DataList();
+    tags.add("mobile");
+    tags.add("feed");
+
+    final DataList items = new DataList();
+    for (int i = 0; i < 5; i++)
+    {
+      final DataMap item = new DataMap();
+      item.put("sku", "sku-" + i);
+      item.put("quantity", i);
+      items.add(item);
+    }
+
+    final DataMap payload = new DataMap();
+    payload.put("string", "payload");
+
+    final DataMap event = new DataMap();
+    event.put("id", 1234567890123L);
+    event.put("name", "page view");
+    event.put("score", 0.75);
+    event.put("kind", "CLICK");
+    event.put("tags", tags);
+    event.put("payload", payload);
+    event.put("items", items);
+    return event;
+  }
+}
@@ -18,6 +18,9 @@
 package com.linkedin.data;
 
 
+import com.linkedin.data.codec.BufferAllocator;
+import com.linkedin.data.codec.BufferChain;
+import com.linkedin.data.codec.DataCodec;
 import com.linkedin.data.codec.JacksonDataCodec;
 import com.linkedin.data.codec.PsonDataCodec;
 import com.linkedin.util.ArgumentUtil;
@@ -52,6 +55,7 @@ public final class ByteString
   private static final PsonDataCodec PSON_DATA_CODEC = new PsonDataCodec();
   private static final JacksonDataCodec JACKSON_DATA_CODEC = new JacksonDataCodec();
   private static final ByteString EMPTY = new ByteString(new byte[0]);
+  private static final int DEFAULT_ENCODING_BUFFER_SIZE = 4096;
 
   // backing data structure
   private final ByteArrayVector _byteArrays;
@@ -199,7 +203,7 @@ public final class ByteString
    */
   public static ByteString copyFromDataMapAsJson(DataMap dataMap) throws IOException
   {
-    return new ByteString(JACKSON_DATA_CODEC.mapToBytes(dataMap));
+    return copyFromDataMap(dataMap, JACKSON_DATA_CODEC);
   }
 
   /**
@@ -210,7 +214,62 @@ public final class ByteString
    */
   public static ByteString copyFromDataMapAsPson(DataMap dataMap) throws IOException
   {
-    return new ByteString(PSON_DATA_CODEC.mapToBytes(dataMap));
+    return copyFromDataMap(dataMap, PSON_DATA_CODEC);
+  }
+
+  /**
+   * Returns a new {@link ByteString} that wraps the bytes generated by serializing the dataMap with the given codec.
+   *
+   * The codec writes directly into the buffer that backs the returned {@link ByteString}, so unlike wrapping the
+   * result of {@link DataCodec#mapToBytes(DataMap)} no intermediate byte array is allocated and copied.
+   *
+   * @param dataMap dataMap that will be serialized
+   * @param codec codec used to serialize the dataMap
+   * @return a {@link ByteString} that wraps the generated bytes
+   * @throws IOException if fail to serialize {@code dataMap} with {@code codec}.
+   */
+  public static ByteString copyFromDataMap(DataMap dataMap, DataCodec codec) throws IOException
+  {
+    ArgumentUtil.notNull(dataMap, "dataMap");
+    ArgumentUtil.notNull(codec, "codec");
+    final NoCopyByteArrayOutputStream bos = new NoCopyByteArrayOutputStream(DEFAULT_ENCODING_BUFFER_SIZE);
+    codec.writeMap(dataMap, bos);
+    return bos.getBytesCount() == 0 ? empty() : new ByteString(bos.getBytes(), 0, bos.getBytesCount());
+  }
+
+  /**
+   * Returns a new {@link ByteString} that contains the bytes generated by serializing the dataMap with the given
+   * codec, using buffers obtained from the given allocator as scratch space.
+   *
+   * The codec writes into fixed size buffers which are returned to the allocator before this method returns, and
+   * the bytes are then copied once into an array of their exact size. Compared to
+   * {@link #copyFromDataMap(DataMap, DataCodec)}, this does not grow an array while encoding and the returned
+   * {@link ByteString} does not retain unused capacity, at the cost of one copy. It pays off for large values when
+   * the allocator recycles its buffers, e.g. {@link com.linkedin.data.codec.RecyclingBufferAllocator}.
+   *
+   * @param dataMap dataMap that will be serialized
+   * @param codec codec used to serialize the dataMap
+   * @param allocator allocator of the scratch buffers
+   * @return a {@link ByteString} that contains the generated bytes
+   * @throws IOException if fail to serialize {@code dataMap} with {@code codec}.
+   */
+  public static ByteString copyFromDataMap(DataMap dataMap, DataCodec codec, BufferAllocator allocator)
+      throws IOException
+  {
+    ArgumentUtil.notNull(dataMap, "dataMap");
+    ArgumentUtil.notNull(codec, "codec");
+    ArgumentUtil.notNull(allocator, "allocator");
+    final BufferChain buffer = new BufferChain(BufferChain.DEFAULT_ORDER, BufferChain.DEFAULT_BUFFER_SIZE, allocator);
+    try
+    {
+      codec.writeMap(dataMap, buffer.asOutputStream());
+      final byte[] bytes = buffer.toBytes();
+      return bytes.length == 0 ? empty() : new ByteString(bytes);
+    }
+    finally
+    {
+      buffer.release();
+    }
   }
 
   /**
@@ -522,78 +581,6 @@ public final class ByteString
     return slice(0, prefixBytes.length).equals(new ByteString(prefixBytes));
   }
 
-  //Private class to abstract away iteration over bytes in a compound ByteString. Note that we don't implement
-  //the Iterator interface so that we can avoid autoboxing.
-  private class ByteIterator
-  {
-    private int _currentByteArray;
-    private int _currentByteIndex;
-    private boolean _finished;
-
-    private ByteIterator()
-    {
-      _currentByteArray = 0;
-      _currentByteIndex = 0;
-      _finished = false;
-
-      //Note that there is no need to skip any empty ByteArrays at the beginning (or even while traversing) since the
-      //builder in ByteString skips empty ByteStrings upon construction. This means that we can be sure that each and
-      //every ByteString inside of this (potentially) compound ByteString is non-empty.
-    }
-
-    private ByteIterator(final ByteIterator byteIterator)
-    {
-      _currentByteArray = byteIterator._currentByteArray;
-      _currentByteIndex = byteIterator._currentByteIndex;
-      _finished = byteIterator._finished;
-    }
-
-    private ByteIterator copy()
-    {
-      return new ByteIterator(this);
-    }
-
-    private void next()
-    {
-      //Shift the internal pointer to the next byte.
-      _currentByteIndex++;
-      if(_currentByteIndex == _byteArrays.get(_currentByteArray)._length)
-      {
-        //Check to see if we are finished.
-        if(_currentByteArray + 1 == _byteArrays.getArraySize())
-        {
-          _finished = true;
-          return;
-        }
-
-        //Move to the next ByteArray.
-        _currentByteArray++;
-        _currentByteIndex = 0;
-      }
-    }
-
-    private byte getCurrentByte()
-    {
-      return _byteArrays.get(_currentByteArray).get(_currentByteIndex);
-    }
-
-    private boolean isFinished()
-    {
-      return _finished;
-    }
-
-    private int currentIndex()
-    {
-      int totalLengthCovered = 0;
-      for (int m = 0; m < _currentByteArray; m++)
-      {
-        totalLengthCovered += _byteArrays.get(m)._length;
-      }
-      totalLengthCovered += _currentByteIndex;
-      return totalLengthCovered;
-    }
-  }
-
   /**
    * Returns the starting position (index) of the first occurrence of the specified target byte array within this ByteString or
    * -1 if there is no such occurrence. If the targetBytes are larger then this ByteString, -1 is returned. If the
@@ -605,53 +592,79 @@ public final class ByteString
    */
   public int indexOfBytes(byte[] targetBytes)
   {
+    return indexOfBytes(targetBytes, 0);
+  }
+
+  /**
+   * Returns the starting position (index) of the first occurrence of the specified target byte array within this ByteString,
+   * starting the search at the specified index, or -1 if there is no such occurrence. If the targetBytes are empty, then
+   * the smaller of fromIndex and the length of this ByteString is returned. A negative fromIndex is treated as 0.
+   *
+   * The search walks the backing byte arrays of a compound ByteString directly and does not allocate.
+   *
+   * @param targetBytes the byte array to search for as a sub array within this ByteString.
+   * @param fromIndex the index to start the search from.
+   * @return the starting position of the first occurrence of the specified target byte array at or after fromIndex,
+   *         or -1 if there is no such occurrence.
+   */
+  public int indexOfBytes(byte[] targetBytes, int fromIndex)
+  {
+    final int totalLength = _byteArrays._totalLength;
+    if (fromIndex < 0)
+    {
+      fromIndex = 0;
+    }
+
     if (targetBytes.length == 0)
     {
-      return 0;
+      return Math.min(fromIndex, totalLength);
     }
 
-    if (targetBytes.length > _byteArrays._totalLength)
+    //The last index at which an occurrence may start.
+    final int lastStart = totalLength - targetBytes.length;
+    if (fromIndex > lastStart)
     {
       return -1;
     }
 
-    //Used to abstract away the iteration of all the bytes represented by this compound ByteString.
-    ByteIterator byteIterator = new ByteIterator();
-
-    //This is a reference on where to resume in case we get a mismatch.
-    ByteIterator resumeByteIterator = byteIterator.copy();
-
-    //We skip the first since byteIterator will begin there.
-    resumeByteIterator.next();
-
-    for (int i = 0; i < targetBytes.length;)
+    final byte firstByte = targetBytes[0];
+    final int arraySize = _byteArrays.getArraySize();
+    for (int i = _byteArrays.locate(fromIndex, 0, arraySize - 1); i < arraySize; i++)
     {
-      //If we have exhausted everything in the ByteString, then we return -1.
-      if (byteIterator.isFinished())
+      final ByteArray byteArray = _byteArrays._byteArrays[i];
+      final int arrayStart = _byteArrays._accumulatedLens[i];
+      final byte[] bytes = byteArray._bytes;
+      final int from = Math.max(fromIndex - arrayStart, 0);
+      final int to = Math.min(byteArray._length, lastStart - arrayStart + 1);
+      for (int j = from; j < to; j++)
       {
-        return -1;
+        if (bytes[byteArray._offset + j] == firstByte && remainingBytesMatch(targetBytes, i, j + 1))
+        {
+          return arrayStart + j;
+        }
       }
+    }
+    return -1;
+  }
 
-      final byte b = byteIterator.getCurrentByte();
-      if (b != targetBytes[i])
+  //Returns whether targetBytes, except for the first byte, match the bytes of this ByteString starting at the
+  //specified index of the specified ByteArray. The caller guarantees that enough bytes remain.
+  private boolean remainingBytesMatch(byte[] targetBytes, int arrayIndex, int byteIndex)
+  {
+    ByteArray byteArray = _byteArrays._byteArrays[arrayIndex];
+    for (int k = 1; k < targetBytes.length; k++, byteIndex++)
+    {
+      while (byteIndex == byteArray._length)
       {
-        //There was a mismatch so we reset i and prepare to start over.
-        i = 0;
-        //Update byteIterator to point to the next byte where our comparison will begin.
-        byteIterator = resumeByteIterator;
-        //Keep track of where to resume in the future.
-        resumeByteIterator = resumeByteIterator.copy();
-        //Skip the next since byteIterator will begin there.
-        resumeByteIterator.next();
-        continue;
+        byteArray = _byteArrays._byteArrays[++arrayIndex];
+        byteIndex = 0;
+      }
+      if (byteArray._bytes[byteArray._offset + byteIndex] != targetBytes[k])
+      {
+        return false;
       }
-
-      i++;
-      byteIterator.next();
     }
-
-    //We found a match. Calculate where it started.
-    return byteIterator.currentIndex() - targetBytes.length;
+    return true;
   }
 
   /**
@@ -850,6 +863,16 @@ public final class ByteString
    */
   private static class NoCopyByteArrayOutputStream extends ByteArrayOutputStream
   {
+    NoCopyByteArrayOutputStream()
+    {
+      super();
+    }
+
+    NoCopyByteArrayOutputStream(int size)
+    {
+      super(size);
+    }
+
     byte[] getBytes()
     {
       return super.buf;
@@ -1027,7 +1050,9 @@ public final class ByteString
       ArgumentUtil.checkBounds(_totalLength, offset, length);
 
       int startIndex = locate(offset, 0, _byteArrays.length - 1);
-      int endIndex = locate(offset + length, startIndex, _byteArrays.length - 1);
+      // locate the array holding the last byte, so that a slice ending on an array boundary does not get an empty
+      // trailing array, which would break the byte by byte walk in equals once the slice is composed further
+      int endIndex = length == 0 ? startIndex : locate(offset + length - 1, startIndex, _byteArrays.length - 1);
 
       ByteArray[] byteArrays;
       if (startIndex == endIndex)
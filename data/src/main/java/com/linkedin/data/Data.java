@@ -625,6 +625,20 @@ public class Data
    */
   private static boolean reachable(DataComplex source, Object destination)
   {
+    if (source.isMadeReadOnly())
+    {
+      // only read-only objects are reachable from a read-only object, and destination is being mutated.
+      return false;
+    }
+    DataComplexTable pendingCopy = pendingCopy(source);
+    if (pendingCopy != null)
+    {
+      // do not trigger the lazy copy, search the copies that have been made instead.
+      synchronized (pendingCopy)
+      {
+        return reachableFromCopies(pendingValues(source), pendingCopy, destination);
+      }
+    }
     Collection<Object> values = source.values();
     for (Object value : values)
     {
@@ -636,6 +650,46 @@ public class Data
     return false;
   }
 
+  /**
+   * Return whether a destination complex object is reachable from the copies of
+   * read-only values that are being copied lazily.
+   *
+   * A read-only value that has not been copied yet may reference values that
+   * have been copied, and those copies may have been modified.
+   *
+   * @param readOnlyValues provides the read-only values.
+   * @param alreadyCopied provides the objects already copied, and their copies.
+   * @param destination is the object to find.
+   * @return true if destination is reachable from the copies.
+   */
+  private static boolean reachableFromCopies(Collection<Object> readOnlyValues, DataComplexTable alreadyCopied, Object destination)
+  {
+    for (Object value : readOnlyValues)
+    {
+      if (value instanceof DataComplex)
+      {
+        DataComplex copy = alreadyCopied.get((DataComplex) value);
+        if (copy == null ?
+            reachableFromCopies(((DataComplex) value).values(), alreadyCopied, destination) :
+            copy == destination || reachable(copy, destination))
+        {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static DataComplexTable pendingCopy(DataComplex complex)
+  {
+    return (complex instanceof DataMap) ? ((DataMap) complex).pendingCopy() : ((DataList) complex).pendingCopy();
+  }
+
+  private static Collection<Object> pendingValues(DataComplex complex)
+  {
+    return (complex instanceof DataMap) ? ((DataMap) complex).pendingValues() : ((DataList) complex).pendingValues();
+  }
+
   /**
    * Return whether the input object is Data object.
    *
@@ -758,6 +812,19 @@ public class Data
       {
         return found;
       }
+      else if (src.isMadeReadOnly())
+      {
+        // the read-only object cannot change, so its internal state is shared and
+        // the complex objects it references are copied when they are first accessed.
+        DataComplex clone = (src instanceof DataMap) ?
+          ((DataMap) src).lazyCopy(alreadyCopied) :
+          ((DataList) src).lazyCopy(alreadyCopied);
+        alreadyCopied.put(src, clone);
+
+        @SuppressWarnings("unchecked")
+        T converted = (T) clone;
+        return converted;
+      }
       else
       {
         DataComplex clone = src.clone();
@@ -787,6 +854,71 @@ public class Data
     }
   }
 
+  /**
+   * Return an immutable snapshot of a Data object.
+   *
+   * Complex objects that have already been made read-only are immutable and are
+   * shared with the snapshot instead of being copied. Other complex objects are
+   * shallow copied, the objects they reference are snapshotted, and the copy is
+   * made read-only. Primitive objects are not copied.
+   *
+   * @param object is the object to snapshot.
+   * @param alreadyCopied provides the objects that have already been copied.
+   * @return the snapshot.
+   * @throws CloneNotSupportedException if the complex object cannot be copied.
+   */
+  static <T> T snapshot(T object, DataComplexTable alreadyCopied) throws CloneNotSupportedException
+  {
+    if (object == null)
+    {
+      return null;
+    }
+    else if (isComplex(object))
+    {
+      DataComplex src = (DataComplex) object;
+      if (src.isMadeReadOnly())
+      {
+        return object;
+      }
+
+      @SuppressWarnings("unchecked")
+      T found = (T) alreadyCopied.get(src);
+
+      if (found != null)
+      {
+        return found;
+      }
+      else
+      {
+        DataComplex clone = src.clone();
+        alreadyCopied.put(src, clone);
+
+        if (clone instanceof DataMap)
+        {
+          ((DataMap)clone).snapshotReferencedObjects(alreadyCopied);
+        }
+        else if (clone instanceof DataList)
+        {
+          ((DataList)clone).snapshotReferencedObjects(alreadyCopied);
+        }
+        // referenced complex objects are already read-only, so this does not walk the graph again.
+        clone.makeReadOnly();
+
+        @SuppressWarnings("unchecked")
+        T converted = (T) clone;
+        return converted;
+      }
+    }
+    else if (isPrimitive(object))
+    {
+      return object;
+    }
+    else
+    {
+      throw new CloneNotSupportedException("Illegal value encountered: " + object);
+    }
+  }
+
   /**
    * Make a Data object and its contained mutable Data objects read-only.
    *
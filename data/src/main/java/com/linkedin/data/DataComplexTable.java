@@ -16,24 +16,31 @@
 
 package com.linkedin.data;
 
-import java.util.HashMap;
-
+import java.util.IdentityHashMap;
+
+/**
+ * Tracks the complex objects that have already been copied, and their copies.
+ *
+ * Objects are keyed by identity. This avoids boxing a {@link DataComplex#dataComplexHashCode()}
+ * and allocating a map entry per copied object, and cannot confuse distinct objects whose
+ * data complex hash codes collide because they were created on different threads.
+ */
 class DataComplexTable
 {
-  private final HashMap<Integer, DataComplex> _map;
+  private final IdentityHashMap<DataComplex, DataComplex> _map;
 
   DataComplexTable()
   {
-    _map = new HashMap<>();
+    _map = new IdentityHashMap<>();
   }
 
   public DataComplex get(DataComplex index)
   {
-    return _map.get(index.dataComplexHashCode());
+    return _map.get(index);
   }
 
   public void put(DataComplex src, DataComplex clone)
   {
-    _map.put(src.dataComplexHashCode(), clone);
+    _map.put(src, clone);
   }
 }
@@ -19,6 +19,7 @@ package com.linkedin.data;
 import com.linkedin.data.collections.CheckedList;
 import com.linkedin.data.collections.CommonList;
 import com.linkedin.data.collections.ListChecker;
+import com.linkedin.util.ArgumentUtil;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -46,8 +47,9 @@ import java.util.Map;
  * data will be cleared.
  * <p>
  *
- * Since {@link DataList} extends {@link CheckedList}, copying of the {@link DataList}
- * is lazy and may be delayed until the {@link DataList} is about to be modified.
+ * Deep copying a {@link DataList} that has been made read-only is lazy. The copy shares the underlying
+ * list of the read-only {@link DataList} until the copy is about to be modified, and contained complex objects
+ * are copied when they are first accessed through the copy.
  * <p>
  *
  * @author slim
@@ -86,9 +88,33 @@ public final class DataList extends CheckedList<Object> implements DataComplex
   public Object get(int index)
   {
     instrumentAccess(index);
+    // check for sharing first, so a list that is no longer shared is only read after its copy is published.
+    if (isShared())
+    {
+      Object value = super.get(index);
+      if (!(value instanceof DataComplex))
+      {
+        return value;
+      }
+      unshare();
+    }
     return super.get(index);
   }
 
+  @Override
+  public Object[] toArray()
+  {
+    unshare();
+    return super.toArray();
+  }
+
+  @Override
+  public <T> T[] toArray(T[] a)
+  {
+    unshare();
+    return super.toArray(a);
+  }
+
   @Override
   public DataList clone() throws CloneNotSupportedException
   {
@@ -96,6 +122,11 @@ public final class DataList extends CheckedList<Object> implements DataComplex
     o._madeReadOnly = false;
     o._instrumented = false;
     o._accessList = null;
+    if (!o.isShared())
+    {
+      // the referenced objects have already been copied, or this object is not a lazy copy.
+      o._pendingCopy = null;
+    }
     return o;
   }
 
@@ -105,6 +136,67 @@ public final class DataList extends CheckedList<Object> implements DataComplex
     return Data.copy(this, new DataComplexTable());
   }
 
+  /**
+   * Returns a deep copy of this read-only object that shares its underlying list.
+   *
+   * The complex Data objects referenced by this object are copied when the copy
+   * stops sharing the underlying list.
+   *
+   * @param alreadyCopied provides the objects already copied, and their copies.
+   * @return the copy.
+   */
+  DataList lazyCopy(DataComplexTable alreadyCopied)
+  {
+    assert isMadeReadOnly();
+    DataList copy = new DataList(0);
+    copy.share(this);
+    copy._pendingCopy = alreadyCopied;
+    return copy;
+  }
+
+  @Override
+  protected void onUnshare(List<Object> list)
+  {
+    DataComplexTable alreadyCopied = _pendingCopy;
+    if (alreadyCopied != null)
+    {
+      _pendingCopy = null;
+      // lazy copies made by the same deep copy share the table, and may be accessed by different threads.
+      synchronized (alreadyCopied)
+      {
+        try
+        {
+          for (int i = 0; i < list.size(); ++i)
+          {
+            list.set(i, Data.copy(list.get(i), alreadyCopied));
+          }
+        }
+        catch (CloneNotSupportedException e)
+        {
+          // elements of a read-only DataList have already been checked.
+          throw new IllegalStateException(e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the objects already copied if this object is a lazy copy whose referenced
+   * complex objects have not been copied yet, otherwise null.
+   */
+  DataComplexTable pendingCopy()
+  {
+    return _pendingCopy;
+  }
+
+  /**
+   * Returns the elements of the underlying list without copying referenced complex objects.
+   */
+  Collection<Object> pendingValues()
+  {
+    return getObject();
+  }
+
   /**
    * Deep copy this object and the complex Data objects referenced by this object.
    *
@@ -125,6 +217,102 @@ public final class DataList extends CheckedList<Object> implements DataComplex
     }
   }
 
+  /**
+   * Returns an immutable snapshot of this {@link DataList}.
+   *
+   * <p>
+   * The snapshot and the complex objects it contains are read-only, so it may be cached and
+   * shared across threads without copying on every read. If this {@link DataList} has already
+   * been made read-only, it is returned as is. Otherwise, it is copied; contained complex objects
+   * that have already been made read-only are shared with the snapshot rather than copied.
+   *
+   * @return an immutable snapshot of this {@link DataList}.
+   * @throws CloneNotSupportedException if a contained object cannot be copied.
+   * @see DataMap#snapshot()
+   */
+  public DataList snapshot() throws CloneNotSupportedException
+  {
+    return Data.snapshot(this, new DataComplexTable());
+  }
+
+  /**
+   * Returns an immutable snapshot of this {@link DataList} with the element at the specified
+   * index replaced by the specified value.
+   *
+   * <p>
+   * Only the element references of this {@link DataList} are copied; all other elements are
+   * shared with the snapshot of this {@link DataList}.
+   *
+   * @param index provides the index of the element to replace.
+   * @param value provides the value, which is snapshotted if it is not already read-only.
+   * @return an immutable snapshot with the replaced element.
+   * @throws CloneNotSupportedException if the value cannot be copied.
+   * @throws IndexOutOfBoundsException if the index is out of range.
+   */
+  public DataList snapshotWith(int index, Object value) throws CloneNotSupportedException
+  {
+    ArgumentUtil.notNull(value, "value");
+    DataList copy = snapshot().clone();
+    // the value snapshot cannot reach the fresh copy, so the reachability check is not needed.
+    copy.setWithoutChecking(index, Data.snapshot(value, new DataComplexTable()));
+    copy.makeReadOnly();
+    return copy;
+  }
+
+  /**
+   * Returns an immutable snapshot of this {@link DataList} with the specified value appended.
+   *
+   * @param value provides the value, which is snapshotted if it is not already read-only.
+   * @return an immutable snapshot with the appended element.
+   * @throws CloneNotSupportedException if the value cannot be copied.
+   * @see #snapshotWith(int, Object)
+   */
+  public DataList snapshotWithAdded(Object value) throws CloneNotSupportedException
+  {
+    ArgumentUtil.notNull(value, "value");
+    DataList copy = snapshot().clone();
+    copy.addWithoutChecking(Data.snapshot(value, new DataComplexTable()));
+    copy.makeReadOnly();
+    return copy;
+  }
+
+  /**
+   * Returns an immutable snapshot of this {@link DataList} without the element at the specified index.
+   *
+   * @param index provides the index of the element to remove.
+   * @return an immutable snapshot without the element.
+   * @throws CloneNotSupportedException if a contained object cannot be copied.
+   * @throws IndexOutOfBoundsException if the index is out of range.
+   * @see #snapshotWith(int, Object)
+   */
+  public DataList snapshotWithout(int index) throws CloneNotSupportedException
+  {
+    DataList copy = snapshot().clone();
+    copy.remove(index);
+    copy.makeReadOnly();
+    return copy;
+  }
+
+  /**
+   * Snapshot the complex Data objects referenced by this object.
+   *
+   * @param alreadyCopied provides the objects already copied, and their copies.
+   * @throws CloneNotSupportedException if the referenced object cannot be copied.
+   */
+  void snapshotReferencedObjects(DataComplexTable alreadyCopied) throws CloneNotSupportedException
+  {
+    int count = size();
+    for (int i = 0; i < count; ++i)
+    {
+      Object value = get(i);
+      Object valueSnapshot = Data.snapshot(value, alreadyCopied);
+      if (value != valueSnapshot)
+      {
+        setWithoutChecking(i, valueSnapshot);
+      }
+    }
+  }
+
   @Override
   public Collection<Object> values()
   {
@@ -267,5 +455,7 @@ public final class DataList extends CheckedList<Object> implements DataComplex
   private boolean _madeReadOnly = false;
   private boolean _instrumented = false;
   private ArrayList<Integer> _accessList;
+  // set while this is a lazy copy that shares the underlying list of a read-only DataList.
+  private DataComplexTable _pendingCopy;
   private int _dataComplexHashCode = DataComplexHashCode.nextHashCode();
 }
@@ -19,6 +19,8 @@ package com.linkedin.data;
 import com.linkedin.data.collections.CheckedMap;
 import com.linkedin.data.collections.CommonMap;
 import com.linkedin.data.collections.MapChecker;
+import com.linkedin.util.ArgumentUtil;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -50,8 +52,9 @@ import java.util.Map;
  * data will be cleared.
  * <p>
  *
- * Since {@link DataMap} extends {@link CheckedMap}, copying of the {@link DataMap} is lazy and may be
- * delayed until the {@link DataMap} is about to be modified.
+ * Deep copying a {@link DataMap} that has been made read-only is lazy. The copy shares the underlying
+ * map of the read-only {@link DataMap} until the copy is about to be modified, and contained complex objects
+ * are copied when they are first accessed through the copy.
  *
  * @author slim
  */
@@ -118,6 +121,11 @@ public final class DataMap extends CheckedMap<String,Object> implements DataComp
     o._madeReadOnly = false;
     o._instrumented = false;
     o._accessMap = null;
+    if (!o.isShared())
+    {
+      // the referenced objects have already been copied, or this object is not a lazy copy.
+      o._pendingCopy = null;
+    }
     return o;
   }
 
@@ -125,6 +133,16 @@ public final class DataMap extends CheckedMap<String,Object> implements DataComp
   public Object get(Object key)
   {
     instrumentAccess(key);
+    // check for sharing first, so a map that is no longer shared is only read after its copy is published.
+    if (isShared())
+    {
+      Object value = super.get(key);
+      if (!(value instanceof DataComplex))
+      {
+        return value;
+      }
+      unshare();
+    }
     return super.get(key);
   }
 
@@ -141,6 +159,67 @@ public final class DataMap extends CheckedMap<String,Object> implements DataComp
     return Data.copy(this, new DataComplexTable());
   }
 
+  /**
+   * Returns a deep copy of this read-only object that shares its underlying map.
+   *
+   * The complex Data objects referenced by this object are copied when the copy
+   * stops sharing the underlying map.
+   *
+   * @param alreadyCopied provides the objects already copied, and their copies.
+   * @return the copy.
+   */
+  DataMap lazyCopy(DataComplexTable alreadyCopied)
+  {
+    assert isMadeReadOnly();
+    DataMap copy = new DataMap(0);
+    copy.share(this);
+    copy._pendingCopy = alreadyCopied;
+    return copy;
+  }
+
+  @Override
+  protected void onUnshare(Map<String, Object> map)
+  {
+    DataComplexTable alreadyCopied = _pendingCopy;
+    if (alreadyCopied != null)
+    {
+      _pendingCopy = null;
+      // lazy copies made by the same deep copy share the table, and may be accessed by different threads.
+      synchronized (alreadyCopied)
+      {
+        try
+        {
+          for (Map.Entry<String, Object> e : map.entrySet())
+          {
+            e.setValue(Data.copy(e.getValue(), alreadyCopied));
+          }
+        }
+        catch (CloneNotSupportedException e)
+        {
+          // values of a read-only DataMap have already been checked.
+          throw new IllegalStateException(e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the objects already copied if this object is a lazy copy whose referenced
+   * complex objects have not been copied yet, otherwise null.
+   */
+  DataComplexTable pendingCopy()
+  {
+    return _pendingCopy;
+  }
+
+  /**
+   * Returns the values of the underlying map without copying referenced complex objects.
+   */
+  Collection<Object> pendingValues()
+  {
+    return getObject().values();
+  }
+
   /**
    * Deep copy this object and the complex Data objects referenced by this object.
    *
@@ -160,6 +239,99 @@ public final class DataMap extends CheckedMap<String,Object> implements DataComp
     }
   }
 
+  /**
+   * Returns an immutable snapshot of this {@link DataMap}.
+   *
+   * <p>
+   * The snapshot and the complex objects it contains are read-only, so it may be cached and
+   * shared across threads without copying on every read. If this {@link DataMap} has already
+   * been made read-only, it is returned as is. Otherwise, it is copied; contained complex objects
+   * that have already been made read-only are shared with the snapshot rather than copied.
+   *
+   * <p>
+   * Templates wrap a snapshot through their {@link DataMap} constructor. Template instances keep
+   * per-instance caches of wrapped field values, so each thread should wrap the shared snapshot
+   * in its own template instance rather than share the template.
+   *
+   * @return an immutable snapshot of this {@link DataMap}.
+   * @throws CloneNotSupportedException if a contained object cannot be copied.
+   */
+  public DataMap snapshot() throws CloneNotSupportedException
+  {
+    return Data.snapshot(this, new DataComplexTable());
+  }
+
+  /**
+   * Returns an immutable snapshot of this {@link DataMap} with the specified key mapped to
+   * the specified value.
+   *
+   * <p>
+   * Only the entries of this {@link DataMap} are copied. All other values, including nested
+   * complex objects, are shared with the snapshot of this {@link DataMap}, so updating a small
+   * part of a large snapshot does not duplicate the rest of it. Nested values may be updated by
+   * composing calls, e.g. {@code map.snapshotWith("a", map.getDataMap("a").snapshotWith("b", 1))}.
+   *
+   * @param key provides the key.
+   * @param value provides the value, which is snapshotted if it is not already read-only.
+   * @return an immutable snapshot with the updated entry.
+   * @throws CloneNotSupportedException if the value cannot be copied.
+   * @see #snapshot()
+   */
+  public DataMap snapshotWith(String key, Object value) throws CloneNotSupportedException
+  {
+    ArgumentUtil.notNull(key, "key");
+    ArgumentUtil.notNull(value, "value");
+    DataMap copy = snapshot().clone();
+    // the value snapshot cannot reach the fresh copy, so the reachability check is not needed.
+    copy.putWithoutChecking(key, Data.snapshot(value, new DataComplexTable()));
+    copy.makeReadOnly();
+    return copy;
+  }
+
+  /**
+   * Returns an immutable snapshot of this {@link DataMap} without the specified key.
+   *
+   * <p>
+   * Only the entries of this {@link DataMap} are copied; values are shared with the snapshot
+   * of this {@link DataMap}.
+   *
+   * @param key provides the key to remove.
+   * @return an immutable snapshot without the specified key.
+   * @throws CloneNotSupportedException if a contained object cannot be copied.
+   * @see #snapshot()
+   */
+  public DataMap snapshotWithout(String key) throws CloneNotSupportedException
+  {
+    DataMap snapshot = snapshot();
+    if (!snapshot.containsKey(key))
+    {
+      return snapshot;
+    }
+    DataMap copy = snapshot.clone();
+    copy.remove(key);
+    copy.makeReadOnly();
+    return copy;
+  }
+
+  /**
+   * Snapshot the complex Data objects referenced by this object.
+   *
+   * @param alreadyCopied provides the objects already copied, and their copies.
+   * @throws CloneNotSupportedException if the referenced object cannot be copied.
+   */
+  void snapshotReferencedObjects(DataComplexTable alreadyCopied) throws CloneNotSupportedException
+  {
+    for (Map.Entry<String,?> e : entrySet())
+    {
+      Object value = e.getValue();
+      Object valueSnapshot = Data.snapshot(value, alreadyCopied);
+      if (value != valueSnapshot)
+      {
+        putWithoutChecking(e.getKey(), valueSnapshot);
+      }
+    }
+  }
+
   @Override
   public void makeReadOnly()
   {
@@ -429,5 +601,7 @@ public final class DataMap extends CheckedMap<String,Object> implements DataComp
   private boolean _madeReadOnly = false;
   private boolean _instrumented = false;
   private Map<String, Integer> _accessMap;
+  // set while this is a lazy copy that shares the underlying map of a read-only DataMap.
+  private DataComplexTable _pendingCopy;
   private int _dataComplexHashCode = DataComplexHashCode.nextHashCode();
 }
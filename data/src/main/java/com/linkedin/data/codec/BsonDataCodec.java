@@ -43,6 +43,7 @@ public class BsonDataCodec implements DataCodec
   private static final String UTF_8 = "UTF-8";
   private Integer _bufferSize;
   private boolean _testMode;
+  private BufferAllocator _bufferAllocator = RecyclingBufferAllocator.getDefault();
 
   public BsonDataCodec()
   {
@@ -65,17 +66,34 @@ public class BsonDataCodec implements DataCodec
     _bufferSize = bufferSize;
   }
 
+  /**
+   * Sets the allocator of the buffers used while encoding and decoding. The buffers are released
+   * to it at the end of each operation.
+   */
+  public void setBufferAllocator(BufferAllocator bufferAllocator)
+  {
+    _bufferAllocator = bufferAllocator;
+  }
+
+  private int bufferSize()
+  {
+    return _bufferSize == null ? BufferChain.DEFAULT_BUFFER_SIZE : _bufferSize;
+  }
+
   protected byte[] complexToBytes(DataComplex complex) throws IOException
   {
     try
     {
-      BsonTraverseCallback callback =
-        (_bufferSize == null) ?
-        new BsonTraverseCallback() :
-        new BsonTraverseCallback(_bufferSize);
-      Data.traverse(complex, callback);
-      byte[] bytes = callback.toBytes();
-      return bytes;
+      BsonTraverseCallback callback = new BsonTraverseCallback(bufferSize(), _bufferAllocator);
+      try
+      {
+        Data.traverse(complex, callback);
+        return callback.toBytes();
+      }
+      finally
+      {
+        callback.release();
+      }
     }
     catch (RuntimeException exc)
     {
@@ -132,12 +150,16 @@ public class BsonDataCodec implements DataCodec
   {
     try
     {
-      BsonTraverseCallback callback =
-          (_bufferSize == null) ?
-              new BsonTraverseCallback() :
-              new BsonTraverseCallback(_bufferSize);
-      Data.traverse(complex, callback);
-      callback.writeToOutputStream(out);
+      BsonTraverseCallback callback = new BsonTraverseCallback(bufferSize(), _bufferAllocator);
+      try
+      {
+        Data.traverse(complex, callback);
+        callback.writeToOutputStream(out);
+      }
+      finally
+      {
+        callback.release();
+      }
     }
     catch (RuntimeException exc)
     {
@@ -164,13 +186,21 @@ public class BsonDataCodec implements DataCodec
     try
     {
       BufferChain buffer =
-          (_testMode && _bufferSize != null) ?
-              new BufferChain(ByteOrder.LITTLE_ENDIAN, _bufferSize) :
-              new BufferChain(ByteOrder.LITTLE_ENDIAN);
-      buffer.readFromInputStream(in);
-      buffer.rewind();
-      BsonParser bsonParser = new BsonParser(buffer);
-      return bsonParser.parseComplex(clazz);
+          new BufferChain(ByteOrder.LITTLE_ENDIAN,
+                          (_testMode && _bufferSize != null) ? _bufferSize : BufferChain.DEFAULT_BUFFER_SIZE,
+                          _bufferAllocator);
+      try
+      {
+        buffer.readFromInputStream(in);
+        buffer.rewind();
+        BsonParser bsonParser = new BsonParser(buffer);
+        // the parser copies strings and bytes out of the buffer chain, so it can be released
+        return bsonParser.parseComplex(clazz);
+      }
+      finally
+      {
+        buffer.release();
+      }
     }
     catch (RuntimeException exc)
     {
@@ -222,14 +252,9 @@ public class BsonDataCodec implements DataCodec
     private final Deque<BufferChain.Position> _positionStack = new ArrayDeque<BufferChain.Position>();
     private String _currentName = null;
 
-    BsonTraverseCallback()
+    BsonTraverseCallback(int bufferSize, BufferAllocator allocator)
     {
-      _buffer = new BufferChain(ByteOrder.LITTLE_ENDIAN);
-    }
-
-    BsonTraverseCallback(int bufferSize)
-    {
-      _buffer = new BufferChain(ByteOrder.LITTLE_ENDIAN, bufferSize);
+      _buffer = new BufferChain(ByteOrder.LITTLE_ENDIAN, bufferSize, allocator);
     }
 
     @Override
@@ -381,6 +406,11 @@ public class BsonDataCodec implements DataCodec
       _buffer.writeToOutputStream(out);
     }
 
+    private void release()
+    {
+      _buffer.release();
+    }
+
     private final void putCString(String s) throws CharacterCodingException
     {
       _buffer.putUtf8CString(s);
@@ -0,0 +1,67 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.data.codec;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Allocates the buffers of a {@link BufferChain}.
+ *
+ * Buffers returned by {@link #allocate(int)} must be heap buffers with an array offset of 0, a position of 0 and a
+ * limit equal to their capacity, which must be at least the requested size. A {@link BufferChain} passes each of its
+ * buffers to {@link #release(ByteBuffer)} at most once, when it is released, after which it no longer references
+ * them; an allocator may then hand them out again.
+ */
+public interface BufferAllocator
+{
+  /**
+   * Allocates a new buffer for every request and leaves released buffers to the garbage collector.
+   */
+  BufferAllocator HEAP = new BufferAllocator()
+  {
+    @Override
+    public ByteBuffer allocate(int size)
+    {
+      return ByteBuffer.allocate(size);
+    }
+
+    @Override
+    public void release(ByteBuffer buffer)
+    {
+    }
+
+    @Override
+    public String toString()
+    {
+      return "BufferAllocator.HEAP";
+    }
+  };
+
+  /**
+   * @param size the minimum capacity of the buffer.
+   * @return an empty buffer of at least {@code size} bytes.
+   */
+  ByteBuffer allocate(int size);
+
+  /**
+   * Returns a buffer which is no longer referenced by its user.
+   *
+   * @param buffer a buffer obtained from {@link #allocate(int)}.
+   */
+  void release(ByteBuffer buffer);
+}
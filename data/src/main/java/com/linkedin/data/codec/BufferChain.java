@@ -73,6 +73,7 @@ public class BufferChain
   private ArrayList<ByteBuffer> _bufferList = new ArrayList<ByteBuffer>();
   private int _bufferSize;
   private ByteOrder _order;
+  private BufferAllocator _allocator = BufferAllocator.HEAP;
   private CharsetDecoder _decoder;
   private CharsetEncoder _encoder;
   private BufferChainInputStream _inputStream;
@@ -120,6 +121,21 @@ public class BufferChain
    * @param bufferSize provides the buffer size fo each buffer in the buffer chain.
    */
   public BufferChain(ByteOrder order, int bufferSize)
+  {
+    this(order, bufferSize, BufferAllocator.HEAP);
+  }
+
+  /**
+   * Construct an empty {@link BufferChain} with the specified byte order and buffer size,
+   * whose buffers are obtained from the specified {@link BufferAllocator}.
+   *
+   * The buffers are returned to the allocator by {@link #release()}.
+   *
+   * @param order provides the byte order for the data in the buffer chain.
+   * @param bufferSize provides the buffer size fo each buffer in the buffer chain.
+   * @param allocator provides the allocator of the buffers in the buffer chain.
+   */
+  public BufferChain(ByteOrder order, int bufferSize, BufferAllocator allocator)
   {
     if (bufferSize < MIN_BUFFER_SIZE)
     {
@@ -127,6 +143,7 @@ public class BufferChain
     }
     _bufferSize = bufferSize;
     _order = order;
+    _allocator = allocator;
     _currentBuffer = allocateByteBuffer(_bufferSize);
     _currentIndex = 0;
     initCoders();
@@ -968,6 +985,23 @@ public class BufferChain
     return bytes;
   }
 
+  /**
+   * Return the buffers of the buffer chain to the {@link BufferAllocator} of the buffer chain.
+   *
+   * The buffer chain, and any {@link ByteBuffer} obtained from it, must not be used after
+   * it has been released. Calling this method more than once has no effect.
+   */
+  public void release()
+  {
+    for (ByteBuffer buffer : _bufferList)
+    {
+      _allocator.release(buffer);
+    }
+    _bufferList.clear();
+    _currentBuffer = null;
+    _currentIndex = 0;
+  }
+
   /**
    * Rewind the buffer chain, i.e. set the current position to
    * the beginning of the buffer chain.
@@ -1244,7 +1278,7 @@ public class BufferChain
 
   private ByteBuffer allocateByteBuffer(int size)
   {
-    ByteBuffer byteBuffer = ByteBuffer.allocate(size > _bufferSize ? size : _bufferSize);
+    ByteBuffer byteBuffer = _allocator.allocate(size > _bufferSize ? size : _bufferSize);
     byteBuffer.order(_order);
     _bufferList.add(byteBuffer);
     return byteBuffer;
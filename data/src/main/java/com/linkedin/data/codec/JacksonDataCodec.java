@@ -23,6 +23,12 @@ import com.linkedin.data.DataComplex;
 import com.linkedin.data.DataList;
 import com.linkedin.data.DataMap;
 import com.linkedin.data.collections.CheckedUtil;
+import com.linkedin.data.schema.ArrayDataSchema;
+import com.linkedin.data.schema.DataSchema;
+import com.linkedin.data.schema.FixedDataSchema;
+import com.linkedin.data.schema.MapDataSchema;
+import com.linkedin.data.schema.RecordDataSchema;
+import com.linkedin.data.schema.UnionDataSchema;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -135,7 +141,7 @@ public class JacksonDataCodec implements TextDataCodec
     try
     {
       jsonParser = _jsonFactory.createParser(input);
-      return parser.parse(jsonParser, DataMap.class);
+      return parser.parse(jsonParser, DataMap.class, null);
     }
     catch (IOException e)
     {
@@ -155,7 +161,7 @@ public class JacksonDataCodec implements TextDataCodec
     try
     {
       jsonParser = _jsonFactory.createParser(input);
-      return parser.parse(jsonParser, DataMap.class);
+      return parser.parse(jsonParser, DataMap.class, null);
     }
     catch (IOException e)
     {
@@ -175,7 +181,7 @@ public class JacksonDataCodec implements TextDataCodec
     try
     {
       jsonParser = _jsonFactory.createParser(input);
-      return parser.parse(jsonParser, DataList.class);
+      return parser.parse(jsonParser, DataList.class, null);
     }
     catch (IOException e)
     {
@@ -195,7 +201,7 @@ public class JacksonDataCodec implements TextDataCodec
     try
     {
       jsonParser = _jsonFactory.createParser(input);
-      return parser.parse(jsonParser, DataList.class);
+      return parser.parse(jsonParser, DataList.class, null);
     }
     catch (IOException e)
     {
@@ -284,7 +290,7 @@ public class JacksonDataCodec implements TextDataCodec
     try
     {
       jsonParser = _jsonFactory.createParser(in);
-      return parser.parse(jsonParser, DataMap.class);
+      return parser.parse(jsonParser, DataMap.class, null);
     }
     catch (IOException e)
     {
@@ -304,7 +310,7 @@ public class JacksonDataCodec implements TextDataCodec
     try
     {
       jsonParser = _jsonFactory.createParser(in);
-      return parser.parse(jsonParser, DataMap.class);
+      return parser.parse(jsonParser, DataMap.class, null);
     }
     catch (IOException e)
     {
@@ -316,6 +322,60 @@ public class JacksonDataCodec implements TextDataCodec
     }
   }
 
+  /**
+   * Reads an {@link InputStream} and parses its contents into a {@link DataMap} whose values
+   * have the types expected by the specified schema.
+   *
+   * Values are coerced while they are parsed, in the same way as validating the parsed
+   * {@link DataMap} with {@link com.linkedin.data.schema.validation.CoercionMode#NORMAL}
+   * coercion. Numbers are converted to the Java type of their numeric schema type, and
+   * strings of bytes and fixed types are converted to {@link ByteString}s. Values that
+   * cannot be coerced, such as unknown enum symbols, are left unchanged, and values of
+   * unrecognized fields are parsed without coercion.
+   *
+   * @param in provides the {@link InputStream}.
+   * @param schema provides the schema of the {@link DataMap}.
+   * @return the {@link DataMap} parsed from the {@link InputStream}.
+   * @throws IOException if there is a syntax error in the input.
+   */
+  public DataMap readMap(InputStream in, RecordDataSchema schema) throws IOException
+  {
+    final Parser parser = new Parser();
+    JsonParser jsonParser = null;
+    try
+    {
+      jsonParser = _jsonFactory.createParser(in);
+      return parser.parse(jsonParser, DataMap.class, schema);
+    }
+    finally
+    {
+      closeJsonParserQuietly(jsonParser);
+    }
+  }
+
+  /**
+   * Parses a byte array into a {@link DataMap} whose values have the types expected by the specified schema.
+   *
+   * @param input provides the byte array.
+   * @param schema provides the schema of the {@link DataMap}.
+   * @return the {@link DataMap} parsed from the byte array.
+   * @throws IOException if there is a syntax error in the input.
+   * @see #readMap(InputStream, RecordDataSchema)
+   */
+  public DataMap bytesToMap(byte[] input, RecordDataSchema schema) throws IOException
+  {
+    final Parser parser = new Parser();
+    JsonParser jsonParser = null;
+    try
+    {
+      jsonParser = _jsonFactory.createParser(input);
+      return parser.parse(jsonParser, DataMap.class, schema);
+    }
+    finally
+    {
+      closeJsonParserQuietly(jsonParser);
+    }
+  }
 
   @Override
   public DataList readList(InputStream in) throws IOException
@@ -325,7 +385,7 @@ public class JacksonDataCodec implements TextDataCodec
     try
     {
       jsonParser = _jsonFactory.createParser(in);
-      return parser.parse(jsonParser, DataList.class);
+      return parser.parse(jsonParser, DataList.class, null);
     }
     catch (IOException e)
     {
@@ -345,7 +405,7 @@ public class JacksonDataCodec implements TextDataCodec
     try
     {
       jsonParser = _jsonFactory.createParser(in);
-      return parser.parse(jsonParser, DataList.class);
+      return parser.parse(jsonParser, DataList.class, null);
     }
     catch (IOException e)
     {
@@ -629,14 +689,14 @@ public class JacksonDataCodec implements TextDataCodec
       JsonToken token;
       while ((token = _parser.nextToken()) != null)
       {
-        parse(list, null, null, token);
+        parse(list, null, null, token, null);
       }
       _errorBuilder = null;
 
       return list;
     }
 
-    <T extends DataComplex> T parse(JsonParser parser, Class<T> expectType) throws IOException
+    <T extends DataComplex> T parse(JsonParser parser, Class<T> expectType, DataSchema schema) throws IOException
     {
       _errorBuilder = null;
       if (_debug)
@@ -655,7 +715,7 @@ public class JacksonDataCodec implements TextDataCodec
         }
 
         final DataMap map = new DataMap();
-        parseDataMap(map);
+        parseDataMap(map, dereference(schema));
         if (_errorBuilder != null)
         {
           map.addError(_errorBuilder.toString());
@@ -670,7 +730,7 @@ public class JacksonDataCodec implements TextDataCodec
         }
 
         final DataList list = new DataList();
-        parseDataList(list);
+        parseDataList(list, dereference(schema));
         if (_errorBuilder != null)
         {
           //list.addError(_errorBuilder.toString());
@@ -699,7 +759,13 @@ public class JacksonDataCodec implements TextDataCodec
       }
     }
 
-    private Object parse(DataList parentList, DataMap parentMap, String name, JsonToken token) throws IOException
+    /**
+     * Parse a value.
+     *
+     * @param schema provides the dereferenced schema of the value, or null if values are not coerced.
+     */
+    private Object parse(DataList parentList, DataMap parentMap, String name, JsonToken token, DataSchema schema)
+        throws IOException
     {
       if (token == null)
       {
@@ -713,16 +779,16 @@ public class JacksonDataCodec implements TextDataCodec
           DataMap childMap = new DataMap();
           value = childMap;
           updateParent(parentList, parentMap, name, childMap);
-          parseDataMap(childMap);
+          parseDataMap(childMap, schema);
           break;
         case START_ARRAY:
           DataList childList = new DataList();
           value = childList;
           updateParent(parentList, parentMap, name, childList);
-          parseDataList(childList);
+          parseDataList(childList, schema);
           break;
         default:
-          value = parsePrimitive(token);
+          value = (schema == null) ? parsePrimitive(token) : parseAndCoercePrimitive(token, schema);
           if (value != null)
           {
             updateParent(parentList, parentMap, name, value);
@@ -806,7 +872,104 @@ public class JacksonDataCodec implements TextDataCodec
       return object;
     }
 
-    private void parseDataMap(DataMap map) throws IOException
+    private Object parseAndCoercePrimitive(JsonToken token, DataSchema schema) throws IOException
+    {
+      DataSchema.Type type = schema.getType();
+      switch (token)
+      {
+        case VALUE_NUMBER_INT:
+        case VALUE_NUMBER_FLOAT:
+          switch (type)
+          {
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+              return parseNumber(token, type);
+            default:
+              return parsePrimitive(token);
+          }
+        case VALUE_STRING:
+          if (type == DataSchema.Type.BYTES ||
+              (type == DataSchema.Type.FIXED && _parser.getTextLength() == ((FixedDataSchema) schema).getSize()))
+          {
+            String text = _parser.getText();
+            ByteString bytes = ByteString.copyAvroString(text, true);
+            return bytes == null ? text : bytes;
+          }
+          return parsePrimitive(token);
+        default:
+          return parsePrimitive(token);
+      }
+    }
+
+    /**
+     * Parse a number into the Java type of a numeric schema type, converting it
+     * in the same way as {@link Number} does.
+     */
+    private Object parseNumber(JsonToken token, DataSchema.Type type) throws IOException
+    {
+      JsonParser.NumberType numberType = _parser.getNumberType();
+      switch (numberType)
+      {
+        case INT:
+          int intValue = _parser.getIntValue();
+          switch (type)
+          {
+            case LONG:
+              return (long) intValue;
+            case FLOAT:
+              return (float) intValue;
+            case DOUBLE:
+              return (double) intValue;
+            default:
+              return intValue;
+          }
+        case LONG:
+          long longValue = _parser.getLongValue();
+          switch (type)
+          {
+            case INT:
+              return (int) longValue;
+            case FLOAT:
+              return (float) longValue;
+            case DOUBLE:
+              return (double) longValue;
+            default:
+              return longValue;
+          }
+        case FLOAT:
+          float floatValue = _parser.getFloatValue();
+          switch (type)
+          {
+            case INT:
+              return (int) floatValue;
+            case LONG:
+              return (long) floatValue;
+            case DOUBLE:
+              return (double) floatValue;
+            default:
+              return floatValue;
+          }
+        case DOUBLE:
+          double doubleValue = _parser.getDoubleValue();
+          switch (type)
+          {
+            case INT:
+              return (int) doubleValue;
+            case LONG:
+              return (long) doubleValue;
+            case FLOAT:
+              return (float) doubleValue;
+            default:
+              return doubleValue;
+          }
+        default:
+          return parsePrimitive(token);
+      }
+    }
+
+    private void parseDataMap(DataMap map, DataSchema schema) throws IOException
     {
       while (_parser.nextToken() != JsonToken.END_OBJECT)
       {
@@ -816,7 +979,7 @@ public class JacksonDataCodec implements TextDataCodec
           _nameStack.addLast(key);
         }
         JsonToken token = _parser.nextToken();
-        parse(null, map, key, token);
+        parse(null, map, key, token, schema == null ? null : dereference(entrySchema(schema, key)));
         if (_debug)
         {
           _nameStack.removeLast();
@@ -824,8 +987,11 @@ public class JacksonDataCodec implements TextDataCodec
       }
     }
 
-    private void parseDataList(DataList list) throws IOException
+    private void parseDataList(DataList list, DataSchema schema) throws IOException
     {
+      DataSchema itemSchema = (schema != null && schema.getType() == DataSchema.Type.ARRAY) ?
+        dereference(((ArrayDataSchema) schema).getItems()) :
+        null;
       JsonToken token;
       int index = 0;
       while ((token = _parser.nextToken()) != JsonToken.END_ARRAY)
@@ -835,7 +1001,7 @@ public class JacksonDataCodec implements TextDataCodec
           _nameStack.addLast(index);
           index++;
         }
-        parse(list, null, null, token);
+        parse(list, null, null, token, itemSchema);
         if (_debug)
         {
           _nameStack.removeLast();
@@ -865,6 +1031,32 @@ public class JacksonDataCodec implements TextDataCodec
     }
   }
 
+  private static DataSchema dereference(DataSchema schema)
+  {
+    return schema == null ? null : schema.getDereferencedDataSchema();
+  }
+
+  /**
+   * Return the schema of the value of an entry of a {@link DataMap}, or null if it is not known.
+   *
+   * @param schema provides the dereferenced schema of the {@link DataMap}.
+   */
+  private static DataSchema entrySchema(DataSchema schema, String key)
+  {
+    switch (schema.getType())
+    {
+      case RECORD:
+        RecordDataSchema.Field field = ((RecordDataSchema) schema).getField(key);
+        return field == null ? null : field.getType();
+      case MAP:
+        return ((MapDataSchema) schema).getValues();
+      case UNION:
+        return ((UnionDataSchema) schema).getType(key);
+      default:
+        return null;
+    }
+  }
+
   private static void closeJsonParserQuietly(JsonParser parser)
   {
     if (parser != null)
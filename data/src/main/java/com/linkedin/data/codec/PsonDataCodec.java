@@ -102,13 +102,29 @@ public class PsonDataCodec implements DataCodec
       return _bufferSize;
     }
 
+    /**
+     * Sets the allocator of the buffers used while encoding and decoding. The buffers are released
+     * to it at the end of each operation.
+     */
+    public Options setBufferAllocator(BufferAllocator value)
+    {
+      _bufferAllocator = value;
+      return this;
+    }
+
+    public BufferAllocator getBufferAllocator()
+    {
+      return _bufferAllocator;
+    }
+
     @Override
     public String toString()
     {
       return
         "encodeCollectionCount=" + _encodeCollectionCount +
         ", encodeStringLength=" + _encodeStringLength +
-        (_bufferSize != null ? ", bufferSize=" + _bufferSize : "");
+        (_bufferSize != null ? ", bufferSize=" + _bufferSize : "") +
+        (_bufferAllocator != RecyclingBufferAllocator.getDefault() ? ", bufferAllocator=" + _bufferAllocator : "");
     }
 
     @Override
@@ -124,7 +140,8 @@ public class PsonDataCodec implements DataCodec
       return
         (_encodeCollectionCount == other._encodeCollectionCount) &&
         (_encodeStringLength == other._encodeStringLength) &&
-        (_bufferSize == null ? _bufferSize == other._bufferSize : _bufferSize.equals(other._bufferSize));
+        (_bufferSize == null ? _bufferSize == other._bufferSize : _bufferSize.equals(other._bufferSize)) &&
+        (_bufferAllocator == other._bufferAllocator);
     }
 
     @Override
@@ -133,12 +150,14 @@ public class PsonDataCodec implements DataCodec
       return
         ((_encodeCollectionCount ? 3131 : 0) +
          (_encodeStringLength ? 31310000 : 0)) ^
-        (_bufferSize != null ? _bufferSize.hashCode() : 0);
+        (_bufferSize != null ? _bufferSize.hashCode() : 0) ^
+        System.identityHashCode(_bufferAllocator);
     }
 
     private boolean _encodeStringLength = true;
     private boolean _encodeCollectionCount = false;
     private Integer _bufferSize = null;
+    private BufferAllocator _bufferAllocator = RecyclingBufferAllocator.getDefault();
   }
 
   public PsonDataCodec()
@@ -161,19 +180,20 @@ public class PsonDataCodec implements DataCodec
     return _options;
   }
 
-  private PsonSerializer serialize(DataComplex map) throws IOException
-  {
-    PsonSerializer serializer = new PsonSerializer();
-    serializer.serialize(map);
-    return serializer;
-  }
-
   protected byte[] complexToBytes(DataComplex complex) throws IOException
   {
     try
     {
-      byte[] bytes = serialize(complex).toBytes();
-      return bytes;
+      PsonSerializer serializer = new PsonSerializer();
+      try
+      {
+        serializer.serialize(complex);
+        return serializer.toBytes();
+      }
+      finally
+      {
+        serializer.release();
+      }
     }
     catch (RuntimeException exc)
     {
@@ -230,7 +250,16 @@ public class PsonDataCodec implements DataCodec
   {
     try
     {
-      serialize(complex).writeToOutputStream(out);
+      PsonSerializer serializer = new PsonSerializer();
+      try
+      {
+        serializer.serialize(complex);
+        serializer.writeToOutputStream(out);
+      }
+      finally
+      {
+        serializer.release();
+      }
     }
     catch (RuntimeException exc)
     {
@@ -257,13 +286,23 @@ public class PsonDataCodec implements DataCodec
     try
     {
       BufferChain buffer =
-        (_testMode && _options.getBufferSize() != null) ?
-          new BufferChain(ByteOrder.LITTLE_ENDIAN, _options.getBufferSize()) :
-          new BufferChain(ByteOrder.LITTLE_ENDIAN);
-      buffer.readFromInputStream(in);
-      buffer.rewind();
-      PsonParser psonParser = new PsonParser(buffer);
-      return clazz.cast(psonParser.read());
+        new BufferChain(ByteOrder.LITTLE_ENDIAN,
+                        (_testMode && _options.getBufferSize() != null) ?
+                          _options.getBufferSize() :
+                          BufferChain.DEFAULT_BUFFER_SIZE,
+                        _options.getBufferAllocator());
+      try
+      {
+        buffer.readFromInputStream(in);
+        buffer.rewind();
+        PsonParser psonParser = new PsonParser(buffer);
+        // the parser copies strings and bytes out of the buffer chain, so it can be released
+        return clazz.cast(psonParser.read());
+      }
+      finally
+      {
+        buffer.release();
+      }
     }
     catch (RuntimeException exc)
     {
@@ -328,9 +367,9 @@ public class PsonDataCodec implements DataCodec
     protected PsonSerializer()
     {
       _buffer =
-        _options.getBufferSize() == null ?
-          new BufferChain(ByteOrder.LITTLE_ENDIAN) :
-          new BufferChain(ByteOrder.LITTLE_ENDIAN, _options.getBufferSize());
+        new BufferChain(ByteOrder.LITTLE_ENDIAN,
+                        _options.getBufferSize() == null ? BufferChain.DEFAULT_BUFFER_SIZE : _options.getBufferSize(),
+                        _options.getBufferAllocator());
     }
 
     @Override
@@ -532,6 +571,11 @@ public class PsonDataCodec implements DataCodec
       _buffer.writeToOutputStream(out);
     }
 
+    private void release()
+    {
+      _buffer.release();
+    }
+
     private void start(byte psonType) throws CharacterCodingException
     {
       _buffer.put(psonType);
@@ -0,0 +1,214 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.data.codec;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+
+/**
+ * A {@link BufferAllocator} which recycles buffers of a fixed size.
+ *
+ * Released buffers are kept in a number of stripes, and each thread allocates from and releases to the stripe
+ * selected by its id, so that threads rarely contend for the same stripe. Unlike thread local pools, buffers released
+ * by a thread remain available after it terminates, and the memory held by the allocator is bounded regardless of
+ * the number of threads: each stripe keeps at most its share of {@code maxRetainedBytes}, and buffers released to a
+ * full stripe are left to the garbage collector.
+ *
+ * Only requests for at most {@code bufferSize} bytes are served from the pool, and are served with a buffer of
+ * exactly {@code bufferSize} bytes. Larger requests, and buffers of any other size, are not pooled.
+ * This class is thread safe.
+ */
+public class RecyclingBufferAllocator implements BufferAllocator
+{
+  /**
+   * Default maximum number of bytes held by idle buffers.
+   */
+  public static final long DEFAULT_MAX_RETAINED_BYTES = 8 * 1024 * 1024;
+
+  private static final RecyclingBufferAllocator DEFAULT =
+      new RecyclingBufferAllocator(BufferChain.DEFAULT_BUFFER_SIZE, DEFAULT_MAX_RETAINED_BYTES);
+
+  private final int _bufferSize;
+  private final int _maxBuffersPerStripe;
+  private final Stripe[] _stripes;
+
+  /**
+   * @param bufferSize the size of the pooled buffers.
+   * @param maxRetainedBytes the maximum number of bytes held by idle buffers, 0 disables pooling.
+   */
+  public RecyclingBufferAllocator(int bufferSize, long maxRetainedBytes)
+  {
+    if (bufferSize <= 0)
+    {
+      throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+    }
+    if (maxRetainedBytes < 0)
+    {
+      throw new IllegalArgumentException("maxRetainedBytes must not be negative: " + maxRetainedBytes);
+    }
+
+    int stripeCount = 1;
+    while (stripeCount < 2 * Runtime.getRuntime().availableProcessors())
+    {
+      stripeCount <<= 1;
+    }
+
+    _bufferSize = bufferSize;
+    _maxBuffersPerStripe = (int) Math.min(Integer.MAX_VALUE, maxRetainedBytes / bufferSize / stripeCount);
+    _stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++)
+    {
+      _stripes[i] = new Stripe();
+    }
+  }
+
+  /**
+   * @return the allocator shared by the codecs that are not given an allocator explicitly. It pools buffers of
+   *         {@link BufferChain#DEFAULT_BUFFER_SIZE} bytes.
+   */
+  public static RecyclingBufferAllocator getDefault()
+  {
+    return DEFAULT;
+  }
+
+  @Override
+  public ByteBuffer allocate(int size)
+  {
+    if (size <= _bufferSize)
+    {
+      final ByteBuffer buffer = stripe().poll();
+      if (buffer != null)
+      {
+        buffer.clear();
+        return buffer;
+      }
+    }
+    return ByteBuffer.allocate(Math.max(size, _bufferSize));
+  }
+
+  @Override
+  public void release(ByteBuffer buffer)
+  {
+    if (buffer.capacity() == _bufferSize && buffer.hasArray() && buffer.arrayOffset() == 0)
+    {
+      stripe().offer(buffer, _maxBuffersPerStripe);
+    }
+  }
+
+  /**
+   * @return the size of the pooled buffers.
+   */
+  public int getBufferSize()
+  {
+    return _bufferSize;
+  }
+
+  /**
+   * @return the number of allocations served by a pooled buffer.
+   */
+  public long getHitCount()
+  {
+    long hits = 0;
+    for (Stripe stripe : _stripes)
+    {
+      synchronized (stripe)
+      {
+        hits += stripe._hits;
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * @return the number of allocations which could have been served by a pooled buffer but allocated a new one.
+   */
+  public long getMissCount()
+  {
+    long misses = 0;
+    for (Stripe stripe : _stripes)
+    {
+      synchronized (stripe)
+      {
+        misses += stripe._misses;
+      }
+    }
+    return misses;
+  }
+
+  /**
+   * @return the number of bytes held by idle buffers.
+   */
+  public long getRetainedBytes()
+  {
+    long buffers = 0;
+    for (Stripe stripe : _stripes)
+    {
+      synchronized (stripe)
+      {
+        buffers += stripe._idle.size();
+      }
+    }
+    return buffers * _bufferSize;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "RecyclingBufferAllocator{bufferSize=" + _bufferSize + ", maxRetainedBytes="
+        + (long) _maxBuffersPerStripe * _stripes.length * _bufferSize + ", retainedBytes=" + getRetainedBytes()
+        + ", hits=" + getHitCount() + ", misses=" + getMissCount() + "}";
+  }
+
+  private Stripe stripe()
+  {
+    return _stripes[(int) Thread.currentThread().getId() & (_stripes.length - 1)];
+  }
+
+  /**
+   * The idle buffers and counters of one stripe, guarded by the stripe itself.
+   */
+  private static class Stripe
+  {
+    private final ArrayDeque<ByteBuffer> _idle = new ArrayDeque<ByteBuffer>();
+    private long _hits;
+    private long _misses;
+
+    private synchronized ByteBuffer poll()
+    {
+      // Last in, first out, so that recently used and likely cached buffers are reused first.
+      final ByteBuffer buffer = _idle.pollLast();
+      if (buffer != null)
+      {
+        _hits++;
+      }
+      else
+      {
+        _misses++;
+      }
+      return buffer;
+    }
+
+    private synchronized void offer(ByteBuffer buffer, int maxIdle)
+    {
+      if (_idle.size() < maxIdle)
+      {
+        _idle.addLast(buffer);
+      }
+    }
+  }
+}
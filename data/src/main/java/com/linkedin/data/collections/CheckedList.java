@@ -41,6 +41,12 @@ import java.util.List;
  * {@link ArrayList}.
  * <P>
  *
+ * A sub-class may share the underlying {@link ArrayList} of a read-only
+ * {@link CheckedList} using {@link #share(CheckedList)}. The shared {@link ArrayList}
+ * is copied before this {@link CheckedList} is first mutated, so sharing is not observable.
+ * Concurrent readers may trigger the copy, which is made only once.
+ * <p>
+ *
  * @author slim
  */
 public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cloneable
@@ -120,7 +126,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   {
     check(e);
     checkMutability();
-    return _list.add(e);
+    return list().add(e);
   }
 
   @Override
@@ -128,7 +134,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   {
     check(element);
     checkMutability();
-    _list.add(index, element);
+    list().add(index, element);
   }
 
   @Override
@@ -136,7 +142,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   {
     checkAll(c);
     checkMutability();
-    return _list.addAll(c);
+    return list().addAll(c);
   }
 
   @Override
@@ -144,14 +150,14 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   {
     checkAll(c);
     checkMutability();
-    return _list.addAll(index, c);
+    return list().addAll(index, c);
   }
 
   @Override
   public void clear()
   {
     checkMutability();
-    _list.clear();
+    list().clear();
   }
 
   @Override
@@ -159,7 +165,19 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   public CheckedList<E> clone() throws CloneNotSupportedException
   {
     CheckedList<E> o = (CheckedList<E>) super.clone();
-    o._list = (InternalList<E>) _list.clone();
+    if (_copyOnWrite)
+    {
+      synchronized (this)
+      {
+        // a shared list is never mutated in place, so the clone can keep sharing it.
+        o._shared = _shared;
+        o._cowList = _shared ? _cowList : (InternalList<E>) _cowList.clone();
+      }
+    }
+    else
+    {
+      o._list = (InternalList<E>) _list.clone();
+    }
     o._readOnly = false;
     return o;
   }
@@ -167,84 +185,84 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   @Override
   public boolean contains(Object o)
   {
-    return _list.contains(o);
+    return list().contains(o);
   }
 
   @Override
   public boolean containsAll(Collection<?> c)
   {
-    return _list.containsAll(c);
+    return list().containsAll(c);
   }
 
   @Override
   public boolean equals(Object object)
   {
-    return _list.equals(object);
+    return list().equals(object);
   }
 
   @Override
   public E get(int index)
   {
-    return _list.get(index);
+    return list().get(index);
   }
 
   @Override
   public int hashCode()
   {
-    return _list.hashCode();
+    return list().hashCode();
   }
 
   @Override
   public int indexOf(Object o)
   {
-    return _list.indexOf(o);
+    return list().indexOf(o);
   }
 
   @Override
   public boolean isEmpty()
   {
-    return _list.isEmpty();
+    return list().isEmpty();
   }
 
   @Override
   public int lastIndexOf(Object o)
   {
-    return _list.lastIndexOf(o);
+    return list().lastIndexOf(o);
   }
 
   @Override
   public E remove(int index)
   {
     checkMutability();
-    return _list.remove(index);
+    return list().remove(index);
   }
 
   @Override
   public boolean remove(Object o)
   {
     checkMutability();
-    return _list.remove(o);
+    return list().remove(o);
   }
 
   @Override
   public boolean removeAll(Collection<?> c)
   {
     checkMutability();
-    return _list.removeAll(c);
+    return list().removeAll(c);
   }
 
   @Override
   public boolean retainAll(Collection<?> c)
   {
     checkMutability();
-    return _list.retainAll(c);
+    return list().retainAll(c);
   }
 
   @Override
   public void removeRange(int fromIndex, int toIndex)
   {
     checkMutability();
-    _list.removeRange(fromIndex, toIndex);
+    list().removeRange(fromIndex, toIndex);
   }
 
   @Override
@@ -252,31 +270,31 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   {
     check(element);
     checkMutability();
-    return _list.set(index, element);
+    return list().set(index, element);
   }
 
   @Override
   public int size()
   {
-    return _list.size();
+    return list().size();
   }
 
   @Override
   public Object[] toArray()
   {
-    return _list.toArray();
+    return list().toArray();
   }
 
   @Override
   public <T> T[] toArray(T[] a)
   {
-    return _list.toArray(a);
+    return list().toArray(a);
   }
 
   @Override
   public String toString()
   {
-    return _list.toString();
+    return list().toString();
   }
 
   @Override
@@ -288,6 +306,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   @Override
   public void setReadOnly()
   {
+    unshare();
     _readOnly = true;
   }
 
@@ -295,6 +314,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   public void invalidate()
   {
     _list = null;
+    _cowList = null;
   }
 
   /**
@@ -309,7 +329,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   protected boolean addWithoutChecking(E element)
   {
     checkMutability();
-    return _list.add(element);
+    return list().add(element);
   }
 
   /**
@@ -324,7 +344,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   protected E setWithoutChecking(int index, E element)
   {
     checkMutability();
-    return _list.set(index, element);
+    return list().set(index, element);
   }
 
   boolean addWithAssertChecking(E element)
@@ -339,12 +359,80 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
     return setWithoutChecking(index, element);
   }
 
+  /**
+   * Share the underlying list of the specified read-only list instead of copying its elements.
+   *
+   * The elements of this list are replaced by the elements of the specified list. The underlying
+   * list is copied before this list is first mutated.
+   *
+   * @param readOnlyList provides the read-only list whose underlying list is to be shared.
+   * @throws IllegalArgumentException if the specified list is not read-only.
+   * @throws UnsupportedOperationException if this list is read-only.
+   */
+  protected final void share(CheckedList<E> readOnlyList)
+  {
+    if (!readOnlyList.isReadOnly())
+    {
+      throw new IllegalArgumentException("Only a read-only list can be shared");
+    }
+    if (_readOnly)
+    {
+      throw new UnsupportedOperationException("Cannot mutate a read-only list");
+    }
+    _cowList = readOnlyList.list();
+    _list = null;
+    _copyOnWrite = true;
+    _shared = true;
+  }
+
+  /**
+   * Stop sharing the underlying list, copying it if it is shared.
+   *
+   * Readers may call this concurrently. The copy is made at most once, while holding the lock
+   * of this list, and is published before the list is marked as no longer shared.
+   */
+  protected final void unshare()
+  {
+    if (_copyOnWrite && _shared)
+    {
+      synchronized (this)
+      {
+        if (_shared)
+        {
+          final InternalList<E> list = new InternalList<E>(_cowList);
+          onUnshare(list);
+          _cowList = list;
+          _shared = false;
+        }
+      }
+    }
+  }
+
+  /**
+   * @return true if the underlying list is shared with a read-only list.
+   */
+  protected final boolean isShared()
+  {
+    return _copyOnWrite && _shared;
+  }
+
+  /**
+   * Invoked with the copy of a shared underlying list before it replaces the shared list.
+   * Invoked while holding the lock of this list.
+   *
+   * @param list provides the copy, which is not yet visible to other threads.
+   */
+  protected void onUnshare(List<E> list)
+  {
+  }
+
   private final void checkMutability()
   {
     if (_readOnly)
     {
       throw new UnsupportedOperationException("Cannot mutate a read-only list");
     }
+    unshare();
   }
 
   private final void check(E e)
@@ -386,7 +474,7 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
    */
   protected final List<E> getObject()
   {
-    return _list;
+    return list();
   }
 
   @SuppressWarnings("serial")
@@ -411,6 +499,16 @@ public class CheckedList<E> extends AbstractList<E> implements CommonList<E>, Cl
   }
 
   protected ListChecker<E> _checker;
+  private InternalList<E> list()
+  {
+    return _copyOnWrite ? _cowList : _list;
+  }
+
   private boolean _readOnly = false;
+  // set on instances which have shared the underlying list of another list. Only these instances keep their
+  // underlying list in a volatile field, since it may be replaced by a concurrent reader when it is unshared.
+  private boolean _copyOnWrite = false;
+  private volatile boolean _shared = false;
   private InternalList<E> _list;
+  private volatile InternalList<E> _cowList;
 }
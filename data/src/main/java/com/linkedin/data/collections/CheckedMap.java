@@ -40,6 +40,13 @@ import java.util.Set;
  * to release its reference the underlying {@link HashMap}.
  * <p>
  *
+ * A sub-class may share the underlying {@link HashMap} of a read-only
+ * {@link CheckedMap} using {@link #share(CheckedMap)}. The shared {@link HashMap}
+ * is copied before this {@link CheckedMap} is first mutated or one of its
+ * views is returned, so sharing is not observable. Concurrent readers may
+ * trigger the copy, which is made only once.
+ * <p>
+ *
  * The {@link #entrySet}, {@link #keySet} and {@link #values}
  * methods return unmodifiable set and collection views.
  *
@@ -156,7 +163,7 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
   public void clear()
   {
     checkMutability();
-    _map.clear();
+    map().clear();
   }
 
   @Override
@@ -164,7 +171,19 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
   public CheckedMap<K,V> clone() throws CloneNotSupportedException
   {
     CheckedMap<K,V> o = (CheckedMap<K,V>) super.clone();
-    o._map = (HashMap<K,V>) _map.clone();
+    if (_copyOnWrite)
+    {
+      synchronized (this)
+      {
+        // a shared map is never mutated in place, so the clone can keep sharing it.
+        o._shared = _shared;
+        o._cowMap = _shared ? _cowMap : (HashMap<K,V>) _cowMap.clone();
+      }
+    }
+    else
+    {
+      o._map = (HashMap<K,V>) _map.clone();
+    }
     o._readOnly = false;
     return o;
   }
@@ -172,13 +191,13 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
   @Override
   public boolean containsKey(Object key)
   {
-    return _map.containsKey(key);
+    return map().containsKey(key);
   }
 
   @Override
   public boolean containsValue(Object value)
   {
-    return _map.containsValue(value);
+    return map().containsValue(value);
   }
 
   /**
@@ -189,31 +208,32 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
   @Override
   public Set<java.util.Map.Entry<K, V>> entrySet()
   {
-    return Collections.unmodifiableMap(_map).entrySet();
+    unshare();
+    return Collections.unmodifiableMap(map()).entrySet();
   }
 
   @Override
   public boolean equals(Object object)
   {
-    return _map.equals(object);
+    return map().equals(object);
   }
 
   @Override
   public V get(Object key)
   {
-    return _map.get(key);
+    return map().get(key);
   }
 
   @Override
   public int hashCode()
   {
-    return _map.hashCode();
+    return map().hashCode();
   }
 
   @Override
   public boolean isEmpty()
   {
-    return _map.isEmpty();
+    return map().isEmpty();
   }
 
   /**
@@ -224,7 +244,8 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
   @Override
   public Set<K> keySet()
   {
-    return Collections.unmodifiableSet(_map.keySet());
+    unshare();
+    return Collections.unmodifiableSet(map().keySet());
   }
 
   @Override
@@ -232,7 +253,7 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
   {
     checkKeyValue(key, value);
     checkMutability();
-    return _map.put(key, value);
+    return map().put(key, value);
   }
 
   @Override
@@ -240,26 +261,26 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
   {
     checkAll(m);
     checkMutability();
-    _map.putAll(m);
+    map().putAll(m);
   }
 
   @Override
   public V remove(Object key)
   {
     checkMutability();
-    return _map.remove(key);
+    return map().remove(key);
   }
 
   @Override
   public String toString()
   {
-    return _map.toString();
+    return map().toString();
   }
 
   @Override
   public int size()
   {
-    return _map.size();
+    return map().size();
   }
 
   /**
@@ -270,7 +291,8 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
   @Override
   public Collection<V> values()
   {
-    return Collections.unmodifiableCollection(_map.values());
+    unshare();
+    return Collections.unmodifiableCollection(map().values());
   }
 
   @Override
@@ -282,6 +304,7 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
   @Override
   public void setReadOnly()
   {
+    unshare();
     _readOnly = true;
   }
 
@@ -289,6 +312,74 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
   public void invalidate()
   {
     _map = null;
+    _cowMap = null;
+  }
+
+  /**
+   * Share the underlying map of the specified read-only map instead of copying its entries.
+   *
+   * The entries of this map are replaced by the entries of the specified map. The underlying map
+   * is copied before this map is first mutated or one of its views is returned.
+   *
+   * @param readOnlyMap provides the read-only map whose underlying map is to be shared.
+   * @throws IllegalArgumentException if the specified map is not read-only.
+   * @throws UnsupportedOperationException if this map is read-only.
+   */
+  protected final void share(CheckedMap<K,V> readOnlyMap)
+  {
+    if (!readOnlyMap.isReadOnly())
+    {
+      throw new IllegalArgumentException("Only a read-only map can be shared");
+    }
+    if (_readOnly)
+    {
+      throw new UnsupportedOperationException("Cannot mutate a read-only map");
+    }
+    _cowMap = readOnlyMap.map();
+    _map = null;
+    _copyOnWrite = true;
+    _shared = true;
+  }
+
+  /**
+   * Stop sharing the underlying map, copying it if it is shared.
+   *
+   * Readers may call this concurrently. The copy is made at most once, while holding the lock
+   * of this map, and is published before the map is marked as no longer shared.
+   */
+  protected final void unshare()
+  {
+    if (_copyOnWrite && _shared)
+    {
+      synchronized (this)
+      {
+        if (_shared)
+        {
+          final HashMap<K,V> map = new HashMap<K,V>(_cowMap);
+          onUnshare(map);
+          _cowMap = map;
+          _shared = false;
+        }
+      }
+    }
+  }
+
+  /**
+   * @return true if the underlying map is shared with a read-only map.
+   */
+  protected final boolean isShared()
+  {
+    return _copyOnWrite && _shared;
+  }
+
+  /**
+   * Invoked with the copy of a shared underlying map before it replaces the shared map.
+   * Invoked while holding the lock of this map.
+   *
+   * @param map provides the copy, which is not yet visible to other threads.
+   */
+  protected void onUnshare(Map<K,V> map)
+  {
   }
 
   private final void checkMutability()
@@ -297,6 +388,7 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
     {
       throw new UnsupportedOperationException("Cannot mutate a read-only map");
     }
+    unshare();
   }
 
   final private void checkKeyValue(K key, V value)
@@ -332,7 +424,7 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
   protected V putWithoutChecking(K key, V value)
   {
     checkMutability();
-    return _map.put(key, value);
+    return map().put(key, value);
   }
 
   V putWithAssertedChecking(K key, V value)
@@ -349,7 +441,7 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
   protected void putAllWithoutChecking(Map<? extends K, ? extends V> src)
   {
     checkMutability();
-    _map.putAll(src);
+    map().putAll(src);
   }
 
   void putAllWithAssertedChecking(Map<? extends K, ? extends V> src)
@@ -365,7 +457,7 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
    */
   protected final Map<K,V> getObject()
   {
-    return _map;
+    return map();
   }
 
   private boolean assertCheckKeyValue(K key, V value)
@@ -394,7 +486,17 @@ public class CheckedMap<K,V> implements CommonMap<K,V>, Cloneable
     }
   }
 
+  private HashMap<K,V> map()
+  {
+    return _copyOnWrite ? _cowMap : _map;
+  }
+
   private boolean _readOnly = false;
+  // set on instances which have shared the underlying map of another map. Only these instances keep their
+  // underlying map in a volatile field, since it may be replaced by a concurrent reader when it is unshared.
+  private boolean _copyOnWrite = false;
+  private volatile boolean _shared = false;
   protected MapChecker<K,V> _checker;
   private HashMap<K,V> _map;
+  private volatile HashMap<K,V> _cowMap;
 }
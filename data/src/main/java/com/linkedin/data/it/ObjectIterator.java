@@ -43,7 +43,8 @@ import java.util.Map;
  * iterated. If the iteration order is pre-order,the start Data object
  * will be the first value returned by the iterator. If the iteration order
  * is post-order, the start Data object will be the last value returned by the
- * iterator.
+ * iterator. The children of the complex Data objects selected by the optional
+ * skip children {@link Predicate} are not iterated.
  * <p>
  *
  * @author slim
@@ -77,11 +78,28 @@ public class ObjectIterator implements DataIterator
    *        in pre or post-order.
    */
   public ObjectIterator(DataElement element, IterationOrder order)
+  {
+    this(element, order, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param element that provides the start Data object and {@link DataSchema}.
+   * @param order provides whether the object graph will be traversed
+   *        in pre or post-order.
+   * @param skipChildren provides the {@link Predicate} that selects the complex
+   *        Data objects whose children are not iterated. A selected Data object
+   *        is still returned by this {@link DataIterator}, it may be {@code null}
+   *        to iterate the entire Data object graph.
+   */
+  public ObjectIterator(DataElement element, IterationOrder order, Predicate skipChildren)
   {
     _startElement = element;
     _current = null;
     _first = true;
     _preOrder = order == IterationOrder.PRE_ORDER;
+    _skipChildren = skipChildren;
   }
 
 
@@ -114,7 +132,7 @@ public class ObjectIterator implements DataIterator
     {
       _first = false;
       _current = _startElement;
-      while (_current != null && _current.getValue() instanceof DataComplex)
+      while (_current != null && hasChildren(_current))
       {
         push();
         _current = _stack.getLast().next();
@@ -135,7 +153,7 @@ public class ObjectIterator implements DataIterator
         _current = _stack.removeLast()._element;
         break;
       }
-      else if (_current.getValue() instanceof DataComplex)
+      else if (hasChildren(_current))
       {
         push();
       }
@@ -156,7 +174,7 @@ public class ObjectIterator implements DataIterator
       _current = _startElement;
       return _current;
     }
-    if (_current != null && _current.getValue() instanceof DataComplex)
+    if (_current != null && hasChildren(_current))
     {
       push();
     }
@@ -190,6 +208,11 @@ public class ObjectIterator implements DataIterator
     }
   }
 
+  private boolean hasChildren(DataElement element)
+  {
+    return element.getValue() instanceof DataComplex && (_skipChildren == null || !_skipChildren.evaluate(element));
+  }
+
   private void push()
   {
     Class<?> clazz = _current.getValue().getClass();
@@ -340,4 +363,5 @@ public class ObjectIterator implements DataIterator
   private boolean _first = true;
   private DataElement _current = null;
   private boolean _preOrder = true;
+  private final Predicate _skipChildren;
 }
@@ -23,7 +23,9 @@ import com.linkedin.data.DataMap;
 import com.linkedin.data.codec.DataLocation;
 import com.linkedin.data.codec.JacksonDataCodec;
 import com.linkedin.data.schema.resolver.DefaultDataSchemaResolver;
+import com.linkedin.data.schema.resolver.SchemaSourceCache;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -300,9 +302,20 @@ abstract public class AbstractSchemaParser implements PegasusSchemaParser
   /**
    * Parse an {@link InputStream} containing JSON to a list of Data objects.
    *
+   * If a {@link SchemaSourceCache} and a location are set, the Data objects are obtained from the cache.
+   *
    * @param inputStream containing JSON.
    */
   protected List<Object> jsonInputStreamToObjects(InputStream inputStream)
+  {
+    if (_sourceCache != null && _location != DataSchemaLocation.NO_LOCATION)
+    {
+      return cachedJsonInputStreamToObjects(inputStream);
+    }
+    return decodeJsonInputStream(inputStream);
+  }
+
+  private List<Object> decodeJsonInputStream(InputStream inputStream)
   {
     List<Object> objects;
     try
@@ -318,6 +331,41 @@ abstract public class AbstractSchemaParser implements PegasusSchemaParser
     return objects;
   }
 
+  /**
+   * Obtain the Data objects of the current location from the {@link SchemaSourceCache},
+   * decoding and caching them if the content has not been cached.
+   *
+   * @param inputStream containing JSON.
+   */
+  private List<Object> cachedJsonInputStreamToObjects(InputStream inputStream)
+  {
+    final byte[] content;
+    try
+    {
+      content = SchemaSourceCache.readContent(inputStream);
+    }
+    catch (IOException e)
+    {
+      errorMessageBuilder().append(e).append("\n");
+      return Collections.emptyList();
+    }
+
+    final String contentHash = SchemaSourceCache.contentHash(content);
+    final List<Object> cached = _sourceCache.get(_location, contentHash);
+    if (cached != null)
+    {
+      return cached;
+    }
+
+    final int errorLength = errorMessageBuilder().length();
+    final List<Object> objects = decodeJsonInputStream(new ByteArrayInputStream(content));
+    if (errorMessageBuilder().length() == errorLength)
+    {
+      _sourceCache.put(_location, contentHash, objects);
+    }
+    return objects;
+  }
+
   /**
    * Parse an {@link Reader} containing JSON to a list of Data objects.
    *
@@ -720,6 +768,29 @@ abstract public class AbstractSchemaParser implements PegasusSchemaParser
     return _location;
   }
 
+  /**
+   * Set the {@link SchemaSourceCache} used to obtain the decoded Data objects of input sources.
+   *
+   * The cache is only used when parsing an {@link InputStream} for which a location has been set,
+   * see {@link #setLocation(DataSchemaLocation)}.
+   *
+   * @param sourceCache provides the cache, may be {@code null} to not use a cache.
+   */
+  public void setSourceCache(SchemaSourceCache sourceCache)
+  {
+    _sourceCache = sourceCache;
+  }
+
+  /**
+   * Get the {@link SchemaSourceCache} used to obtain the decoded Data objects of input sources.
+   *
+   * @return the cache, or {@code null} if no cache is used.
+   */
+  public SchemaSourceCache getSourceCache()
+  {
+    return _sourceCache;
+  }
+
   /**
    * Add a new mapping to the map of Data object to their locations in the input source.
    *
@@ -815,6 +886,7 @@ abstract public class AbstractSchemaParser implements PegasusSchemaParser
 
   private final JacksonDataCodec _codec = new JacksonDataCodec();
   private DataSchemaLocation _location = DataSchemaLocation.NO_LOCATION;
+  private SchemaSourceCache _sourceCache = null;
 
   private static final String NAMESPACE_KEY = "namespace";
   private static final String SUBSTITUTE_FOR_REQUIRED_STRING = new String();
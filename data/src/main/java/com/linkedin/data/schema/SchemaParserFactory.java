@@ -16,6 +16,7 @@
 
 package com.linkedin.data.schema;
 
+import com.linkedin.data.schema.resolver.SchemaSourceCache;
 import com.linkedin.data.schema.validation.ValidationOptions;
 import java.util.HashMap;
 import java.util.Map;
@@ -35,12 +36,19 @@ public class SchemaParserFactory implements DataSchemaParserFactory
     {
       parser.setValidationOptions(_validationOptions);
     }
+    parser.setSourceCache(_sourceCache);
     return parser;
   }
 
   protected SchemaParserFactory(ValidationOptions validationOptions)
+  {
+    this(validationOptions, null);
+  }
+
+  protected SchemaParserFactory(ValidationOptions validationOptions, SchemaSourceCache sourceCache)
   {
     _validationOptions = validationOptions;
+    _sourceCache = sourceCache;
   }
 
   static public final SchemaParserFactory instance()
@@ -62,7 +70,24 @@ public class SchemaParserFactory implements DataSchemaParserFactory
     }
   }
 
+  /**
+   * Obtain a factory whose parsers use the specified validation options and {@link SchemaSourceCache}.
+   *
+   * @param validationOptions to be provided to the parsers, may be {@code null}.
+   * @param sourceCache to be provided to the parsers, may be {@code null}.
+   * @return a factory, which is shared with {@link #instance(ValidationOptions)} if there is no cache.
+   */
+  static public final SchemaParserFactory instance(ValidationOptions validationOptions, SchemaSourceCache sourceCache)
+  {
+    if (sourceCache == null)
+    {
+      return instance(validationOptions);
+    }
+    return new SchemaParserFactory(validationOptions, sourceCache);
+  }
+
   static private final Map<ValidationOptions, SchemaParserFactory> factoryMap =
       new HashMap<ValidationOptions, SchemaParserFactory>();
   private final ValidationOptions _validationOptions;
+  private final SchemaSourceCache _sourceCache;
 }
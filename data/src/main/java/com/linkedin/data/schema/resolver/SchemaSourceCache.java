@@ -0,0 +1,323 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.data.schema.resolver;
+
+
+import com.linkedin.data.DataList;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.codec.PsonDataCodec;
+import com.linkedin.data.schema.DataSchemaLocation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Cache of decoded schema sources that may be shared by schema parsers and resolvers.
+ * <p>
+ *
+ * Parsing a schema source is done in two phases. The JSON text is first decoded into Data objects,
+ * then the Data objects are translated into {@link com.linkedin.data.schema.DataSchema}s, binding names
+ * through a {@link com.linkedin.data.schema.DataSchemaResolver}. Only the output of the first phase is cached, because it does
+ * not depend on the resolver the schema is parsed with. The second phase is always repeated, so
+ * the parsed schemas and the resolver's bindings are the same with or without a cache.
+ * <p>
+ *
+ * Entries are keyed by the source location and the SHA-256 hash of the source content. An entry is
+ * only used if the content hash still matches, so a changed source is always decoded again.
+ * If a cache directory is provided, entries are also persisted there as PSON-encoded files named
+ * by the content hash, and they are reused by later processes, e.g. across incremental builds.
+ * <p>
+ *
+ * Data objects obtained from the cache do not have entries in the parser's data location map,
+ * therefore error messages for schemas parsed from a cached source do not include line and column
+ * numbers. Sources that cannot be decoded are never cached.
+ * <p>
+ *
+ * This class is thread-safe.
+ */
+public class SchemaSourceCache
+{
+  /**
+   * Constructor for a cache that is held in memory only.
+   */
+  public SchemaSourceCache()
+  {
+    this(null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param directory to persist cached entries to, may be {@code null} if entries should be held in memory only.
+   */
+  public SchemaSourceCache(File directory)
+  {
+    _directory = directory;
+  }
+
+  /**
+   * Compute the content hash of a schema source.
+   *
+   * @param content of the schema source.
+   * @return the hex encoded SHA-256 hash of the content.
+   */
+  public static String contentHash(byte[] content)
+  {
+    final byte[] digest;
+    try
+    {
+      digest = MessageDigest.getInstance("SHA-256").digest(content);
+    }
+    catch (NoSuchAlgorithmException e)
+    {
+      throw new IllegalStateException(e);
+    }
+
+    final StringBuilder sb = new StringBuilder(digest.length * 2);
+    for (byte b : digest)
+    {
+      sb.append(HEX_DIGITS[(b >> 4) & 0xf]).append(HEX_DIGITS[b & 0xf]);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Read all the content of an {@link InputStream}.
+   *
+   * @param inputStream to read, it is not closed by this method.
+   * @return the content of the {@link InputStream}.
+   * @throws IOException if the {@link InputStream} cannot be read.
+   */
+  public static byte[] readContent(InputStream inputStream) throws IOException
+  {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[8192];
+    int read;
+    while ((read = inputStream.read(buffer)) != -1)
+    {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Obtain the decoded Data objects of a schema source.
+   *
+   * @param location of the schema source.
+   * @param contentHash of the schema source, see {@link #contentHash(byte[])}.
+   * @return a copy of the cached Data objects that the caller may modify,
+   *         or {@code null} if the source is not cached with the specified content hash.
+   */
+  public List<Object> get(DataSchemaLocation location, String contentHash)
+  {
+    final String key = location.toString();
+    Entry entry = _entries.get(key);
+    if (entry != null && !entry._contentHash.equals(contentHash))
+    {
+      _entries.remove(key, entry);
+      entry = null;
+    }
+    if (entry == null)
+    {
+      final DataList objects = readPersisted(contentHash);
+      if (objects == null)
+      {
+        return null;
+      }
+      entry = new Entry(contentHash, objects);
+      _entries.put(key, entry);
+    }
+    return entry.copy();
+  }
+
+  /**
+   * Add the decoded Data objects of a schema source to the cache.
+   *
+   * The Data objects are copied, later changes to them do not affect the cache.
+   *
+   * @param location of the schema source.
+   * @param contentHash of the schema source, see {@link #contentHash(byte[])}.
+   * @param objects decoded from the schema source.
+   */
+  public void put(DataSchemaLocation location, String contentHash, List<Object> objects)
+  {
+    final DataList cached;
+    try
+    {
+      cached = new DataList(objects).copy();
+    }
+    catch (CloneNotSupportedException e)
+    {
+      return;
+    }
+    cached.makeReadOnly();
+    _entries.put(location.toString(), new Entry(contentHash, cached));
+    writePersisted(contentHash, cached);
+  }
+
+  /**
+   * Remove the cached entry of a schema source from memory.
+   *
+   * Persisted entries are keyed by content hash only and are not removed.
+   *
+   * @param location of the schema source.
+   */
+  public void invalidate(DataSchemaLocation location)
+  {
+    _entries.remove(location.toString());
+  }
+
+  /**
+   * Decode the specified schema files in parallel and add them to the cache.
+   *
+   * Files that are already cached with their current content, or that cannot be read or decoded,
+   * are skipped. Schema parsers that later parse these files obtain the Data objects from the cache
+   * and only have to translate them into schemas.
+   *
+   * @param files to decode.
+   */
+  public void preload(Collection<File> files)
+  {
+    files.parallelStream().forEach(this::preload);
+  }
+
+  private void preload(File file)
+  {
+    final DataSchemaLocation location = new FileDataSchemaLocation(file);
+    try (InputStream inputStream = new FileInputStream(file))
+    {
+      final byte[] content = readContent(inputStream);
+      final String contentHash = contentHash(content);
+      if (get(location, contentHash) != null)
+      {
+        return;
+      }
+
+      final StringBuilder errorMessageBuilder = new StringBuilder();
+      final List<Object> objects = new JacksonDataCodec().parse(new ByteArrayInputStream(content), errorMessageBuilder, null);
+      if (errorMessageBuilder.length() == 0)
+      {
+        put(location, contentHash, objects);
+      }
+    }
+    catch (IOException e)
+    {
+      // the parser reports the error when the file is parsed
+    }
+  }
+
+  private DataList readPersisted(String contentHash)
+  {
+    if (_directory == null)
+    {
+      return null;
+    }
+
+    final File file = new File(_directory, contentHash + PERSISTED_EXTENSION);
+    if (!file.isFile())
+    {
+      return null;
+    }
+
+    try
+    {
+      final DataList objects = new PsonDataCodec().bytesToList(Files.readAllBytes(file.toPath()));
+      objects.makeReadOnly();
+      return objects;
+    }
+    catch (IOException e)
+    {
+      return null;
+    }
+  }
+
+  private void writePersisted(String contentHash, DataList objects)
+  {
+    if (_directory == null)
+    {
+      return;
+    }
+
+    final File file = new File(_directory, contentHash + PERSISTED_EXTENSION);
+    if (file.isFile())
+    {
+      return;
+    }
+
+    try
+    {
+      Files.createDirectories(_directory.toPath());
+      final File temp = File.createTempFile(contentHash, ".tmp", _directory);
+      try
+      {
+        Files.write(temp.toPath(), new PsonDataCodec().listToBytes(objects));
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+      finally
+      {
+        Files.deleteIfExists(temp.toPath());
+      }
+    }
+    catch (IOException e)
+    {
+      // the cache is best effort, the entry remains cached in memory
+    }
+  }
+
+  private static class Entry
+  {
+    private Entry(String contentHash, DataList objects)
+    {
+      _contentHash = contentHash;
+      _objects = objects;
+    }
+
+    private synchronized List<Object> copy()
+    {
+      try
+      {
+        return _objects.copy();
+      }
+      catch (CloneNotSupportedException e)
+      {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private final String _contentHash;
+    private final DataList _objects;
+  }
+
+  private static final String PERSISTED_EXTENSION = ".pson";
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final File _directory;
+  private final ConcurrentMap<String, Entry> _entries = new ConcurrentHashMap<String, Entry>();
+}
@@ -19,6 +19,7 @@ package com.linkedin.data.schema.validation;
 
 import com.linkedin.data.ByteString;
 import com.linkedin.data.Data;
+import com.linkedin.data.DataComplex;
 import com.linkedin.data.DataList;
 import com.linkedin.data.DataMap;
 import com.linkedin.data.Null;
@@ -28,6 +29,7 @@ import com.linkedin.data.element.MutableDataElement;
 import com.linkedin.data.element.SimpleDataElement;
 import com.linkedin.data.it.IterationOrder;
 import com.linkedin.data.it.ObjectIterator;
+import com.linkedin.data.it.Predicate;
 import com.linkedin.data.message.Message;
 import com.linkedin.data.message.MessageList;
 import com.linkedin.data.schema.ArrayDataSchema;
@@ -52,10 +54,16 @@ import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 
 /**
  * A utility class to validate and fixup data objects according to the objects' {@link DataSchema}.
+ *
+ * Large {@link DataList}s and {@link DataMap}s may be validated in parallel,
+ * see {@link ValidationOptions#setParallelThreshold(int)}.
  */
 public final class ValidateDataAgainstSchema
 {
@@ -78,6 +86,34 @@ public final class ValidateDataAgainstSchema
     }
   };
 
+  /**
+   * Return the schema of a child of an element, as determined by {@link ObjectIterator}.
+   */
+  private static DataSchema childSchema(DataElement element, Object name)
+  {
+    DataSchema schema = element.getSchema();
+    if (element.getValue().getClass() == DataList.class)
+    {
+      return schema.getType() == DataSchema.Type.ARRAY ? ((ArrayDataSchema) schema).getItems() : null;
+    }
+    DataSchema dereferencedSchema = schema.getDereferencedDataSchema();
+    switch (dereferencedSchema.getType())
+    {
+      case RECORD:
+        RecordDataSchema.Field field = ((RecordDataSchema) dereferencedSchema).getField((String) name);
+        return field == null ? null : field.getType();
+      case UNION:
+        return ((UnionDataSchema) dereferencedSchema).getType((String) name);
+      case MAP:
+        return ((MapDataSchema) dereferencedSchema).getValues();
+      default:
+        throw new IllegalStateException("Unknown dereferenced type " + dereferencedSchema.getType() + " for DataMap's schema " + schema);
+    }
+  }
+
+  // number of ranges of children validated in parallel per thread of the ForkJoinPool, to balance the load.
+  private static final int RANGES_PER_THREAD = 4;
+
   public static ValidationResult validate(DataTemplate<?> dataTemplate, ValidationOptions options)
   {
     return validate(dataTemplate, options, null);
@@ -126,12 +162,22 @@ public final class ValidateDataAgainstSchema
     private boolean _valid = true;
     private final Context _context;
     private List<FieldToTrim> _toTrim = new ArrayList<FieldToTrim>(0);
+    // the DataList or DataMap whose children are validated by this state in parallel with its other children,
+    // fixes of its children are buffered because they would modify it concurrently.
+    private final DataComplex _isolatedParent;
+    private List<ChildFix> _childFixes = null;
 
     private State(ValidationOptions options, Validator validator)
+    {
+      this(options, validator, null);
+    }
+
+    private State(ValidationOptions options, Validator validator, DataComplex isolatedParent)
     {
       _options = options;
       _validator = validator;
       _context = (validator == null ? null : new Context());
+      _isolatedParent = isolatedParent;
     }
 
     protected void validate(DataElement element)
@@ -164,29 +210,140 @@ public final class ValidateDataAgainstSchema
     {
       _recursive = false;
       _fixed = element.getValue();
-      UnrecognizedFieldMode unrecognizedFieldMode = _options.getUnrecognizedFieldMode();
-      ObjectIterator it = new ObjectIterator(element, IterationOrder.POST_ORDER);
+      validateIterative(element, _options.getParallelThreshold() == Integer.MAX_VALUE ?
+          null : new LargeContainerPredicate(_options.getParallelThreshold()));
+    }
+
+    /**
+     * Validate the element and its descendants in post-order. The children of the containers selected
+     * by the predicate are validated in parallel, before the container itself.
+     */
+    private void validateIterative(DataElement element, LargeContainerPredicate parallelPredicate)
+    {
+      ObjectIterator it = new ObjectIterator(element, IterationOrder.POST_ORDER, parallelPredicate);
       DataElement nextElement;
       while ((nextElement = it.next()) != null)
       {
-        DataSchema nextElementSchema = nextElement.getSchema();
-        if (nextElementSchema != null)
+        if (parallelPredicate != null && parallelPredicate.evaluate(nextElement))
         {
-          validate(nextElement, nextElementSchema, nextElement.getValue());
+          validateChildrenInParallel(nextElement, parallelPredicate);
         }
-        else if (unrecognizedFieldMode != UnrecognizedFieldMode.IGNORE)
+        validateElement(nextElement);
+      }
+    }
+
+    private void validateElement(DataElement element)
+    {
+      DataSchema schema = element.getSchema();
+      if (schema != null)
+      {
+        validate(element, schema, element.getValue());
+      }
+      else if (_options.getUnrecognizedFieldMode() != UnrecognizedFieldMode.IGNORE)
+      {
+        DataElement parentElement = element.getParent();
+        // We only need to trim elements where the parent type is recognized but the element
+        // is not.
+        if (parentElement != null && parentElement.getSchema() != null)
         {
-          DataElement parentElement = nextElement.getParent();
-          // We only need to trim elements where the parent type is recognized but the element
-          // is not.
-          if (parentElement != null && parentElement.getSchema() != null)
+          handleUnrecognizedField(element);
+        }
+      }
+    }
+
+    /**
+     * Validate contiguous ranges of the children of a {@link DataList} or {@link DataMap} in parallel,
+     * each with its own state, then merge the states in the order of the ranges so that the result
+     * is the same as the result of sequential validation.
+     */
+    private void validateChildrenInParallel(DataElement element, LargeContainerPredicate parallelPredicate)
+    {
+      DataComplex parent = (DataComplex) element.getValue();
+      Object[] names;
+      Object[] values;
+      if (parent.getClass() == DataMap.class)
+      {
+        DataMap map = (DataMap) parent;
+        names = new Object[map.size()];
+        values = new Object[names.length];
+        int index = 0;
+        for (Map.Entry<String, Object> entry : map.entrySet())
+        {
+          names[index] = entry.getKey();
+          values[index] = entry.getValue();
+          index++;
+        }
+      }
+      else
+      {
+        values = ((DataList) parent).toArray();
+        names = new Object[values.length];
+        for (int index = 0; index < names.length; index++)
+        {
+          names[index] = index;
+        }
+      }
+
+      ForkJoinPool pool = _options.getForkJoinPool();
+      int count = Math.min(values.length, pool.getParallelism() * RANGES_PER_THREAD);
+      final List<ValidateChildrenTask> tasks = new ArrayList<ValidateChildrenTask>(count);
+      for (int i = 0; i < count; i++)
+      {
+        int from = (int) ((long) values.length * i / count);
+        int to = (int) ((long) values.length * (i + 1) / count);
+        State state = new State(_options, _validator, parent);
+        tasks.add(new ValidateChildrenTask(state, parallelPredicate, element, names, values, from, to));
+      }
+
+      if (ForkJoinTask.getPool() == pool)
+      {
+        ForkJoinTask.invokeAll(tasks);
+      }
+      else
+      {
+        pool.invoke(new RecursiveAction()
+        {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected void compute()
           {
-            handleUnrecognizedField(nextElement);
+            invokeAll(tasks);
           }
+        });
+      }
+
+      for (ValidateChildrenTask task : tasks)
+      {
+        merge(task._state);
+      }
+    }
+
+    private void merge(State state)
+    {
+      _messages.addAll(state._messages);
+      _valid &= state._valid;
+      _hasFix |= state._hasFix;
+      _hasFixupReadOnlyError |= state._hasFixupReadOnlyError;
+      _toTrim.addAll(state._toTrim);
+      if (state._childFixes != null)
+      {
+        for (ChildFix childFix : state._childFixes)
+        {
+          childFix.apply(state._isolatedParent);
         }
       }
     }
 
+    private void addChildFix(DataElement element, Object fixed)
+    {
+      if (_childFixes == null)
+      {
+        _childFixes = new ArrayList<ChildFix>();
+      }
+      _childFixes.add(new ChildFix(element.getName(), fixed));
+    }
+
     protected Object validate(DataElement element, DataSchema schema, Object object)
     {
       Object fixed;
@@ -266,6 +423,10 @@ public final class ValidateDataAgainstSchema
             _hasFixupReadOnlyError = true;
             addMessage(element, "cannot be fixed because DataMap backing %1$s type is read-only", parentElement.getSchema().getUnionMemberKey());
           }
+          else if (map == _isolatedParent)
+          {
+            addChildFix(element, fixed);
+          }
           else
           {
             map.put((String) element.getName(), fixed);
@@ -279,6 +440,10 @@ public final class ValidateDataAgainstSchema
             _hasFixupReadOnlyError = true;
             addMessage(element, "cannot be fixed because DataList backing an array type is read-only");
           }
+          else if (list == _isolatedParent)
+          {
+            addChildFix(element, fixed);
+          }
           else
           {
             list.set((Integer) element.getName(), fixed);
@@ -314,6 +479,107 @@ public final class ValidateDataAgainstSchema
       }
     }
 
+    /**
+     * Holds the fixed value of a child of a {@link DataList} or {@link DataMap} that is validated
+     * in parallel with its siblings, until all its siblings have been validated.
+     */
+    private static class ChildFix
+    {
+      private ChildFix(Object name, Object fixed)
+      {
+        _name = name;
+        _fixed = fixed;
+      }
+
+      private void apply(DataComplex parent)
+      {
+        if (parent.getClass() == DataMap.class)
+        {
+          ((DataMap) parent).put((String) _name, _fixed);
+        }
+        else
+        {
+          ((DataList) parent).set((Integer) _name, _fixed);
+        }
+      }
+
+      private final Object _name;
+      private final Object _fixed;
+    }
+
+    /**
+     * Selects the {@link DataList}s and {@link DataMap}s with a schema whose children are validated in parallel.
+     * {@link ObjectIterator} does not iterate the children of the selected containers.
+     */
+    private static class LargeContainerPredicate implements Predicate
+    {
+      private LargeContainerPredicate(int threshold)
+      {
+        _threshold = threshold;
+      }
+
+      @Override
+      public boolean evaluate(DataElement element)
+      {
+        if (element.getSchema() == null)
+        {
+          return false;
+        }
+        Object value = element.getValue();
+        Class<?> clazz = value.getClass();
+        if (clazz == DataMap.class)
+        {
+          return ((DataMap) value).size() >= _threshold;
+        }
+        else if (clazz == DataList.class)
+        {
+          return ((DataList) value).size() >= _threshold;
+        }
+        return false;
+      }
+
+      private final int _threshold;
+    }
+
+    /**
+     * Validates a range of the children of a {@link DataList} or {@link DataMap}.
+     */
+    private static class ValidateChildrenTask extends RecursiveAction
+    {
+      private static final long serialVersionUID = 1L;
+
+      private ValidateChildrenTask(State state, LargeContainerPredicate parallelPredicate, DataElement parentElement,
+                                   Object[] names, Object[] values, int from, int to)
+      {
+        _state = state;
+        _parallelPredicate = parallelPredicate;
+        _parentElement = parentElement;
+        _names = names;
+        _values = values;
+        _from = from;
+        _to = to;
+      }
+
+      @Override
+      protected void compute()
+      {
+        MutableDataElement childElement = new MutableDataElement(_parentElement);
+        for (int i = _from; i < _to; i++)
+        {
+          childElement.setValueNameSchema(_values[i], _names[i], childSchema(_parentElement, _names[i]));
+          _state.validateIterative(childElement, _parallelPredicate);
+        }
+      }
+
+      private final transient State _state;
+      private final transient LargeContainerPredicate _parallelPredicate;
+      private final transient DataElement _parentElement;
+      private final Object[] _names;
+      private final Object[] _values;
+      private final int _from;
+      private final int _to;
+    }
+
     /**
      * Holds a the element of a {@link com.linkedin.data.DataMap} field for later removal.
      *
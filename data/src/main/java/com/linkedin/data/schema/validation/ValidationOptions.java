@@ -24,6 +24,7 @@ import com.linkedin.util.ArgumentUtil;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -46,6 +47,11 @@ import java.util.Map;
  * Fix-up can occur if the coercion mode is not set to {@link CoercionMode#OFF}
  * or the required mode is set to {@link RequiredMode#FIXUP_ABSENT_WITH_DEFAULT}.
  *
+ * <p>
+ * The <i>parallel threshold</i> is the number of children at or above which the children
+ * of a {@link com.linkedin.data.DataList} or {@link com.linkedin.data.DataMap} are validated
+ * in parallel, see {@link #setParallelThreshold(int)}. By default, validation is sequential.
+ *
  * Unlike Avro, union to record schema resolution is not implemented.
  *
  * @author slim
@@ -257,6 +263,65 @@ public final class ValidationOptions
     return _avroUnionMode;
   }
 
+  /**
+   * Set the number of children at or above which the children of a {@link com.linkedin.data.DataList}
+   * or {@link com.linkedin.data.DataMap} are validated in parallel.
+   *
+   * The children are split into contiguous ranges that are validated by the {@link ForkJoinPool}
+   * returned by {@link #getForkJoinPool()}. The validation result, including the order of its
+   * messages, is the same as the result of sequential validation. Fix-ups of the children are
+   * buffered and applied to the {@link com.linkedin.data.DataList} or {@link com.linkedin.data.DataMap}
+   * after its children have been validated.
+   *
+   * Parallel validation requires that complex objects are not shared by different children of the
+   * same {@link com.linkedin.data.DataList} or {@link com.linkedin.data.DataMap}, and that the
+   * {@link com.linkedin.data.schema.validator.Validator} used for validation is thread-safe.
+   * It is not used in Avro union mode.
+   *
+   * @param parallelThreshold provides the number of children at or above which children are validated
+   *                          in parallel, {@link Integer#MAX_VALUE} disables parallel validation.
+   * @throws IllegalArgumentException if the threshold is less than 1.
+   */
+  public void setParallelThreshold(int parallelThreshold)
+  {
+    if (parallelThreshold < 1)
+    {
+      throw new IllegalArgumentException("parallelThreshold must be at least 1");
+    }
+    _parallelThreshold = parallelThreshold;
+  }
+
+  /**
+   * Return the number of children at or above which children are validated in parallel.
+   *
+   * @return the parallel threshold.
+   * @see #setParallelThreshold(int)
+   */
+  public int getParallelThreshold()
+  {
+    return _parallelThreshold;
+  }
+
+  /**
+   * Set the {@link ForkJoinPool} used for parallel validation.
+   *
+   * @param forkJoinPool provides the pool, or null to use {@link ForkJoinPool#commonPool()}.
+   */
+  public void setForkJoinPool(ForkJoinPool forkJoinPool)
+  {
+    _forkJoinPool = forkJoinPool;
+  }
+
+  /**
+   * Return the {@link ForkJoinPool} used for parallel validation.
+   *
+   * @return the pool set by {@link #setForkJoinPool(ForkJoinPool)} or {@link ForkJoinPool#commonPool()}.
+   */
+  public ForkJoinPool getForkJoinPool()
+  {
+    return _forkJoinPool == null ? ForkJoinPool.commonPool() : _forkJoinPool;
+  }
+
   @Override
   public boolean equals(Object other)
   {
@@ -269,6 +334,8 @@ public final class ValidationOptions
         && otherOptions._requiredMode == _requiredMode
         && otherOptions._unrecognizedFieldMode == _unrecognizedFieldMode
         && otherOptions._avroUnionMode == _avroUnionMode
+        && otherOptions._parallelThreshold == _parallelThreshold
+        && otherOptions._forkJoinPool == _forkJoinPool
         && otherOptions._validatorParameters.equals(_validatorParameters));
   }
 
@@ -280,6 +347,7 @@ public final class ValidationOptions
     code = code * 31 + (_coercionMode == null ? 0 : _coercionMode.hashCode());
     code = code * 31 + (_unrecognizedFieldMode == null ? 0 : _unrecognizedFieldMode.hashCode());
     code = code * 31 + (_avroUnionMode ? 0 : 53);
+    code = code * 31 + _parallelThreshold;
     code = code * 31 + (_validatorParameters.hashCode());
     return code;
   }
@@ -296,6 +364,11 @@ public final class ValidationOptions
       .append(_unrecognizedFieldMode)
       .append(", AvroUnionMode=")
       .append(_avroUnionMode);
+    if (_parallelThreshold != NO_PARALLEL_THRESHOLD)
+    {
+      sb.append(", ParallelThreshold=")
+        .append(_parallelThreshold);
+    }
     if (_validatorParameters != NO_VALIDATOR_PARAMETERS)
     {
       sb.append(", ValidatorOptions=")
@@ -308,9 +381,12 @@ public final class ValidationOptions
   private RequiredMode _requiredMode;
   private UnrecognizedFieldMode _unrecognizedFieldMode;
   private boolean      _avroUnionMode = false;
+  private int          _parallelThreshold = NO_PARALLEL_THRESHOLD;
+  private ForkJoinPool _forkJoinPool = null;
   private Map<String,Object> _validatorParameters = NO_VALIDATOR_PARAMETERS;
   // Treat required fields as optional if the corresponding data element satisfies this predicate
   private Predicate _treatOptional = Predicates.alwaysFalse();
 
   private static final Map<String,Object> NO_VALIDATOR_PARAMETERS = Collections.emptyMap();
+  private static final int NO_PARALLEL_THRESHOLD = Integer.MAX_VALUE;
 }
@@ -0,0 +1,40 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.data.template;
+
+/**
+ * Create {@link DataTemplate}s that wrap Data objects.
+ * <p>
+ * Generated {@link DataTemplate} classes provide a factory that invokes their constructor directly
+ * in a private static field named {@link DataTemplateUtil#FACTORY_FIELD_NAME}.
+ * {@link DataTemplateUtil#templateFactory(Class)} returns this factory, so that wrapping Data objects
+ * does not require reflection.
+ *
+ * @param <T> the {@link DataTemplate} type.
+ */
+public interface DataTemplateFactory<T extends DataTemplate<?>>
+{
+  /**
+   * Create a {@link DataTemplate} that wraps the provided Data object.
+   *
+   * @param data provides the Data object to wrap.
+   * @return a {@link DataTemplate} that wraps the Data object.
+   * @throws ClassCastException if the Data object is not of the type expected by the {@link DataTemplate}.
+   * @throws TemplateOutputCastException if the {@link DataTemplate} cannot be created.
+   */
+  T create(Object data) throws ClassCastException, TemplateOutputCastException;
+}
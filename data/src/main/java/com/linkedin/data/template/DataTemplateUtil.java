@@ -34,6 +34,7 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Map;
@@ -42,6 +43,7 @@ public class DataTemplateUtil
 {
   public static final String SCHEMA_FIELD_NAME = "SCHEMA";
   public static final String TYPEREFINFO_FIELD_NAME = "TYPEREFINFO";
+  public static final String FACTORY_FIELD_NAME = "FACTORY";
   public static final String UNKNOWN_ENUM = "$UNKNOWN";
   public static final PrintStream out = new PrintStream(new FileOutputStream(FileDescriptor.out));
   private static final boolean debug = false;
@@ -64,6 +66,14 @@ public class DataTemplateUtil
    */
   public static <T extends DataTemplate<?>> Constructor<T> templateConstructor(Class<T> templateClass)
       throws TemplateOutputCastException
+  {
+    @SuppressWarnings("unchecked")
+    final Constructor<T> constructor = (Constructor<T>) TEMPLATE_CONSTRUCTORS.get(templateClass);
+    return constructor;
+  }
+
+  private static <T> Constructor<T> findTemplateConstructor(Class<T> templateClass)
+      throws TemplateOutputCastException
   {
     Class<?> classArg = DataMap.class;
     try
@@ -112,30 +122,107 @@ public class DataTemplateUtil
    */
   public static <T extends DataTemplate<?>> T wrap(Object object, Class<T> wrapperClass)
     throws TemplateOutputCastException
+  {
+    return wrap(object, templateFactory(wrapperClass), wrapperClass);
+  }
+
+  /* package scope */
+  static <T extends DataTemplate<?>> T wrap(Object object, DataTemplateFactory<T> factory, Class<T> wrapperClass)
+    throws TemplateOutputCastException
   {
     try
     {
-      return templateConstructor(wrapperClass).newInstance(object);
+      return factory.create(object);
     }
-    catch (IllegalArgumentException e)
+    catch (ClassCastException e)
     {
       throw new TemplateOutputCastException("Could not create new instance of " + wrapperClass.getName() + " with argument " + object, e);
     }
-    catch (InstantiationException e)
-    {
-      throw new TemplateOutputCastException("Could not create new instance of " + wrapperClass.getName() + ": cannot initialize an abstract class", e);
-    }
-    catch (IllegalAccessException e)
+  }
+
+  /**
+   * Get the factory that creates instances of the provided concrete {@link DataTemplate} class to wrap Data objects.
+   *
+   * If the class provides a generated factory in a static field named {@link #FACTORY_FIELD_NAME},
+   * that factory is returned. Otherwise, the factory uses the constructor returned by
+   * {@link #templateConstructor(Class)}. Factories are looked up once per class.
+   *
+   * @param templateClass provides the concrete {@link DataTemplate} class.
+   * @param <T> provides the concrete {@link DataTemplate} type.
+   * @return a {@link DataTemplateFactory} that creates instances of the provided {@link DataTemplate} class.
+   * @throws TemplateOutputCastException if the class does not provide a factory and a constructor with the
+   *                                     appropriate method signature cannot be obtained.
+   */
+  public static <T extends DataTemplate<?>> DataTemplateFactory<T> templateFactory(Class<T> templateClass)
+      throws TemplateOutputCastException
+  {
+    @SuppressWarnings("unchecked")
+    final DataTemplateFactory<T> factory = (DataTemplateFactory<T>) TEMPLATE_FACTORIES.get(templateClass);
+    return factory;
+  }
+
+  /**
+   * Get the factory that creates instances of the provided concrete {@link DataTemplate} class to wrap Data objects.
+   *
+   * If the class does not provide a generated factory, the factory uses the constructor returned by
+   * {@link #templateConstructor(Class, DataSchema)}.
+   *
+   * @param templateClass provides the concrete {@link DataTemplate} class.
+   * @param schema provides the {@link DataSchema} of the provided {@link DataTemplate} class.
+   * @param <T> provides the concrete {@link DataTemplate} type.
+   * @return a {@link DataTemplateFactory} that creates instances of the provided {@link DataTemplate} class.
+   * @throws TemplateOutputCastException if the class does not provide a factory and a constructor with the
+   *                                     appropriate method signature cannot be obtained.
+   */
+  public static <T extends DataTemplate<?>> DataTemplateFactory<T> templateFactory(Class<T> templateClass, DataSchema schema)
+      throws TemplateOutputCastException
+  {
+    final Object generated = GENERATED_FACTORIES.get(templateClass);
+    if (generated != NO_GENERATED_FACTORY)
     {
-      throw new TemplateOutputCastException("Could not create new instance of " + wrapperClass.getName() + ": access control denies access to constructor", e);
+      @SuppressWarnings("unchecked")
+      final DataTemplateFactory<T> factory = (DataTemplateFactory<T>) generated;
+      return factory;
     }
-    catch (InvocationTargetException e)
+    return new ConstructorFactory<T>(templateConstructor(templateClass, schema));
+  }
+
+  /**
+   * Creates {@link DataTemplate}s using a constructor of a class that does not provide a generated factory.
+   */
+  private static class ConstructorFactory<T extends DataTemplate<?>> implements DataTemplateFactory<T>
+  {
+    private final Constructor<T> _constructor;
+
+    private ConstructorFactory(Constructor<T> constructor)
     {
-      throw new TemplateOutputCastException("Could not create new instance of " + wrapperClass.getName() + ": constructor throws an exception", e);
+      _constructor = constructor;
     }
-    catch (ClassCastException e)
+
+    @Override
+    public T create(Object data) throws TemplateOutputCastException
     {
-      throw new TemplateOutputCastException("Could not create new instance of " + wrapperClass.getName() + " with argument " + object, e);
+      final String className = _constructor.getDeclaringClass().getName();
+      try
+      {
+        return _constructor.newInstance(data);
+      }
+      catch (IllegalArgumentException e)
+      {
+        throw new TemplateOutputCastException("Could not create new instance of " + className + " with argument " + data, e);
+      }
+      catch (InstantiationException e)
+      {
+        throw new TemplateOutputCastException("Could not create new instance of " + className + ": cannot initialize an abstract class", e);
+      }
+      catch (IllegalAccessException e)
+      {
+        throw new TemplateOutputCastException("Could not create new instance of " + className + ": access control denies access to constructor", e);
+      }
+      catch (InvocationTargetException e)
+      {
+        throw new TemplateOutputCastException("Could not create new instance of " + className + ": constructor throws an exception", e);
+      }
     }
   }
 
@@ -160,24 +247,44 @@ public class DataTemplateUtil
   public static <T extends DataTemplate<?>> Constructor<T> templateConstructor(Class<T> templateClass, DataSchema schema)
       throws TemplateOutputCastException
   {
-    Class<?> classArg = DataMap.class;
+    Class<?> classArg;
+    switch (schema.getDereferencedType())
+    {
+      case MAP:
+      case RECORD:
+        classArg = DataMap.class;
+        break;
+      case ARRAY:
+        classArg = DataList.class;
+        break;
+      case FIXED:
+      case UNION:
+        classArg = Object.class;
+        break;
+      default:
+        throw new TemplateOutputCastException("Could not get constructor for schema: " + schema.getDereferencedType().name() + " does not match any DataTemplate classes");
+    }
+
+    // the constructor expected by the class hierarchy almost always matches the schema, and is looked up once.
+    Constructor<?> cached;
     try
     {
-      switch (schema.getDereferencedType())
-      {
-        case MAP:
-        case RECORD:
-          return templateClass.getConstructor(DataMap.class);
-        case ARRAY:
-          classArg = DataList.class;
-          return templateClass.getConstructor(DataList.class);
-        case FIXED:
-        case UNION:
-          classArg = Object.class;
-          return templateClass.getConstructor(Object.class);
-        default:
-          throw new TemplateOutputCastException("Could not get constructor for schema: " + schema.getDereferencedType().name() + " does not match any DataTemplate classes");
-      }
+      cached = TEMPLATE_CONSTRUCTORS.get(templateClass);
+    }
+    catch (TemplateOutputCastException e)
+    {
+      cached = null;
+    }
+    if (cached != null && cached.getParameterTypes()[0] == classArg)
+    {
+      @SuppressWarnings("unchecked")
+      final Constructor<T> constructor = (Constructor<T>) cached;
+      return constructor;
+    }
+
+    try
+    {
+      return templateClass.getConstructor(classArg);
     }
     catch (SecurityException e)
     {
@@ -204,30 +311,7 @@ public class DataTemplateUtil
   public static <T extends DataTemplate<?>> T wrap(Object object, DataSchema schema, Class<T> wrapperClass)
     throws TemplateOutputCastException
   {
-    try
-    {
-      return templateConstructor(wrapperClass, schema).newInstance(object);
-    }
-    catch (IllegalArgumentException e)
-    {
-      throw new TemplateOutputCastException("Could not create new instance of " + wrapperClass.getName() + " with argument " + object, e);
-    }
-    catch (InstantiationException e)
-    {
-      throw new TemplateOutputCastException("Could not create new instance of " + wrapperClass.getName() + ": cannot initialize an abstract class", e);
-    }
-    catch (IllegalAccessException e)
-    {
-      throw new TemplateOutputCastException("Could not create new instance of " + wrapperClass.getName() + ": access control denies access to constructor", e);
-    }
-    catch (InvocationTargetException e)
-    {
-      throw new TemplateOutputCastException("Could not create new instance of " + wrapperClass.getName() + ": constructor throws an exception", e);
-    }
-    catch (ClassCastException e)
-    {
-      throw new TemplateOutputCastException("Could not create new instance of " + wrapperClass.getName() + " with argument " + object, e);
-    }
+    return wrap(object, templateFactory(wrapperClass, schema), wrapperClass);
   }
 
   /**
@@ -356,6 +440,11 @@ public class DataTemplateUtil
    * @throws TemplateRuntimeException if the {@link DataSchema} for the specified type cannot be provided.
    */
   public static DataSchema getSchema(Class<?> type) throws TemplateRuntimeException
+  {
+    return SCHEMAS.get(type);
+  }
+
+  private static DataSchema findSchema(Class<?> type) throws TemplateRuntimeException
   {
     final DataSchema primitiveSchema = DataSchemaUtil.classToPrimitiveDataSchema(type);
     if (primitiveSchema != null)
@@ -593,6 +682,82 @@ public class DataTemplateUtil
     }
   }
 
+  /**
+   * Returns the generated factory provided by a {@link DataTemplate} class, or {@link #NO_GENERATED_FACTORY}.
+   */
+  private static Object findGeneratedFactory(Class<?> type)
+  {
+    final Field factoryField;
+    try
+    {
+      factoryField = type.getDeclaredField(FACTORY_FIELD_NAME);
+    }
+    catch (NoSuchFieldException e)
+    {
+      return NO_GENERATED_FACTORY;
+    }
+
+    if (!Modifier.isStatic(factoryField.getModifiers()) || factoryField.getType() != DataTemplateFactory.class)
+    {
+      return NO_GENERATED_FACTORY;
+    }
+    try
+    {
+      factoryField.setAccessible(true);
+      final DataTemplateFactory<?> factory = (DataTemplateFactory<?>) factoryField.get(null);
+      return factory == null ? NO_GENERATED_FACTORY : factory;
+    }
+    catch (IllegalAccessException e)
+    {
+      throw new TemplateOutputCastException("Error accessing factory field in class: " + type.getName(), e);
+    }
+  }
+
+  // ClassValue caches per class without preventing classes from being unloaded, and reads do not contend.
+  private static final ClassValue<DataSchema> SCHEMAS = new ClassValue<DataSchema>()
+  {
+    @Override
+    protected DataSchema computeValue(Class<?> type)
+    {
+      return findSchema(type);
+    }
+  };
+  private static final ClassValue<Constructor<?>> TEMPLATE_CONSTRUCTORS = new ClassValue<Constructor<?>>()
+  {
+    @Override
+    protected Constructor<?> computeValue(Class<?> type)
+    {
+      return findTemplateConstructor(type);
+    }
+  };
+  // marks classes without a generated factory, as ClassValue cannot hold null.
+  private static final Object NO_GENERATED_FACTORY = new Object();
+  private static final ClassValue<Object> GENERATED_FACTORIES = new ClassValue<Object>()
+  {
+    @Override
+    protected Object computeValue(Class<?> type)
+    {
+      return findGeneratedFactory(type);
+    }
+  };
+  private static final ClassValue<DataTemplateFactory<?>> TEMPLATE_FACTORIES = new ClassValue<DataTemplateFactory<?>>()
+  {
+    @Override
+    protected DataTemplateFactory<?> computeValue(Class<?> type)
+    {
+      final Object generated = GENERATED_FACTORIES.get(type);
+      return generated != NO_GENERATED_FACTORY
+          ? (DataTemplateFactory<?>) generated
+          : newConstructorFactory(TEMPLATE_CONSTRUCTORS.get(type));
+    }
+  };
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static DataTemplateFactory<?> newConstructorFactory(Constructor<?> constructor)
+  {
+    return new ConstructorFactory((Constructor) constructor);
+  }
+
   private static final Object _classToCoercerMutex = new Object();
   private static Map<Class<?>, DirectCoercer<?>> _classToCoercerMap;
   private static final DirectCoercer<Integer> INTEGER_COERCER = new IntegerCoercer();
@@ -833,6 +998,131 @@ public class DataTemplateUtil
     }
   }
 
+  /**
+   * Coerce an internal representation to {@link Integer}.
+   *
+   * Same as {@link #coerceOutput(Object, Class)} with {@code Integer.class}, without looking up the coercer.
+   * Used by generated specialized accessors.
+   *
+   * @param object provides the value that should be coerced, may be null.
+   * @return the coerced output value, or null if object is null.
+   * @throws TemplateOutputCastException if the specified object cannot be coerced.
+   */
+  public static Integer coerceIntOutput(Object object)
+      throws TemplateOutputCastException
+  {
+    if (object instanceof Integer)
+    {
+      return (Integer) object;
+    }
+    return object == null ? null : INTEGER_COERCER.coerceOutput(object);
+  }
+
+  /**
+   * Coerce an internal representation to {@link Long}.
+   *
+   * @see #coerceIntOutput(Object)
+   */
+  public static Long coerceLongOutput(Object object)
+      throws TemplateOutputCastException
+  {
+    if (object instanceof Long)
+    {
+      return (Long) object;
+    }
+    return object == null ? null : LONG_COERCER.coerceOutput(object);
+  }
+
+  /**
+   * Coerce an internal representation to {@link Float}.
+   *
+   * @see #coerceIntOutput(Object)
+   */
+  public static Float coerceFloatOutput(Object object)
+      throws TemplateOutputCastException
+  {
+    if (object instanceof Float)
+    {
+      return (Float) object;
+    }
+    return object == null ? null : FLOAT_COERCER.coerceOutput(object);
+  }
+
+  /**
+   * Coerce an internal representation to {@link Double}.
+   *
+   * @see #coerceIntOutput(Object)
+   */
+  public static Double coerceDoubleOutput(Object object)
+      throws TemplateOutputCastException
+  {
+    if (object instanceof Double)
+    {
+      return (Double) object;
+    }
+    return object == null ? null : DOUBLE_COERCER.coerceOutput(object);
+  }
+
+  /**
+   * Coerce an internal representation to {@link Boolean}.
+   *
+   * @see #coerceIntOutput(Object)
+   */
+  public static Boolean coerceBooleanOutput(Object object)
+      throws TemplateOutputCastException
+  {
+    if (object instanceof Boolean)
+    {
+      return (Boolean) object;
+    }
+    return object == null ? null : BOOLEAN_COERCER.coerceOutput(object);
+  }
+
+  /**
+   * Coerce an internal representation to {@link String}.
+   *
+   * @see #coerceIntOutput(Object)
+   */
+  public static String coerceStringOutput(Object object)
+      throws TemplateOutputCastException
+  {
+    if (object instanceof String)
+    {
+      return (String) object;
+    }
+    return object == null ? null : STRING_COERCER.coerceOutput(object);
+  }
+
+  /**
+   * Coerce an internal representation to {@link ByteString}.
+   *
+   * @see #coerceIntOutput(Object)
+   */
+  public static ByteString coerceBytesOutput(Object object)
+      throws TemplateOutputCastException
+  {
+    if (object instanceof ByteString)
+    {
+      return (ByteString) object;
+    }
+    return object == null ? null : BYTES_COERCER.coerceOutput(object);
+  }
+
+  /**
+   * Coerce an internal representation to an enum constant of the target class.
+   *
+   * @see #coerceIntOutput(Object)
+   */
+  public static <T extends Enum<T>> T coerceEnumOutput(Object object, Class<T> targetClass)
+      throws TemplateOutputCastException
+  {
+    if (object instanceof String)
+    {
+      return targetClass.cast(stringToEnum(targetClass, (String) object));
+    }
+    return object == null ? null : coerceOutput(object, targetClass);
+  }
+
   /**
    * Convert a {@link DataList} to the array of desired target class.
    *
@@ -18,7 +18,12 @@ package com.linkedin.data.template;
 
 import com.linkedin.data.DataList;
 import com.linkedin.data.schema.ArrayDataSchema;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
+import java.util.stream.DoubleStream;
 
 
 /**
@@ -60,4 +65,90 @@ public final class DoubleArray extends DirectArrayTemplate<Double>
   {
     return (DoubleArray) super.copy();
   }
+
+  /**
+   * Returns the elements of this array as a new {@code double[]}.
+   *
+   * @return a new array containing the elements of this array.
+   * @throws TemplateOutputCastException if an element cannot be coerced to {@code double}.
+   */
+  public double[] toDoubleArray() throws TemplateOutputCastException
+  {
+    final int size = _list.size();
+    final double[] values = new double[size];
+    for (int i = 0; i < size; i++)
+    {
+      values[i] = getDouble(i);
+    }
+    return values;
+  }
+
+  /**
+   * Appends all of the specified values to the end of this array.
+   *
+   * The underlying {@link DataList} is checked and grown once for all values.
+   *
+   * @param values provides the values to append.
+   * @return true if this array changed as a result of the call.
+   */
+  public boolean addAll(double[] values)
+  {
+    final Object[] boxed = new Object[values.length];
+    for (int i = 0; i < values.length; i++)
+    {
+      boxed[i] = values[i];
+    }
+    return _list.addAll(Arrays.asList(boxed));
+  }
+
+  /**
+   * Returns the element at the specified position as a primitive value.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position.
+   * @throws TemplateOutputCastException if the element cannot be coerced to {@code double}.
+   */
+  public double getDouble(int index) throws TemplateOutputCastException
+  {
+    return DataTemplateUtil.coerceDoubleOutput(_list.get(index));
+  }
+
+  /**
+   * Returns an iterator over the elements of this array as {@code double} values.
+   *
+   * @return a {@link PrimitiveIterator.OfDouble} over this array.
+   */
+  public PrimitiveIterator.OfDouble doubleIterator()
+  {
+    return new PrimitiveIterator.OfDouble()
+    {
+      @Override
+      public boolean hasNext()
+      {
+        return _index < _list.size();
+      }
+
+      @Override
+      public double nextDouble()
+      {
+        if (!hasNext())
+        {
+          throw new NoSuchElementException();
+        }
+        return getDouble(_index++);
+      }
+
+      private int _index = 0;
+    };
+  }
+
+  /**
+   * Returns a sequential {@link DoubleStream} over the elements of this array.
+   *
+   * @return a {@link DoubleStream} over this array.
+   */
+  public DoubleStream doubleStream()
+  {
+    return IntStream.range(0, _list.size()).mapToDouble(this::getDouble);
+  }
 }
@@ -18,7 +18,11 @@ package com.linkedin.data.template;
 
 import com.linkedin.data.DataList;
 import com.linkedin.data.schema.ArrayDataSchema;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
 
 
 /**
@@ -60,5 +64,90 @@ public final class IntegerArray extends DirectArrayTemplate<Integer>
   {
     return (IntegerArray) super.copy();
   }
-}
 
+  /**
+   * Returns the elements of this array as a new {@code int[]}.
+   *
+   * @return a new array containing the elements of this array.
+   * @throws TemplateOutputCastException if an element cannot be coerced to {@code int}.
+   */
+  public int[] toIntArray() throws TemplateOutputCastException
+  {
+    final int size = _list.size();
+    final int[] values = new int[size];
+    for (int i = 0; i < size; i++)
+    {
+      values[i] = getInt(i);
+    }
+    return values;
+  }
+
+  /**
+   * Appends all of the specified values to the end of this array.
+   *
+   * The underlying {@link DataList} is checked and grown once for all values.
+   *
+   * @param values provides the values to append.
+   * @return true if this array changed as a result of the call.
+   */
+  public boolean addAll(int[] values)
+  {
+    final Object[] boxed = new Object[values.length];
+    for (int i = 0; i < values.length; i++)
+    {
+      boxed[i] = values[i];
+    }
+    return _list.addAll(Arrays.asList(boxed));
+  }
+
+  /**
+   * Returns the element at the specified position as a primitive value.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position.
+   * @throws TemplateOutputCastException if the element cannot be coerced to {@code int}.
+   */
+  public int getInt(int index) throws TemplateOutputCastException
+  {
+    return DataTemplateUtil.coerceIntOutput(_list.get(index));
+  }
+
+  /**
+   * Returns an iterator over the elements of this array as {@code int} values.
+   *
+   * @return a {@link PrimitiveIterator.OfInt} over this array.
+   */
+  public PrimitiveIterator.OfInt intIterator()
+  {
+    return new PrimitiveIterator.OfInt()
+    {
+      @Override
+      public boolean hasNext()
+      {
+        return _index < _list.size();
+      }
+
+      @Override
+      public int nextInt()
+      {
+        if (!hasNext())
+        {
+          throw new NoSuchElementException();
+        }
+        return getInt(_index++);
+      }
+
+      private int _index = 0;
+    };
+  }
+
+  /**
+   * Returns a sequential {@link IntStream} over the elements of this array.
+   *
+   * @return a {@link IntStream} over this array.
+   */
+  public IntStream intStream()
+  {
+    return IntStream.range(0, _list.size()).map(this::getInt);
+  }
+}
@@ -18,7 +18,12 @@ package com.linkedin.data.template;
 
 import com.linkedin.data.DataList;
 import com.linkedin.data.schema.ArrayDataSchema;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 
 /**
@@ -60,4 +65,90 @@ public final class LongArray extends DirectArrayTemplate<Long>
   {
     return (LongArray) super.copy();
   }
+
+  /**
+   * Returns the elements of this array as a new {@code long[]}.
+   *
+   * @return a new array containing the elements of this array.
+   * @throws TemplateOutputCastException if an element cannot be coerced to {@code long}.
+   */
+  public long[] toLongArray() throws TemplateOutputCastException
+  {
+    final int size = _list.size();
+    final long[] values = new long[size];
+    for (int i = 0; i < size; i++)
+    {
+      values[i] = getLong(i);
+    }
+    return values;
+  }
+
+  /**
+   * Appends all of the specified values to the end of this array.
+   *
+   * The underlying {@link DataList} is checked and grown once for all values.
+   *
+   * @param values provides the values to append.
+   * @return true if this array changed as a result of the call.
+   */
+  public boolean addAll(long[] values)
+  {
+    final Object[] boxed = new Object[values.length];
+    for (int i = 0; i < values.length; i++)
+    {
+      boxed[i] = values[i];
+    }
+    return _list.addAll(Arrays.asList(boxed));
+  }
+
+  /**
+   * Returns the element at the specified position as a primitive value.
+   *
+   * @param index of the element to return.
+   * @return the element at the specified position.
+   * @throws TemplateOutputCastException if the element cannot be coerced to {@code long}.
+   */
+  public long getLong(int index) throws TemplateOutputCastException
+  {
+    return DataTemplateUtil.coerceLongOutput(_list.get(index));
+  }
+
+  /**
+   * Returns an iterator over the elements of this array as {@code long} values.
+   *
+   * @return a {@link PrimitiveIterator.OfLong} over this array.
+   */
+  public PrimitiveIterator.OfLong longIterator()
+  {
+    return new PrimitiveIterator.OfLong()
+    {
+      @Override
+      public boolean hasNext()
+      {
+        return _index < _list.size();
+      }
+
+      @Override
+      public long nextLong()
+      {
+        if (!hasNext())
+        {
+          throw new NoSuchElementException();
+        }
+        return getLong(_index++);
+      }
+
+      private int _index = 0;
+    };
+  }
+
+  /**
+   * Returns a sequential {@link LongStream} over the elements of this array.
+   *
+   * @return a {@link LongStream} over this array.
+   */
+  public LongStream longStream()
+  {
+    return IntStream.range(0, _list.size()).mapToLong(this::getLong);
+  }
 }
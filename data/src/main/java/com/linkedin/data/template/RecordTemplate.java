@@ -68,6 +68,7 @@ public abstract class RecordTemplate implements DataTemplate<DataMap>
     RecordTemplate clone = (RecordTemplate) super.clone();
     clone._map = clone._map.clone();
     clone._cache = clone._cache.clone();
+    clone._wrappedFieldCache = _wrappedFieldCache == null ? null : _wrappedFieldCache.clone();
     return clone;
   }
 
@@ -90,6 +91,7 @@ public abstract class RecordTemplate implements DataTemplate<DataMap>
     RecordTemplate copy = (RecordTemplate) super.clone();
     copy._map = _map.copy();
     copy._cache = new DataObjectToObjectCache<Object>();
+    copy._wrappedFieldCache = null;
     return copy;
   }
 
@@ -394,6 +396,68 @@ public abstract class RecordTemplate implements DataTemplate<DataMap>
     return wrapped;
   }
 
+  /**
+   * Get the value of field without coercing it.
+   *
+   * This is used by generated specialized accessors, which convert the value themselves
+   * instead of looking up a coercer through {@link DataTemplateUtil#coerceOutput(Object, Class)}.
+   *
+   * @param field provides the field to get.
+   * @param mode determines what should happen if the field is not present.
+   * @return the value, the default value or null.
+   * @throws RequiredFieldNotPresentException if mode is STRICT and the field is required but not present.
+   */
+  protected final Object obtainValue(RecordDataSchema.Field field, GetMode mode)
+      throws RequiredFieldNotPresentException
+  {
+    return obtainValueOrDefault(field, mode);
+  }
+
+  /**
+   * Get the value of field.
+   *
+   * This is a wrapping method used by generated specialized accessors. It behaves like
+   * {@link #obtainWrapped(com.linkedin.data.schema.RecordDataSchema.Field, Class, GetMode)}, but remembers the
+   * wrapper in a slot reserved for the field, so that repeated calls do not probe the per-instance cache.
+   *
+   * @param field provides the field to get.
+   * @param valueClass provides the expected class of the result.
+   * @param mode determines what should happen if the field is not present.
+   * @param slot index of the field in the generated class.
+   * @param <T> is the type of the result object.
+   * @return value of field or null with semantics defined by mode.
+   * @throws RequiredFieldNotPresentException if mode is STRICT and the field is required but not present.
+   * @throws TemplateOutputCastException if the value of the field cannot be wrapped by the expected class.
+   */
+  protected <T extends DataTemplate<?>> T obtainWrapped(final RecordDataSchema.Field field, Class<T> valueClass, GetMode mode, int slot)
+      throws RequiredFieldNotPresentException, TemplateOutputCastException
+  {
+    Object found = obtainValueOrDefault(field, mode);
+    if (found == null)
+    {
+      return null;
+    }
+
+    if (_wrappedFieldCache == null || _wrappedFieldCache.length <= slot)
+    {
+      final DataTemplate<?>[] slots = new DataTemplate<?>[Math.max(slot + 1, _schema.getFields().size())];
+      if (_wrappedFieldCache != null)
+      {
+        System.arraycopy(_wrappedFieldCache, 0, slots, 0, _wrappedFieldCache.length);
+      }
+      _wrappedFieldCache = slots;
+    }
+
+    DataTemplate<?> template = _wrappedFieldCache[slot];
+    if (template == null || template.data() != found || !valueClass.isInstance(template))
+    {
+      // the value may have been set through a template, which is remembered in the per-instance cache.
+      template = obtainWrapped(field, valueClass, mode);
+      _wrappedFieldCache[slot] = template;
+    }
+    return valueClass.cast(template);
+  }
+
   /**
    * Obtain the value of field from the underlying {@link DataMap}.
    *
@@ -483,4 +547,5 @@ public abstract class RecordTemplate implements DataTemplate<DataMap>
   private DataMap _map;
   private final RecordDataSchema _schema;
   private DataObjectToObjectCache<Object> _cache = new DataObjectToObjectCache<Object>();
+  private DataTemplate<?>[] _wrappedFieldCache;
 }
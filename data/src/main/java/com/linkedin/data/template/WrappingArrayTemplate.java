@@ -22,7 +22,6 @@ import com.linkedin.data.schema.ArrayDataSchema;
 import com.linkedin.data.schema.DataSchema;
 import com.linkedin.data.template.DataObjectToObjectCache;
 import com.linkedin.util.ArgumentUtil;
-import java.lang.reflect.Constructor;
 
 
 /**
@@ -43,7 +42,7 @@ public class WrappingArrayTemplate<E extends DataTemplate<?>> extends AbstractAr
       throws TemplateOutputCastException
   {
     super(list, schema, elementClass, DataList.class);
-    _constructor = DataTemplateUtil.templateConstructor(elementClass, schema.getItems());
+    _factory = DataTemplateUtil.templateFactory(elementClass, schema.getItems());
     _cache = new DataObjectToObjectCache<E>(data().size());
   }
 
@@ -153,7 +152,7 @@ public class WrappingArrayTemplate<E extends DataTemplate<?>> extends AbstractAr
     assert(object != null);
     if ((wrapped = _cache.get(object)) == null || wrapped.data() != object)
     {
-      wrapped = DataTemplateUtil.wrap(object, _constructor);
+      wrapped = DataTemplateUtil.wrap(object, _factory, _elementClass);
       if (index != -1)
       {
         _cache.put(object, wrapped);
@@ -162,7 +161,7 @@ public class WrappingArrayTemplate<E extends DataTemplate<?>> extends AbstractAr
     return wrapped;
   }
 
-  protected final Constructor<E> _constructor;
+  private final DataTemplateFactory<E> _factory;
   protected DataObjectToObjectCache<E> _cache;
 }
 
@@ -22,7 +22,6 @@ import com.linkedin.data.schema.DataSchema;
 import com.linkedin.data.schema.MapDataSchema;
 import com.linkedin.data.template.DataObjectToObjectCache;
 import com.linkedin.util.ArgumentUtil;
-import java.lang.reflect.Constructor;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -48,7 +47,7 @@ public abstract class WrappingMapTemplate<V extends DataTemplate<?>> extends Abs
       throws TemplateOutputCastException
   {
     super(map, schema, valueClass, DataMap.class);
-    _constructor = DataTemplateUtil.templateConstructor(valueClass, schema.getValues());
+    _factory = DataTemplateUtil.templateFactory(valueClass, schema.getValues());
     _cache = new DataObjectToObjectCache<V>(data().size());
     _entrySet = new EntrySet();
   }
@@ -168,7 +167,7 @@ public abstract class WrappingMapTemplate<V extends DataTemplate<?>> extends Abs
     }
     else if ((wrapped = _cache.get(value)) == null || wrapped.data() != value)
     {
-      wrapped = DataTemplateUtil.wrap(value, _constructor);
+      wrapped = DataTemplateUtil.wrap(value, _factory, _valueClass);
       if (key != null)
       {
         _cache.put(value, wrapped);
@@ -318,7 +317,7 @@ public abstract class WrappingMapTemplate<V extends DataTemplate<?>> extends Abs
 
   }
 
-  protected final Constructor<V> _constructor;
+  private final DataTemplateFactory<V> _factory;
   protected EntrySet _entrySet;
   protected DataObjectToObjectCache<V> _cache;
 }
@@ -18,6 +18,10 @@
 package com.linkedin.data;
 
 
+import com.linkedin.data.codec.BufferChain;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.codec.PsonDataCodec;
+import com.linkedin.data.codec.RecyclingBufferAllocator;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -93,6 +97,55 @@ public class TestByteString
     Assert.assertEquals("test string", bs.asString("UTF-8"));
   }
 
+  @Test
+  public void testCopyFromDataMap() throws IOException
+  {
+    final DataMap dataMap = new DataMap();
+    dataMap.put("string", "value");
+    dataMap.put("int", 1);
+    final DataList list = new DataList();
+    list.add(2L);
+    list.add(3.0);
+    dataMap.put("list", list);
+
+    final JacksonDataCodec jsonCodec = new JacksonDataCodec();
+    final ByteString json = ByteString.copyFromDataMap(dataMap, jsonCodec);
+    Assert.assertEquals(json.copyBytes(), jsonCodec.mapToBytes(dataMap));
+    Assert.assertEquals(json, ByteString.copyFromDataMapAsJson(dataMap));
+
+    final PsonDataCodec psonCodec = new PsonDataCodec();
+    final ByteString pson = ByteString.copyFromDataMap(dataMap, psonCodec);
+    Assert.assertEquals(pson.copyBytes(), psonCodec.mapToBytes(dataMap));
+    Assert.assertEquals(psonCodec.bytesToMap(pson.copyBytes()), dataMap);
+  }
+
+  @Test
+  public void testCopyFromDataMapWithAllocator() throws IOException
+  {
+    final DataMap dataMap = new DataMap();
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 10000; i++)
+    {
+      sb.append(i);
+    }
+    dataMap.put("string", sb.toString());
+    dataMap.put("int", 1);
+
+    final RecyclingBufferAllocator allocator = new RecyclingBufferAllocator(BufferChain.DEFAULT_BUFFER_SIZE, 1024 * 1024);
+    final JacksonDataCodec jsonCodec = new JacksonDataCodec();
+    final ByteString first = ByteString.copyFromDataMap(dataMap, jsonCodec, allocator);
+    Assert.assertEquals(first.copyBytes(), jsonCodec.mapToBytes(dataMap));
+    Assert.assertTrue(allocator.getRetainedBytes() > 0);
+
+    // the second encoding reuses the buffers of the first, which must not affect the first result
+    dataMap.put("int", 2);
+    final ByteString second = ByteString.copyFromDataMap(dataMap, jsonCodec, allocator);
+    Assert.assertTrue(allocator.getHitCount() > 0);
+    Assert.assertEquals(second.copyBytes(), jsonCodec.mapToBytes(dataMap));
+    Assert.assertNotEquals(first, second);
+    Assert.assertEquals(jsonCodec.bytesToMap(first.copyBytes()).get("int"), 1);
+  }
+
   @Test
   public void testReadKnownLength() throws IOException, InterruptedException, TimeoutException, ExecutionException
   {
@@ -553,6 +606,63 @@ public class TestByteString
     Assert.assertEquals(sourceString.indexOfBytes("".getBytes()), 0);
   }
 
+  @Test(dataProvider = "searchableByteStrings")
+  public void testIndexOfBytesFromIndex(ByteString sourceString)
+  {
+    Assert.assertEquals(sourceString.indexOfBytes("l".getBytes(), 0), 2);
+    Assert.assertEquals(sourceString.indexOfBytes("l".getBytes(), 2), 2);
+    Assert.assertEquals(sourceString.indexOfBytes("l".getBytes(), 3), 3);
+    Assert.assertEquals(sourceString.indexOfBytes("l".getBytes(), 4), -1);
+    Assert.assertEquals(sourceString.indexOfBytes("lo".getBytes(), 3), 3);
+    Assert.assertEquals(sourceString.indexOfBytes("lo".getBytes(), 4), -1);
+    Assert.assertEquals(sourceString.indexOfBytes("hello".getBytes(), -1), 0);
+    Assert.assertEquals(sourceString.indexOfBytes("hello".getBytes(), 1), -1);
+    Assert.assertEquals(sourceString.indexOfBytes("o".getBytes(), 4), 4);
+    Assert.assertEquals(sourceString.indexOfBytes("o".getBytes(), 5), -1);
+    Assert.assertEquals(sourceString.indexOfBytes("".getBytes(), 3), 3);
+    Assert.assertEquals(sourceString.indexOfBytes("".getBytes(), 6), 5);
+  }
+
+  @Test
+  public void testIndexOfBytesAcrossSlices()
+  {
+    final ByteString compound = new ByteString.Builder()
+        .append(ByteString.copy("abcab".getBytes()))
+        .append(ByteString.copy("cabca".getBytes()))
+        .append(ByteString.copy("bcd".getBytes()))
+        .build();
+    final String string = "abcabcabcabcd";
+    for (int offset = 0; offset < string.length(); offset++)
+    {
+      final ByteString slice = compound.slice(offset, string.length() - offset);
+      final String expected = string.substring(offset);
+      for (String target : new String[] { "a", "abc", "cabca", "bcd", "abcd", "dd", "cabcabcabcd" })
+      {
+        for (int fromIndex = 0; fromIndex <= expected.length(); fromIndex++)
+        {
+          Assert.assertEquals(slice.indexOfBytes(target.getBytes(), fromIndex), expected.indexOf(target, fromIndex),
+                              "target " + target + " from " + fromIndex + " in " + expected);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSliceEndingOnArrayBoundary()
+  {
+    final ByteString compound = new ByteString.Builder()
+        .append(ByteString.copy("abc".getBytes()))
+        .append(ByteString.copy("def".getBytes()))
+        .build();
+
+    // the slice ends right where the second array begins, and is then composed with another ByteString
+    final ByteString slice = compound.slice(1, 2);
+    Assert.assertEquals(slice.decompose().size(), 1);
+    final ByteString recomposed = new ByteString.Builder().append(slice).append(compound.slice(3, 3)).build();
+    Assert.assertEquals(recomposed, ByteString.copy("bcdef".getBytes()));
+    Assert.assertEquals(ByteString.copy("bcdef".getBytes()), recomposed);
+  }
+
   @DataProvider
   public Object[][] searchableByteStrings()
   {
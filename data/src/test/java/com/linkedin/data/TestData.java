@@ -23,6 +23,7 @@ import com.linkedin.data.codec.DataCodec;
 import com.linkedin.data.codec.DataDecodingException;
 import com.linkedin.data.codec.JacksonDataCodec;
 import com.linkedin.data.codec.PsonDataCodec;
+import com.linkedin.data.codec.RecyclingBufferAllocator;
 import com.linkedin.data.codec.TextDataCodec;
 import com.linkedin.data.collections.CheckedMap;
 import org.testng.annotations.BeforeTest;
@@ -50,6 +51,11 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -1030,6 +1036,213 @@ public class TestData
     }
   }
 
+  @Test
+  public void testLazyCopyOfReadOnly() throws CloneNotSupportedException
+  {
+    DataMap shared = new DataMap(referenceMap1);
+    DataList list = new DataList();
+    list.add(shared);
+    list.add(new DataMap(referenceMap1));
+    DataMap map = new DataMap();
+    map.put("a", shared);
+    map.put("b", shared);
+    map.put("list", list);
+    map.put("int", 1);
+    map.makeReadOnly();
+
+    // the copy shares the underlying map until it is accessed or modified
+    DataMap copy = map.copy();
+    assertSame(copy.getUnderlying(), map.getUnderlying());
+    assertEquals(copy.getInteger("int"), Integer.valueOf(1));
+    assertSame(copy.getUnderlying(), map.getUnderlying());
+    // comparing iterates the entries, which copies the underlying map
+    assertEquals(copy, map);
+
+    // complex values are copied when first accessed, preserving aliasing
+    DataMap a = copy.getDataMap("a");
+    assertNotSame(copy.getUnderlying(), map.getUnderlying());
+    assertNotSame(a, shared);
+    assertEquals(a, shared);
+    assertFalse(a.isReadOnly());
+    assertSame(copy.getDataMap("b"), a);
+    DataList copiedList = copy.getDataList("list");
+    assertSame(copiedList.getUnderlying(), list.getUnderlying());
+    assertSame(copiedList.getDataMap(0), a);
+    assertNotSame(copiedList.getDataMap(1), list.getDataMap(1));
+
+    // modifying the copy does not modify the read-only source
+    a.put("new", "value");
+    copy.put("int", 2);
+    copiedList.add(3);
+    assertFalse(shared.containsKey("new"));
+    assertEquals(map.getInteger("int"), Integer.valueOf(1));
+    assertEquals(list.size(), 2);
+    assertTrue(map.isMadeReadOnly());
+
+    // loops are detected through copies that have not been made yet
+    DataMap loopCopy = map.copy();
+    DataList pendingList = loopCopy.getDataList("list");
+    DataMap copiedShared = loopCopy.getDataMap("a");
+    try
+    {
+      copiedShared.put("loop", pendingList);
+      fail("Adding a list that contains the map should be rejected");
+    }
+    catch (IllegalArgumentException e)
+    {
+    }
+    assertSame(pendingList.getUnderlying(), list.getUnderlying());
+    copiedShared.put("list", pendingList.getDataMap(1));
+
+    // a shallow copy of a lazy copy shares the copied values
+    DataMap lazy = map.copy();
+    DataMap lazyClone = lazy.clone();
+    assertSame(lazyClone.getDataMap("a"), lazy.getDataMap("a"));
+
+    // deep copies of a lazy copy are independent
+    DataMap lazyCopy = lazy.copy();
+    assertEquals(lazyCopy, map);
+    assertNotSame(lazyCopy.getDataMap("a"), lazy.getDataMap("a"));
+    assertSame(lazyCopy.getDataMap("a"), lazyCopy.getDataMap("b"));
+  }
+
+  @Test
+  public void testLazyCopyConcurrentAccess() throws Exception
+  {
+    DataMap src = new DataMap();
+    for (int i = 0; i < 10; i++)
+    {
+      DataMap child = new DataMap(referenceMap1);
+      child.put("list", new DataList(referenceList1));
+      src.put("k" + i, child);
+    }
+    src.makeReadOnly();
+
+    final int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try
+    {
+      for (int iteration = 0; iteration < 500; iteration++)
+      {
+        final DataMap copy = src.copy();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<Future<Object>>();
+        for (int t = 0; t < threads; t++)
+        {
+          futures.add(executor.submit(new Callable<Object>()
+          {
+            @Override
+            public Object call() throws Exception
+            {
+              start.await();
+              return copy.get("k7");
+            }
+          }));
+        }
+        start.countDown();
+
+        Object first = futures.get(0).get(10, TimeUnit.SECONDS);
+        assertNotSame(first, src.get("k7"));
+        assertEquals(first, src.get("k7"));
+        assertFalse(((DataMap) first).isReadOnly());
+        for (Future<Object> future : futures)
+        {
+          assertSame(future.get(10, TimeUnit.SECONDS), first);
+        }
+        assertSame(copy.get("k7"), first);
+      }
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSnapshot() throws CloneNotSupportedException
+  {
+    DataMap nested = new DataMap(referenceMap1);
+    DataList list = new DataList(referenceList1);
+    DataMap map = new DataMap();
+    map.put("nested", nested);
+    map.put("list", list);
+    map.put("alias", nested);
+    map.put("int", 1);
+
+    DataMap snapshot = map.snapshot();
+    assertNotSame(snapshot, map);
+    assertEquals(snapshot, map);
+    assertTrue(snapshot.isMadeReadOnly());
+    assertFalse(map.isReadOnly());
+    assertFalse(nested.isReadOnly());
+    assertNotSame(snapshot.getDataMap("nested"), nested);
+    assertSame(snapshot.getDataMap("alias"), snapshot.getDataMap("nested"));
+
+    // snapshots and read-only objects are shared, not copied
+    assertSame(snapshot.snapshot(), snapshot);
+    DataMap frozen = new DataMap(referenceMap1);
+    frozen.makeReadOnly();
+    map.put("frozen", frozen);
+    assertSame(map.snapshot().getDataMap("frozen"), frozen);
+
+    // mutations of the source are not visible in the snapshot
+    nested.put("new", "value");
+    assertFalse(snapshot.getDataMap("nested").containsKey("new"));
+
+    // modified snapshots share unmodified values
+    DataMap updated = snapshot.snapshotWith("int", 2);
+    assertTrue(updated.isMadeReadOnly());
+    assertEquals(updated.getInteger("int"), Integer.valueOf(2));
+    assertEquals(snapshot.getInteger("int"), Integer.valueOf(1));
+    assertSame(updated.getDataMap("nested"), snapshot.getDataMap("nested"));
+    assertSame(updated.getDataList("list"), snapshot.getDataList("list"));
+
+    DataMap nestedUpdated = snapshot.snapshotWith("nested", snapshot.getDataMap("nested").snapshotWith("x", "y"));
+    assertEquals(nestedUpdated.getDataMap("nested").getString("x"), "y");
+    assertFalse(snapshot.getDataMap("nested").containsKey("x"));
+    assertSame(nestedUpdated.getDataList("list"), snapshot.getDataList("list"));
+
+    DataMap removed = snapshot.snapshotWithout("list");
+    assertFalse(removed.containsKey("list"));
+    assertTrue(snapshot.containsKey("list"));
+    assertSame(removed.getDataMap("nested"), snapshot.getDataMap("nested"));
+    assertSame(snapshot.snapshotWithout("missing"), snapshot);
+
+    // values added to a snapshot are snapshotted
+    DataMap value = new DataMap();
+    DataMap withValue = snapshot.snapshotWith("value", value);
+    assertTrue(withValue.getDataMap("value").isMadeReadOnly());
+    assertFalse(value.isReadOnly());
+
+    DataList listSnapshot = snapshot.getDataList("list");
+    DataList added = listSnapshot.snapshotWithAdded(nested);
+    assertEquals(added.size(), listSnapshot.size() + 1);
+    assertTrue(added.getDataMap(added.size() - 1).isMadeReadOnly());
+    DataList replaced = added.snapshotWith(0, "first");
+    assertEquals(replaced.get(0), "first");
+    assertSame(replaced.getDataMap(replaced.size() - 1), added.getDataMap(added.size() - 1));
+    DataList shortened = replaced.snapshotWithout(0);
+    assertEquals(shortened.size(), listSnapshot.size());
+    assertTrue(shortened.isMadeReadOnly());
+
+    try
+    {
+      updated.put("int", 3);
+      fail("snapshot should be read-only");
+    }
+    catch (UnsupportedOperationException e)
+    {
+    }
+    try
+    {
+      updated.getDataMap("nested").put("int", 3);
+      fail("snapshot should be read-only");
+    }
+    catch (UnsupportedOperationException e)
+    {
+    }
+  }
+
   @Test
   public void testNullValue()
   {
@@ -1488,6 +1701,25 @@ public class TestData
     }
   }
 
+  @Test
+  public void testDataCodecsWithRecyclingBufferAllocator() throws IOException
+  {
+    // small buffers so that every encoding and decoding recycles many of them
+    RecyclingBufferAllocator allocator = new RecyclingBufferAllocator(17, 1024 * 1024);
+
+    PsonDataCodec psonCodec = new PsonDataCodec(true);
+    psonCodec.setOptions(new PsonDataCodec.Options().setBufferSize(17).setBufferAllocator(allocator));
+    testDataCodec(psonCodec);
+    testDataCodec(psonCodec);
+
+    BsonDataCodec bsonCodec = new BsonDataCodec(17, true);
+    bsonCodec.setBufferAllocator(allocator);
+    testDataCodec(bsonCodec);
+    testDataCodec(bsonCodec);
+
+    assertTrue(allocator.getHitCount() > 0);
+  }
+
   @Test
   public void testPsonCodecNumbers() throws IOException
   {
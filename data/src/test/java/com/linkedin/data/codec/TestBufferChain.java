@@ -18,15 +18,18 @@ package com.linkedin.data.codec;
 
 import com.linkedin.data.Data;
 
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import static com.linkedin.data.TestUtil.out;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 
 public class TestBufferChain
@@ -147,4 +150,58 @@ public class TestBufferChain
     assertEquals(endPosition._index, 1);
     assertEquals(buffer.offset(startPosition, endPosition), Integer.BYTES * numIntsToWrite);
   }
+
+  @Test
+  public void testReleaseReturnsBuffersToAllocator()
+  {
+    final List<ByteBuffer> allocated = new ArrayList<ByteBuffer>();
+    final List<ByteBuffer> released = new ArrayList<ByteBuffer>();
+    BufferAllocator allocator = new BufferAllocator()
+    {
+      @Override
+      public ByteBuffer allocate(int size)
+      {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        allocated.add(buffer);
+        return buffer;
+      }
+
+      @Override
+      public void release(ByteBuffer buffer)
+      {
+        released.add(buffer);
+      }
+    };
+
+    BufferChain buffer = new BufferChain(ByteOrder.nativeOrder(), Integer.BYTES * 4, allocator);
+    for (int index = 0; index < 10; ++index)
+    {
+      buffer.putInt(index);
+    }
+    byte[] bytes = buffer.toBytes();
+    assertEquals(bytes.length, Integer.BYTES * 10);
+    assertEquals(allocated.size(), 3);
+
+    buffer.release();
+    assertEquals(released, allocated);
+
+    // releasing again has no effect
+    buffer.release();
+    assertEquals(released.size(), 3);
+  }
+
+  @Test
+  public void testRecycledBuffersAreCleared()
+  {
+    RecyclingBufferAllocator allocator = new RecyclingBufferAllocator(16, 1024);
+
+    BufferChain first = new BufferChain(ByteOrder.nativeOrder(), 16, allocator);
+    first.put(new byte[40], 0, 40);
+    first.release();
+
+    BufferChain second = new BufferChain(ByteOrder.nativeOrder(), 16, allocator);
+    second.putInt(1);
+    assertEquals(second.toBytes().length, Integer.BYTES);
+    assertTrue(allocator.getHitCount() > 0);
+  }
 }
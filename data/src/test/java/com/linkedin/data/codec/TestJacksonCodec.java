@@ -18,12 +18,21 @@ package com.linkedin.data.codec;
 
 
 import com.fasterxml.jackson.core.JsonFactory;
+import com.linkedin.data.ByteString;
 import com.linkedin.data.Data;
 import com.linkedin.data.DataMap;
+import com.linkedin.data.TestUtil;
+import com.linkedin.data.schema.RecordDataSchema;
+import com.linkedin.data.schema.validation.CoercionMode;
+import com.linkedin.data.schema.validation.RequiredMode;
+import com.linkedin.data.schema.validation.ValidateDataAgainstSchema;
+import com.linkedin.data.schema.validation.ValidationOptions;
+import com.linkedin.data.schema.validation.ValidationResult;
 
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
 import static org.testng.Assert.assertFalse;
@@ -91,4 +100,61 @@ public class TestJacksonCodec
     final DataMap map = codec.bytesToMap(jsonBuilder.toString().getBytes());
     Assert.assertEquals(map.keySet().iterator().next().length(), 262146);
   }
+
+  @Test
+  public void testSchemaAwareDecode() throws IOException
+  {
+    final RecordDataSchema schema = (RecordDataSchema) TestUtil.dataSchemaFromString(
+        "{ \"type\" : \"record\", \"name\" : \"Foo\", \"fields\" : [\n" +
+        "  { \"name\" : \"int\", \"type\" : \"int\" },\n" +
+        "  { \"name\" : \"long\", \"type\" : \"long\" },\n" +
+        "  { \"name\" : \"float\", \"type\" : \"float\" },\n" +
+        "  { \"name\" : \"double\", \"type\" : \"double\" },\n" +
+        "  { \"name\" : \"bytes\", \"type\" : \"bytes\" },\n" +
+        "  { \"name\" : \"invalidBytes\", \"type\" : \"bytes\" },\n" +
+        "  { \"name\" : \"fixed\", \"type\" : { \"type\" : \"fixed\", \"name\" : \"Fixed4\", \"size\" : 4 } },\n" +
+        "  { \"name\" : \"wrongSizeFixed\", \"type\" : \"Fixed4\" },\n" +
+        "  { \"name\" : \"enum\", \"type\" : { \"type\" : \"enum\", \"name\" : \"Fruits\", \"symbols\" : [ \"APPLE\" ] } },\n" +
+        "  { \"name\" : \"typeref\", \"type\" : { \"type\" : \"typeref\", \"name\" : \"Time\", \"ref\" : \"long\" } },\n" +
+        "  { \"name\" : \"array\", \"type\" : { \"type\" : \"array\", \"items\" : \"long\" } },\n" +
+        "  { \"name\" : \"map\", \"type\" : { \"type\" : \"map\", \"values\" : \"float\" } },\n" +
+        "  { \"name\" : \"union\", \"type\" : [ \"double\", \"Foo\" ] },\n" +
+        "  { \"name\" : \"string\", \"type\" : \"string\" }\n" +
+        "] }");
+    final String json =
+        "{ \"int\" : 10000000000, \"long\" : 1, \"float\" : 1.5, \"double\" : 2, " +
+        "\"bytes\" : \"abc\", \"invalidBytes\" : \"\\u0100\", \"fixed\" : \"1234\", \"wrongSizeFixed\" : \"12345\", " +
+        "\"enum\" : \"BANANA\", \"typeref\" : 3, \"array\" : [ 1, 2.5 ], \"map\" : { \"a\" : 1 }, " +
+        "\"union\" : { \"Foo\" : { \"long\" : 4, \"union\" : { \"double\" : 5 } } }, " +
+        "\"string\" : 6, \"unrecognized\" : 7 }";
+    final byte[] bytes = json.getBytes(Data.UTF_8_CHARSET);
+
+    final JacksonDataCodec codec = new JacksonDataCodec();
+    final DataMap map = codec.bytesToMap(bytes, schema);
+    Assert.assertEquals(map.get("int"), (int) 10000000000L);
+    Assert.assertEquals(map.get("long"), 1L);
+    Assert.assertEquals(map.get("float"), 1.5f);
+    Assert.assertEquals(map.get("double"), 2.0);
+    Assert.assertEquals(map.get("bytes"), ByteString.copyAvroString("abc", false));
+    Assert.assertEquals(map.get("invalidBytes"), "\u0100");
+    Assert.assertEquals(map.get("fixed"), ByteString.copyAvroString("1234", false));
+    Assert.assertEquals(map.get("wrongSizeFixed"), "12345");
+    Assert.assertEquals(map.get("enum"), "BANANA");
+    Assert.assertEquals(map.get("typeref"), 3L);
+    Assert.assertEquals(map.getDataList("array").get(0), 1L);
+    Assert.assertEquals(map.getDataList("array").get(1), 2L);
+    Assert.assertEquals(map.getDataMap("map").get("a"), 1.0f);
+    Assert.assertEquals(map.getDataMap("union").getDataMap("Foo").get("long"), 4L);
+    Assert.assertEquals(map.getDataMap("union").getDataMap("Foo").getDataMap("union").get("double"), 5.0);
+    Assert.assertEquals(map.get("string"), 6);
+    Assert.assertEquals(map.get("unrecognized"), 7);
+    Assert.assertEquals(codec.readMap(new ByteArrayInputStream(bytes), schema), map);
+
+    // same as decoding, then coercing with validation
+    final DataMap untyped = codec.bytesToMap(bytes);
+    Assert.assertNotEquals(untyped, map);
+    final ValidationResult result = ValidateDataAgainstSchema.validate(untyped, schema,
+        new ValidationOptions(RequiredMode.IGNORE, CoercionMode.NORMAL));
+    Assert.assertEquals(result.getFixed(), map);
+  }
 }
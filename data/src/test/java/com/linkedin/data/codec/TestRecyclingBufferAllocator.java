@@ -0,0 +1,91 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.data.codec;
+
+import java.nio.ByteBuffer;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+
+public class TestRecyclingBufferAllocator
+{
+  @Test
+  public void testRecycle()
+  {
+    RecyclingBufferAllocator allocator = new RecyclingBufferAllocator(64, 1024 * 1024);
+
+    ByteBuffer buffer = allocator.allocate(16);
+    assertEquals(buffer.capacity(), 64);
+    buffer.put((byte) 1);
+    buffer.limit(10);
+    allocator.release(buffer);
+    assertEquals(allocator.getRetainedBytes(), 64);
+
+    ByteBuffer recycled = allocator.allocate(64);
+    assertSame(recycled, buffer);
+    assertEquals(recycled.position(), 0);
+    assertEquals(recycled.limit(), 64);
+    assertEquals(allocator.getRetainedBytes(), 0);
+    assertEquals(allocator.getHitCount(), 1);
+    assertEquals(allocator.getMissCount(), 1);
+  }
+
+  @Test
+  public void testOtherSizesAreNotPooled()
+  {
+    RecyclingBufferAllocator allocator = new RecyclingBufferAllocator(64, 1024 * 1024);
+
+    ByteBuffer large = allocator.allocate(100);
+    assertEquals(large.capacity(), 100);
+    allocator.release(large);
+    allocator.release(ByteBuffer.allocate(32));
+    assertEquals(allocator.getRetainedBytes(), 0);
+
+    assertNotSame(allocator.allocate(100), large);
+  }
+
+  @Test
+  public void testRetainedBytesAreBounded()
+  {
+    RecyclingBufferAllocator allocator = new RecyclingBufferAllocator(64, 64 * 1024);
+    for (int i = 0; i < 10000; i++)
+    {
+      allocator.release(ByteBuffer.allocate(64));
+    }
+    assertTrue(allocator.getRetainedBytes() <= 64 * 1024);
+  }
+
+  @Test
+  public void testNoRetainedBytesDisablesPooling()
+  {
+    RecyclingBufferAllocator allocator = new RecyclingBufferAllocator(64, 0);
+    ByteBuffer buffer = allocator.allocate(64);
+    allocator.release(buffer);
+    assertEquals(allocator.getRetainedBytes(), 0);
+    assertNotSame(allocator.allocate(64), buffer);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidBufferSize()
+  {
+    new RecyclingBufferAllocator(0, 1024);
+  }
+}
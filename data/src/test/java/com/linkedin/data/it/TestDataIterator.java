@@ -1317,6 +1317,30 @@ public class TestDataIterator
     }
   }
 
+  @Test(dataProvider = "orders")
+  public void testSkipChildren(IterationOrder order) throws IOException
+  {
+    String input = "{ \"a\" : [ 1, { \"b\" : 2 } ], \"c\" : { \"d\" : [ 3 ] } }";
+    Object o = jsonToObject(input);
+    DataIterator it = new ObjectIterator(new SimpleDataElement(o, null), order, new Predicate()
+    {
+      @Override
+      public boolean evaluate(DataElement element)
+      {
+        return "a".equals(element.getName()) || "d".equals(element.getName());
+      }
+    });
+    DataElement e;
+    Set<String> paths = new HashSet<String>();
+    while ((e = it.next()) != null)
+    {
+      paths.add(e.pathAsString());
+    }
+
+    // the skipped DataList and DataMap are returned, but not their children.
+    assertEquals(paths, new HashSet<String>(Arrays.asList("", "/a", "/c", "/c/d")));
+  }
+
   @Test
   public void testPredicates()
   {
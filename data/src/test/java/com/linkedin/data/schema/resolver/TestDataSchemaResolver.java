@@ -20,6 +20,7 @@ package com.linkedin.data.schema.resolver;
 import com.linkedin.data.Data;
 import com.linkedin.data.DataMap;
 import com.linkedin.data.TestUtil;
+import com.linkedin.data.codec.JacksonDataCodec;
 import com.linkedin.data.schema.DataSchema;
 import com.linkedin.data.schema.DataSchemaLocation;
 import com.linkedin.data.schema.DataSchemaResolver;
@@ -34,6 +35,7 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -277,6 +279,87 @@ public class TestDataSchemaResolver
     TestUtil.deleteRecursive(testDir, debug);
   }
 
+  @Test
+  public void testSchemaSourceCache() throws IOException
+  {
+    boolean debug = false;
+
+    File testDir = TestUtil.testDir("testSchemaSourceCache", debug);
+    Map<File, Map.Entry<String,String>> files = TestUtil.createSchemaFiles(testDir, _testSchemas, debug);
+    File cacheDir = new File(testDir, "cache");
+
+    List<String> testPaths = new ArrayList<String>();
+    for (String testPath : _testPaths)
+    {
+      String dirname = (testDir.getCanonicalPath() + "/" + testPath).replace('/', File.separatorChar);
+      testPaths.add((new File(dirname)).getCanonicalPath());
+    }
+
+    // decode in parallel, then resolve from the cache
+    SchemaSourceCache cache = new SchemaSourceCache(cacheDir);
+    cache.preload(files.keySet());
+    FileDataSchemaResolver resolver = new FileDataSchemaResolver(SchemaParserFactory.instance(null, cache));
+    resolver.setPaths(testPaths);
+    resolver.setExtension(".pdsc");
+    lookup(resolver, _testLookupAndExpectedResults, File.separatorChar, debug);
+    File[] persisted = cacheDir.listFiles();
+    assertNotNull(persisted);
+    assertTrue(persisted.length > 0);
+
+    // a new cache reuses the persisted entries
+    SchemaSourceCache persistedCache = new SchemaSourceCache(cacheDir);
+    FileDataSchemaResolver resolver2 = new FileDataSchemaResolver(SchemaParserFactory.instance(null, persistedCache));
+    resolver2.setPaths(testPaths);
+    resolver2.setExtension(".pdsc");
+    lookup(resolver2, _testLookupAndExpectedResults, File.separatorChar, debug);
+    assertEquals(cacheDir.listFiles().length, persisted.length);
+
+    // persisted entries decode to the same Data objects as the source
+    String source = "{ \"type\" : \"record\", \"name\" : \"Cached\", \"fields\" : [ " +
+      "{ \"name\" : \"l\", \"type\" : \"long\", \"default\" : 10000000000 }, " +
+      "{ \"name\" : \"d\", \"type\" : \"double\", \"default\" : 1.5 } ] }";
+    File sourceFile = new File(testDir, "Cached.pdsc");
+    Files.write(sourceFile.toPath(), source.getBytes(Data.UTF_8_CHARSET));
+    DataSchemaLocation location = new FileDataSchemaLocation(sourceFile);
+    String contentHash = SchemaSourceCache.contentHash(Files.readAllBytes(sourceFile.toPath()));
+    assertNull(persistedCache.get(location, contentHash));
+    RecordDataSchema parsed = parseWithCache(persistedCache, sourceFile);
+    assertEquals(parsed.getField("l").getDefault(), 10000000000L);
+    List<Object> expected = new JacksonDataCodec().parse(new ByteArrayInputStream(source.getBytes(Data.UTF_8_CHARSET)), new StringBuilder(), null);
+    assertEquals(persistedCache.get(location, contentHash), expected);
+    assertEquals(new SchemaSourceCache(cacheDir).get(location, contentHash), expected);
+    assertEquals(parseWithCache(new SchemaSourceCache(cacheDir), sourceFile), parsed);
+
+    // a changed source is decoded again
+    Files.write(sourceFile.toPath(), source.replace("\"d\"", "\"e\"").getBytes(Data.UTF_8_CHARSET));
+    RecordDataSchema changed = parseWithCache(persistedCache, sourceFile);
+    assertNull(changed.getField("d"));
+    assertNotNull(changed.getField("e"));
+
+    // sources that cannot be decoded are not cached
+    Files.write(sourceFile.toPath(), source.replace("\"name\" : \"Cached\"", "\"name\" : \"Cached\", \"name\" : \"Duplicate\"").getBytes(Data.UTF_8_CHARSET));
+    SchemaParser parser = SchemaParserFactory.instance(null, persistedCache).create(new DefaultDataSchemaResolver());
+    parser.setLocation(location);
+    parser.parse(new ByteArrayInputStream(Files.readAllBytes(sourceFile.toPath())));
+    assertTrue(parser.hasError());
+    assertNull(persistedCache.get(location, SchemaSourceCache.contentHash(Files.readAllBytes(sourceFile.toPath()))));
+
+    // cleanup
+    TestUtil.deleteRecursive(testDir, debug);
+  }
+
+  private static RecordDataSchema parseWithCache(SchemaSourceCache cache, File sourceFile) throws IOException
+  {
+    SchemaParser parser = SchemaParserFactory.instance(null, cache).create(new DefaultDataSchemaResolver());
+    parser.setLocation(new FileDataSchemaLocation(sourceFile));
+    try (InputStream inputStream = Files.newInputStream(sourceFile.toPath()))
+    {
+      parser.parse(inputStream);
+    }
+    assertFalse(parser.errorMessage(), parser.hasError());
+    return (RecordDataSchema) parser.topLevelDataSchemas().get(0);
+  }
+
   public static class ClassNameFooRecord extends RecordTemplate
   {
     public static final RecordDataSchema SCHEMA = (RecordDataSchema) DataTemplateUtil.parseSchema("{ \"type\" : \"record\", \"name\" : \"ClassNameFooRecord\", \"namespace\" : \"com.linkedin.data.schema.resolver.TestDataSchemaResolver\", \"fields\" : [ { \"name\" : \"foo\", \"type\" : \"string\" } ] }");
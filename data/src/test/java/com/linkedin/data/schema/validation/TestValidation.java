@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
 
 import com.linkedin.data.ByteString;
 import com.linkedin.data.Data;
@@ -33,6 +34,7 @@ import com.linkedin.data.message.Message;
 import com.linkedin.data.message.MessageUtil;
 import com.linkedin.data.schema.DataSchema;
 import com.linkedin.data.schema.RecordDataSchema;
+import com.linkedin.data.schema.validator.Validator;
 import com.linkedin.data.schema.validator.VisitedTrackingValidator;
 
 import org.testng.Assert;
@@ -2275,4 +2277,111 @@ public class TestValidation
       Assert.assertTrue(message.contains(expected), message + " does not contain " + expected);
     }
   }
+
+  @Test
+  public void testParallelValidation() throws IOException, CloneNotSupportedException
+  {
+    String schemaText =
+        "{\n" +
+        "  \"name\" : \"Foo\",\n" +
+        "  \"type\" : \"record\",\n" +
+        "  \"fields\" : [\n" +
+        "    { \"name\" : \"int\", \"type\" : \"int\" },\n" +
+        "    { \"name\" : \"withDefault\", \"type\" : \"string\", \"default\" : \"default\" },\n" +
+        "    { \"name\" : \"bytes\", \"type\" : \"bytes\", \"optional\" : true },\n" +
+        "    { \"name\" : \"arrayField\", \"type\" : { \"type\" : \"array\", \"items\" : \"Foo\" }, \"optional\" : true },\n" +
+        "    { \"name\" : \"mapField\", \"type\" : { \"type\" : \"map\", \"values\" : \"long\" }, \"optional\" : true },\n" +
+        "    { \"name\" : \"intArray\", \"type\" : { \"type\" : \"array\", \"items\" : \"int\" }, \"optional\" : true }\n" +
+        "  ]\n" +
+        "}\n";
+    DataSchema schema = dataSchemaFromString(schemaText);
+
+    DataMap map = new DataMap();
+    map.put("int", 1);
+    DataList array = new DataList();
+    DataMap longs = new DataMap();
+    DataList ints = new DataList();
+    for (int i = 0; i < 1000; i++)
+    {
+      DataMap element = new DataMap();
+      switch (i % 5)
+      {
+        case 0:
+          element.put("int", (long) i);
+          break;
+        case 1:
+          element.put("int", "not an int");
+          element.put("bytes", "\u0100");
+          break;
+        case 2:
+          element.put("int", i);
+          element.put("unrecognized", i);
+          element.put("intArray", new DataList(asList(1L, 2.0f, 3)));
+          break;
+        case 3:
+          element.put("withDefault", "value");
+          break;
+        default:
+          element.put("int", i);
+          element.put("bytes", "bytes");
+          break;
+      }
+      array.add(element);
+      longs.put("key" + i, (i % 3 == 0) ? (Object) "not a long" : (Object) i);
+      ints.add(i % 7 == 0 ? (Object) (double) i : (Object) i);
+    }
+    map.put("arrayField", array);
+    map.put("mapField", longs);
+    map.put("intArray", ints);
+
+    // thread-safe validator that reports every int equal to 42.
+    Validator validator = context -> {
+      if (Integer.valueOf(42).equals(context.dataElement().getValue()))
+      {
+        context.addResult(new Message(context.dataElement().path(), "is 42"));
+      }
+    };
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try
+    {
+      for (int threshold : new int[] { 1, 10, 999, 1000, 1001 })
+      {
+        ValidationOptions options = new ValidationOptions(RequiredMode.FIXUP_ABSENT_WITH_DEFAULT,
+                                                          CoercionMode.NORMAL,
+                                                          UnrecognizedFieldMode.TRIM);
+        DataMap sequentialMap = map.copy();
+        ValidationResult sequential = ValidateDataAgainstSchema.validate(sequentialMap, schema, options, validator);
+
+        options.setParallelThreshold(threshold);
+        options.setForkJoinPool(pool);
+        DataMap parallelMap = map.copy();
+        ValidationResult parallel = ValidateDataAgainstSchema.validate(parallelMap, schema, options, validator);
+
+        Assert.assertFalse(parallel.isValid());
+        Assert.assertTrue(parallel.hasFix());
+        Assert.assertEquals(parallel.isValid(), sequential.isValid());
+        Assert.assertEquals(parallel.hasFix(), sequential.hasFix());
+        Assert.assertEquals(parallel.hasFixupReadOnlyError(), sequential.hasFixupReadOnlyError());
+        Assert.assertEquals(parallel.getMessages().toString(), sequential.getMessages().toString());
+        Assert.assertSame(parallel.getFixed(), parallelMap);
+        Assert.assertEquals(parallelMap, sequentialMap);
+      }
+
+      // fix-ups of read-only data are reported in order
+      ValidationOptions options = new ValidationOptions();
+      DataMap readOnlyMap = map.copy();
+      readOnlyMap.makeReadOnly();
+      ValidationResult sequential = ValidateDataAgainstSchema.validate(readOnlyMap, schema, options);
+      options.setParallelThreshold(10);
+      options.setForkJoinPool(pool);
+      ValidationResult parallel = ValidateDataAgainstSchema.validate(readOnlyMap, schema, options);
+      Assert.assertTrue(parallel.hasFixupReadOnlyError());
+      Assert.assertEquals(parallel.getMessages().toString(), sequential.getMessages().toString());
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+  }
 }
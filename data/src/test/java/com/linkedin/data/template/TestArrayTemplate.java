@@ -34,6 +34,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 import org.testng.annotations.Test;
 
 import static com.linkedin.data.TestUtil.asList;
@@ -870,6 +872,65 @@ public class TestArrayTemplate
     testNumberArray(DoubleArray.class, schema, input, castFrom);
   }
 
+  @Test
+  public void testPrimitiveBulkAccessors()
+  {
+    IntegerArray integers = new IntegerArray();
+    assertTrue(integers.addAll(new int[] { 1, 3, 5 }));
+    assertFalse(integers.addAll(new int[0]));
+    assertEquals(integers, new IntegerArray(Arrays.asList(1, 3, 5)));
+    assertEquals(integers.toIntArray(), new int[] { 1, 3, 5 });
+    assertEquals(integers.getInt(1), 3);
+    assertEquals(integers.intStream().sum(), 9);
+    PrimitiveIterator.OfInt intIterator = integers.intIterator();
+    assertEquals(intIterator.nextInt(), 1);
+    assertEquals(intIterator.nextInt(), 3);
+    assertEquals(intIterator.nextInt(), 5);
+    assertFalse(intIterator.hasNext());
+    try
+    {
+      intIterator.nextInt();
+      fail("Expected NoSuchElementException");
+    }
+    catch (NoSuchElementException e)
+    {
+    }
+
+    // elements stored with another numeric type are coerced
+    IntegerArray coerced = new IntegerArray(new DataList(asList(1L, 2.0f, 3.0)));
+    assertEquals(coerced.toIntArray(), new int[] { 1, 2, 3 });
+    assertEquals(coerced.intStream().toArray(), new int[] { 1, 2, 3 });
+
+    LongArray longs = new LongArray();
+    longs.addAll(new long[] { 1L, Long.MAX_VALUE });
+    assertEquals(longs.toLongArray(), new long[] { 1L, Long.MAX_VALUE });
+    assertEquals(longs.longStream().max().getAsLong(), Long.MAX_VALUE);
+    PrimitiveIterator.OfLong longIterator = longs.longIterator();
+    assertEquals(longIterator.nextLong(), 1L);
+    assertEquals(longIterator.nextLong(), Long.MAX_VALUE);
+    assertFalse(longIterator.hasNext());
+
+    DoubleArray doubles = new DoubleArray();
+    doubles.addAll(new double[] { 0.5, 1.5 });
+    assertEquals(doubles.toDoubleArray(), new double[] { 0.5, 1.5 });
+    assertEquals(doubles.doubleStream().sum(), 2.0);
+    assertEquals(doubles.doubleIterator().nextDouble(), 0.5);
+
+    DataList readOnly = new DataList(asList(1, 2));
+    readOnly.makeReadOnly();
+    IntegerArray readOnlyIntegers = new IntegerArray(readOnly);
+    assertEquals(readOnlyIntegers.toIntArray(), new int[] { 1, 2 });
+    try
+    {
+      readOnlyIntegers.addAll(new int[] { 3 });
+      fail("Expected UnsupportedOperationException");
+    }
+    catch (UnsupportedOperationException e)
+    {
+    }
+    assertEquals(readOnly.size(), 2);
+  }
+
   @Test
   public void testStringArray()
   {
@@ -16,6 +16,8 @@
 
 package com.linkedin.data.template;
 
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
 import com.linkedin.data.schema.DataSchema;
 import com.linkedin.data.schema.PathSpec;
 import com.linkedin.data.schema.RecordDataSchema;
@@ -29,6 +31,7 @@ import org.testng.annotations.Test;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.fail;
 
 
@@ -158,4 +161,84 @@ public class TestDataTemplateUtil
       assertEquals(e.getMessage(), "Output string has type java.lang.String, but does not have a registered coercer and cannot be coerced to type java.lang.Character");
     }
   }
+
+  public static class GeneratedFactoryRecord extends RecordTemplate
+  {
+    private static final RecordDataSchema SCHEMA =
+      (RecordDataSchema) DataTemplateUtil.parseSchema("{ \"type\" : \"record\", \"name\" : \"GeneratedFactoryRecord\", \"fields\" : [] }");
+    private static final DataTemplateFactory<GeneratedFactoryRecord> FACTORY = new DataTemplateFactory<GeneratedFactoryRecord>()
+    {
+      @Override
+      public GeneratedFactoryRecord create(Object data)
+      {
+        _created++;
+        return new GeneratedFactoryRecord((DataMap) data);
+      }
+    };
+    private static int _created = 0;
+
+    public GeneratedFactoryRecord(DataMap map)
+    {
+      super(map, SCHEMA);
+    }
+  }
+
+  public static class ReflectedRecord extends RecordTemplate
+  {
+    private static final RecordDataSchema SCHEMA =
+      (RecordDataSchema) DataTemplateUtil.parseSchema("{ \"type\" : \"record\", \"name\" : \"ReflectedRecord\", \"fields\" : [] }");
+
+    public ReflectedRecord(DataMap map)
+    {
+      super(map, SCHEMA);
+    }
+  }
+
+  @Test
+  public void testTemplateFactory()
+  {
+    DataMap map = new DataMap();
+
+    DataTemplateFactory<GeneratedFactoryRecord> generated = DataTemplateUtil.templateFactory(GeneratedFactoryRecord.class);
+    assertSame(generated, GeneratedFactoryRecord.FACTORY);
+    assertSame(DataTemplateUtil.templateFactory(GeneratedFactoryRecord.class, GeneratedFactoryRecord.SCHEMA), generated);
+    int created = GeneratedFactoryRecord._created;
+    assertSame(DataTemplateUtil.wrap(map, GeneratedFactoryRecord.class).data(), map);
+    assertSame(DataTemplateUtil.wrap(map, GeneratedFactoryRecord.SCHEMA, GeneratedFactoryRecord.class).data(), map);
+    assertEquals(GeneratedFactoryRecord._created, created + 2);
+
+    DataTemplateFactory<ReflectedRecord> reflected = DataTemplateUtil.templateFactory(ReflectedRecord.class);
+    assertSame(DataTemplateUtil.templateFactory(ReflectedRecord.class), reflected);
+    assertSame(reflected.create(map).data(), map);
+    assertSame(DataTemplateUtil.wrap(map, ReflectedRecord.SCHEMA, ReflectedRecord.class).data(), map);
+    assertSame(DataTemplateUtil.templateConstructor(ReflectedRecord.class), DataTemplateUtil.templateConstructor(ReflectedRecord.class));
+
+    assertSame(DataTemplateUtil.getSchema(GeneratedFactoryRecord.class), GeneratedFactoryRecord.SCHEMA);
+    assertSame(DataTemplateUtil.getSchema(ReflectedRecord.class), ReflectedRecord.SCHEMA);
+
+    assertWrapFails(GeneratedFactoryRecord.class);
+    assertWrapFails(ReflectedRecord.class);
+
+    try
+    {
+      DataTemplateUtil.getSchema(Object.class);
+      fail("Expected TemplateRuntimeException");
+    }
+    catch (TemplateRuntimeException e)
+    {
+    }
+  }
+
+  private static void assertWrapFails(Class<? extends RecordTemplate> templateClass)
+  {
+    try
+    {
+      DataTemplateUtil.wrap(new DataList(), templateClass);
+      fail("Expected TemplateOutputCastException");
+    }
+    catch (TemplateOutputCastException e)
+    {
+      assertTrue(e.getMessage().startsWith("Could not create new instance of " + templateClass.getName()), e.getMessage());
+    }
+  }
 }
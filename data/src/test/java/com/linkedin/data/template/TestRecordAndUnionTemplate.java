@@ -2791,4 +2791,126 @@ public class TestRecordAndUnionTemplate
     Foo.Union u8 = DataTemplateUtil.wrap(Data.NULL, Foo.Union.SCHEMA, Foo.Union.class);
     assertSame(Data.NULL, u8.data());
   }
+
+  /**
+   * Record with getters in the form generated with specialized field accessors.
+   */
+  public static class SpecializedFoo extends RecordTemplate
+  {
+    public static final RecordDataSchema SCHEMA = (RecordDataSchema) DataTemplateUtil.parseSchema
+    (
+      "{ \"type\" : \"record\", \"name\" : \"SpecializedFoo\", \"fields\" : [\n" +
+      "{ \"name\" : \"int\", \"type\" : \"int\", \"default\" : -1 }, \n" +
+      "{ \"name\" : \"long\", \"type\" : \"long\", \"optional\" : true }, \n" +
+      "{ \"name\" : \"bytes\", \"type\" : \"bytes\", \"optional\" : true }, \n" +
+      "{ \"name\" : \"enum\", \"type\" : { \"type\" : \"enum\", \"name\" : \"EnumType\", \"symbols\" : [ \"APPLE\", \"ORANGE\", \"BANANA\" ] }, \"optional\" : true }, \n" +
+      "{ \"name\" : \"record\", \"type\" : { \"type\" : \"record\", \"name\" : \"Bar\", \"fields\" : [ { \"name\" : \"int\", \"type\" : \"int\" } ] }, \"optional\" : true } \n" +
+      "] }"
+    );
+    private static final RecordDataSchema.Field FIELD_int = SCHEMA.getField("int");
+    private static final RecordDataSchema.Field FIELD_long = SCHEMA.getField("long");
+    private static final RecordDataSchema.Field FIELD_bytes = SCHEMA.getField("bytes");
+    private static final RecordDataSchema.Field FIELD_enum = SCHEMA.getField("enum");
+    private static final RecordDataSchema.Field FIELD_record = SCHEMA.getField("record");
+
+    public SpecializedFoo()
+    {
+      super(new DataMap(), SCHEMA);
+    }
+
+    public Integer getInt()
+    {
+      return DataTemplateUtil.coerceIntOutput(obtainValue(FIELD_int, GetMode.STRICT));
+    }
+
+    public Long getLong(GetMode mode)
+    {
+      return DataTemplateUtil.coerceLongOutput(obtainValue(FIELD_long, mode));
+    }
+
+    public ByteString getBytes()
+    {
+      return DataTemplateUtil.coerceBytesOutput(obtainValue(FIELD_bytes, GetMode.STRICT));
+    }
+
+    public EnumType getEnum()
+    {
+      return DataTemplateUtil.coerceEnumOutput(obtainValue(FIELD_enum, GetMode.STRICT), EnumType.class);
+    }
+
+    public Bar getRecord()
+    {
+      return obtainWrapped(FIELD_record, Bar.class, GetMode.STRICT, 4);
+    }
+
+    public SpecializedFoo setRecord(Bar value)
+    {
+      putWrapped(FIELD_record, Bar.class, value, SetMode.DISALLOW_NULL);
+      return this;
+    }
+
+    @Override
+    public SpecializedFoo clone() throws CloneNotSupportedException
+    {
+      return (SpecializedFoo) super.clone();
+    }
+
+    @Override
+    public SpecializedFoo copy() throws CloneNotSupportedException
+    {
+      return (SpecializedFoo) super.copy();
+    }
+  }
+
+  @Test
+  public void testSpecializedAccessors() throws CloneNotSupportedException
+  {
+    SpecializedFoo foo = new SpecializedFoo();
+    assertEquals(foo.getInt(), Integer.valueOf(-1));
+    assertNull(foo.getLong(GetMode.STRICT));
+    assertNull(foo.getEnum());
+    assertNull(foo.getRecord());
+
+    foo.data().put("int", 7L);
+    foo.data().put("long", 8);
+    foo.data().put("bytes", "abc");
+    foo.data().put("enum", "ORANGE");
+    assertEquals(foo.getInt(), Integer.valueOf(7));
+    assertEquals(foo.getLong(GetMode.STRICT), Long.valueOf(8));
+    assertEquals(foo.getBytes(), ByteString.copyAvroString("abc", false));
+    assertSame(foo.getEnum(), EnumType.ORANGE);
+
+    foo.data().put("enum", "KIWI");
+    assertSame(foo.getEnum(), EnumType.$UNKNOWN);
+
+    foo.data().put("int", "seven");
+    try
+    {
+      foo.getInt();
+      fail("Expected TemplateOutputCastException");
+    }
+    catch (TemplateOutputCastException e)
+    {
+      // expected
+    }
+
+    // wrapped values are cached per field and follow changes of the underlying data.
+    Bar bar = new Bar().setInt(1);
+    foo.setRecord(bar);
+    assertSame(foo.getRecord(), bar);
+    assertSame(foo.getRecord(), foo.getRecord());
+
+    DataMap replaced = new DataMap();
+    replaced.put("int", 2);
+    foo.data().put("record", replaced);
+    Bar wrapped = foo.getRecord();
+    assertSame(wrapped.data(), replaced);
+    assertSame(foo.getRecord(), wrapped);
+
+    SpecializedFoo clone = foo.clone();
+    assertSame(clone.getRecord(), wrapped);
+    SpecializedFoo copy = foo.copy();
+    assertNotSame(copy.getRecord(), wrapped);
+    assertEquals(copy.getRecord(), wrapped);
+  }
 }
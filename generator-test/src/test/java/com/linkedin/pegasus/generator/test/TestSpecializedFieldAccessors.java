@@ -0,0 +1,310 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.pegasus.generator.test;
+
+
+import com.linkedin.data.ByteString;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.TestUtil;
+import com.linkedin.data.template.GetMode;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.data.template.RequiredFieldNotPresentException;
+import com.linkedin.pegasus.generator.JavaDataTemplateGenerator;
+import com.linkedin.pegasus.generator.PegasusDataTemplateGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.testng.annotations.Test;
+
+import static com.linkedin.data.TestUtil.ensureEmptyOutputDir;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+
+/**
+ * Generates a record with {@link JavaDataTemplateGenerator.Config#setSpecializedFieldAccessors(boolean)} and checks
+ * that the specialized getters behave as the generic ones.
+ */
+public class TestSpecializedFieldAccessors
+{
+  private static final String NAMESPACE = "com.linkedin.pegasus.generator.test.specialized";
+  private static final String SCHEMA =
+    "{\n" +
+    "  \"type\" : \"record\",\n" +
+    "  \"name\" : \"Specialized\",\n" +
+    "  \"namespace\" : \"" + NAMESPACE + "\",\n" +
+    "  \"fields\" : [\n" +
+    "    { \"name\" : \"intField\", \"type\" : \"int\" },\n" +
+    "    { \"name\" : \"longField\", \"type\" : \"long\" },\n" +
+    "    { \"name\" : \"floatField\", \"type\" : \"float\" },\n" +
+    "    { \"name\" : \"doubleField\", \"type\" : \"double\" },\n" +
+    "    { \"name\" : \"booleanField\", \"type\" : \"boolean\" },\n" +
+    "    { \"name\" : \"stringField\", \"type\" : \"string\" },\n" +
+    "    { \"name\" : \"bytesField\", \"type\" : \"bytes\" },\n" +
+    "    { \"name\" : \"enumField\", \"type\" : { \"type\" : \"enum\", \"name\" : \"Fruits\", \"symbols\" : [ \"APPLE\", \"BANANA\" ] } },\n" +
+    "    { \"name\" : \"recordField\", \"type\" : { \"type\" : \"record\", \"name\" : \"Point\", \"fields\" : [ { \"name\" : \"x\", \"type\" : \"int\" } ] } },\n" +
+    "    { \"name\" : \"optionalInt\", \"type\" : \"int\", \"optional\" : true },\n" +
+    "    { \"name\" : \"optionalString\", \"type\" : \"string\", \"optional\" : true },\n" +
+    "    { \"name\" : \"optionalEnum\", \"type\" : \"Fruits\", \"optional\" : true },\n" +
+    "    { \"name\" : \"optionalRecord\", \"type\" : \"Point\", \"optional\" : true },\n" +
+    "    { \"name\" : \"defaultInt\", \"type\" : \"int\", \"default\" : 42 },\n" +
+    "    { \"name\" : \"defaultString\", \"type\" : \"string\", \"default\" : \"hello\" },\n" +
+    "    { \"name\" : \"defaultEnum\", \"type\" : \"Fruits\", \"default\" : \"BANANA\" }\n" +
+    "  ]\n" +
+    "}";
+
+  private final static String _sourceDirName = "testSpecializedFieldAccessors/pegasus";
+  private final static String _targetDirName = "testSpecializedFieldAccessors/codegen/out";
+  private final static String _classesDirName = "testSpecializedFieldAccessors/classes";
+
+  @Test
+  public void testGeneratedSource() throws IOException
+  {
+    String specialized = readSource(generate(true), "Specialized");
+    assertTrue(specialized.contains("coerceIntOutput(obtainValue("), specialized);
+    assertTrue(specialized.contains("coerceEnumOutput(obtainValue("), specialized);
+
+    String generic = readSource(generate(false), "Specialized");
+    assertFalse(generic.contains("obtainValue("), generic);
+  }
+
+  @Test
+  public void testGetters() throws Exception
+  {
+    ClassLoader classLoader = compile(generate(true));
+    Class<?> pointClass = classLoader.loadClass(NAMESPACE + ".Point");
+    Class<?> fruitsClass = classLoader.loadClass(NAMESPACE + ".Fruits");
+
+    DataMap point = new DataMap();
+    point.put("x", 7);
+    DataMap data = new DataMap();
+    data.put("intField", 1);
+    // values of a different numeric type are coerced as by the generic getters
+    data.put("longField", 2);
+    data.put("floatField", 3.5);
+    data.put("doubleField", 4.5f);
+    data.put("booleanField", true);
+    data.put("stringField", "string");
+    data.put("bytesField", ByteString.copy(new byte[] { 1, 2 }));
+    data.put("enumField", "APPLE");
+    data.put("recordField", point);
+    Object record = newRecord(classLoader, data);
+
+    assertEquals(get(record, "getIntField"), 1);
+    assertEquals(get(record, "getLongField"), 2L);
+    assertEquals(get(record, "getFloatField"), 3.5f);
+    assertEquals(get(record, "getDoubleField"), 4.5);
+    assertEquals(get(record, "isBooleanField"), Boolean.TRUE);
+    assertEquals(get(record, "getStringField"), "string");
+    assertEquals(get(record, "getBytesField"), ByteString.copy(new byte[] { 1, 2 }));
+    assertSame(get(record, "getEnumField"), symbol(fruitsClass, "APPLE"));
+
+    Object recordField = get(record, "getRecordField");
+    assertTrue(pointClass.isInstance(recordField));
+    assertSame(((RecordTemplate) recordField).data(), point);
+    // the wrapped template is cached for the field
+    assertSame(get(record, "getRecordField"), recordField);
+
+    // absent optional fields
+    assertNull(get(record, "getOptionalInt"));
+    assertNull(get(record, "getOptionalString"));
+    assertNull(get(record, "getOptionalEnum"));
+    assertNull(get(record, "getOptionalRecord"));
+    assertFalse((Boolean) get(record, "hasOptionalInt"));
+
+    // absent fields with a default
+    assertEquals(get(record, "getDefaultInt"), 42);
+    assertEquals(get(record, "getDefaultString"), "hello");
+    assertSame(get(record, "getDefaultEnum"), symbol(fruitsClass, "BANANA"));
+    assertEquals(get(record, "getDefaultInt", GetMode.DEFAULT), 42);
+    assertNull(get(record, "getDefaultInt", GetMode.NULL));
+    assertNull(get(record, "getDefaultEnum", GetMode.NULL));
+
+    // unknown enum symbols
+    data.put("enumField", "CHERRY");
+    assertSame(get(record, "getEnumField"), symbol(fruitsClass, "$UNKNOWN"));
+
+    // absent required field
+    data.remove("intField");
+    assertNull(get(record, "getIntField", GetMode.NULL));
+    try
+    {
+      get(record, "getIntField");
+      fail("expected RequiredFieldNotPresentException");
+    }
+    catch (InvocationTargetException e)
+    {
+      assertTrue(e.getCause() instanceof RequiredFieldNotPresentException, e.getCause().toString());
+    }
+  }
+
+  @Test
+  public void testSetters() throws Exception
+  {
+    ClassLoader classLoader = compile(generate(true));
+    Class<?> pointClass = classLoader.loadClass(NAMESPACE + ".Point");
+    Class<?> fruitsClass = classLoader.loadClass(NAMESPACE + ".Fruits");
+    Object record = newRecord(classLoader, new DataMap());
+    DataMap data = ((RecordTemplate) record).data();
+
+    set(record, "setIntField", int.class, 5);
+    set(record, "setLongField", Long.class, 6L);
+    set(record, "setFloatField", float.class, 7.5f);
+    set(record, "setDoubleField", Double.class, 8.5);
+    set(record, "setBooleanField", boolean.class, false);
+    set(record, "setStringField", String.class, "value");
+    set(record, "setEnumField", fruitsClass, symbol(fruitsClass, "BANANA"));
+    set(record, "setOptionalInt", Integer.class, 9);
+
+    assertEquals(data.get("intField"), 5);
+    assertEquals(data.get("longField"), 6L);
+    assertEquals(data.get("floatField"), 7.5f);
+    assertEquals(data.get("doubleField"), 8.5);
+    assertEquals(data.get("booleanField"), Boolean.FALSE);
+    assertEquals(data.get("stringField"), "value");
+    assertEquals(data.get("enumField"), "BANANA");
+    assertEquals(data.get("optionalInt"), 9);
+
+    assertEquals(get(record, "getIntField"), 5);
+    assertEquals(get(record, "getLongField"), 6L);
+    assertEquals(get(record, "getFloatField"), 7.5f);
+    assertEquals(get(record, "getDoubleField"), 8.5);
+    assertEquals(get(record, "isBooleanField"), Boolean.FALSE);
+    assertEquals(get(record, "getStringField"), "value");
+    assertSame(get(record, "getEnumField"), symbol(fruitsClass, "BANANA"));
+    assertEquals(get(record, "getOptionalInt"), 9);
+    assertTrue((Boolean) get(record, "hasOptionalInt"));
+
+    // the cached template of a field is replaced when the field is set
+    RecordTemplate first = (RecordTemplate) pointClass.newInstance();
+    set(record, "setRecordField", pointClass, first);
+    assertSame(get(record, "getRecordField"), first);
+    RecordTemplate second = (RecordTemplate) pointClass.newInstance();
+    set(record, "setRecordField", pointClass, second);
+    assertSame(get(record, "getRecordField"), second);
+
+    // removing an optional field makes it absent again
+    record.getClass().getMethod("removeOptionalInt").invoke(record);
+    assertNull(get(record, "getOptionalInt"));
+    assertEquals(get(record, "getDefaultInt"), 42);
+  }
+
+  private static File generate(boolean specializedFieldAccessors) throws IOException
+  {
+    boolean debug = false;
+
+    File testDir = TestUtil.testDir(_sourceDirName, debug);
+    Map<File, Map.Entry<String, String>> files = TestUtil.createSchemaFiles(
+        testDir, Collections.singletonMap(NAMESPACE.replace('.', '/') + "/Specialized.pdsc", SCHEMA), debug);
+
+    File targetDir = TestUtil.testDir(_targetDirName, debug);
+    ensureEmptyOutputDir(targetDir, debug);
+
+    List<String> sources = new ArrayList<String>();
+    for (File file : files.keySet())
+    {
+      sources.add(file.getCanonicalPath());
+    }
+
+    JavaDataTemplateGenerator.Config config = new JavaDataTemplateGenerator.Config();
+    config.setSpecializedFieldAccessors(specializedFieldAccessors);
+    PegasusDataTemplateGenerator.run(testDir.getCanonicalPath(), config, true, targetDir.getCanonicalPath(),
+                                     sources.toArray(new String[sources.size()]));
+    return targetDir;
+  }
+
+  private static String readSource(File targetDir, String name) throws IOException
+  {
+    File file = new File(targetDir, (NAMESPACE + "." + name).replace('.', File.separatorChar) + ".java");
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+
+  private static ClassLoader compile(File targetDir) throws IOException
+  {
+    boolean debug = false;
+
+    File classesDir = TestUtil.testDir(_classesDirName, debug);
+    ensureEmptyOutputDir(classesDir, debug);
+
+    List<File> sources;
+    try (Stream<Path> paths = Files.walk(targetDir.toPath()))
+    {
+      sources = paths.map(Path::toFile)
+          .filter(file -> file.getName().endsWith(".java"))
+          .collect(Collectors.toList());
+    }
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    assertNotNull(compiler, "tests must run on a JDK");
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null))
+    {
+      List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"),
+                                           "-d", classesDir.getCanonicalPath());
+      assertTrue(compiler.getTask(null, fileManager, null, options, null,
+                                  fileManager.getJavaFileObjectsFromFiles(sources)).call());
+    }
+    return new URLClassLoader(new URL[] { classesDir.toURI().toURL() },
+                              TestSpecializedFieldAccessors.class.getClassLoader());
+  }
+
+  private static Object newRecord(ClassLoader classLoader, DataMap data) throws Exception
+  {
+    return classLoader.loadClass(NAMESPACE + ".Specialized").getConstructor(DataMap.class).newInstance(data);
+  }
+
+  private static Object symbol(Class<?> enumClass, String name) throws Exception
+  {
+    return enumClass.getMethod("valueOf", String.class).invoke(null, name);
+  }
+
+  private static Object get(Object record, String getter) throws Exception
+  {
+    return record.getClass().getMethod(getter).invoke(record);
+  }
+
+  private static Object get(Object record, String getter, GetMode mode) throws Exception
+  {
+    return record.getClass().getMethod(getter, GetMode.class).invoke(record, mode);
+  }
+
+  private static void set(Object record, String setter, Class<?> type, Object value) throws Exception
+  {
+    record.getClass().getMethod(setter, type).invoke(record, value);
+  }
+}
@@ -64,14 +64,26 @@ public class CodeUtil
    * @return {@link DataSchemaResolver} configured with the resolver path
    */
   public static DataSchemaResolver createSchemaResolver(String resolverPath)
+  {
+    return createSchemaResolver(resolverPath, SchemaParserFactory.instance());
+  }
+
+  /**
+   * Create {@link DataSchemaResolver} with specified resolver path and parser factory.
+   *
+   * @param resolverPath colon-separated string containing all paths of schema source to resolve
+   * @param parserFactory used by the resolver to create schema parsers
+   * @return {@link DataSchemaResolver} configured with the resolver path
+   */
+  public static DataSchemaResolver createSchemaResolver(String resolverPath, SchemaParserFactory parserFactory)
   {
     if (resolverPath == null)
     {
-      return new DefaultDataSchemaResolver();
+      return new DefaultDataSchemaResolver(parserFactory);
     }
     else
     {
-      return new FileDataSchemaResolver(SchemaParserFactory.instance(), resolverPath);
+      return new FileDataSchemaResolver(parserFactory, resolverPath);
     }
   }
 
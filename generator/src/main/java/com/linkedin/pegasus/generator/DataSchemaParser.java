@@ -26,6 +26,7 @@ import com.linkedin.data.schema.SchemaParserFactory;
 import com.linkedin.data.schema.resolver.FileDataSchemaLocation;
 import com.linkedin.data.schema.resolver.FileDataSchemaResolver;
 import com.linkedin.data.schema.resolver.InJarFileDataSchemaLocation;
+import com.linkedin.data.schema.resolver.SchemaSourceCache;
 import com.linkedin.util.FileUtil;
 
 import java.io.File;
@@ -33,6 +34,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -55,13 +57,35 @@ public class DataSchemaParser
   private final DataSchemaResolver _schemaResolver;
   private final SchemaParserFactory _schemaParserFactory;
   private final String _fileExtension;
+  private final SchemaSourceCache _sourceCache;
 
   /**
    * Initialize my {@link DataSchemaResolver} with the resolver path.
    */
   public DataSchemaParser(String resolverPath)
   {
-    this(resolverPath, CodeUtil.createSchemaResolver(resolverPath), SchemaParserFactory.instance(), FileDataSchemaResolver.DEFAULT_EXTENSION);
+    this(resolverPath, (SchemaSourceCache) null);
+  }
+
+  /**
+   * Initialize my {@link DataSchemaResolver} with the resolver path, and parse schemas through the specified
+   * {@link SchemaSourceCache}. Schema files in the sources are decoded in parallel before they are parsed.
+   *
+   * @param resolverPath colon-separated string containing all paths of schema source to resolve.
+   * @param sourceCache provides the cache, may be null to not use a cache.
+   */
+  public DataSchemaParser(String resolverPath, SchemaSourceCache sourceCache)
+  {
+    this(resolverPath, SchemaParserFactory.instance(null, sourceCache), sourceCache);
+  }
+
+  private DataSchemaParser(String resolverPath, SchemaParserFactory schemaParserFactory, SchemaSourceCache sourceCache)
+  {
+    this(resolverPath,
+         CodeUtil.createSchemaResolver(resolverPath, schemaParserFactory),
+         schemaParserFactory,
+         FileDataSchemaResolver.DEFAULT_EXTENSION,
+         sourceCache);
   }
 
   public String getResolverPath()
@@ -75,11 +99,21 @@ public class DataSchemaParser
   }
 
   public DataSchemaParser(String resolverPath, DataSchemaResolver schemaResolver, SchemaParserFactory schemaParserFactory, String fileExtension)
+  {
+    this(resolverPath, schemaResolver, schemaParserFactory, fileExtension, null);
+  }
+
+  private DataSchemaParser(String resolverPath,
+                           DataSchemaResolver schemaResolver,
+                           SchemaParserFactory schemaParserFactory,
+                           String fileExtension,
+                           SchemaSourceCache sourceCache)
   {
     _resolverPath = resolverPath;
     _schemaResolver = schemaResolver;
     _schemaParserFactory = schemaParserFactory;
     _fileExtension = fileExtension;
+    _sourceCache = sourceCache;
   }
 
   /**
@@ -93,6 +127,11 @@ public class DataSchemaParser
   {
     final ParseResult result = new ParseResult();
 
+    if (_sourceCache != null)
+    {
+      _sourceCache.preload(listSourceFiles(sources));
+    }
+
     try
     {
       for (String source : sources)
@@ -172,6 +211,27 @@ public class DataSchemaParser
     }
   }
 
+  /**
+   * List the schema files specified by the sources, excluding jar files and fully qualified schema names.
+   */
+  private List<File> listSourceFiles(String sources[])
+  {
+    final List<File> files = new ArrayList<File>();
+    for (String source : sources)
+    {
+      final File sourceFile = new File(source);
+      if (sourceFile.isDirectory())
+      {
+        files.addAll(FileUtil.listFiles(sourceFile, new FileUtil.FileExtensionFilter(_fileExtension)));
+      }
+      else if (sourceFile.isFile() && !sourceFile.getName().endsWith(".jar"))
+      {
+        files.add(sourceFile);
+      }
+    }
+    return files;
+  }
+
   /**
    * Parse a source that specifies a file (not a fully qualified schema name).
    *
@@ -30,6 +30,7 @@ import com.linkedin.data.template.BooleanArray;
 import com.linkedin.data.template.BooleanMap;
 import com.linkedin.data.template.BytesArray;
 import com.linkedin.data.template.BytesMap;
+import com.linkedin.data.template.DataTemplateFactory;
 import com.linkedin.data.template.DataTemplateUtil;
 import com.linkedin.data.template.DirectArrayTemplate;
 import com.linkedin.data.template.DirectMapTemplate;
@@ -149,12 +150,14 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
   private final boolean _recordFieldRemove;
   private final boolean _pathSpecMethods;
   private final boolean _copierMethods;
+  private final boolean _specializedFieldAccessors;
 
   private JavaDataTemplateGenerator(String defaultPackage,
                                     boolean recordFieldAccessorWithMode,
                                     boolean recordFieldRemove,
                                     boolean pathSpecMethods,
-                                    boolean copierMethods)
+                                    boolean copierMethods,
+                                    boolean specializedFieldAccessors)
   {
     super(defaultPackage);
 
@@ -169,6 +172,7 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
     _recordFieldRemove = recordFieldRemove;
     _pathSpecMethods = pathSpecMethods;
     _copierMethods = copierMethods;
+    _specializedFieldAccessors = specializedFieldAccessors;
   }
 
   public JavaDataTemplateGenerator(Config config)
@@ -177,7 +181,8 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
          config.getRecordFieldAccessorWithMode(),
          config.getRecordFieldRemove(),
          config.getPathSpecMethods(),
-         config.getCopierMethods());
+         config.getCopierMethods(),
+         config.getSpecializedFieldAccessors());
   }
 
   /**
@@ -189,7 +194,8 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
          true,
          true,
          true,
-         true);
+         true,
+         false);
   }
 
   public Map<JDefinedClass, ClassTemplateSpec> getGeneratedClasses()
@@ -310,6 +316,25 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
     dataClassArg(inv, dataClass);
   }
 
+  /**
+   * Generate the {@link DataTemplateFactory} returned by {@link DataTemplateUtil#templateFactory(Class)},
+   * which invokes the constructor that wraps a Data object directly instead of through reflection.
+   *
+   * @param paramClass provides the type of the Data object expected by the constructor, or null if it is {@link Object}.
+   */
+  private void generateFactoryField(JDefinedClass cls, JClass paramClass)
+  {
+    final JClass factoryClass = getCodeModel().ref(DataTemplateFactory.class).narrow(cls);
+    final JDefinedClass factoryImplClass = getCodeModel().anonymousClass(factoryClass);
+    final JMethod createMethod = factoryImplClass.method(JMod.PUBLIC, cls, "create");
+    createMethod.annotate(Override.class);
+    final JVar param = createMethod.param(Object.class, "data");
+    createMethod.body()._return(JExpr._new(cls).arg(paramClass == null ? param : JExpr.cast(paramClass, param)));
+
+    final JFieldVar factoryField = cls.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, factoryClass, DataTemplateUtil.FACTORY_FIELD_NAME);
+    factoryField.init(JExpr._new(factoryImplClass));
+  }
+
   /**
    * Return the {@link DataSchema} for the array items or map values of the generated class.
    * <p/>
@@ -476,6 +501,7 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
     generateConstructorWithInitialCapacity(arrayClass, _dataListClass);
     generateConstructorWithCollection(arrayClass, itemJClass);
     generateConstructorWithArg(arrayClass, schemaField, _dataListClass, itemJClass, dataJClass);
+    generateFactoryField(arrayClass, _dataListClass);
 
     if (_pathSpecMethods)
     {
@@ -539,6 +565,7 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
     bytesConstructor.body().invoke(SUPER).arg(param).arg(schemaField);
 
     generateConstructorWithObjectArg(fixedClass, schemaField);
+    generateFactoryField(fixedClass, null);
 
     if (_copierMethods)
     {
@@ -569,6 +596,7 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
     generateConstructorWithInitialCapacityAndLoadFactor(mapClass);
     generateConstructorWithMap(mapClass, valueJClass);
     generateConstructorWithArg(mapClass, schemaField, _dataMapClass, valueJClass, dataJClass);
+    generateFactoryField(mapClass, _dataMapClass);
 
     if (_pathSpecMethods)
     {
@@ -635,10 +663,12 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
     final JFieldVar schemaFieldVar = generateSchemaField(templateClass, recordSpec.getSchema());
     generateConstructorWithNoArg(templateClass, schemaFieldVar, _dataMapClass);
     generateConstructorWithArg(templateClass, schemaFieldVar, _dataMapClass);
+    generateFactoryField(templateClass, _dataMapClass);
 
+    int slot = 0;
     for (RecordTemplateSpec.Field field : recordSpec.getFields())
     {
-      generateRecordFieldAccessors(templateClass, field, generate(field.getType()), schemaFieldVar);
+      generateRecordFieldAccessors(templateClass, field, generate(field.getType()), schemaFieldVar, slot++);
     }
 
     recordSpec.getFields().stream()
@@ -685,7 +715,7 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
     staticFieldsAccessor.body()._return(staticFields);
   }
 
-  private void generateRecordFieldAccessors(JDefinedClass templateClass, RecordTemplateSpec.Field field, JClass type, JVar schemaFieldVar)
+  private void generateRecordFieldAccessors(JDefinedClass templateClass, RecordTemplateSpec.Field field, JClass type, JVar schemaFieldVar, int slot)
   {
     final RecordDataSchema.Field schemaField = field.getSchemaField();
     final DataSchema fieldSchema = schemaField.getType();
@@ -734,7 +764,7 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
       setDeprecatedAnnotationAndJavadoc(getterWithMode, schemaField);
       JVar modeParam = getterWithMode.param(_getModeClass, "mode");
       final JBlock getterWithModeBody = getterWithMode.body();
-      res = JExpr.invoke("obtain" + wrappedOrDirect).arg(fieldField).arg(JExpr.dotclass(type)).arg(modeParam);
+      res = obtainFieldValue(field, type, fieldField, modeParam, slot);
       getterWithModeBody._return(res);
     }
 
@@ -743,7 +773,7 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
     addAccessorDoc(templateClass, getterWithoutMode, schemaField, "Getter");
     setDeprecatedAnnotationAndJavadoc(getterWithoutMode, schemaField);
     final JBlock getterWithoutModeBody = getterWithoutMode.body();
-    res = JExpr.invoke("obtain" + wrappedOrDirect).arg(fieldField).arg(JExpr.dotclass(type)).arg(_strictGetMode);
+    res = obtainFieldValue(field, type, fieldField, _strictGetMode, slot);
     getterWithoutModeBody._return(res);
 
     // Determine dataClass
@@ -785,6 +815,61 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
     }
   }
 
+  /**
+   * Returns the expression that reads a record field in a getter.
+   *
+   * By default the generic {@code obtainDirect}, {@code obtainCustomType} and {@code obtainWrapped} methods of
+   * {@link RecordTemplate} are used. With specialized field accessors, primitive and enum values are converted by the
+   * type-specific coercion methods of {@link DataTemplateUtil}, and wrapped values are cached in a slot for the field.
+   */
+  private JExpression obtainFieldValue(RecordTemplateSpec.Field field, JClass type, JFieldVar fieldField, JExpression mode, int slot)
+  {
+    final DataSchema fieldSchema = field.getSchemaField().getType();
+    if (!CodeUtil.isDirectType(fieldSchema))
+    {
+      final JInvocation obtainWrapped = JExpr.invoke("obtainWrapped").arg(fieldField).arg(JExpr.dotclass(type)).arg(mode);
+      return _specializedFieldAccessors ? obtainWrapped.arg(JExpr.lit(slot)) : obtainWrapped;
+    }
+    if (field.getCustomInfo() != null)
+    {
+      return JExpr.invoke("obtainCustomType").arg(fieldField).arg(JExpr.dotclass(type)).arg(mode);
+    }
+
+    final String coerceMethod = _specializedFieldAccessors ? getSpecializedCoerceMethod(fieldSchema) : null;
+    if (coerceMethod == null)
+    {
+      return JExpr.invoke("obtainDirect").arg(fieldField).arg(JExpr.dotclass(type)).arg(mode);
+    }
+
+    final JInvocation coerce = _dataTemplateUtilClass.staticInvoke(coerceMethod).arg(JExpr.invoke("obtainValue").arg(fieldField).arg(mode));
+    return fieldSchema.getDereferencedType() == DataSchema.Type.ENUM ? coerce.arg(JExpr.dotclass(type)) : coerce;
+  }
+
+  private static String getSpecializedCoerceMethod(DataSchema schema)
+  {
+    switch (schema.getDereferencedType())
+    {
+      case INT:
+        return "coerceIntOutput";
+      case LONG:
+        return "coerceLongOutput";
+      case FLOAT:
+        return "coerceFloatOutput";
+      case DOUBLE:
+        return "coerceDoubleOutput";
+      case BOOLEAN:
+        return "coerceBooleanOutput";
+      case STRING:
+        return "coerceStringOutput";
+      case BYTES:
+        return "coerceBytesOutput";
+      case ENUM:
+        return "coerceEnumOutput";
+      default:
+        return null;
+    }
+  }
+
   protected void generateTyperef(JDefinedClass typerefClass, TyperefTemplateSpec typerefSpec)
   {
     typerefClass.javadoc().append(typerefSpec.getSchema().getDoc());
@@ -808,6 +893,7 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
 
     generateConstructorWithNoArg(unionClass, schemaField, _dataMapClass);
     generateConstructorWithObjectArg(unionClass, schemaField);
+    generateFactoryField(unionClass, null);
 
     for (UnionTemplateSpec.Member member : unionSpec.getMembers())
     {
@@ -1081,6 +1167,7 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
     private boolean _recordFieldRemove;
     private boolean _pathSpecMethods;
     private boolean _copierMethods;
+    private boolean _specializedFieldAccessors;
 
     public Config()
     {
@@ -1089,6 +1176,7 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
       _recordFieldRemove = true;
       _pathSpecMethods = true;
       _copierMethods = true;
+      _specializedFieldAccessors = false;
     }
 
     public void setDefaultPackage(String defaultPackage)
@@ -1140,5 +1228,19 @@ public class JavaDataTemplateGenerator extends JavaCodeGeneratorBase
     {
       return _copierMethods;
     }
+
+    /**
+     * @param specializedFieldAccessors if true, record getters of primitive, enum and wrapped fields are generated
+     *                                  with type-specific code instead of the generic coercion and cache lookups.
+     */
+    public void setSpecializedFieldAccessors(boolean specializedFieldAccessors)
+    {
+      _specializedFieldAccessors = specializedFieldAccessors;
+    }
+
+    public boolean getSpecializedFieldAccessors()
+    {
+      return _specializedFieldAccessors;
+    }
   }
 }
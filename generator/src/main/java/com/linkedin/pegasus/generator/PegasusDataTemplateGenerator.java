@@ -21,6 +21,7 @@ import com.linkedin.data.schema.DataSchema;
 import com.linkedin.data.schema.DataSchemaLocation;
 import com.linkedin.data.schema.NamedDataSchema;
 import com.linkedin.data.schema.generator.AbstractGenerator;
+import com.linkedin.data.schema.resolver.SchemaSourceCache;
 import com.linkedin.pegasus.generator.spec.ClassTemplateSpec;
 import com.linkedin.util.FileUtil;
 
@@ -53,6 +54,16 @@ public class PegasusDataTemplateGenerator
    * The system property that specifies whether to generate classes for externally resolved schemas
    */
   public static final String GENERATOR_GENERATE_IMPORTED = "generator.generate.imported";
+  /**
+   * If set to true, record getters are generated with type-specialized code, see
+   * {@link JavaDataTemplateGenerator.Config#setSpecializedFieldAccessors(boolean)}.
+   */
+  public static final String GENERATOR_GENERATE_SPECIALIZED_ACCESSORS = "generator.generate.specialized.accessors";
+  /**
+   * The system property that specifies the directory of a persistent {@link SchemaSourceCache}.
+   * If set, schema sources are decoded in parallel and reused across runs while their content is unchanged.
+   */
+  public static final String GENERATOR_SCHEMA_CACHE_DIR = "generator.schema.cache.dir";
 
   private static final Logger _log = LoggerFactory.getLogger(PegasusDataTemplateGenerator.class);
 
@@ -102,8 +113,11 @@ public class PegasusDataTemplateGenerator
 
     final String generateImportedProperty = System.getProperty(PegasusDataTemplateGenerator.GENERATOR_GENERATE_IMPORTED);
     final boolean generateImported = generateImportedProperty == null ? true : Boolean.parseBoolean(generateImportedProperty);
+    final JavaDataTemplateGenerator.Config config = new JavaDataTemplateGenerator.Config();
+    config.setDefaultPackage(System.getProperty(JavaCodeGeneratorBase.GENERATOR_DEFAULT_PACKAGE));
+    config.setSpecializedFieldAccessors(Boolean.getBoolean(GENERATOR_GENERATE_SPECIALIZED_ACCESSORS));
     PegasusDataTemplateGenerator.run(System.getProperty(AbstractGenerator.GENERATOR_RESOLVER_PATH),
-                                     System.getProperty(JavaCodeGeneratorBase.GENERATOR_DEFAULT_PACKAGE),
+                                     config,
                                      generateImported,
                                      args[0],
                                      Arrays.copyOfRange(args, 1, args.length));
@@ -112,9 +126,19 @@ public class PegasusDataTemplateGenerator
   public static GeneratorResult run(String resolverPath, String defaultPackage, final boolean generateImported, String targetDirectoryPath, String[] sources)
       throws IOException
   {
-    final DataSchemaParser schemaParser = new DataSchemaParser(resolverPath);
+    final JavaDataTemplateGenerator.Config config = new JavaDataTemplateGenerator.Config();
+    config.setDefaultPackage(defaultPackage);
+    return run(resolverPath, config, generateImported, targetDirectoryPath, sources);
+  }
+
+  public static GeneratorResult run(String resolverPath, JavaDataTemplateGenerator.Config config, final boolean generateImported, String targetDirectoryPath, String[] sources)
+      throws IOException
+  {
+    final String schemaCacheDir = System.getProperty(GENERATOR_SCHEMA_CACHE_DIR);
+    final SchemaSourceCache sourceCache = schemaCacheDir == null ? null : new SchemaSourceCache(new File(schemaCacheDir));
+    final DataSchemaParser schemaParser = new DataSchemaParser(resolverPath, sourceCache);
     final TemplateSpecGenerator specGenerator = new TemplateSpecGenerator(schemaParser.getSchemaResolver());
-    final JavaDataTemplateGenerator dataTemplateGenerator = new JavaDataTemplateGenerator(defaultPackage);
+    final JavaDataTemplateGenerator dataTemplateGenerator = new JavaDataTemplateGenerator(config);
 
     for (DataSchema predefinedSchema : JavaDataTemplateGenerator.PredefinedJavaClasses.keySet())
     {
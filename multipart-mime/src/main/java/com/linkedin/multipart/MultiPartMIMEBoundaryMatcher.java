@@ -0,0 +1,114 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.multipart;
+
+
+import com.linkedin.data.ByteString;
+
+
+/**
+ * Finds a fixed byte pattern, such as a multipart mime boundary, in a buffer that grows as chunks arrive and
+ * shrinks from the front as data is consumed.
+ *
+ * The search uses the Boyer-Moore-Horspool algorithm and remembers the position up to which no occurrence can
+ * start, so that bytes already ruled out are not scanned again when more data is appended to the buffer.
+ * Callers must report bytes removed from the front of the buffer using {@link #consumed(int)}.
+ *
+ * Note that this class is not thread safe.
+ */
+final class MultiPartMIMEBoundaryMatcher
+{
+  private final byte[] _pattern;
+  private final int[] _shifts = new int[256];
+  //No occurrence of the pattern starts before this index in the buffer.
+  private int _scanFrom = 0;
+
+  MultiPartMIMEBoundaryMatcher(final byte[] pattern)
+  {
+    assert (pattern.length > 0);
+    _pattern = pattern;
+
+    //For each byte value, how far the search may shift when it is the last byte of the current window.
+    final int last = pattern.length - 1;
+    for (int i = 0; i < _shifts.length; i++)
+    {
+      _shifts[i] = pattern.length;
+    }
+    for (int i = 0; i < last; i++)
+    {
+      _shifts[pattern[i] & 0xFF] = last - i;
+    }
+  }
+
+  /**
+   * Returns the index of the first occurrence of the pattern in the buffer at or after the specified index,
+   * or -1 if there is no such occurrence yet.
+   *
+   * @param buffer the buffer to search, which must only differ from the previously searched buffer by bytes
+   *               appended to its end, or by bytes removed from its front that were reported using {@link #consumed(int)}.
+   * @param fromIndex the index to start the search from. Positions before it are considered searched until
+   *                  they are consumed.
+   */
+  int indexIn(final ByteString buffer, final int fromIndex)
+  {
+    final int last = _pattern.length - 1;
+    final int lastStart = buffer.length() - _pattern.length;
+    int start = Math.max(_scanFrom, fromIndex);
+    while (start <= lastStart)
+    {
+      final byte lastByte = buffer.getByte(start + last);
+      if (lastByte == _pattern[last] && matchesAt(buffer, start))
+      {
+        _scanFrom = start;
+        return start;
+      }
+      start += _shifts[lastByte & 0xFF];
+    }
+    _scanFrom = start;
+    return -1;
+  }
+
+  /**
+   * Returns the index of the first occurrence of the pattern in the buffer, or -1 if there is no such occurrence yet.
+   *
+   * @see #indexIn(ByteString, int)
+   */
+  int indexIn(final ByteString buffer)
+  {
+    return indexIn(buffer, 0);
+  }
+
+  /**
+   * Report that the specified number of bytes were removed from the front of the buffer.
+   */
+  void consumed(final int count)
+  {
+    _scanFrom = Math.max(0, _scanFrom - count);
+  }
+
+  private boolean matchesAt(final ByteString buffer, final int start)
+  {
+    for (int i = _pattern.length - 2; i >= 0; i--)
+    {
+      if (buffer.getByte(start + i) != _pattern[i])
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -88,6 +88,12 @@ public class MultiPartMIMEReader implements MultiPartMIMEDataSourceIterator
     private byte[] _firstBoundaryBytes;
     private byte[] _normalBoundaryBytes;
     private byte[] _finishingBoundaryBytes;
+    //Matchers that keep their search state across chunks, so that the buffer is not rescanned from the start
+    //every time more data arrives.
+    private final MultiPartMIMEBoundaryMatcher _firstBoundaryMatcher;
+    private final MultiPartMIMEBoundaryMatcher _normalBoundaryMatcher;
+    private final MultiPartMIMEBoundaryMatcher _finishingBoundaryMatcher;
+    private final MultiPartMIMEBoundaryMatcher _headerEndingMatcher;
     private volatile boolean _firstBoundaryEvaluated = false;
     //A signal from the R2 reader has been notified that all data is done being sent over. This does NOT mean that our
     //top level reader can be notified that they are done since data could still be in the buffer.
@@ -292,8 +298,8 @@ public class MultiPartMIMEReader implements MultiPartMIMEDataSourceIterator
       //Read the preamble in.
       if (_multiPartReaderState == MultiPartReaderState.CALLBACK_BOUND_AND_READING_PREAMBLE)
       {
-        final int firstBoundaryLookup = _compoundByteStringBuffer.indexOfBytes(_firstBoundaryBytes);
-        final int lastBoundaryLookup = _compoundByteStringBuffer.indexOfBytes(_finishingBoundaryBytes);
+        final int firstBoundaryLookup = _firstBoundaryMatcher.indexIn(_compoundByteStringBuffer);
+        final int lastBoundaryLookup = _finishingBoundaryMatcher.indexIn(_compoundByteStringBuffer);
 
         //Before reading the preamble, check to see if this is an empty multipart mime envelope. This can be checked by
         //examining if the location of the first boundary matches the location of the finishing boundary.
@@ -330,7 +336,7 @@ public class MultiPartMIMEReader implements MultiPartMIMEDataSourceIterator
           _preamble = preambleSlice.asString(Charset.defaultCharset());
 
           //Make a new copy with the bytes we need leaving the old list to be GC'd
-          _compoundByteStringBuffer = _compoundByteStringBuffer.slice(firstBoundaryLookup, _compoundByteStringBuffer.length() - firstBoundaryLookup);
+          consumeBuffer(firstBoundaryLookup);
 
           //We can now transition to normal reading.
           _multiPartReaderState = MultiPartReaderState.READING_PARTS;
@@ -421,12 +427,12 @@ public class MultiPartMIMEReader implements MultiPartMIMEDataSourceIterator
       if (_firstBoundaryEvaluated == false)
       {
         //Immediately after the preamble, i.e the first part we are seeing
-        boundaryIndex = _compoundByteStringBuffer.indexOfBytes(_firstBoundaryBytes);
+        boundaryIndex = _firstBoundaryMatcher.indexIn(_compoundByteStringBuffer);
         boundarySize = _firstBoundaryBytes.length;
       }
       else
       {
-        boundaryIndex = _compoundByteStringBuffer.indexOfBytes(_normalBoundaryBytes);
+        boundaryIndex = _normalBoundaryMatcher.indexIn(_compoundByteStringBuffer);
         boundarySize = _normalBoundaryBytes.length;
       }
 
@@ -620,6 +626,17 @@ public class MultiPartMIMEReader implements MultiPartMIMEDataSourceIterator
       //and then make a new part.
     }
 
+    //Drops the specified number of bytes from the front of our _compoundByteStringBuffer and lets the boundary matchers
+    //know, so that they can keep their search state.
+    private void consumeBuffer(final int count)
+    {
+      _compoundByteStringBuffer = _compoundByteStringBuffer.slice(count, _compoundByteStringBuffer.length() - count);
+      _firstBoundaryMatcher.consumed(count);
+      _normalBoundaryMatcher.consumed(count);
+      _finishingBoundaryMatcher.consumed(count);
+      _headerEndingMatcher.consumed(count);
+    }
+
     //This will decompose our _compoundByteStringBuffer and obtain the client data needed to satisfy the amount
     //of data requested. Subsequently this will update the _compoundByteStringBuffer to drop any references to
     //data that we gave to our Client.
@@ -668,8 +685,7 @@ public class MultiPartMIMEReader implements MultiPartMIMEDataSourceIterator
       }
 
       //Update our buffer by trimming off references to what we don't need anymore.
-      _compoundByteStringBuffer = _compoundByteStringBuffer.slice(clientData.length(),
-                                                                  _compoundByteStringBuffer.length() - clientData.length());
+      consumeBuffer(clientData.length());
 
       return clientData;
     }
@@ -804,14 +820,11 @@ public class MultiPartMIMEReader implements MultiPartMIMEDataSourceIterator
       }
 
       //Now we will determine the existence of headers.
-      //In order to do this we construct a window to look into. We will look inside of the buffer starting at the
-      //end of the boundary until the end of the buffer.
-      final ByteString possibleHeaderArea = _compoundByteStringBuffer.slice(boundarySize, _compoundByteStringBuffer.length() - boundarySize);
-
+      //In order to do this we look inside of the buffer starting at the end of the boundary until the end of the buffer.
       //Find the two consecutive CRLFs.
-      final int headerEnding = possibleHeaderArea.indexOfBytes(MultiPartMIMEUtils.CONSECUTIVE_CRLFS_BYTES);
+      final int headerEndingLookup = _headerEndingMatcher.indexIn(_compoundByteStringBuffer, boundarySize);
 
-      if (headerEnding == -1)
+      if (headerEndingLookup == -1)
       {
         if (_r2Done)
         {
@@ -827,14 +840,16 @@ public class MultiPartMIMEReader implements MultiPartMIMEDataSourceIterator
         return;
       }
 
-      //At this point, headerEnding represents the location of the first occurrence of consecutive CRLFs.
+      //At this point, headerEnding represents the location of the first occurrence of consecutive CRLFs
+      //after the boundary.
+      final int headerEnding = headerEndingLookup - boundarySize;
       //It is important to note that it is possible for a malformed stream to not end its headers with consecutive
       //CRLFs. In such a case, everything up until the first occurrence of the consecutive CRLFs will be considered
       //part of the header area.
 
       //Let's make a window into the header area. Note that we need to include the trailing consecutive CRLF bytes
       //because we need to verify if the header area is empty, meaning it contains only consecutive CRLF bytes.
-      final ByteString headerBytesSlice = possibleHeaderArea.slice(0, headerEnding + MultiPartMIMEUtils.CONSECUTIVE_CRLFS_BYTES.length);
+      final ByteString headerBytesSlice = _compoundByteStringBuffer.slice(boundarySize, headerEnding + MultiPartMIMEUtils.CONSECUTIVE_CRLFS_BYTES.length);
 
       //Parse the headers
       final Map<String, String> headers = parseHeaders(headerBytesSlice);
@@ -848,7 +863,7 @@ public class MultiPartMIMEReader implements MultiPartMIMEDataSourceIterator
       //which means we can dump everything else beforehand. We need to skip past the trailing consecutive CRLFs.
       final int consumedDataIndex = boundarySize + headerEnding + MultiPartMIMEUtils.CONSECUTIVE_CRLFS_BYTES.length;
       //Update our buffer by trimming off references to what we don't need anymore.
-      _compoundByteStringBuffer = _compoundByteStringBuffer.slice(consumedDataIndex, _compoundByteStringBuffer.length() - consumedDataIndex);
+      consumeBuffer(consumedDataIndex);
 
       //Notify the callback that we have a new part
       _currentSinglePartMIMEReader = new SinglePartMIMEReader(headers);
@@ -1028,6 +1043,11 @@ public class MultiPartMIMEReader implements MultiPartMIMEDataSourceIterator
       _firstBoundaryBytes = _firstBoundary.getBytes();
       _normalBoundaryBytes = _normalBoundary.getBytes();
       _finishingBoundaryBytes = _finishingBoundary.getBytes();
+
+      _firstBoundaryMatcher = new MultiPartMIMEBoundaryMatcher(_firstBoundaryBytes);
+      _normalBoundaryMatcher = new MultiPartMIMEBoundaryMatcher(_normalBoundaryBytes);
+      _finishingBoundaryMatcher = new MultiPartMIMEBoundaryMatcher(_finishingBoundaryBytes);
+      _headerEndingMatcher = new MultiPartMIMEBoundaryMatcher(MultiPartMIMEUtils.CONSECUTIVE_CRLFS_BYTES);
     }
   }
 
@@ -0,0 +1,108 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.multipart;
+
+
+import com.linkedin.data.ByteString;
+
+import java.nio.charset.Charset;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for {@link MultiPartMIMEBoundaryMatcher}.
+ */
+public class TestMIMEBoundaryMatcher
+{
+  private static final Charset ASCII = Charset.forName("US-ASCII");
+
+  @DataProvider(name = "patterns")
+  public Object[][] patterns()
+  {
+    return new Object[][]
+        {
+            {"\r\n--boundary"},
+            {"--aaa"},
+            {"\r\n\r\n"},
+            {"a"},
+        };
+  }
+
+  @Test(dataProvider = "patterns")
+  public void testIndexInGrowingAndShrinkingBuffer(final String patternString)
+  {
+    final byte[] pattern = patternString.getBytes(ASCII);
+    final MultiPartMIMEBoundaryMatcher matcher = new MultiPartMIMEBoundaryMatcher(pattern);
+    final Random random = new Random(patternString.hashCode());
+    final String alphabet = "-a\r\nboundary";
+
+    ByteString buffer = ByteString.empty();
+    for (int round = 0; round < 2000; round++)
+    {
+      //Append a chunk, sometimes containing the pattern.
+      final StringBuilder chunk = new StringBuilder();
+      final int chunkLength = random.nextInt(8);
+      for (int i = 0; i < chunkLength; i++)
+      {
+        chunk.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      if (random.nextInt(10) == 0)
+      {
+        chunk.insert(random.nextInt(chunk.length() + 1), patternString);
+      }
+      buffer = new ByteString.Builder().append(buffer).append(ByteString.copy(chunk.toString().getBytes(ASCII))).build();
+
+      Assert.assertEquals(matcher.indexIn(buffer), buffer.indexOfBytes(pattern));
+
+      //Consume part of the buffer, either up to the match or leaving a possible partial match behind.
+      final int index = buffer.indexOfBytes(pattern);
+      final int consumed;
+      if (index >= 0)
+      {
+        consumed = index + random.nextInt(pattern.length + 1);
+      }
+      else
+      {
+        consumed = random.nextInt(Math.max(1, buffer.length() - pattern.length + 2));
+      }
+      buffer = buffer.slice(consumed, buffer.length() - consumed);
+      matcher.consumed(consumed);
+
+      Assert.assertEquals(matcher.indexIn(buffer), buffer.indexOfBytes(pattern));
+    }
+  }
+
+  @Test
+  public void testIndexInFromIndex()
+  {
+    final MultiPartMIMEBoundaryMatcher matcher = new MultiPartMIMEBoundaryMatcher(MultiPartMIMEUtils.CONSECUTIVE_CRLFS_BYTES);
+    ByteString buffer = ByteString.copy("\r\n\r\n--b\r\nA: 1\r".getBytes(ASCII));
+    Assert.assertEquals(matcher.indexIn(buffer, 5), -1);
+
+    buffer = new ByteString.Builder().append(buffer).append(ByteString.copy("\n\r\ndata".getBytes(ASCII))).build();
+    Assert.assertEquals(matcher.indexIn(buffer, 5), 13);
+    Assert.assertEquals(matcher.indexIn(buffer, 5), 13);
+
+    buffer = buffer.slice(17, buffer.length() - 17);
+    matcher.consumed(17);
+    Assert.assertEquals(matcher.indexIn(buffer, 0), -1);
+  }
+}
@@ -28,6 +28,7 @@ import com.linkedin.r2.message.rest.RestResponse;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,23 +44,44 @@ public class CaptureFilter implements RestFilter
   private static final String REQ_ATTR = CaptureFilter.class.getName() + ".req";
 
   private final DbSink _db;
+  private final double _samplingRate;
 
   /**
-   * Construct a new instance with the specified DbSink.
+   * Construct a new instance with the specified DbSink, which captures every request.
    *
    * @param db DbSink to be used as the target for this filter.
    */
   public CaptureFilter(DbSink db)
   {
+    this(db, 1.0);
+  }
+
+  /**
+   * Construct a new instance with the specified DbSink, which captures a random sample of the requests.
+   *
+   * @param db DbSink to be used as the target for this filter.
+   * @param samplingRate the fraction of requests to capture, between 0 and 1.
+   */
+  public CaptureFilter(DbSink db, double samplingRate)
+  {
+    if (!(samplingRate >= 0.0 && samplingRate <= 1.0))
+    {
+      throw new IllegalArgumentException("samplingRate must be between 0 and 1: " + samplingRate);
+    }
+
     _db = db;
+    _samplingRate = samplingRate;
   }
 
   @Override
   public void onRestRequest(RestRequest req, RequestContext requestContext, Map<String, String> wireAttrs,
                         NextFilter<RestRequest, RestResponse> nextFilter)
   {
-    // Save request so that it can be associated with the response
-    requestContext.putLocalAttr(REQ_ATTR, req);
+    if (isSampled())
+    {
+      // Save request so that it can be associated with the response
+      requestContext.putLocalAttr(REQ_ATTR, req);
+    }
 
     nextFilter.onRequest(req, requestContext, wireAttrs);
   }
@@ -86,6 +108,11 @@ public class CaptureFilter implements RestFilter
     nextFilter.onError(ex, requestContext, wireAttrs);
   }
 
+  private boolean isSampled()
+  {
+    return _samplingRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < _samplingRate;
+  }
+
   private void saveResponse(RestResponse res, RequestContext requestContext)
   {
     final RestRequest req = (RestRequest) requestContext.removeLocalAttr(REQ_ATTR);
@@ -0,0 +1,228 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.caprep;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.r2.caprep.db.SegmentedLogReader;
+import com.linkedin.r2.caprep.db.SegmentedLogRecord;
+import com.linkedin.r2.message.rest.RestException;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.transport.common.Client;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Re-issues the requests of a segmented capture log against a {@link Client}, preserving the relative timing at
+ * which they were recorded.
+ *
+ * The speed scales the recorded timing: at 1.0 requests are sent with the original gaps between them, at 2.0 twice
+ * as fast, and at {@link Double#POSITIVE_INFINITY} as fast as the client accepts them. At most the configured number
+ * of requests are outstanding at any time; when the client cannot keep up, the driver waits for responses and falls
+ * behind the recorded timing rather than queueing requests without bound.
+ *
+ * The driver counts the responses whose status differs from the recorded one, which makes it usable both to load a
+ * service with production-like traffic and as a coarse regression check.
+ */
+public class ReplayDriver
+{
+  private static final Logger _log = LoggerFactory.getLogger(ReplayDriver.class);
+
+  private final Client _client;
+  private final double _speed;
+  private final int _maxOutstanding;
+  private final Semaphore _outstanding;
+
+  private final AtomicLong _sent = new AtomicLong();
+  private final AtomicLong _responses = new AtomicLong();
+  private final AtomicLong _errors = new AtomicLong();
+  private final AtomicLong _statusMismatches = new AtomicLong();
+
+  /**
+   * Construct a new instance.
+   *
+   * @param client the {@link Client} to send the requests with.
+   * @param speed the factor by which the recorded timing is accelerated, must be positive.
+   * @param maxOutstanding the maximum number of requests waiting for a response.
+   */
+  public ReplayDriver(Client client, double speed, int maxOutstanding)
+  {
+    if (!(speed > 0.0))
+    {
+      throw new IllegalArgumentException("speed must be positive: " + speed);
+    }
+    if (maxOutstanding <= 0)
+    {
+      throw new IllegalArgumentException("maxOutstanding must be positive: " + maxOutstanding);
+    }
+
+    _client = client;
+    _speed = speed;
+    _maxOutstanding = maxOutstanding;
+    _outstanding = new Semaphore(maxOutstanding);
+  }
+
+  /**
+   * Sends every request read from {@code reader} and waits for all of the responses. The reader is not closed.
+   *
+   * @param reader the log to replay.
+   * @throws IOException if the log cannot be read.
+   * @throws InterruptedException if the calling thread is interrupted while pacing or waiting for responses.
+   */
+  public void replay(SegmentedLogReader reader) throws IOException, InterruptedException
+  {
+    final long startNanos = System.nanoTime();
+    long firstTimestamp = -1;
+
+    try
+    {
+      SegmentedLogRecord record;
+      while ((record = reader.next()) != null)
+      {
+        if (firstTimestamp < 0)
+        {
+          firstTimestamp = record.getTimestamp();
+        }
+        pace(startNanos, record.getTimestamp() - firstTimestamp);
+
+        _outstanding.acquire();
+        _sent.incrementAndGet();
+        final ReplayCallback callback = new ReplayCallback(record);
+        try
+        {
+          _client.restRequest(record.getRequest(), callback);
+        }
+        catch (RuntimeException e)
+        {
+          // the client failed without invoking the callback; count the request as failed to release its permit.
+          callback.onError(e);
+        }
+      }
+    }
+    finally
+    {
+      // Wait for the outstanding responses
+      _outstanding.acquire(_maxOutstanding);
+      _outstanding.release(_maxOutstanding);
+    }
+  }
+
+  /**
+   * @return the number of requests sent.
+   */
+  public long getSentCount()
+  {
+    return _sent.get();
+  }
+
+  /**
+   * @return the number of responses received, including error responses.
+   */
+  public long getResponseCount()
+  {
+    return _responses.get();
+  }
+
+  /**
+   * @return the number of requests which failed without a response.
+   */
+  public long getErrorCount()
+  {
+    return _errors.get();
+  }
+
+  /**
+   * @return the number of responses whose status differs from the recorded response.
+   */
+  public long getStatusMismatchCount()
+  {
+    return _statusMismatches.get();
+  }
+
+  private void pace(long startNanos, long recordedOffsetMillis) throws InterruptedException
+  {
+    if (Double.isInfinite(_speed) || recordedOffsetMillis <= 0)
+    {
+      return;
+    }
+
+    final long delayNanos = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(recordedOffsetMillis) / _speed)
+        - System.nanoTime();
+    if (delayNanos > 0)
+    {
+      TimeUnit.NANOSECONDS.sleep(delayNanos);
+    }
+  }
+
+  private class ReplayCallback implements Callback<RestResponse>
+  {
+    private final SegmentedLogRecord _record;
+    private final AtomicBoolean _done = new AtomicBoolean();
+
+    private ReplayCallback(SegmentedLogRecord record)
+    {
+      _record = record;
+    }
+
+    @Override
+    public void onSuccess(RestResponse result)
+    {
+      if (_done.getAndSet(true))
+      {
+        return;
+      }
+      onResponse(result);
+    }
+
+    @Override
+    public void onError(Throwable e)
+    {
+      if (_done.getAndSet(true))
+      {
+        // a client which threw after completing the callback
+        return;
+      }
+      if (e instanceof RestException)
+      {
+        onResponse(((RestException) e).getResponse());
+      }
+      else
+      {
+        _log.debug("Replayed request failed: " + _record.getRequest().getURI(), e);
+        _errors.incrementAndGet();
+        _outstanding.release();
+      }
+    }
+
+    private void onResponse(RestResponse response)
+    {
+      _responses.incrementAndGet();
+      if (response.getStatus() != _record.getResponse().getStatus())
+      {
+        _statusMismatches.incrementAndGet();
+      }
+      _outstanding.release();
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.caprep.db;
+
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.message.MessageHeaders;
+import com.linkedin.r2.message.MessageHeadersBuilder;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * A compact, length-prefixed binary serializer for messages. Unlike {@link DefaultMessageSerializer}, each message
+ * delimits itself, so that several messages can be written one after another to the same stream, and the entity is
+ * written as is.
+ *
+ * A request is written as its method, URI, headers, cookies and entity; a response as its status, headers, cookies
+ * and entity. Strings are written as a length followed by their UTF-8 bytes, and every count and length is a 4 byte
+ * big-endian integer.
+ */
+public class BinaryMessageSerializer implements MessageSerializer
+{
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  @Override
+  public void writeRequest(OutputStream out, RestRequest req) throws IOException
+  {
+    final DataOutputStream dataOut = new DataOutputStream(out);
+    writeString(dataOut, req.getMethod());
+    writeString(dataOut, req.getURI().toString());
+    writeHeadersAndCookies(dataOut, req);
+    writeEntity(dataOut, req.getEntity());
+    dataOut.flush();
+  }
+
+  @Override
+  public void writeResponse(OutputStream out, RestResponse res) throws IOException
+  {
+    final DataOutputStream dataOut = new DataOutputStream(out);
+    dataOut.writeInt(res.getStatus());
+    writeHeadersAndCookies(dataOut, res);
+    writeEntity(dataOut, res.getEntity());
+    dataOut.flush();
+  }
+
+  @Override
+  public RestRequest readRestRequest(InputStream in) throws IOException
+  {
+    final DataInputStream dataIn = new DataInputStream(in);
+    final String method = readString(dataIn);
+    final URI uri;
+    try
+    {
+      uri = new URI(readString(dataIn));
+    }
+    catch (URISyntaxException e)
+    {
+      throw new IOException("Failed to parse request URI", e);
+    }
+
+    final RestRequestBuilder builder = new RestRequestBuilder(uri).setMethod(method);
+    readHeadersAndCookies(dataIn, builder);
+    return builder.setEntity(readEntity(dataIn)).build();
+  }
+
+  @Override
+  public RestResponse readRestResponse(InputStream in) throws IOException
+  {
+    final DataInputStream dataIn = new DataInputStream(in);
+    final RestResponseBuilder builder = new RestResponseBuilder().setStatus(dataIn.readInt());
+    readHeadersAndCookies(dataIn, builder);
+    return builder.setEntity(readEntity(dataIn)).build();
+  }
+
+  private static void writeHeadersAndCookies(DataOutputStream out, MessageHeaders message) throws IOException
+  {
+    final Map<String, String> headers = message.getHeaders();
+    out.writeInt(headers.size());
+    for (Map.Entry<String, String> header : headers.entrySet())
+    {
+      writeString(out, header.getKey());
+      writeString(out, header.getValue());
+    }
+
+    final List<String> cookies = message.getCookies();
+    out.writeInt(cookies.size());
+    for (String cookie : cookies)
+    {
+      writeString(out, cookie);
+    }
+  }
+
+  private static void readHeadersAndCookies(DataInputStream in, MessageHeadersBuilder<?> builder) throws IOException
+  {
+    final int headerCount = readCount(in);
+    final Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+    for (int i = 0; i < headerCount; i++)
+    {
+      final String name = readString(in);
+      headers.put(name, readString(in));
+    }
+    builder.setHeaders(headers);
+
+    final int cookieCount = readCount(in);
+    final List<String> cookies = new ArrayList<String>(cookieCount);
+    for (int i = 0; i < cookieCount; i++)
+    {
+      cookies.add(readString(in));
+    }
+    builder.setCookies(cookies);
+  }
+
+  private static void writeEntity(DataOutputStream out, ByteString entity) throws IOException
+  {
+    out.writeInt(entity.length());
+    entity.write(out);
+  }
+
+  private static ByteString readEntity(DataInputStream in) throws IOException
+  {
+    final byte[] bytes = new byte[readCount(in)];
+    in.readFully(bytes);
+    return ByteString.unsafeWrap(bytes);
+  }
+
+  private static void writeString(DataOutputStream out, String str) throws IOException
+  {
+    final byte[] bytes = str.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException
+  {
+    final byte[] bytes = new byte[readCount(in)];
+    in.readFully(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  private static int readCount(DataInputStream in) throws IOException
+  {
+    final int count = in.readInt();
+    if (count < 0)
+    {
+      throw new IOException("Invalid length: " + count);
+    }
+    return count;
+  }
+}
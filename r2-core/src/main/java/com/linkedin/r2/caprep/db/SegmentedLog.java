@@ -0,0 +1,264 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.caprep.db;
+
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+
+/**
+ * Format of the segmented capture log shared by {@link SegmentedLogDbSink}, {@link SegmentedLogDbSource} and
+ * {@link SegmentedLogReader}.
+ *
+ * A log is a directory of segment files named after their zero-padded, increasing index. Each segment starts with a
+ * magic number and a format version, followed by records. A record is its payload length and the CRC32 of its
+ * payload, followed by the payload itself: the time the pair was recorded, the request and the response, as written
+ * by {@link BinaryMessageSerializer}. Records are only ever appended, so a crash can at most leave a torn record at
+ * the end of the last segment, which readers detect and skip.
+ */
+final class SegmentedLog
+{
+  static final int MAGIC = 0x5232434c;
+  static final int VERSION = 1;
+  static final int SEGMENT_HEADER_BYTES = 8;
+  static final int RECORD_HEADER_BYTES = 8;
+
+  static final MessageSerializer SERIALIZER = new BinaryMessageSerializer();
+
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final Pattern SEGMENT_NAME = Pattern.compile("\\d{10}\\" + SEGMENT_SUFFIX);
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private SegmentedLog() {}
+
+  static File segmentFile(File dir, int index)
+  {
+    return new File(dir, String.format("%010d%s", index, SEGMENT_SUFFIX));
+  }
+
+  static int segmentIndex(File segment)
+  {
+    final String name = segment.getName();
+    return Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  /**
+   * @return the segments of the log in {@code dir}, in the order they were written.
+   */
+  static List<File> listSegments(File dir)
+  {
+    final File[] files = dir.listFiles();
+    if (files == null)
+    {
+      return new ArrayList<File>();
+    }
+
+    final List<File> segments = new ArrayList<File>();
+    for (File file : files)
+    {
+      if (file.isFile() && SEGMENT_NAME.matcher(file.getName()).matches())
+      {
+        segments.add(file);
+      }
+    }
+    // Names are zero padded, so lexicographic order is index order.
+    Collections.sort(segments);
+    return segments;
+  }
+
+  static void writeSegmentHeader(DataOutputStream out) throws IOException
+  {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+  }
+
+  static void checkSegmentHeader(FileChannel channel, File segment) throws IOException
+  {
+    final ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES);
+    if (!readFully(channel, header, 0) || header.getInt(0) != MAGIC)
+    {
+      throw new IOException("Not a capture log segment: " + segment);
+    }
+    if (header.getInt(4) != VERSION)
+    {
+      throw new IOException("Unsupported capture log version " + header.getInt(4) + " in segment: " + segment);
+    }
+  }
+
+  /**
+   * Writes the payload of a record, without its length and checksum.
+   */
+  static void writePayload(OutputStream out, long timestamp, RestRequest req, RestResponse res) throws IOException
+  {
+    final DataOutputStream dataOut = new DataOutputStream(out);
+    dataOut.writeLong(timestamp);
+    SERIALIZER.writeRequest(dataOut, req);
+    SERIALIZER.writeResponse(dataOut, res);
+    dataOut.flush();
+  }
+
+  static void writeRecord(DataOutputStream out, byte[] payload, int length) throws IOException
+  {
+    final CRC32 crc = new CRC32();
+    crc.update(payload, 0, length);
+    out.writeInt(length);
+    out.writeInt((int) crc.getValue());
+    out.write(payload, 0, length);
+  }
+
+  /**
+   * Reads the payload of the record at {@code position}.
+   *
+   * @return the payload, or null if the record is truncated or does not match its checksum.
+   */
+  static byte[] readPayload(FileChannel channel, long position) throws IOException
+  {
+    final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+    if (!readFully(channel, header, position))
+    {
+      return null;
+    }
+
+    final int length = header.getInt(0);
+    if (length < 0 || length > channel.size() - position - RECORD_HEADER_BYTES)
+    {
+      return null;
+    }
+
+    final ByteBuffer payload = ByteBuffer.allocate(length);
+    if (!readFully(channel, payload, position + RECORD_HEADER_BYTES))
+    {
+      return null;
+    }
+
+    final CRC32 crc = new CRC32();
+    crc.update(payload.array(), 0, length);
+    return (int) crc.getValue() == header.getInt(4) ? payload.array() : null;
+  }
+
+  static SegmentedLogRecord parsePayload(byte[] payload, File segment, long position) throws IOException
+  {
+    final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+    final long timestamp = in.readLong();
+    final RestRequest req = SERIALIZER.readRestRequest(in);
+    final RestResponse res = SERIALIZER.readRestResponse(in);
+    return new SegmentedLogRecord(timestamp, req, res, segment, position);
+  }
+
+  /**
+   * Computes the signature under which a request is indexed for replay. Requests that are equal once canonicalized
+   * have the same signature.
+   */
+  static ByteString signature(RestRequest req)
+  {
+    final MessageDigest digest;
+    try
+    {
+      digest = MessageDigest.getInstance("SHA-1");
+    }
+    catch (NoSuchAlgorithmException e)
+    {
+      throw new IllegalStateException("SHA-1 is not available", e);
+    }
+
+    final RestRequest canonical = req.builder().buildCanonical();
+    final DataOutputStream out = new DataOutputStream(new DigestOutputStream(new NullOutputStream(), digest));
+    try
+    {
+      writeString(out, canonical.getMethod());
+      writeString(out, canonical.getURI().toString());
+      // Canonical headers are not ordered, sort them so that equal requests have the same signature.
+      final Map<String, String> headers = new TreeMap<String, String>(canonical.getHeaders());
+      out.writeInt(headers.size());
+      for (Map.Entry<String, String> header : headers.entrySet())
+      {
+        writeString(out, header.getKey());
+        writeString(out, header.getValue());
+      }
+      out.writeInt(canonical.getCookies().size());
+      for (String cookie : canonical.getCookies())
+      {
+        writeString(out, cookie);
+      }
+      out.writeInt(canonical.getEntity().length());
+      canonical.getEntity().write(out);
+      out.flush();
+    }
+    catch (IOException e)
+    {
+      // Cannot happen, nothing is actually written.
+      throw new IllegalStateException(e);
+    }
+    return ByteString.unsafeWrap(digest.digest());
+  }
+
+  private static void writeString(DataOutputStream out, String str) throws IOException
+  {
+    final byte[] bytes = str.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+  {
+    long offset = position;
+    while (buffer.hasRemaining())
+    {
+      final int read = channel.read(buffer, offset);
+      if (read < 0)
+      {
+        return false;
+      }
+      offset += read;
+    }
+    return true;
+  }
+
+  private static class NullOutputStream extends OutputStream
+  {
+    @Override
+    public void write(int b)
+    {
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len)
+    {
+    }
+  }
+}
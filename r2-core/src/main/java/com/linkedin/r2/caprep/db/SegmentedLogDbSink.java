@@ -0,0 +1,414 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.caprep.db;
+
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponse;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * DbSink which appends messages to a segmented binary log in a directory on the filesystem. The log can be read
+ * back with {@link SegmentedLogDbSource} or {@link SegmentedLogReader}.
+ *
+ * Unlike {@link DirectoryDbSink}, {@link #record(RestRequest, RestResponse)} does not touch the filesystem: pairs are
+ * handed to a bounded queue which is drained by a single writer thread, so that capturing does not add disk latency
+ * to the requests being captured. When the writer falls behind and the queue is full, new pairs are dropped and
+ * counted by {@link #getDroppedCount()} rather than blocking the caller. The writer flushes once per batch it drains
+ * from the queue and starts a new segment once the current one exceeds the configured size.
+ *
+ * Instances must be closed to flush the remaining pairs and stop the writer thread.
+ */
+public class SegmentedLogDbSink implements DbSink, Closeable
+{
+  public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+  public static final long DEFAULT_MAX_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+  private static final Logger _log = LoggerFactory.getLogger(SegmentedLogDbSink.class);
+
+  private static final Entry STOP = new Entry(0, null, null, null);
+  private static final long WRITER_CHECK_INTERVAL_MS = 100;
+
+  private final File _dir;
+  private final long _maxSegmentBytes;
+  private final BlockingQueue<Entry> _queue;
+  private final Thread _writer;
+  private final AtomicLong _recorded = new AtomicLong();
+  private final AtomicLong _dropped = new AtomicLong();
+  private final AtomicLong _failed = new AtomicLong();
+  private volatile boolean _closed;
+  // Held for reading by flush() and for writing by close(), so that no flush is queued after the writer stops.
+  private final ReadWriteLock _closeLock = new ReentrantReadWriteLock();
+
+  // Only accessed by the writer thread
+  private final PayloadBuffer _payload = new PayloadBuffer();
+  private int _nextSegment;
+  private DataOutputStream _out;
+  private long _segmentBytes;
+
+  /**
+   * Construct a new instance with the specified directory path and default queue capacity and segment size.
+   *
+   * @param dir the directory path to be used as a message store.
+   * @throws IOException if the directory cannot be created.
+   */
+  public SegmentedLogDbSink(String dir) throws IOException
+  {
+    this(new File(dir));
+  }
+
+  /**
+   * Construct a new instance with the specified directory and default queue capacity and segment size.
+   *
+   * @param dir the {@link File} object for the directory to be used as a message store.
+   * @throws IOException if the directory cannot be created.
+   */
+  public SegmentedLogDbSink(File dir) throws IOException
+  {
+    this(dir, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_SEGMENT_BYTES);
+  }
+
+  /**
+   * Construct a new instance with the specified directory, queue capacity and segment size.
+   *
+   * @param dir the {@link File} object for the directory to be used as a message store.
+   * @param queueCapacity the number of pairs which can wait for the writer before new pairs are dropped.
+   * @param maxSegmentBytes the size after which the writer starts a new segment.
+   * @throws IOException if the directory cannot be created.
+   */
+  public SegmentedLogDbSink(File dir, int queueCapacity, long maxSegmentBytes) throws IOException
+  {
+    if (maxSegmentBytes <= 0)
+    {
+      throw new IllegalArgumentException("maxSegmentBytes must be positive: " + maxSegmentBytes);
+    }
+
+    _dir = dir;
+    if (!_dir.exists() & !_dir.mkdirs())
+    {
+      throw new IOException("Could not create directory: " + _dir);
+    }
+
+    // Never append to an existing segment, its tail may be torn.
+    int maxIndex = -1;
+    for (File segment : SegmentedLog.listSegments(_dir))
+    {
+      maxIndex = Math.max(maxIndex, SegmentedLog.segmentIndex(segment));
+    }
+    _nextSegment = maxIndex + 1;
+
+    _maxSegmentBytes = maxSegmentBytes;
+    _queue = new ArrayBlockingQueue<Entry>(queueCapacity);
+    _writer = new Thread(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        writeLoop();
+      }
+    }, "SegmentedLogDbSink writer: " + _dir);
+    _writer.setDaemon(true);
+    _writer.start();
+  }
+
+  /**
+   * Queues the pair to be written by the writer thread. The pair is dropped if the queue is full or the sink is
+   * closed.
+   */
+  @Override
+  public void record(RestRequest req, RestResponse res)
+  {
+    if (_closed || !_queue.offer(new Entry(System.currentTimeMillis(), req, res, null)))
+    {
+      _dropped.incrementAndGet();
+    }
+  }
+
+  /**
+   * Blocks until all pairs queued before this call have been written and flushed. Returns immediately if the sink
+   * is closed; {@link #close()} waits for flushes in progress.
+   *
+   * @throws InterruptedIOException if the calling thread is interrupted while waiting.
+   * @throws IOException if the writer thread has stopped unexpectedly.
+   */
+  public void flush() throws IOException
+  {
+    _closeLock.readLock().lock();
+    try
+    {
+      if (_closed)
+      {
+        return;
+      }
+
+      final Entry entry = new Entry(0, null, null, new CountDownLatch(1));
+      while (!_queue.offer(entry, WRITER_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS))
+      {
+        checkWriter();
+      }
+      while (!entry._flushed.await(WRITER_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS))
+      {
+        checkWriter();
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while flushing capture log: " + _dir);
+    }
+    finally
+    {
+      _closeLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Waits for flushes in progress, writes the pairs which are already queued, then stops the writer thread and
+   * closes the current segment. Pairs recorded after this call are dropped.
+   *
+   * @throws InterruptedIOException if the calling thread is interrupted while waiting for the writer.
+   */
+  @Override
+  public void close() throws IOException
+  {
+    _closeLock.writeLock().lock();
+    try
+    {
+      if (_closed)
+      {
+        return;
+      }
+      _closed = true;
+    }
+    finally
+    {
+      _closeLock.writeLock().unlock();
+    }
+
+    try
+    {
+      _queue.put(STOP);
+      _writer.join();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while closing capture log: " + _dir);
+    }
+
+    // Pairs which raced with close() and were queued after STOP
+    _dropped.addAndGet(_queue.size());
+    _queue.clear();
+  }
+
+  /**
+   * @return the number of pairs which have been written to the log.
+   */
+  public long getRecordedCount()
+  {
+    return _recorded.get();
+  }
+
+  /**
+   * @return the number of pairs which were dropped because the queue was full or the sink was closed.
+   */
+  public long getDroppedCount()
+  {
+    return _dropped.get();
+  }
+
+  /**
+   * @return the number of pairs which could not be written because of an I/O error.
+   */
+  public long getFailedCount()
+  {
+    return _failed.get();
+  }
+
+  /**
+   * The writer only stops once closed, and close() cannot proceed while a flush is waiting, so a writer which is not
+   * alive has died unexpectedly and the flush would never complete.
+   */
+  private void checkWriter() throws IOException
+  {
+    if (!_writer.isAlive())
+    {
+      throw new IOException("Capture log writer stopped unexpectedly: " + _dir);
+    }
+  }
+
+  private void writeLoop()
+  {
+    final List<Entry> batch = new ArrayList<Entry>();
+    boolean stopped = false;
+    while (!stopped)
+    {
+      try
+      {
+        batch.add(_queue.take());
+      }
+      catch (InterruptedException e)
+      {
+        // Nobody but close() should stop the writer.
+        continue;
+      }
+      _queue.drainTo(batch);
+
+      final List<CountDownLatch> flushed = new ArrayList<CountDownLatch>();
+      for (Entry entry : batch)
+      {
+        if (entry == STOP)
+        {
+          stopped = true;
+        }
+        else if (entry._flushed != null)
+        {
+          flushed.add(entry._flushed);
+        }
+        else
+        {
+          write(entry);
+        }
+      }
+      batch.clear();
+
+      flushSegment();
+      for (CountDownLatch latch : flushed)
+      {
+        latch.countDown();
+      }
+    }
+
+    closeSegment();
+  }
+
+  private void write(Entry entry)
+  {
+    try
+    {
+      _payload.reset();
+      SegmentedLog.writePayload(_payload, entry._timestamp, entry._request, entry._response);
+
+      if (_out == null)
+      {
+        openSegment();
+      }
+      SegmentedLog.writeRecord(_out, _payload.array(), _payload.size());
+      _segmentBytes += SegmentedLog.RECORD_HEADER_BYTES + _payload.size();
+      _recorded.incrementAndGet();
+
+      if (_segmentBytes >= _maxSegmentBytes)
+      {
+        closeSegment();
+      }
+    }
+    catch (IOException | RuntimeException e)
+    {
+      _failed.incrementAndGet();
+      _log.warn("Failed to write to capture log: " + _dir, e);
+      // Start over in a new segment rather than appending after a partial record.
+      closeSegment();
+    }
+  }
+
+  private void openSegment() throws IOException
+  {
+    final File segment = SegmentedLog.segmentFile(_dir, _nextSegment++);
+    _out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(segment)));
+    SegmentedLog.writeSegmentHeader(_out);
+    _segmentBytes = SegmentedLog.SEGMENT_HEADER_BYTES;
+  }
+
+  private void flushSegment()
+  {
+    if (_out != null)
+    {
+      try
+      {
+        _out.flush();
+      }
+      catch (IOException e)
+      {
+        _log.warn("Failed to flush capture log: " + _dir, e);
+        closeSegment();
+      }
+    }
+  }
+
+  private void closeSegment()
+  {
+    if (_out != null)
+    {
+      try
+      {
+        _out.close();
+      }
+      catch (IOException e)
+      {
+        _log.warn("Failed to close capture log segment in: " + _dir, e);
+      }
+      _out = null;
+    }
+  }
+
+  private static class Entry
+  {
+    private final long _timestamp;
+    private final RestRequest _request;
+    private final RestResponse _response;
+    private final CountDownLatch _flushed;
+
+    private Entry(long timestamp, RestRequest request, RestResponse response, CountDownLatch flushed)
+    {
+      _timestamp = timestamp;
+      _request = request;
+      _response = response;
+      _flushed = flushed;
+    }
+  }
+
+  /**
+   * Reused by the writer for the payload of every record, so that it can be checksummed before it is written.
+   */
+  private static class PayloadBuffer extends ByteArrayOutputStream
+  {
+    private byte[] array()
+    {
+      return buf;
+    }
+  }
+}
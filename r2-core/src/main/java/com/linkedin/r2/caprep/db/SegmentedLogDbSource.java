@@ -0,0 +1,173 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.caprep.db;
+
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponse;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * DbSource which replays messages from a segmented binary log written by {@link SegmentedLogDbSink}.
+ *
+ * The log is scanned once on construction to build an in-memory index from the signature of each canonicalized
+ * request to the position of its latest record; only the index is kept in memory, and each
+ * {@link #replay(RestRequest)} reads a single record from disk. As with {@link DirectoryDbSource}, when the same
+ * request was recorded more than once, the last response wins.
+ */
+public class SegmentedLogDbSource implements DbSource, Closeable
+{
+  private static final Logger _log = LoggerFactory.getLogger(SegmentedLogDbSource.class);
+
+  private final Map<ByteString, Location> _index = new HashMap<ByteString, Location>();
+  private final Map<File, FileChannel> _channels = new HashMap<File, FileChannel>();
+
+  /**
+   * Construct a new instance with the specified directory path.
+   *
+   * @param dir the directory path of the log.
+   * @throws IOException if the log cannot be read.
+   */
+  public SegmentedLogDbSource(String dir) throws IOException
+  {
+    this(new File(dir));
+  }
+
+  /**
+   * Construct a new instance with the specified directory.
+   *
+   * @param dir the {@link File} object for the directory of the log.
+   * @throws IOException if the log cannot be read.
+   */
+  public SegmentedLogDbSource(File dir) throws IOException
+  {
+    final SegmentedLogReader reader = new SegmentedLogReader(dir);
+    try
+    {
+      SegmentedLogRecord record;
+      while ((record = reader.next()) != null)
+      {
+        _index.put(SegmentedLog.signature(record.getRequest()),
+                   new Location(record.getSegment(), record.getPosition()));
+      }
+
+      for (Location location : _index.values())
+      {
+        if (!_channels.containsKey(location._segment))
+        {
+          _channels.put(location._segment, new FileInputStream(location._segment).getChannel());
+        }
+      }
+    }
+    catch (IOException e)
+    {
+      close();
+      throw e;
+    }
+    finally
+    {
+      reader.close();
+    }
+  }
+
+  @Override
+  public RestResponse replay(RestRequest req)
+  {
+    final Location location = _index.get(SegmentedLog.signature(req));
+    if (location == null)
+    {
+      return null;
+    }
+
+    try
+    {
+      // Positional reads do not move the channel, so concurrent replays can share it.
+      final byte[] payload = SegmentedLog.readPayload(_channels.get(location._segment), location._position);
+      if (payload == null)
+      {
+        _log.debug("Capture log record changed since it was indexed: " + location._segment);
+        return null;
+      }
+
+      final SegmentedLogRecord record = SegmentedLog.parsePayload(payload, location._segment, location._position);
+      if (!record.getRequest().builder().buildCanonical().equals(req.builder().buildCanonical()))
+      {
+        return null;
+      }
+      return record.getResponse();
+    }
+    catch (IOException e)
+    {
+      _log.debug("Failed to replay request: " + req.getURI(), e);
+      return null;
+    }
+  }
+
+  /**
+   * @return the number of distinct requests in the index.
+   */
+  public int size()
+  {
+    return _index.size();
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    IOException error = null;
+    for (FileChannel channel : _channels.values())
+    {
+      try
+      {
+        channel.close();
+      }
+      catch (IOException e)
+      {
+        error = e;
+      }
+    }
+    _channels.clear();
+
+    if (error != null)
+    {
+      throw error;
+    }
+  }
+
+  private static class Location
+  {
+    private final File _segment;
+    private final long _position;
+
+    private Location(File segment, long position)
+    {
+      _segment = segment;
+      _position = position;
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.caprep.db;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Reads the records of a segmented capture log written by {@link SegmentedLogDbSink}, in the order they were
+ * recorded.
+ *
+ * A record that is truncated or does not match its checksum ends its segment: it is logged and skipped together
+ * with the rest of the segment, and reading continues with the next segment.
+ */
+public class SegmentedLogReader implements Closeable
+{
+  private static final Logger _log = LoggerFactory.getLogger(SegmentedLogReader.class);
+
+  private final Iterator<File> _segments;
+  private File _segment;
+  private FileChannel _channel;
+  private long _position;
+
+  /**
+   * Construct a new instance which reads the log in the specified directory.
+   *
+   * @param dir the directory of the log.
+   */
+  public SegmentedLogReader(File dir)
+  {
+    _segments = SegmentedLog.listSegments(dir).iterator();
+  }
+
+  /**
+   * @return the next record of the log, or null if all records have been read.
+   * @throws IOException if a segment cannot be read.
+   */
+  public SegmentedLogRecord next() throws IOException
+  {
+    while (true)
+    {
+      if (_channel == null && !openNextSegment())
+      {
+        return null;
+      }
+
+      if (_position < _channel.size())
+      {
+        final byte[] payload = SegmentedLog.readPayload(_channel, _position);
+        if (payload != null)
+        {
+          final SegmentedLogRecord record = SegmentedLog.parsePayload(payload, _segment, _position);
+          _position += SegmentedLog.RECORD_HEADER_BYTES + payload.length;
+          return record;
+        }
+        _log.warn("Skipping " + (_channel.size() - _position) + " bytes of torn or corrupt records at offset "
+                      + _position + " of segment: " + _segment);
+      }
+
+      closeSegment();
+    }
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    closeSegment();
+  }
+
+  private boolean openNextSegment() throws IOException
+  {
+    while (_segments.hasNext())
+    {
+      _segment = _segments.next();
+      _channel = new FileInputStream(_segment).getChannel();
+      if (_channel.size() < SegmentedLog.SEGMENT_HEADER_BYTES)
+      {
+        // The writer stopped before it completed the header of a new segment.
+        _log.warn("Skipping empty segment: " + _segment);
+        closeSegment();
+        continue;
+      }
+
+      try
+      {
+        SegmentedLog.checkSegmentHeader(_channel, _segment);
+      }
+      catch (IOException e)
+      {
+        closeSegment();
+        throw e;
+      }
+      _position = SegmentedLog.SEGMENT_HEADER_BYTES;
+      return true;
+    }
+    return false;
+  }
+
+  private void closeSegment() throws IOException
+  {
+    if (_channel != null)
+    {
+      final FileChannel channel = _channel;
+      _channel = null;
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.caprep.db;
+
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponse;
+
+import java.io.File;
+
+
+/**
+ * A request/response pair read back from a segmented capture log.
+ */
+public class SegmentedLogRecord
+{
+  private final long _timestamp;
+  private final RestRequest _request;
+  private final RestResponse _response;
+  private final File _segment;
+  private final long _position;
+
+  SegmentedLogRecord(long timestamp, RestRequest request, RestResponse response, File segment, long position)
+  {
+    _timestamp = timestamp;
+    _request = request;
+    _response = response;
+    _segment = segment;
+    _position = position;
+  }
+
+  /**
+   * @return the time, in milliseconds since the epoch, at which the pair was recorded.
+   */
+  public long getTimestamp()
+  {
+    return _timestamp;
+  }
+
+  public RestRequest getRequest()
+  {
+    return _request;
+  }
+
+  public RestResponse getResponse()
+  {
+    return _response;
+  }
+
+  File getSegment()
+  {
+    return _segment;
+  }
+
+  long getPosition()
+  {
+    return _position;
+  }
+}
@@ -0,0 +1,525 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.logging;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.r2.filter.NextFilter;
+import com.linkedin.r2.filter.R2Constants;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestException;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.stream.StreamException;
+import com.linkedin.r2.message.stream.StreamMessage;
+import com.linkedin.r2.message.stream.StreamRequest;
+import com.linkedin.r2.message.stream.StreamResponse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A {@link SimpleLoggingFilter} which moves formatting and logging off the request path.
+ *
+ * On the request path, the filter only captures the fields of a {@link RequestLogRecord}: references to the
+ * immutable URI and headers of the message, the entity length, a copy of the wire attributes and the time elapsed
+ * since the request. Records are handed to a single background thread through a bounded, lock-free ring buffer; the
+ * thread formats and logs them with the same levels as {@link SimpleLoggingFilter}. When the ring is full, records
+ * are dropped rather than blocking the request, counted by {@link #getDroppedCount()}, and reported by a periodic
+ * warning.
+ *
+ * Requests are sampled: a request is logged together with its response with a probability given by the sampling rate
+ * of its route, the first segment of the path of the request URI, or the service name of d2 URIs. Errors without a
+ * response are always logged. Nothing is captured for requests and responses unless debug logging is enabled.
+ *
+ * Subclasses can override {@link #log(RequestLogRecord)} to send the structured records elsewhere.
+ *
+ * The formatter thread parks while the ring is empty and is woken by the request path, so an idle filter does not use
+ * any CPU. A filter which is no longer used must be stopped with {@link #shutdown()} or {@link #close()} to log the
+ * remaining records and release the formatter thread.
+ */
+public class AsyncLoggingFilter extends SimpleLoggingFilter implements Closeable
+{
+  public static final int DEFAULT_CAPACITY = 8192;
+
+  private static final String REQUEST_INFO = AsyncLoggingFilter.class.getName() + ".requestInfo";
+  private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private final Logger _log;
+  private final MpscRingBuffer<RequestLogRecord> _ring;
+  private final double _samplingRate;
+  private final Map<String, Double> _routeSamplingRates;
+  private final AtomicLong _dropped = new AtomicLong();
+  private final Thread _formatter;
+  private volatile boolean _shutdown;
+  // Set by the formatter thread while it is parked, or about to park, on an empty ring
+  private volatile boolean _parked;
+
+  // Only accessed by the formatter thread
+  private long _reportedDropped;
+  private long _lastDropReportNanos;
+
+  /**
+   * Construct a new instance which logs every request with the default capacity.
+   */
+  public AsyncLoggingFilter()
+  {
+    this(LoggerFactory.getLogger(SimpleLoggingFilter.class), DEFAULT_CAPACITY, 1.0,
+         Collections.<String, Double>emptyMap());
+  }
+
+  /**
+   * Construct a new instance.
+   *
+   * @param log the logger to log records with.
+   * @param capacity the number of records which can wait for the formatter before new records are dropped.
+   * @param samplingRate the fraction of requests to log, between 0 and 1, for routes without a specific rate.
+   * @param routeSamplingRates the fraction of requests to log, between 0 and 1, by route.
+   */
+  public AsyncLoggingFilter(Logger log, int capacity, double samplingRate, Map<String, Double> routeSamplingRates)
+  {
+    super(log);
+    checkSamplingRate(samplingRate);
+    for (double rate : routeSamplingRates.values())
+    {
+      checkSamplingRate(rate);
+    }
+
+    _log = log;
+    _ring = new MpscRingBuffer<RequestLogRecord>(capacity);
+    _samplingRate = samplingRate;
+    _routeSamplingRates = new HashMap<String, Double>(routeSamplingRates);
+    _formatter = new Thread(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        formatLoop();
+      }
+    }, "AsyncLoggingFilter formatter");
+    _formatter.setDaemon(true);
+    _formatter.start();
+  }
+
+  @Override
+  public void onRestRequest(RestRequest req, RequestContext requestContext, Map<String, String> wireAttrs,
+                            NextFilter<RestRequest, RestResponse> nextFilter)
+  {
+    final RequestInfo info = sample(req.getURI(), req.getMethod(), requestContext);
+    if (info != null)
+    {
+      capture(RequestLogRecord.Type.REQUEST, "onRestRequest", info, -1, req.getHeaders(), req.getEntity().length(),
+              wireAttrs, requestContext, -1, null);
+    }
+    nextFilter.onRequest(req, requestContext, wireAttrs);
+  }
+
+  @Override
+  public void onRestResponse(RestResponse res, RequestContext requestContext, Map<String, String> wireAttrs,
+                             NextFilter<RestRequest, RestResponse> nextFilter)
+  {
+    captureResponse("onRestResponse", res, wireAttrs, requestContext);
+    nextFilter.onResponse(res, requestContext, wireAttrs);
+  }
+
+  @Override
+  public void onRestError(Throwable ex, RequestContext requestContext, Map<String, String> wireAttrs,
+                          NextFilter<RestRequest, RestResponse> nextFilter)
+  {
+    if (ex instanceof RestException && ((RestException) ex).getResponse() != null)
+    {
+      captureResponse("onRestError", ((RestException) ex).getResponse(), wireAttrs, requestContext);
+    }
+    else
+    {
+      captureError("onRestError", ex, wireAttrs, requestContext);
+    }
+    nextFilter.onError(ex, requestContext, wireAttrs);
+  }
+
+  @Override
+  public void onStreamRequest(StreamRequest req, RequestContext requestContext, Map<String, String> wireAttrs,
+                              NextFilter<StreamRequest, StreamResponse> nextFilter)
+  {
+    final RequestInfo info = sample(req.getURI(), req.getMethod(), requestContext);
+    if (info != null)
+    {
+      captureOnDone(RequestLogRecord.Type.REQUEST, "onStreamRequest", info, -1, req.getHeaders(), wireAttrs,
+                    requestContext, -1, req);
+    }
+    nextFilter.onRequest(req, requestContext, wireAttrs);
+  }
+
+  @Override
+  public void onStreamResponse(StreamResponse res, RequestContext requestContext, Map<String, String> wireAttrs,
+                               NextFilter<StreamRequest, StreamResponse> nextFilter)
+  {
+    captureStreamResponse("onStreamResponse", res, wireAttrs, requestContext);
+    nextFilter.onResponse(res, requestContext, wireAttrs);
+  }
+
+  @Override
+  public void onStreamError(Throwable ex, RequestContext requestContext, Map<String, String> wireAttrs,
+                            NextFilter<StreamRequest, StreamResponse> nextFilter)
+  {
+    if (ex instanceof StreamException && ((StreamException) ex).getResponse() != null)
+    {
+      captureStreamResponse("onStreamError", ((StreamException) ex).getResponse(), wireAttrs, requestContext);
+    }
+    else
+    {
+      captureError("onStreamError", ex, wireAttrs, requestContext);
+    }
+    nextFilter.onError(ex, requestContext, wireAttrs);
+  }
+
+  /**
+   * @return the number of records which were dropped because the formatter could not keep up.
+   */
+  public long getDroppedCount()
+  {
+    return _dropped.get();
+  }
+
+  /**
+   * Logs the records which are already captured, then stops the formatter thread. Records captured after this
+   * call are dropped. Calling this method again has no further effect.
+   *
+   * @throws InterruptedException if the calling thread is interrupted while waiting for the formatter.
+   */
+  public void shutdown() throws InterruptedException
+  {
+    _shutdown = true;
+    LockSupport.unpark(_formatter);
+    _formatter.join();
+  }
+
+  /**
+   * Same as {@link #shutdown()}, for callers which manage the filter as a {@link Closeable}.
+   *
+   * @throws InterruptedIOException if the calling thread is interrupted while waiting for the formatter.
+   */
+  @Override
+  public void close() throws IOException
+  {
+    try
+    {
+      shutdown();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while stopping the log formatter");
+    }
+  }
+
+  /**
+   * Logs a record. Called on the formatter thread, one record at a time.
+   */
+  protected void log(RequestLogRecord record)
+  {
+    switch (record.getType())
+    {
+      case REQUEST:
+        _log.debug(format(record, "request"));
+        break;
+      case RESPONSE:
+        _log.debug(format(record, "response"));
+        break;
+      case ERROR:
+        _log.warn(format(record, "ex"), record.getError());
+        break;
+    }
+  }
+
+  private String format(RequestLogRecord record, String type)
+  {
+    final StringBuilder builder = new StringBuilder();
+    builder.append("[").append(record.getFilterMethod()).append("] ");
+    builder.append(type).append(": ");
+    if (record.getOperation() != null)
+    {
+      builder.append("(").append(record.getOperation()).append(") ");
+    }
+
+    if (record.getType() == RequestLogRecord.Type.ERROR)
+    {
+      builder.append(buildErrorMessage(record.getError()));
+    }
+    else
+    {
+      builder.append("\"").append(record.getRequestMethod());
+      if (record.getRequestUri() != null)
+      {
+        builder.append(" ").append(extractURI(record.getRequestUri().toASCIIString()));
+      }
+      if (record.getType() == RequestLogRecord.Type.RESPONSE)
+      {
+        builder.append(" ").append(record.getStatus());
+      }
+      builder.append("\"");
+      builder.append(" headers=[").append(formatHeaders(record.getHeaders())).append("]");
+      builder.append(" entityLength=").append(record.getEntityLength());
+    }
+
+    if (record.getDurationNanos() >= 0)
+    {
+      builder.append(" durationMs=").append(TimeUnit.NANOSECONDS.toMillis(record.getDurationNanos()));
+    }
+    if (!record.getWireAttrs().isEmpty())
+    {
+      builder.append(" wire: ").append(record.getWireAttrs());
+    }
+    return builder.toString();
+  }
+
+  private RequestInfo sample(URI uri, String method, RequestContext requestContext)
+  {
+    if (!_log.isDebugEnabled())
+    {
+      return null;
+    }
+
+    final double rate = _routeSamplingRates.isEmpty() ? _samplingRate : samplingRate(uri);
+    if (rate < 1.0 && (rate <= 0.0 || ThreadLocalRandom.current().nextDouble() >= rate))
+    {
+      return null;
+    }
+
+    final RequestInfo info = new RequestInfo(uri, method, System.nanoTime());
+    requestContext.putLocalAttr(REQUEST_INFO, info);
+    return info;
+  }
+
+  private double samplingRate(URI uri)
+  {
+    final Double rate = _routeSamplingRates.get(route(uri));
+    return rate != null ? rate : _samplingRate;
+  }
+
+  private static String route(URI uri)
+  {
+    if ("d2".equalsIgnoreCase(uri.getScheme()))
+    {
+      return uri.getAuthority();
+    }
+
+    final String path = uri.getRawPath();
+    if (path == null)
+    {
+      return null;
+    }
+    final int start = path.startsWith("/") ? 1 : 0;
+    final int end = path.indexOf('/', start);
+    return end < 0 ? path.substring(start) : path.substring(start, end);
+  }
+
+  private void captureResponse(String filterMethod, RestResponse res, Map<String, String> wireAttrs,
+                               RequestContext requestContext)
+  {
+    final RequestInfo info = (RequestInfo) requestContext.getLocalAttr(REQUEST_INFO);
+    if (info != null)
+    {
+      capture(RequestLogRecord.Type.RESPONSE, filterMethod, info, res.getStatus(), res.getHeaders(),
+              res.getEntity().length(), wireAttrs, requestContext, System.nanoTime() - info._startNanos, null);
+    }
+  }
+
+  private void captureStreamResponse(String filterMethod, StreamResponse res, Map<String, String> wireAttrs,
+                                     RequestContext requestContext)
+  {
+    final RequestInfo info = (RequestInfo) requestContext.getLocalAttr(REQUEST_INFO);
+    if (info != null)
+    {
+      captureOnDone(RequestLogRecord.Type.RESPONSE, filterMethod, info, res.getStatus(), res.getHeaders(),
+                    wireAttrs, requestContext, System.nanoTime() - info._startNanos, res);
+    }
+  }
+
+  private void captureError(String filterMethod, Throwable ex, Map<String, String> wireAttrs,
+                            RequestContext requestContext)
+  {
+    if (ignoreLog(ex))
+    {
+      return;
+    }
+
+    final RequestInfo info = (RequestInfo) requestContext.getLocalAttr(REQUEST_INFO);
+    final long durationNanos = info != null ? System.nanoTime() - info._startNanos : -1;
+    capture(RequestLogRecord.Type.ERROR, filterMethod, info, -1, Collections.<String, String>emptyMap(), -1,
+            wireAttrs, requestContext, durationNanos, ex);
+  }
+
+  /**
+   * Captures the record once the entity stream of the message is done, when its length is known.
+   */
+  private void captureOnDone(final RequestLogRecord.Type type, final String filterMethod, final RequestInfo info,
+                             final int status, final Map<String, String> headers, Map<String, String> wireAttrs,
+                             final RequestContext requestContext, final long durationNanos,
+                             StreamMessage message)
+  {
+    final Map<String, String> wireAttrsCopy = copy(wireAttrs);
+    final String operation = (String) requestContext.getLocalAttr(R2Constants.OPERATION);
+    message.getEntityStream().addObserver(new LengthObserver(new Callback<Integer>()
+    {
+      @Override
+      public void onError(Throwable e)
+      {
+        _log.warn("Cannot get the length of the entity", e);
+      }
+
+      @Override
+      public void onSuccess(Integer result)
+      {
+        offer(new RequestLogRecord(type, filterMethod, operation, info._method, info._uri, status, headers, result,
+                                   wireAttrsCopy, System.currentTimeMillis(), durationNanos, null));
+      }
+    }));
+  }
+
+  private void capture(RequestLogRecord.Type type, String filterMethod, RequestInfo info, int status,
+                       Map<String, String> headers, long entityLength, Map<String, String> wireAttrs,
+                       RequestContext requestContext, long durationNanos, Throwable error)
+  {
+    offer(new RequestLogRecord(type, filterMethod, (String) requestContext.getLocalAttr(R2Constants.OPERATION),
+                               info != null ? info._method : null, info != null ? info._uri : null, status, headers,
+                               entityLength, copy(wireAttrs), System.currentTimeMillis(), durationNanos, error));
+  }
+
+  private void offer(RequestLogRecord record)
+  {
+    if (_shutdown || !_ring.offer(record))
+    {
+      _dropped.incrementAndGet();
+    }
+    else if (_parked)
+    {
+      LockSupport.unpark(_formatter);
+    }
+  }
+
+  private static Map<String, String> copy(Map<String, String> wireAttrs)
+  {
+    // Wire attributes may still be changed by the filters after this one
+    return wireAttrs.isEmpty() ? Collections.<String, String>emptyMap() : new HashMap<String, String>(wireAttrs);
+  }
+
+  private static void checkSamplingRate(double rate)
+  {
+    if (!(rate >= 0.0 && rate <= 1.0))
+    {
+      throw new IllegalArgumentException("Sampling rate must be between 0 and 1: " + rate);
+    }
+  }
+
+  private void formatLoop()
+  {
+    while (true)
+    {
+      // Read the flag before draining, so that records captured before shutdown() are logged
+      final boolean shutdown = _shutdown;
+      boolean idle = true;
+      RequestLogRecord record;
+      while ((record = _ring.poll()) != null)
+      {
+        idle = false;
+        try
+        {
+          log(record);
+        }
+        catch (RuntimeException e)
+        {
+          _log.warn("Failed to log request record", e);
+        }
+      }
+
+      reportDropped(shutdown);
+      if (shutdown)
+      {
+        return;
+      }
+      if (idle)
+      {
+        park();
+      }
+    }
+  }
+
+  /**
+   * Parks until a producer publishes a record or the filter is shut down. Announcing the park before checking the
+   * ring again ensures that a producer either sees the formatter parked and unparks it, or publishes a record which
+   * the check finds. While drops are waiting to be reported, parks only until the next report is due.
+   */
+  private void park()
+  {
+    _parked = true;
+    if (_ring.isEmpty() && !_shutdown)
+    {
+      if (_dropped.get() > _reportedDropped)
+      {
+        LockSupport.parkNanos(this, DROP_REPORT_INTERVAL_NANOS);
+      }
+      else
+      {
+        LockSupport.park(this);
+      }
+    }
+    _parked = false;
+  }
+
+  private void reportDropped(boolean force)
+  {
+    final long dropped = _dropped.get();
+    final long now = System.nanoTime();
+    if (dropped > _reportedDropped && (force || now - _lastDropReportNanos >= DROP_REPORT_INTERVAL_NANOS))
+    {
+      _log.warn("Dropped " + (dropped - _reportedDropped) + " request log records, " + dropped
+                    + " in total, because the log formatter could not keep up");
+      _reportedDropped = dropped;
+      _lastDropReportNanos = now;
+    }
+  }
+
+  /**
+   * The fields of a sampled request which are needed to log its response.
+   */
+  private static class RequestInfo
+  {
+    private final URI _uri;
+    private final String _method;
+    private final long _startNanos;
+
+    private RequestInfo(URI uri, String method, long startNanos)
+    {
+      _uri = uri;
+      _method = method;
+      _startNanos = startNanos;
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * A bounded, lock-free ring buffer for many producers and a single consumer.
+ *
+ * Each slot carries a sequence number which tells producers whether the slot is free for the current lap and the
+ * consumer whether it has been published. Producers claim a slot with a single compare-and-set on the tail and never
+ * block: when the ring is full {@link #offer(Object)} fails immediately. Only one thread may call {@link #poll()}.
+ */
+class MpscRingBuffer<T>
+{
+  private final int _mask;
+  private final AtomicReferenceArray<T> _elements;
+  private final AtomicLongArray _sequences;
+  private final AtomicLong _tail = new AtomicLong();
+  // Only accessed by the consumer
+  private long _head;
+
+  /**
+   * @param capacity the minimum capacity of the ring, rounded up to a power of two.
+   */
+  MpscRingBuffer(int capacity)
+  {
+    if (capacity <= 0 || capacity > (1 << 30))
+    {
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    }
+
+    int size = 1;
+    while (size < capacity)
+    {
+      size <<= 1;
+    }
+
+    _mask = size - 1;
+    _elements = new AtomicReferenceArray<T>(size);
+    _sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++)
+    {
+      _sequences.set(i, i);
+    }
+  }
+
+  /**
+   * @return true if the element was added, false if the ring is full.
+   */
+  boolean offer(T element)
+  {
+    long tail = _tail.get();
+    while (true)
+    {
+      final int index = (int) tail & _mask;
+      final long available = _sequences.get(index) - tail;
+      if (available == 0)
+      {
+        if (_tail.compareAndSet(tail, tail + 1))
+        {
+          _elements.lazySet(index, element);
+          // Publishes the element to the consumer
+          _sequences.set(index, tail + 1);
+          return true;
+        }
+        tail = _tail.get();
+      }
+      else if (available < 0)
+      {
+        // The consumer has not freed this slot since the previous lap
+        return false;
+      }
+      else
+      {
+        // Another producer claimed this slot
+        tail = _tail.get();
+      }
+    }
+  }
+
+  /**
+   * @return the oldest published element, or null if there is none.
+   */
+  T poll()
+  {
+    final int index = (int) _head & _mask;
+    if (_sequences.get(index) != _head + 1)
+    {
+      return null;
+    }
+
+    final T element = _elements.get(index);
+    _elements.lazySet(index, null);
+    // Frees the slot for the next lap of producers
+    _sequences.set(index, _head + _mask + 1);
+    _head++;
+    return element;
+  }
+
+  /**
+   * @return true if there is no published element to poll. Only the consumer may call this method.
+   */
+  boolean isEmpty()
+  {
+    return _sequences.get((int) _head & _mask) != _head + 1;
+  }
+
+  int capacity()
+  {
+    return _mask + 1;
+  }
+}
@@ -0,0 +1,152 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.logging;
+
+import java.net.URI;
+import java.util.Map;
+
+
+/**
+ * A structured log record captured by {@link AsyncLoggingFilter}.
+ *
+ * Records only hold references to values which are immutable or were copied when the record was captured, so they
+ * can be formatted on another thread after the message has moved on.
+ */
+public class RequestLogRecord
+{
+  public enum Type
+  {
+    REQUEST,
+    RESPONSE,
+    ERROR
+  }
+
+  private final Type _type;
+  private final String _filterMethod;
+  private final String _operation;
+  private final String _requestMethod;
+  private final URI _requestUri;
+  private final int _status;
+  private final Map<String, String> _headers;
+  private final long _entityLength;
+  private final Map<String, String> _wireAttrs;
+  private final long _timestamp;
+  private final long _durationNanos;
+  private final Throwable _error;
+
+  RequestLogRecord(Type type, String filterMethod, String operation, String requestMethod, URI requestUri, int status,
+                   Map<String, String> headers, long entityLength, Map<String, String> wireAttrs, long timestamp,
+                   long durationNanos, Throwable error)
+  {
+    _type = type;
+    _filterMethod = filterMethod;
+    _operation = operation;
+    _requestMethod = requestMethod;
+    _requestUri = requestUri;
+    _status = status;
+    _headers = headers;
+    _entityLength = entityLength;
+    _wireAttrs = wireAttrs;
+    _timestamp = timestamp;
+    _durationNanos = durationNanos;
+    _error = error;
+  }
+
+  public Type getType()
+  {
+    return _type;
+  }
+
+  /**
+   * @return the filter method which captured the record, e.g. {@code onRestResponse}.
+   */
+  public String getFilterMethod()
+  {
+    return _filterMethod;
+  }
+
+  /**
+   * @return the rest.li operation of the request, or null if it is not known.
+   */
+  public String getOperation()
+  {
+    return _operation;
+  }
+
+  public String getRequestMethod()
+  {
+    return _requestMethod;
+  }
+
+  public URI getRequestUri()
+  {
+    return _requestUri;
+  }
+
+  /**
+   * @return the status of the response, or -1 for requests and errors without a response.
+   */
+  public int getStatus()
+  {
+    return _status;
+  }
+
+  /**
+   * @return the headers of the request or response, empty for errors.
+   */
+  public Map<String, String> getHeaders()
+  {
+    return _headers;
+  }
+
+  /**
+   * @return the length of the entity of the request or response, or -1 for errors.
+   */
+  public long getEntityLength()
+  {
+    return _entityLength;
+  }
+
+  public Map<String, String> getWireAttrs()
+  {
+    return _wireAttrs;
+  }
+
+  /**
+   * @return the time, in milliseconds since the epoch, at which the record was captured.
+   */
+  public long getTimestamp()
+  {
+    return _timestamp;
+  }
+
+  /**
+   * @return the time between the request and the response or error, or -1 for requests.
+   */
+  public long getDurationNanos()
+  {
+    return _durationNanos;
+  }
+
+  /**
+   * @return the error, or null if the record is not an error.
+   */
+  public Throwable getError()
+  {
+    return _error;
+  }
+}
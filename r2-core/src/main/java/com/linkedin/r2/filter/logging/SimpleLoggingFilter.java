@@ -46,6 +46,9 @@ import org.slf4j.LoggerFactory;
  * For requests and responses:  Method, URI, headers and entity length are logged.
  * For exceptions: Exception class name and message are logged.
  *
+ * Messages are formatted and logged on the thread of the request. See {@link AsyncLoggingFilter} to sample requests
+ * and log them on a background thread instead.
+ *
  * @author Chris Pettitt
  * @author Joe Betz
  */
@@ -124,12 +127,20 @@ public class SimpleLoggingFilter implements StreamFilter, RestFilter
   private void trace(final String method, final RestRequest request,
                      final Map<String, String> wireAttrs, final RequestContext requestContext)
   {
+    if (!_log.isDebugEnabled())
+    {
+      return;
+    }
     _log.debug(buildLogMessage(method, "request", formatRequest(request, request.getEntity().length()), wireAttrs, requestContext));
   }
 
   private void trace(final String method, final RestResponse response, final Map<String, String> wireAttrs,
                      final RequestContext requestContext)
   {
+    if (!_log.isDebugEnabled())
+    {
+      return;
+    }
     final URI requestUri = (URI)requestContext.getLocalAttr(REQUEST_URI);
     final String requestMethod = (String)requestContext.getLocalAttr(REQUEST_METHOD);
     _log.debug(buildLogMessage(method, "response", formatResponse(response, response.getEntity().length(), requestUri, requestMethod), wireAttrs, requestContext));
@@ -138,6 +149,10 @@ public class SimpleLoggingFilter implements StreamFilter, RestFilter
   private void trace(final String method, final StreamRequest request,
                      final Map<String, String> wireAttrs, final RequestContext requestContext)
   {
+    if (!_log.isDebugEnabled())
+    {
+      return;
+    }
     Callback<Integer> callback = new Callback<Integer>()
     {
       @Override
@@ -158,6 +173,10 @@ public class SimpleLoggingFilter implements StreamFilter, RestFilter
   private void trace(final String method, final StreamResponse response, final Map<String, String> wireAttrs,
                      final RequestContext requestContext)
   {
+    if (!_log.isDebugEnabled())
+    {
+      return;
+    }
     final URI requestUri = (URI)requestContext.getLocalAttr(REQUEST_URI);
     final String requestMethod = (String)requestContext.getLocalAttr(REQUEST_METHOD);
 
@@ -194,7 +213,7 @@ public class SimpleLoggingFilter implements StreamFilter, RestFilter
     }
   }
 
-  private boolean ignoreLog(Throwable ex)
+  boolean ignoreLog(Throwable ex)
   {
     if (ex instanceof StreamException)
     {
@@ -249,7 +268,7 @@ public class SimpleLoggingFilter implements StreamFilter, RestFilter
     return builder.toString();
   }
 
-  private String buildErrorMessage(Throwable ex)
+  String buildErrorMessage(Throwable ex)
   {
     final String exMsg = ex.getMessage() != null ? ex.getMessage() : "";
     final int eol = exMsg.indexOf('\n');
@@ -289,7 +308,7 @@ public class SimpleLoggingFilter implements StreamFilter, RestFilter
     return extractURI(uriText);
   }
 
-  private String extractURI(String uriText)
+  String extractURI(String uriText)
   {
     int queryStringIndex = uriText.lastIndexOf('?');
 
@@ -313,7 +332,7 @@ public class SimpleLoggingFilter implements StreamFilter, RestFilter
     return builder.toString();
   }
 
-  private static class LengthObserver implements Observer
+  static class LengthObserver implements Observer
   {
     private int _len = 0;
     private final Callback<Integer> _callback;
@@ -67,8 +67,7 @@ public class ClientQueryTunnelFilter implements RestFilter, StreamFilter
       }
     };
 
-    // the entire request would be buffered in memory if encoding is needed
-    // this usually is not a problem as request with extremely query parameters is usually get request with no body
+    // the query is prepended to the entity stream as the first body segment, the entity itself is not buffered
     QueryTunnelUtil.encode(req, requestContext, _queryPostThreshold, callback);
   }
 }
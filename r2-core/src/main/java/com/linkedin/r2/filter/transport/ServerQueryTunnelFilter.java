@@ -88,8 +88,7 @@ public class ServerQueryTunnelFilter implements StreamFilter,RestFilter
       }
     };
 
-    // the entire request would be buffered in memory if decoding is needed
-    // this usually is not a problem as request with extremely query parameters is usually get request with no body
+    // the query is peeled off the entity stream, the rest of the entity is passed through without being buffered
     QueryTunnelUtil.decode(req, requestContext, callback);
   }
 }
\ No newline at end of file
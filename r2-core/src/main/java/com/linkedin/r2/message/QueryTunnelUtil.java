@@ -67,22 +67,19 @@ import java.util.Map;
  *              http://localhost
  *
  *
- * Note that if QueryTunnelUtil need to do actual encoding or decoding, the request would be fully buffered first,
- * even if it's streaming.
- * We believe QueryTunnelUtil is almost exclusively for GET requests, practically no use case would require
- * excessively long query for POST & PUT, and we'd be surprised if anyone is using QueryTunnelUtil for PUT & GET.
- * Hence, fully buffering request that has to be encoded/decoded is practically not a problem and gives up the best
- * return for the investment of our efforts.
+ * A RestRequest is encoded and decoded in memory. A StreamRequest is not fully buffered: the encoded query is
+ * prepended to the original entity stream as the first body segment, and the decoder peels the query off with a
+ * streaming reader and passes the rest of the entity through. See {@link StreamingQueryTunnel} for the details.
  *
  */
 public class QueryTunnelUtil
 {
-  private static final String HEADER_METHOD_OVERRIDE = "X-HTTP-Method-Override";
-  private static final String HEADER_CONTENT_TYPE = "Content-Type";
-  private static final String FORM_URL_ENCODED = "application/x-www-form-urlencoded";
-  private static final String MULTIPART = "multipart/mixed";
+  static final String HEADER_METHOD_OVERRIDE = "X-HTTP-Method-Override";
+  static final String HEADER_CONTENT_TYPE = "Content-Type";
+  static final String FORM_URL_ENCODED = "application/x-www-form-urlencoded";
+  static final String MULTIPART = "multipart/mixed";
   private static final String MIXED = "mixed";
-  private static final String CONTENT_LENGTH = "Content-Length";
+  static final String CONTENT_LENGTH = "Content-Length";
   private static final String UTF8 = "UTF-8";
   static final Logger LOG = LoggerFactory.getLogger(QueryTunnelUtil.class);
 
@@ -146,14 +143,7 @@ public class QueryTunnelUtil
 
     RestRequestBuilder requestBuilder = new RestRequestBuilder(request);
     URI uri = request.getURI();
-    // reconstruct URI without query
-    URI newUri = new URI(uri.getScheme(),
-        uri.getUserInfo(),
-        uri.getHost(),
-        uri.getPort(),
-        uri.getPath(),
-        null,
-        uri.getFragment());
+    URI newUri = removeQuery(uri);
 
     // If there's no existing body, just pass the request as x-www-form-urlencoded
     ByteString entity = request.getEntity();
@@ -224,30 +214,7 @@ public class QueryTunnelUtil
     }
     else
     {
-      // If we need to encode, we'll fully buffer the request first. See class doc for the reasoning.
-      Messages.toRestRequest(request, new Callback<RestRequest>()
-      {
-        @Override
-        public void onError(Throwable e)
-        {
-          callback.onError(e);
-        }
-
-        @Override
-        public void onSuccess(RestRequest result)
-        {
-          RestRequest encodedRequest;
-          try
-          {
-            encodedRequest = doEncode(result);
-          } catch (Exception ex)
-          {
-            callback.onError(ex);
-            return;
-          }
-          callback.onSuccess(Messages.toStreamRequest(encodedRequest));
-        }
-      });
+      StreamingQueryTunnel.encode(request, callback);
     }
   }
 
@@ -286,7 +253,7 @@ public class QueryTunnelUtil
     return doDecode(request, requestContext);
   }
 
-  private static RestRequest doDecode(final RestRequest request, RequestContext requestContext)
+  static RestRequest doDecode(final RestRequest request, RequestContext requestContext)
       throws MessagingException, IOException, URISyntaxException
   {
 
@@ -388,20 +355,7 @@ public class QueryTunnelUtil
     // we have to check and append the original query correctly.
     if (query != null && query.length() > 0)
     {
-      String separator = "&";
-      String existingQuery = request.getURI().getRawQuery();
-
-      if (existingQuery == null)
-      {
-        separator = "?";
-      }
-      else if(existingQuery.isEmpty())
-      {
-        // This would mean someone has appended a "?" with no args to the url underneath us
-        separator = "";
-      }
-
-      requestBuilder.setURI(new URI(request.getURI().toString() + separator + query));
+      requestBuilder.setURI(appendQuery(request.getURI(), query));
     }
     requestBuilder.setEntity(entity);
     requestBuilder.setHeaders(h);
@@ -443,32 +397,81 @@ public class QueryTunnelUtil
     }
     else
     {
-      // If we need to decode, we'll fully buffer the request first. See class doc for the reasoning.
-      Messages.toRestRequest(request, new Callback<RestRequest>()
+      StreamingQueryTunnel.decode(request, requestContext, callback);
+    }
+  }
+
+  /**
+   * Fully buffers a tunneled StreamRequest and decodes it in memory. This is used for the form-urlencoded case,
+   * where the whole body is the query anyway, and for multipart bodies that cannot be decoded as a stream.
+   *
+   * @param request the request to be decoded
+   * @param requestContext a RequestContext object associated with the request
+   * @param callback the callback to be executed with the decoded request
+   */
+  static void decodeBuffered(final StreamRequest request, final RequestContext requestContext, final Callback<StreamRequest> callback)
+  {
+    Messages.toRestRequest(request, new Callback<RestRequest>()
+    {
+      @Override
+      public void onError(Throwable e)
       {
-        @Override
-        public void onError(Throwable e)
+        callback.onError(e);
+      }
+
+      @Override
+      public void onSuccess(RestRequest result)
+      {
+        RestRequest decodedRequest;
+        try
         {
-          callback.onError(e);
+          decodedRequest = doDecode(result, requestContext);
         }
-
-        @Override
-        public void onSuccess(RestRequest result)
+        catch (Exception ex)
         {
-          RestRequest decodedRequest;
-          try
-          {
-            decodedRequest = doDecode(result, requestContext);
-          }
-          catch (Exception ex)
-          {
-            callback.onError(ex);
-            return;
-          }
-          callback.onSuccess(Messages.toStreamRequest(decodedRequest));
+          callback.onError(ex);
+          return;
         }
-      });
+        callback.onSuccess(Messages.toStreamRequest(decodedRequest));
+      }
+    });
+  }
+
+  /**
+   * Reconstructs the given URI without its query.
+   */
+  static URI removeQuery(URI uri)
+      throws URISyntaxException
+  {
+    return new URI(uri.getScheme(),
+        uri.getUserInfo(),
+        uri.getHost(),
+        uri.getPort(),
+        uri.getPath(),
+        null,
+        uri.getFragment());
+  }
+
+  /**
+   * Appends the tunneled query to the given URI, taking care of any query that is already there.
+   */
+  static URI appendQuery(URI uri, String query)
+      throws URISyntaxException
+  {
+    String separator = "&";
+    String existingQuery = uri.getRawQuery();
+
+    if (existingQuery == null)
+    {
+      separator = "?";
+    }
+    else if(existingQuery.isEmpty())
+    {
+      // This would mean someone has appended a "?" with no args to the url underneath us
+      separator = "";
     }
+
+    return new URI(uri.toString() + separator + query);
   }
 
   /**
@@ -0,0 +1,890 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.message;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.data.ByteString;
+import com.linkedin.data.Data;
+import com.linkedin.r2.filter.R2Constants;
+import com.linkedin.r2.message.rest.RestMethod;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.stream.StreamRequest;
+import com.linkedin.r2.message.stream.StreamRequestBuilder;
+import com.linkedin.r2.message.stream.entitystream.ByteStringWriter;
+import com.linkedin.r2.message.stream.entitystream.CancelingReader;
+import com.linkedin.r2.message.stream.entitystream.CompositeWriter;
+import com.linkedin.r2.message.stream.entitystream.EntityStreams;
+import com.linkedin.r2.message.stream.entitystream.ReadHandle;
+import com.linkedin.r2.message.stream.entitystream.Reader;
+import com.linkedin.r2.message.stream.entitystream.WriteHandle;
+import com.linkedin.r2.message.stream.entitystream.Writer;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.ContentType;
+import javax.mail.internet.InternetHeaders;
+import javax.mail.internet.MimeUtility;
+import javax.mail.internet.ParseException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+
+/**
+ * Encodes and decodes tunneled {@link StreamRequest}s without fully buffering them.
+ *
+ * The encoder writes the query as the first body segment, ahead of the original entity stream. A request without
+ * an entity becomes a form-urlencoded body as before; otherwise the query is the first part of a multipart/mixed
+ * body and the original entity is streamed through as the second part. The decoder parses the query part with a
+ * streaming reader and passes the second part through, untouched, as the entity of the decoded request.
+ *
+ * Both sides look ahead up to {@link #LOOKAHEAD_BYTES} of the entity, so that small entities keep an exact
+ * Content-Length. Larger entities are streamed, and the Content-Length is only kept by the encoder when it can be
+ * derived from the one of the original request. Multipart bodies that do not have the layout written here, i.e. the
+ * form-urlencoded query first and the entity second without a transfer encoding, are buffered and decoded by
+ * {@link QueryTunnelUtil} as before.
+ */
+final class StreamingQueryTunnel
+{
+  static final int LOOKAHEAD_BYTES = 64 * 1024;
+
+  private static final String HEADER_CONTENT_TRANSFER_ENCODING = "Content-Transfer-Encoding";
+  private static final String BOUNDARY = "boundary";
+  private static final String CRLF = "\r\n";
+  private static final byte[] CRLF_BYTES = {'\r', '\n'};
+  private static final byte[] BLANK_LINE_BYTES = {'\r', '\n', '\r', '\n'};
+
+  private static final int NEED_MORE = -1;
+  private static final int CLOSE_DELIMITER = -2;
+
+  /**
+   * class supports static methods only
+   */
+  private StreamingQueryTunnel()
+  {
+  }
+
+  /**
+   * Moves the query of the given request into its body. The caller has already decided that the request should be
+   * tunneled.
+   */
+  static void encode(final StreamRequest request, final Callback<StreamRequest> callback)
+  {
+    final URI newUri;
+    try
+    {
+      newUri = QueryTunnelUtil.removeQuery(request.getURI());
+    }
+    catch (URISyntaxException ex)
+    {
+      request.getEntityStream().setReader(new CancelingReader());
+      callback.onError(ex);
+      return;
+    }
+    request.getEntityStream().setReader(new Encoder(request, newUri, callback));
+  }
+
+  /**
+   * Restores the original request from a request that carries the X-HTTP-Method-Override header.
+   */
+  static void decode(final StreamRequest request, final RequestContext requestContext, final Callback<StreamRequest> callback)
+  {
+    final ContentType contentType;
+    try
+    {
+      // All encoded requests must have a content type. If the header is missing, ContentType throws an exception
+      contentType = new ContentType(request.getHeader(QueryTunnelUtil.HEADER_CONTENT_TYPE));
+    }
+    catch (ParseException ex)
+    {
+      request.getEntityStream().setReader(new CancelingReader());
+      callback.onError(ex);
+      return;
+    }
+
+    String boundary = contentType.getParameter(BOUNDARY);
+    if (contentType.getBaseType().equals(QueryTunnelUtil.MULTIPART) && boundary != null)
+    {
+      request.getEntityStream().setReader(new Decoder(request, requestContext, boundary, callback));
+    }
+    else
+    {
+      // a form-urlencoded body is the query itself, so there is nothing to stream through
+      QueryTunnelUtil.decodeBuffered(request, requestContext, callback);
+    }
+  }
+
+  private static Map<String, String> copyHeaders(Request request)
+  {
+    Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+    headers.putAll(request.getHeaders());
+    return headers;
+  }
+
+  private static boolean isIdentityEncoding(InternetHeaders headers)
+  {
+    String encoding = headers.getHeader(HEADER_CONTENT_TRANSFER_ENCODING, null);
+    return encoding == null
+        || encoding.trim().equalsIgnoreCase("7bit")
+        || encoding.trim().equalsIgnoreCase("8bit")
+        || encoding.trim().equalsIgnoreCase("binary");
+  }
+
+  /**
+   * The encoder side. The entity of the original request is relayed as is; the query and the multipart framing
+   * around the entity are added once the lookahead tells whether there is an entity at all.
+   */
+  private static final class Encoder extends LookaheadRelay
+  {
+    private final StreamRequest _request;
+    private final URI _uri;
+    private final Callback<StreamRequest> _callback;
+
+    Encoder(StreamRequest request, URI uri, Callback<StreamRequest> callback)
+    {
+      _request = request;
+      _uri = uri;
+      _callback = callback;
+    }
+
+    @Override
+    ByteString transform(ByteString data)
+    {
+      return data;
+    }
+
+    @Override
+    ByteString finish()
+    {
+      return ByteString.empty();
+    }
+
+    @Override
+    void onComplete(ByteString entity)
+    {
+      Map<String, String> headers = copyHeaders(_request);
+      ByteString body;
+      String query = _request.getURI().getRawQuery();
+      if (entity.isEmpty())
+      {
+        // If there's no existing body, just pass the request as x-www-form-urlencoded
+        headers.put(QueryTunnelUtil.HEADER_CONTENT_TYPE, QueryTunnelUtil.FORM_URL_ENCODED);
+        body = ByteString.copyString(query, Data.UTF_8_CHARSET);
+      }
+      else
+      {
+        MultipartFraming framing;
+        try
+        {
+          framing = new MultipartFraming(query, _request.getHeader(QueryTunnelUtil.HEADER_CONTENT_TYPE));
+        }
+        catch (ParseException ex)
+        {
+          _callback.onError(ex);
+          return;
+        }
+        headers.put(QueryTunnelUtil.HEADER_CONTENT_TYPE, framing._contentType);
+        body = new ByteString.Builder().append(framing._head).append(entity).append(framing._tail).build();
+      }
+      headers.put(QueryTunnelUtil.CONTENT_LENGTH, Integer.toString(body.length()));
+
+      _callback.onSuccess(tunneledBuilder(headers).build(EntityStreams.newEntityStream(new ByteStringWriter(body))));
+    }
+
+    @Override
+    void onStreaming()
+    {
+      MultipartFraming framing;
+      try
+      {
+        framing = new MultipartFraming(_request.getURI().getRawQuery(),
+            _request.getHeader(QueryTunnelUtil.HEADER_CONTENT_TYPE));
+      }
+      catch (ParseException ex)
+      {
+        cancel();
+        _callback.onError(ex);
+        return;
+      }
+
+      Map<String, String> headers = copyHeaders(_request);
+      headers.put(QueryTunnelUtil.HEADER_CONTENT_TYPE, framing._contentType);
+      headers.remove(QueryTunnelUtil.CONTENT_LENGTH);
+      long entityLength = parseContentLength(_request.getHeader(QueryTunnelUtil.CONTENT_LENGTH));
+      if (entityLength >= 0)
+      {
+        long length = framing._head.length() + entityLength + framing._tail.length();
+        headers.put(QueryTunnelUtil.CONTENT_LENGTH, Long.toString(length));
+      }
+
+      Writer body = new CompositeWriter(new ByteStringWriter(framing._head), this, new ByteStringWriter(framing._tail));
+      _callback.onSuccess(tunneledBuilder(headers).build(EntityStreams.newEntityStream(body)));
+    }
+
+    @Override
+    void onFailure(Throwable e)
+    {
+      _callback.onError(e);
+    }
+
+    // Set the base uri, supply the original method in the override header and change method to POST
+    private StreamRequestBuilder tunneledBuilder(Map<String, String> headers)
+    {
+      headers.put(QueryTunnelUtil.HEADER_METHOD_OVERRIDE, _request.getMethod());
+      return new StreamRequestBuilder(_request)
+          .setURI(_uri)
+          .setHeaders(headers)
+          .setMethod(RestMethod.POST);
+    }
+
+    private static long parseContentLength(String value)
+    {
+      if (value != null)
+      {
+        try
+        {
+          return Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException ex)
+        {
+          // fall through, the length of the encoded body is unknown
+        }
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * The multipart/mixed body written around a streamed entity: the query part and the headers of the entity part
+   * before the entity, and the closing delimiter after it.
+   */
+  private static final class MultipartFraming
+  {
+    private final String _contentType;
+    private final ByteString _head;
+    private final ByteString _tail;
+
+    MultipartFraming(String query, String entityContentType)
+        throws ParseException
+    {
+      if (entityContentType == null)
+      {
+        throw new ParseException("Missing " + QueryTunnelUtil.HEADER_CONTENT_TYPE + " of the tunneled entity");
+      }
+      // validate the content type before it is written as a part header
+      new ContentType(entityContentType);
+
+      String boundary = "----=_Part_" + UUID.randomUUID();
+      _contentType = QueryTunnelUtil.MULTIPART + "; " + BOUNDARY + "=\"" + boundary + "\"";
+      _head = ByteString.copyString(
+          "--" + boundary + CRLF
+          + QueryTunnelUtil.HEADER_CONTENT_TYPE + ": " + QueryTunnelUtil.FORM_URL_ENCODED + CRLF
+          + CRLF
+          + query + CRLF
+          + "--" + boundary + CRLF
+          + QueryTunnelUtil.HEADER_CONTENT_TYPE + ": " + MimeUtility.unfold(entityContentType) + CRLF
+          + CRLF, Data.UTF_8_CHARSET);
+      _tail = ByteString.copyString(CRLF + "--" + boundary + "--" + CRLF, Data.UTF_8_CHARSET);
+    }
+  }
+
+  /**
+   * The decoder side. The preamble, the query part and the headers of the entity part are parsed incrementally;
+   * after that the entity is relayed as is, holding back just enough bytes to recognize the delimiter that ends it
+   * across chunk boundaries.
+   */
+  private static final class Decoder extends LookaheadRelay
+  {
+    private enum State
+    {
+      PREAMBLE,
+      QUERY_HEADERS,
+      QUERY_BODY,
+      ENTITY_HEADERS,
+      ENTITY,
+      BUFFERED
+    }
+
+    private final StreamRequest _request;
+    private final RequestContext _requestContext;
+    private final Callback<StreamRequest> _callback;
+    private final byte[] _dashBoundary;
+    private final byte[] _delimiter;
+
+    private State _state = State.PREAMBLE;
+    // Until the entity is reached, this holds the whole body received so far; afterwards only the held back bytes
+    private ByteString _pending = ByteString.empty();
+    private int _offset = 0;
+    private int _queryStart;
+    private String _query;
+    private String _entityContentType;
+
+    Decoder(StreamRequest request, RequestContext requestContext, String boundary, Callback<StreamRequest> callback)
+    {
+      _request = request;
+      _requestContext = requestContext;
+      _callback = callback;
+      _dashBoundary = ("--" + boundary).getBytes(Data.UTF_8_CHARSET);
+      _delimiter = (CRLF + "--" + boundary).getBytes(Data.UTF_8_CHARSET);
+    }
+
+    @Override
+    ByteString transform(ByteString data)
+        throws MessagingException
+    {
+      if (_state == State.ENTITY)
+      {
+        return scanEntity(data);
+      }
+
+      _pending = new ByteString.Builder().append(_pending).append(data).build();
+      return _state == State.BUFFERED ? ByteString.empty() : parseHeaders();
+    }
+
+    @Override
+    ByteString finish()
+    {
+      if (_state == State.ENTITY)
+      {
+        // The closing delimiter is missing. MimeMultipart tolerates that, so keep the bytes that were held back.
+        ByteString rest = _pending;
+        _pending = ByteString.empty();
+        return rest;
+      }
+
+      // Either the layout is not one we can stream, or the body ended before the entity. Decode it in memory.
+      RestRequest decoded;
+      try
+      {
+        decoded = QueryTunnelUtil.doDecode(new RestRequestBuilder(_request).setEntity(_pending).build(), _requestContext);
+      }
+      catch (Exception ex)
+      {
+        _callback.onError(ex);
+        return null;
+      }
+      _callback.onSuccess(Messages.toStreamRequest(decoded));
+      return null;
+    }
+
+    @Override
+    void onComplete(ByteString entity)
+    {
+      StreamRequestBuilder builder;
+      try
+      {
+        builder = decodedBuilder(entity.length());
+      }
+      catch (URISyntaxException ex)
+      {
+        _callback.onError(ex);
+        return;
+      }
+      _callback.onSuccess(builder.build(EntityStreams.newEntityStream(new ByteStringWriter(entity))));
+    }
+
+    @Override
+    void onStreaming()
+    {
+      StreamRequestBuilder builder;
+      try
+      {
+        builder = decodedBuilder(-1);
+      }
+      catch (URISyntaxException ex)
+      {
+        cancel();
+        _callback.onError(ex);
+        return;
+      }
+      _callback.onSuccess(builder.build(EntityStreams.newEntityStream(this)));
+    }
+
+    @Override
+    void onFailure(Throwable e)
+    {
+      _callback.onError(e);
+    }
+
+    private StreamRequestBuilder decodedBuilder(int entityLength)
+        throws URISyntaxException
+    {
+      Map<String, String> headers = copyHeaders(_request);
+      headers.remove(QueryTunnelUtil.HEADER_METHOD_OVERRIDE);
+      headers.put(QueryTunnelUtil.HEADER_CONTENT_TYPE, _entityContentType);
+      headers.remove(QueryTunnelUtil.CONTENT_LENGTH);
+      if (entityLength >= 0)
+      {
+        headers.put(QueryTunnelUtil.CONTENT_LENGTH, Integer.toString(entityLength));
+      }
+
+      StreamRequestBuilder builder = new StreamRequestBuilder(_request)
+          .setHeaders(headers)
+          .setMethod(_request.getHeader(QueryTunnelUtil.HEADER_METHOD_OVERRIDE));
+      if (_query.length() > 0)
+      {
+        builder.setURI(QueryTunnelUtil.appendQuery(_request.getURI(), _query));
+      }
+
+      _requestContext.putLocalAttr(R2Constants.IS_QUERY_TUNNELED, true);
+      return builder;
+    }
+
+    /**
+     * Advances through the preamble, the query part and the headers of the entity part as far as the bytes
+     * received so far allow.
+     *
+     * @return the beginning of the entity, or an empty ByteString if the entity has not been reached yet
+     */
+    private ByteString parseHeaders()
+        throws MessagingException
+    {
+      while (true)
+      {
+        switch (_state)
+        {
+          case PREAMBLE:
+          {
+            int boundaryEnd = findFirstBoundary();
+            int next = boundaryEnd == NEED_MORE ? NEED_MORE : boundaryLineEnd(boundaryEnd);
+            if (next == NEED_MORE)
+            {
+              return ByteString.empty();
+            }
+            if (next == CLOSE_DELIMITER)
+            {
+              return fallBack();
+            }
+            _offset = next;
+            _state = State.QUERY_HEADERS;
+            break;
+          }
+          case QUERY_HEADERS:
+          {
+            int next = headersEnd(_offset);
+            if (next == NEED_MORE)
+            {
+              return ByteString.empty();
+            }
+            InternetHeaders headers = parsePartHeaders(_offset, next);
+            if (!isQueryPart(headers))
+            {
+              return fallBack();
+            }
+            _offset = next;
+            _queryStart = next;
+            _state = State.QUERY_BODY;
+            break;
+          }
+          case QUERY_BODY:
+          {
+            int delimiterStart = _pending.indexOfBytes(_delimiter, _offset);
+            if (delimiterStart < 0)
+            {
+              _offset = Math.max(_queryStart, _pending.length() - _delimiter.length + 1);
+              return ByteString.empty();
+            }
+            _offset = delimiterStart;
+            int next = boundaryLineEnd(delimiterStart + _delimiter.length);
+            if (next == NEED_MORE)
+            {
+              return ByteString.empty();
+            }
+            if (next == CLOSE_DELIMITER)
+            {
+              // there is no entity part
+              return fallBack();
+            }
+            _query = _pending.slice(_queryStart, delimiterStart - _queryStart).asString(Data.UTF_8_CHARSET);
+            _offset = next;
+            _state = State.ENTITY_HEADERS;
+            break;
+          }
+          case ENTITY_HEADERS:
+          {
+            int next = headersEnd(_offset);
+            if (next == NEED_MORE)
+            {
+              return ByteString.empty();
+            }
+            InternetHeaders headers = parsePartHeaders(_offset, next);
+            String contentType = headers.getHeader(QueryTunnelUtil.HEADER_CONTENT_TYPE, null);
+            if (contentType == null || !isIdentityEncoding(headers))
+            {
+              return fallBack();
+            }
+            _entityContentType = MimeUtility.unfold(contentType);
+            ByteString entity = _pending.slice(next, _pending.length() - next);
+            _pending = ByteString.empty();
+            _state = State.ENTITY;
+            return scanEntity(entity);
+          }
+          default:
+            throw new IllegalStateException("Unexpected state " + _state);
+        }
+      }
+    }
+
+    private ByteString scanEntity(ByteString data)
+    {
+      ByteString window = _pending.isEmpty() ? data : new ByteString.Builder().append(_pending).append(data).build();
+      int delimiterStart = window.indexOfBytes(_delimiter);
+      if (delimiterStart >= 0)
+      {
+        // Whatever follows the entity, the closing delimiter or extra parts, is read and discarded.
+        _pending = ByteString.empty();
+        end();
+        return window.slice(0, delimiterStart);
+      }
+
+      int held = Math.min(window.length(), _delimiter.length - 1);
+      _pending = window.slice(window.length() - held, held);
+      return window.slice(0, window.length() - held);
+    }
+
+    private ByteString fallBack()
+    {
+      _state = State.BUFFERED;
+      return ByteString.empty();
+    }
+
+    // Returns the index right after the first dash-boundary, or NEED_MORE
+    private int findFirstBoundary()
+    {
+      if (_pending.length() < _dashBoundary.length)
+      {
+        return NEED_MORE;
+      }
+      if (_pending.startsWith(_dashBoundary))
+      {
+        return _dashBoundary.length;
+      }
+      int delimiterStart = _pending.indexOfBytes(_delimiter);
+      return delimiterStart < 0 ? NEED_MORE : delimiterStart + _delimiter.length;
+    }
+
+    // Returns the index right after the line of the boundary that ends at the given index, NEED_MORE, or
+    // CLOSE_DELIMITER if it is the last boundary
+    private int boundaryLineEnd(int boundaryEnd)
+    {
+      if (_pending.length() < boundaryEnd + 2)
+      {
+        return NEED_MORE;
+      }
+      if (_pending.getByte(boundaryEnd) == '-' && _pending.getByte(boundaryEnd + 1) == '-')
+      {
+        return CLOSE_DELIMITER;
+      }
+      int lineEnd = _pending.indexOfBytes(CRLF_BYTES, boundaryEnd);
+      return lineEnd < 0 ? NEED_MORE : lineEnd + CRLF_BYTES.length;
+    }
+
+    // Returns the index right after the blank line that ends the part headers starting at the given index
+    private int headersEnd(int headersStart)
+    {
+      if (_pending.length() < headersStart + CRLF_BYTES.length)
+      {
+        return NEED_MORE;
+      }
+      if (_pending.getByte(headersStart) == '\r' && _pending.getByte(headersStart + 1) == '\n')
+      {
+        return headersStart + CRLF_BYTES.length;
+      }
+      int blankLine = _pending.indexOfBytes(BLANK_LINE_BYTES, headersStart);
+      return blankLine < 0 ? NEED_MORE : blankLine + BLANK_LINE_BYTES.length;
+    }
+
+    private InternetHeaders parsePartHeaders(int headersStart, int headersEnd)
+        throws MessagingException
+    {
+      return new InternetHeaders(_pending.slice(headersStart, headersEnd - headersStart).asInputStream());
+    }
+
+    private static boolean isQueryPart(InternetHeaders headers)
+    {
+      String contentType = headers.getHeader(QueryTunnelUtil.HEADER_CONTENT_TYPE, null);
+      if (contentType == null || !isIdentityEncoding(headers))
+      {
+        return false;
+      }
+      try
+      {
+        return new ContentType(contentType).getBaseType().equals(QueryTunnelUtil.FORM_URL_ENCODED);
+      }
+      catch (ParseException ex)
+      {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Reads an entity stream and relays its transformed content. Up to {@link #LOOKAHEAD_BYTES} of output are
+   * buffered first: if the output ends within that window, {@link #onComplete} receives all of it. Otherwise
+   * {@link #onStreaming} is called, and the relay is expected to become the writer of a new entity stream, which
+   * receives the buffered output followed by the rest of it.
+   */
+  private abstract static class LookaheadRelay implements Reader, Writer
+  {
+    private final Deque<ByteString> _buffered = new ArrayDeque<ByteString>();
+    private int _bufferedBytes = 0;
+    private volatile ReadHandle _rh;
+    private volatile WriteHandle _wh;
+    private int _outstanding = 0;
+    private volatile boolean _streaming = false;
+    private volatile boolean _ended = false;
+    private volatile boolean _upstreamDone = false;
+    private volatile Throwable _error;
+
+    /**
+     * Transforms a chunk of the upstream entity into output, which may be empty.
+     */
+    abstract ByteString transform(ByteString data) throws Exception;
+
+    /**
+     * Called when the upstream entity is done.
+     *
+     * @return the remaining output, or null if the request has been completed by other means
+     */
+    abstract ByteString finish();
+
+    abstract void onComplete(ByteString output);
+
+    abstract void onStreaming();
+
+    abstract void onFailure(Throwable e);
+
+    /**
+     * Marks the output as complete. The rest of the upstream entity is read and discarded.
+     */
+    final void end()
+    {
+      _ended = true;
+    }
+
+    final void cancel()
+    {
+      _ended = true;
+      _rh.cancel();
+    }
+
+    @Override
+    public void onInit(ReadHandle rh)
+    {
+      _rh = rh;
+      _rh.request(1);
+    }
+
+    @Override
+    public void onDataAvailable(ByteString data)
+    {
+      if (_ended)
+      {
+        _rh.request(1);
+        return;
+      }
+
+      ByteString output;
+      try
+      {
+        output = transform(data);
+      }
+      catch (Exception ex)
+      {
+        cancel();
+        fail(ex);
+        return;
+      }
+
+      if (_streaming)
+      {
+        relay(output);
+      }
+      else
+      {
+        lookahead(output);
+      }
+    }
+
+    @Override
+    public void onDone()
+    {
+      if (_ended)
+      {
+        return;
+      }
+
+      ByteString output = finish();
+      if (output == null)
+      {
+        return;
+      }
+
+      if (_streaming)
+      {
+        synchronized (this)
+        {
+          _upstreamDone = true;
+          _buffered.add(output);
+        }
+        flush();
+      }
+      else
+      {
+        _upstreamDone = true;
+        _buffered.add(output);
+        onComplete(drainBuffered());
+      }
+    }
+
+    @Override
+    public void onError(Throwable e)
+    {
+      if (!_ended)
+      {
+        fail(e);
+      }
+    }
+
+    @Override
+    public void onInit(WriteHandle wh)
+    {
+      _wh = wh;
+    }
+
+    @Override
+    public void onWritePossible()
+    {
+      flush();
+    }
+
+    @Override
+    public void onAbort(Throwable e)
+    {
+      cancel();
+    }
+
+    private void lookahead(ByteString output)
+    {
+      _buffered.add(output);
+      _bufferedBytes += output.length();
+      if (_ended)
+      {
+        onComplete(drainBuffered());
+        _rh.request(1);
+      }
+      else if (_bufferedBytes >= LOOKAHEAD_BYTES)
+      {
+        _streaming = true;
+        onStreaming();
+      }
+      else
+      {
+        _rh.request(1);
+      }
+    }
+
+    private synchronized void relay(ByteString output)
+    {
+      _outstanding--;
+      if (!output.isEmpty())
+      {
+        _wh.write(output);
+      }
+
+      if (_ended)
+      {
+        _wh.done();
+        _rh.request(1);
+        return;
+      }
+
+      int diff = _wh.remaining() - _outstanding;
+      if (diff > 0)
+      {
+        _rh.request(diff);
+        _outstanding += diff;
+      }
+    }
+
+    private synchronized void flush()
+    {
+      if (_wh == null)
+      {
+        return;
+      }
+      if (_error != null)
+      {
+        _wh.error(_error);
+        return;
+      }
+
+      while (!_buffered.isEmpty() && _wh.remaining() > 0)
+      {
+        ByteString output = _buffered.poll();
+        if (!output.isEmpty())
+        {
+          _wh.write(output);
+        }
+      }
+
+      if (_buffered.isEmpty())
+      {
+        if (_upstreamDone)
+        {
+          _wh.done();
+        }
+        else if (_outstanding == 0)
+        {
+          _outstanding = _wh.remaining();
+          if (_outstanding > 0)
+          {
+            _rh.request(_outstanding);
+          }
+        }
+      }
+    }
+
+    private void fail(Throwable e)
+    {
+      if (_streaming)
+      {
+        _error = e;
+        flush();
+      }
+      else
+      {
+        onFailure(e);
+      }
+    }
+
+    private ByteString drainBuffered()
+    {
+      ByteString.Builder builder = new ByteString.Builder();
+      for (ByteString output : _buffered)
+      {
+        builder.append(output);
+      }
+      _buffered.clear();
+      return builder.build();
+    }
+  }
+}
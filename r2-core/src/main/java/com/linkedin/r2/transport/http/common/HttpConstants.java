@@ -5,11 +5,24 @@ public interface HttpConstants
   public static final String ACCEPT_ENCODING = "Accept-Encoding";
   public static final String CONTENT_ENCODING = "Content-Encoding";
   public static final String CONTENT_LENGTH = "Content-Length";
+  public static final String CONTENT_TYPE = "Content-Type";
   public static final String TRANSFER_ENCODING = "Transfer-Encoding";
   /**
    * Custom header for the size threshold for encoding(compressing) responses.
    */
   public static final String HEADER_RESPONSE_COMPRESSION_THRESHOLD = "X-Response-Compression-Threshold";
+  /**
+   * Custom header listing the compression dictionaries held by the client.
+   */
+  public static final String HEADER_ACCEPT_COMPRESSION_DICTIONARY = "X-Accept-Compression-Dictionary";
+  /**
+   * Custom header for the compression dictionary that a response was compressed with.
+   */
+  public static final String HEADER_COMPRESSION_DICTIONARY = "X-Compression-Dictionary";
+  /**
+   * Custom header for a compression dictionary offered by the server that the client does not hold.
+   */
+  public static final String HEADER_AVAILABLE_COMPRESSION_DICTIONARY = "X-Available-Compression-Dictionary";
 
   /**
    * HTTP Cookie header name. See RFC 2109.
@@ -0,0 +1,231 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package test.r2.caprep;
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.util.None;
+import com.linkedin.r2.caprep.ReplayDriver;
+import com.linkedin.r2.caprep.db.SegmentedLogDbSink;
+import com.linkedin.r2.caprep.db.SegmentedLogReader;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestException;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.rest.RestStatus;
+import com.linkedin.r2.transport.common.AbstractClient;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+
+public class TestReplayDriver
+{
+  private File _dir;
+  private ExecutorService _executor;
+
+  @BeforeMethod
+  public void setUp() throws IOException
+  {
+    _dir = Files.createTempDirectory("TestReplayDriver").toFile();
+    _executor = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterMethod
+  public void tearDown()
+  {
+    _executor.shutdownNow();
+    final File[] files = _dir.listFiles();
+    if (files != null)
+    {
+      for (File file : files)
+      {
+        file.delete();
+      }
+    }
+    _dir.delete();
+  }
+
+  @Test
+  public void testReplayCountsResponses() throws Exception
+  {
+    final SegmentedLogDbSink sink = new SegmentedLogDbSink(_dir);
+    sink.record(request("ok"), response(RestStatus.OK));
+    sink.record(request("notFound"), response(RestStatus.NOT_FOUND));
+    sink.record(request("changed"), response(RestStatus.OK));
+    sink.record(request("error"), response(RestStatus.OK));
+    sink.close();
+
+    final ReplayDriver driver = new ReplayDriver(new FakeClient(), Double.POSITIVE_INFINITY, 10);
+    replay(driver);
+
+    Assert.assertEquals(driver.getSentCount(), 4);
+    Assert.assertEquals(driver.getResponseCount(), 3);
+    Assert.assertEquals(driver.getErrorCount(), 1);
+    Assert.assertEquals(driver.getStatusMismatchCount(), 1);
+  }
+
+  @Test
+  public void testMaxOutstanding() throws Exception
+  {
+    final SegmentedLogDbSink sink = new SegmentedLogDbSink(_dir);
+    for (int i = 0; i < 50; i++)
+    {
+      sink.record(request("ok"), response(RestStatus.OK));
+    }
+    sink.close();
+
+    final FakeClient client = new FakeClient();
+    final ReplayDriver driver = new ReplayDriver(client, Double.POSITIVE_INFINITY, 2);
+    replay(driver);
+
+    Assert.assertEquals(driver.getResponseCount(), 50);
+    Assert.assertTrue(client._maxOutstanding.get() <= 2, "Max outstanding: " + client._maxOutstanding.get());
+  }
+
+  @Test
+  public void testPacing() throws Exception
+  {
+    final SegmentedLogDbSink sink = new SegmentedLogDbSink(_dir);
+    sink.record(request("ok"), response(RestStatus.OK));
+    Thread.sleep(200);
+    sink.record(request("ok"), response(RestStatus.OK));
+    sink.close();
+
+    final ReplayDriver driver = new ReplayDriver(new FakeClient(), 2.0, 10);
+    final long start = System.nanoTime();
+    replay(driver);
+
+    Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 90);
+    Assert.assertEquals(driver.getResponseCount(), 2);
+  }
+
+  @Test(timeOut = 10000)
+  public void testClientThrows() throws Exception
+  {
+    final SegmentedLogDbSink sink = new SegmentedLogDbSink(_dir);
+    sink.record(request("throw"), response(RestStatus.OK));
+    sink.record(request("throw"), response(RestStatus.OK));
+    sink.record(request("ok"), response(RestStatus.OK));
+    sink.close();
+
+    // with a single permit, a permit leaked by a throwing client would block the replay
+    final ReplayDriver driver = new ReplayDriver(new FakeClient(), Double.POSITIVE_INFINITY, 1);
+    replay(driver);
+
+    Assert.assertEquals(driver.getSentCount(), 3);
+    Assert.assertEquals(driver.getResponseCount(), 1);
+    Assert.assertEquals(driver.getErrorCount(), 2);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidSpeed()
+  {
+    new ReplayDriver(new FakeClient(), 0.0, 10);
+  }
+
+  private void replay(ReplayDriver driver) throws IOException, InterruptedException
+  {
+    final SegmentedLogReader reader = new SegmentedLogReader(_dir);
+    try
+    {
+      driver.replay(reader);
+    }
+    finally
+    {
+      reader.close();
+    }
+  }
+
+  private static RestRequest request(String path)
+  {
+    return new RestRequestBuilder(URI.create("http://localhost:1234/" + path)).build();
+  }
+
+  private static RestResponse response(int status)
+  {
+    return new RestResponseBuilder().setStatus(status).build();
+  }
+
+  /**
+   * Responds asynchronously based on the last path segment of the request.
+   */
+  private class FakeClient extends AbstractClient
+  {
+    private final AtomicInteger _outstanding = new AtomicInteger();
+    private final AtomicInteger _maxOutstanding = new AtomicInteger();
+
+    @Override
+    public void restRequest(final RestRequest request, RequestContext requestContext,
+                            final Callback<RestResponse> callback)
+    {
+      if (request.getURI().getPath().endsWith("/throw"))
+      {
+        throw new IllegalStateException("Client is shut down");
+      }
+      final int outstanding = _outstanding.incrementAndGet();
+      int max;
+      while ((max = _maxOutstanding.get()) < outstanding && !_maxOutstanding.compareAndSet(max, outstanding))
+      {
+      }
+
+      _executor.execute(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          final String path = request.getURI().getPath();
+          _outstanding.decrementAndGet();
+          if (path.endsWith("/notFound"))
+          {
+            callback.onError(new RestException(response(RestStatus.NOT_FOUND)));
+          }
+          else if (path.endsWith("/changed"))
+          {
+            callback.onSuccess(response(RestStatus.INTERNAL_SERVER_ERROR));
+          }
+          else if (path.endsWith("/error"))
+          {
+            callback.onError(new IOException("Connection refused"));
+          }
+          else
+          {
+            callback.onSuccess(response(RestStatus.OK));
+          }
+        }
+      });
+    }
+
+    @Override
+    public void shutdown(Callback<None> callback)
+    {
+      callback.onSuccess(None.none());
+    }
+  }
+}
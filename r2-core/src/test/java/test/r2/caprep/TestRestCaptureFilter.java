@@ -17,6 +17,9 @@
 /* $Id$ */
 package test.r2.caprep;
 
+import com.linkedin.r2.caprep.CaptureFilter;
+import com.linkedin.r2.filter.FilterChain;
+import com.linkedin.r2.filter.FilterChains;
 import com.linkedin.r2.message.rest.RestException;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
@@ -44,6 +47,35 @@ public class TestRestCaptureFilter extends AbstractCaptureFilterTest
     Assert.assertEquals(res, getDb().replay(req));
   }
 
+  @Test
+  public void testZeroSamplingRateCapturesNothing()
+  {
+    final FilterChain fc = FilterChains.createRestChain(new CaptureFilter(getDb(), 0.0));
+    final RestRequest req = request();
+
+    FilterUtil.fireUntypedRequestResponse(fc, req, response());
+
+    Assert.assertNull(getDb().replay(req));
+  }
+
+  @Test
+  public void testFullSamplingRateCapturesEverything()
+  {
+    final FilterChain fc = FilterChains.createRestChain(new CaptureFilter(getDb(), 1.0));
+    final RestRequest req = request();
+    final RestResponse res = response();
+
+    FilterUtil.fireUntypedRequestResponse(fc, req, res);
+
+    Assert.assertEquals(res, getDb().replay(req));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidSamplingRate()
+  {
+    new CaptureFilter(getDb(), 1.5);
+  }
+
   @Override
   protected RestRequest request()
   {
@@ -0,0 +1,283 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package test.r2.caprep.db;
+
+import com.linkedin.r2.caprep.db.SegmentedLogDbSink;
+import com.linkedin.r2.caprep.db.SegmentedLogDbSource;
+import com.linkedin.r2.caprep.db.SegmentedLogReader;
+import com.linkedin.r2.caprep.db.SegmentedLogRecord;
+import com.linkedin.r2.message.rest.RestMethod;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.rest.RestStatus;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+
+public class TestSegmentedLogDb
+{
+  private File _dir;
+
+  @BeforeMethod
+  public void setUp() throws IOException
+  {
+    _dir = Files.createTempDirectory("TestSegmentedLogDb").toFile();
+  }
+
+  @AfterMethod
+  public void tearDown()
+  {
+    final File[] files = _dir.listFiles();
+    if (files != null)
+    {
+      for (File file : files)
+      {
+        file.delete();
+      }
+    }
+    _dir.delete();
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException
+  {
+    final SegmentedLogDbSink sink = new SegmentedLogDbSink(_dir);
+    for (int i = 0; i < 10; i++)
+    {
+      sink.record(request(i), response(i));
+    }
+    sink.close();
+    Assert.assertEquals(sink.getRecordedCount(), 10);
+    Assert.assertEquals(sink.getDroppedCount(), 0);
+
+    final List<SegmentedLogRecord> records = readAll();
+    Assert.assertEquals(records.size(), 10);
+    for (int i = 0; i < 10; i++)
+    {
+      Assert.assertEquals(records.get(i).getRequest(), request(i));
+      Assert.assertEquals(records.get(i).getResponse(), response(i));
+    }
+  }
+
+  @Test
+  public void testSegmentRollover() throws IOException
+  {
+    final SegmentedLogDbSink sink = new SegmentedLogDbSink(_dir, 100, 1024);
+    for (int i = 0; i < 50; i++)
+    {
+      sink.record(request(i), response(i));
+    }
+    sink.close();
+
+    Assert.assertTrue(_dir.listFiles().length > 1);
+    Assert.assertEquals(readAll().size(), 50);
+  }
+
+  @Test
+  public void testReopenStartsNewSegment() throws IOException
+  {
+    SegmentedLogDbSink sink = new SegmentedLogDbSink(_dir);
+    sink.record(request(0), response(0));
+    sink.close();
+
+    sink = new SegmentedLogDbSink(_dir);
+    sink.record(request(1), response(1));
+    sink.close();
+
+    Assert.assertEquals(_dir.listFiles().length, 2);
+    final List<SegmentedLogRecord> records = readAll();
+    Assert.assertEquals(records.size(), 2);
+    Assert.assertEquals(records.get(1).getRequest(), request(1));
+  }
+
+  @Test
+  public void testFlush() throws IOException
+  {
+    final SegmentedLogDbSink sink = new SegmentedLogDbSink(_dir);
+    try
+    {
+      sink.record(request(0), response(0));
+      sink.flush();
+
+      Assert.assertEquals(readAll().size(), 1);
+    }
+    finally
+    {
+      sink.close();
+    }
+  }
+
+  @Test
+  public void testFlushRacingClose() throws Exception
+  {
+    for (int i = 0; i < 100; i++)
+    {
+      final SegmentedLogDbSink sink = new SegmentedLogDbSink(_dir);
+      sink.record(request(i), response(i));
+      final Thread flusher = new Thread(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          try
+          {
+            sink.flush();
+          }
+          catch (IOException e)
+          {
+            throw new RuntimeException(e);
+          }
+        }
+      });
+      flusher.start();
+      sink.close();
+
+      // flush either completes before close() stops the writer or returns because the sink is closed.
+      flusher.join(10000);
+      Assert.assertFalse(flusher.isAlive(), "flush() did not return after close()");
+    }
+    Assert.assertEquals(readAll().size(), 100);
+  }
+
+  @Test
+  public void testDropOnOverload() throws IOException
+  {
+    // Records are dropped once the sink is closed, without blocking the caller.
+    final SegmentedLogDbSink sink = new SegmentedLogDbSink(_dir, 1, SegmentedLogDbSink.DEFAULT_MAX_SEGMENT_BYTES);
+    final int count = 1000;
+    for (int i = 0; i < count; i++)
+    {
+      sink.record(request(i), response(i));
+    }
+    sink.close();
+    sink.record(request(count), response(count));
+
+    Assert.assertEquals(sink.getRecordedCount() + sink.getDroppedCount(), count + 1);
+    Assert.assertTrue(sink.getDroppedCount() >= 1);
+    Assert.assertEquals(readAll().size(), sink.getRecordedCount());
+  }
+
+  @Test
+  public void testTornTailIsSkipped() throws IOException
+  {
+    final SegmentedLogDbSink sink = new SegmentedLogDbSink(_dir);
+    for (int i = 0; i < 3; i++)
+    {
+      sink.record(request(i), response(i));
+    }
+    sink.close();
+
+    final File segment = _dir.listFiles()[0];
+    final RandomAccessFile file = new RandomAccessFile(segment, "rw");
+    try
+    {
+      file.setLength(file.length() - 5);
+    }
+    finally
+    {
+      file.close();
+    }
+
+    final List<SegmentedLogRecord> records = readAll();
+    Assert.assertEquals(records.size(), 2);
+    Assert.assertEquals(records.get(1).getRequest(), request(1));
+  }
+
+  @Test
+  public void testReplay() throws IOException
+  {
+    final SegmentedLogDbSink sink = new SegmentedLogDbSink(_dir, 100, 1024);
+    for (int i = 0; i < 20; i++)
+    {
+      sink.record(request(i), response(i));
+    }
+    // Last one wins
+    final RestResponse replaced = response(3).builder().setStatus(RestStatus.NOT_FOUND).build();
+    sink.record(request(3), replaced);
+    sink.close();
+
+    final SegmentedLogDbSource source = new SegmentedLogDbSource(_dir);
+    try
+    {
+      Assert.assertEquals(source.size(), 20);
+      Assert.assertEquals(source.replay(request(7)), response(7));
+      Assert.assertEquals(source.replay(request(3)), replaced);
+      Assert.assertNull(source.replay(request(20)));
+
+      // Requests are matched once canonicalized
+      final RestRequest equivalent = request(7).builder()
+          .setHeader("X-HEADER", "  value ")
+          .build();
+      Assert.assertEquals(source.replay(equivalent), response(7));
+    }
+    finally
+    {
+      source.close();
+    }
+  }
+
+  private List<SegmentedLogRecord> readAll() throws IOException
+  {
+    final List<SegmentedLogRecord> records = new ArrayList<SegmentedLogRecord>();
+    final SegmentedLogReader reader = new SegmentedLogReader(_dir);
+    try
+    {
+      SegmentedLogRecord record;
+      while ((record = reader.next()) != null)
+      {
+        records.add(record);
+      }
+    }
+    finally
+    {
+      reader.close();
+    }
+    return records;
+  }
+
+  private static RestRequest request(int i)
+  {
+    return new RestRequestBuilder(URI.create("http://localhost:1234/foo/" + i))
+        .setMethod(RestMethod.PUT)
+        .setHeader("x-header", "value")
+        .addCookie("cookie=" + i)
+        .setEntity(("request " + i).getBytes())
+        .build();
+  }
+
+  private static RestResponse response(int i)
+  {
+    return new RestResponseBuilder()
+        .setStatus(RestStatus.OK)
+        .setHeader("x-header", "value")
+        .setEntity(("response " + i).getBytes())
+        .build();
+  }
+}
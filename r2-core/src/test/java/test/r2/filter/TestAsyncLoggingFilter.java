@@ -0,0 +1,343 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package test.r2.filter;
+
+import com.linkedin.r2.filter.FilterChain;
+import com.linkedin.r2.filter.FilterChains;
+import com.linkedin.r2.filter.logging.AsyncLoggingFilter;
+import com.linkedin.r2.filter.logging.RequestLogRecord;
+import com.linkedin.r2.message.Messages;
+import com.linkedin.r2.message.rest.RestException;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.rest.RestStatus;
+import com.linkedin.r2.testutils.filter.FilterUtil;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+
+public class TestAsyncLoggingFilter
+{
+  private final List<String> _messages = Collections.synchronizedList(new ArrayList<String>());
+  private CapturingFilter _filter;
+
+  @AfterMethod
+  public void tearDown() throws InterruptedException
+  {
+    if (_filter != null)
+    {
+      _filter.shutdown();
+      _filter = null;
+    }
+    _messages.clear();
+  }
+
+  @Test
+  public void testRestRequestResponse() throws Exception
+  {
+    _filter = new CapturingFilter(debugLogger(), 16, 1.0, Collections.<String, Double>emptyMap());
+    final FilterChain fc = FilterChains.createRestChain(_filter);
+
+    FilterUtil.fireRestRequestResponse(fc, request("/greetings/1"), response(RestStatus.OK, "hello"));
+
+    final RequestLogRecord request = _filter.take();
+    Assert.assertEquals(request.getType(), RequestLogRecord.Type.REQUEST);
+    Assert.assertEquals(request.getFilterMethod(), "onRestRequest");
+    Assert.assertEquals(request.getRequestUri(), URI.create("http://localhost:1234/greetings/1?q=x"));
+    Assert.assertEquals(request.getEntityLength(), 7);
+    Assert.assertEquals(request.getDurationNanos(), -1);
+
+    final RequestLogRecord response = _filter.take();
+    Assert.assertEquals(response.getType(), RequestLogRecord.Type.RESPONSE);
+    Assert.assertEquals(response.getRequestMethod(), "PUT");
+    Assert.assertEquals(response.getStatus(), RestStatus.OK);
+    Assert.assertEquals(response.getEntityLength(), 5);
+    Assert.assertTrue(response.getDurationNanos() >= 0);
+
+    _filter.shutdown();
+    _filter = null;
+    Assert.assertEquals(_messages.size(), 2);
+    Assert.assertTrue(_messages.get(1).startsWith("[onRestResponse] response: \"PUT http://localhost:1234/greetings/1 200\""),
+                      _messages.get(1));
+  }
+
+  @Test
+  public void testErrorWithResponseIsLoggedAsResponse() throws Exception
+  {
+    _filter = new CapturingFilter(debugLogger(), 16, 1.0, Collections.<String, Double>emptyMap());
+    final FilterChain fc = FilterChains.createRestChain(_filter);
+
+    FilterUtil.fireRestRequestError(fc, request("/greetings/1"), new RestException(response(RestStatus.NOT_FOUND, "")));
+
+    Assert.assertEquals(_filter.take().getType(), RequestLogRecord.Type.REQUEST);
+    final RequestLogRecord response = _filter.take();
+    Assert.assertEquals(response.getType(), RequestLogRecord.Type.RESPONSE);
+    Assert.assertEquals(response.getFilterMethod(), "onRestError");
+    Assert.assertEquals(response.getStatus(), RestStatus.NOT_FOUND);
+  }
+
+  @Test
+  public void testRouteSampling() throws Exception
+  {
+    _filter = new CapturingFilter(debugLogger(), 16, 1.0, Collections.singletonMap("noisy", 0.0));
+    final FilterChain fc = FilterChains.createRestChain(_filter);
+
+    FilterUtil.fireRestRequestResponse(fc, request("/noisy/1"), response(RestStatus.OK, ""));
+    // errors without a response are logged even when the request is not sampled
+    FilterUtil.fireRestRequestError(fc, request("/noisy/2"), new Exception("boom"));
+    FilterUtil.fireRestRequestResponse(fc, request("/greetings/1"), response(RestStatus.OK, ""));
+
+    final RequestLogRecord error = _filter.take();
+    Assert.assertEquals(error.getType(), RequestLogRecord.Type.ERROR);
+    Assert.assertNull(error.getRequestUri());
+    Assert.assertEquals(error.getError().getMessage(), "boom");
+
+    Assert.assertEquals(_filter.take().getRequestUri().getPath(), "/greetings/1");
+    Assert.assertEquals(_filter.take().getType(), RequestLogRecord.Type.RESPONSE);
+  }
+
+  @Test
+  public void testStreamRequestResponse() throws Exception
+  {
+    _filter = new CapturingFilter(debugLogger(), 16, 1.0, Collections.<String, Double>emptyMap());
+    final FilterChain fc = FilterChains.createStreamChain(_filter);
+
+    FilterUtil.fireStreamRequestResponse(fc, Messages.toStreamRequest(request("/greetings/1")),
+                                         Messages.toStreamResponse(response(RestStatus.OK, "hello")));
+
+    final RequestLogRecord request = _filter.take();
+    Assert.assertEquals(request.getFilterMethod(), "onStreamRequest");
+    Assert.assertEquals(request.getEntityLength(), 7);
+    final RequestLogRecord response = _filter.take();
+    Assert.assertEquals(response.getFilterMethod(), "onStreamResponse");
+    Assert.assertEquals(response.getEntityLength(), 5);
+  }
+
+  @Test
+  public void testNothingCapturedWithoutDebug() throws Exception
+  {
+    _filter = new CapturingFilter(logger(false), 16, 1.0, Collections.<String, Double>emptyMap());
+    final FilterChain fc = FilterChains.createRestChain(_filter);
+
+    FilterUtil.fireRestRequestResponse(fc, request("/greetings/1"), response(RestStatus.OK, ""));
+    _filter.shutdown();
+
+    Assert.assertTrue(_filter._records.isEmpty());
+    _filter = null;
+  }
+
+  @Test
+  public void testDropWhenFull() throws Exception
+  {
+    final CountDownLatch blocked = new CountDownLatch(1);
+    _filter = new CapturingFilter(debugLogger(), 4, 1.0, Collections.<String, Double>emptyMap())
+    {
+      @Override
+      protected void log(RequestLogRecord record)
+      {
+        try
+        {
+          blocked.await();
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+        super.log(record);
+      }
+    };
+    final FilterChain fc = FilterChains.createRestChain(_filter);
+
+    final int count = 100;
+    for (int i = 0; i < count; i++)
+    {
+      FilterUtil.fireRestRequestResponse(fc, request("/greetings/" + i), response(RestStatus.OK, ""));
+    }
+    blocked.countDown();
+    _filter.shutdown();
+
+    Assert.assertTrue(_filter.getDroppedCount() > 0);
+    Assert.assertEquals(_filter._records.size() + _filter.getDroppedCount(), 2 * count);
+    _filter = null;
+  }
+
+  @Test
+  public void testConcurrentProducers() throws Exception
+  {
+    _filter = new CapturingFilter(debugLogger(), 1024, 1.0, Collections.<String, Double>emptyMap());
+    final FilterChain fc = FilterChains.createRestChain(_filter);
+
+    final int threads = 4;
+    final int perThread = 500;
+    final List<Thread> producers = new ArrayList<Thread>();
+    for (int t = 0; t < threads; t++)
+    {
+      final Thread producer = new Thread(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          for (int i = 0; i < perThread; i++)
+          {
+            FilterUtil.fireRestRequestResponse(fc, request("/greetings/" + i), response(RestStatus.OK, ""));
+          }
+        }
+      });
+      producer.start();
+      producers.add(producer);
+    }
+    for (Thread producer : producers)
+    {
+      producer.join();
+    }
+    _filter.shutdown();
+
+    Assert.assertEquals(_filter._records.size() + _filter.getDroppedCount(), 2 * threads * perThread);
+    _filter = null;
+  }
+
+  @Test
+  public void testIdleFormatterParksUntilWoken() throws Exception
+  {
+    _filter = new CapturingFilter(debugLogger(), 16, 1.0, Collections.<String, Double>emptyMap());
+    final FilterChain fc = FilterChains.createRestChain(_filter);
+    final Thread formatter = formatterThread();
+
+    for (int i = 0; i < 20; i++)
+    {
+      // the idle formatter parks without a timeout, and each record wakes it up
+      awaitState(formatter, Thread.State.WAITING);
+      FilterUtil.fireRestRequestResponse(fc, request("/greetings/" + i), response(RestStatus.OK, ""));
+      Assert.assertEquals(_filter.take().getType(), RequestLogRecord.Type.REQUEST);
+      Assert.assertEquals(_filter.take().getType(), RequestLogRecord.Type.RESPONSE);
+    }
+
+    _filter.close();
+    Assert.assertFalse(formatter.isAlive());
+    _filter = null;
+  }
+
+  private static Thread formatterThread()
+  {
+    for (Thread thread : Thread.getAllStackTraces().keySet())
+    {
+      if (thread.getName().equals("AsyncLoggingFilter formatter") && thread.isAlive())
+      {
+        return thread;
+      }
+    }
+    throw new AssertionError("No formatter thread");
+  }
+
+  private static void awaitState(Thread thread, Thread.State state) throws InterruptedException
+  {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (thread.getState() != state)
+    {
+      Assert.assertTrue(System.nanoTime() < deadline, "Thread state is " + thread.getState() + " instead of " + state);
+      Thread.sleep(1);
+    }
+  }
+
+  private static RestRequest request(String path)
+  {
+    return new RestRequestBuilder(URI.create("http://localhost:1234" + path + "?q=x"))
+        .setMethod("PUT")
+        .setEntity("request".getBytes())
+        .build();
+  }
+
+  private static RestResponse response(int status, String entity)
+  {
+    return new RestResponseBuilder().setStatus(status).setEntity(entity.getBytes()).build();
+  }
+
+  private Logger debugLogger()
+  {
+    return logger(true);
+  }
+
+  /**
+   * A logger which records the messages it is asked to log at debug and warn level.
+   */
+  private Logger logger(final boolean debugEnabled)
+  {
+    return (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[] { Logger.class },
+        new InvocationHandler()
+        {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args)
+          {
+            if (method.getName().equals("isDebugEnabled"))
+            {
+              return debugEnabled;
+            }
+            if (method.getName().startsWith("is"))
+            {
+              return false;
+            }
+            if ((method.getName().equals("debug") || method.getName().equals("warn")) && args[0] instanceof String)
+            {
+              _messages.add((String) args[0]);
+            }
+            return null;
+          }
+        });
+  }
+
+  private static class CapturingFilter extends AsyncLoggingFilter
+  {
+    private final BlockingQueue<RequestLogRecord> _records = new LinkedBlockingQueue<RequestLogRecord>();
+
+    CapturingFilter(Logger log, int capacity, double samplingRate, Map<String, Double> routeSamplingRates)
+    {
+      super(log, capacity, samplingRate, routeSamplingRates);
+    }
+
+    @Override
+    protected void log(RequestLogRecord record)
+    {
+      _records.add(record);
+      super.log(record);
+    }
+
+    RequestLogRecord take() throws InterruptedException
+    {
+      final RequestLogRecord record = _records.poll(5, TimeUnit.SECONDS);
+      Assert.assertNotNull(record, "Timed out waiting for a record");
+      return record;
+    }
+  }
+}
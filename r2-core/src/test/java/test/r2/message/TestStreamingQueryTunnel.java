@@ -0,0 +1,284 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package test.r2.message;
+
+import com.linkedin.common.callback.FutureCallback;
+import com.linkedin.data.ByteString;
+import com.linkedin.data.Data;
+import com.linkedin.r2.filter.R2Constants;
+import com.linkedin.r2.message.Messages;
+import com.linkedin.r2.message.QueryTunnelUtil;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.stream.StreamRequest;
+import com.linkedin.r2.message.stream.StreamRequestBuilder;
+import com.linkedin.r2.message.stream.entitystream.ByteStringWriter;
+import com.linkedin.r2.message.stream.entitystream.CompositeWriter;
+import com.linkedin.r2.message.stream.entitystream.EntityStream;
+import com.linkedin.r2.message.stream.entitystream.EntityStreams;
+import com.linkedin.r2.message.stream.entitystream.WriteHandle;
+import com.linkedin.r2.message.stream.entitystream.Writer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests the streaming encode and decode of tunneled StreamRequests, with entities split into chunks of
+ * various sizes.
+ */
+public class TestStreamingQueryTunnel
+{
+  private static final int LARGE_ENTITY_SIZE = 200 * 1024;
+
+  @DataProvider
+  public Object[][] entitiesAndChunkSizes()
+  {
+    return new Object[][] {
+        {16, 1},
+        {16, 7},
+        {16, 8192},
+        {LARGE_ENTITY_SIZE, 1000},
+        {LARGE_ENTITY_SIZE, 8192},
+        {LARGE_ENTITY_SIZE, LARGE_ENTITY_SIZE * 2}
+    };
+  }
+
+  @Test(dataProvider = "entitiesAndChunkSizes")
+  public void testRoundTrip(int entitySize, int chunkSize) throws Exception
+  {
+    ByteString entity = entity(entitySize);
+    StreamRequest request = new StreamRequestBuilder(new URI("http://localhost:7279/foo?ids=1,2,3&q=one"))
+        .setMethod("PUT")
+        .setHeader("Content-Type", "application/json")
+        .build(chunked(entity, chunkSize));
+
+    RestRequest encoded = readFully(encode(request));
+    Assert.assertEquals(encoded.getMethod(), "POST");
+    Assert.assertEquals(encoded.getURI().toString(), "http://localhost:7279/foo");
+    Assert.assertEquals(encoded.getHeader("X-HTTP-Method-Override"), "PUT");
+    Assert.assertTrue(encoded.getHeader("Content-Type").startsWith("multipart/mixed"));
+
+    // feed the encoded body back in chunks, so that the boundaries are split across chunks
+    RequestContext requestContext = new RequestContext();
+    StreamRequest tunneled = new StreamRequestBuilder(encoded).build(chunked(encoded.getEntity(), chunkSize));
+    RestRequest decoded = readFully(decode(tunneled, requestContext));
+    Assert.assertEquals(decoded.getURI().toString(), "http://localhost:7279/foo?ids=1,2,3&q=one");
+    Assert.assertEquals(decoded.getMethod(), "PUT");
+    Assert.assertEquals(decoded.getHeader("Content-Type"), "application/json");
+    Assert.assertNull(decoded.getHeader("X-HTTP-Method-Override"));
+    Assert.assertEquals(decoded.getEntity(), entity);
+    Assert.assertTrue((Boolean) requestContext.getLocalAttr(R2Constants.IS_QUERY_TUNNELED));
+  }
+
+  @Test
+  public void testRoundTripWithoutEntity() throws Exception
+  {
+    StreamRequest request = new StreamRequestBuilder(new URI("http://localhost:7279?ids=1,2,3"))
+        .setMethod("GET")
+        .build(EntityStreams.emptyStream());
+
+    RestRequest encoded = readFully(encode(request));
+    Assert.assertEquals(encoded.getHeader("Content-Type"), "application/x-www-form-urlencoded");
+    Assert.assertEquals(encoded.getEntity().asString(Data.UTF_8_CHARSET), "ids=1,2,3");
+    Assert.assertEquals(encoded.getHeader("Content-Length"), "9");
+
+    RestRequest decoded = readFully(decode(Messages.toStreamRequest(encoded), new RequestContext()));
+    Assert.assertEquals(decoded.getURI().toString(), "http://localhost:7279?ids=1,2,3");
+    Assert.assertEquals(decoded.getMethod(), "GET");
+    Assert.assertEquals(decoded.getEntity().length(), 0);
+  }
+
+  @Test
+  public void testContentLength() throws Exception
+  {
+    // a small entity is looked ahead, so the encoded and decoded lengths are exact
+    StreamRequest small = new StreamRequestBuilder(new URI("http://localhost:7279?q=one"))
+        .setMethod("PUT")
+        .setHeader("Content-Type", "application/json")
+        .build(chunked(entity(16), 5));
+    RestRequest encoded = readFully(encode(small));
+    Assert.assertEquals(encoded.getHeader("Content-Length"), Integer.toString(encoded.getEntity().length()));
+    RestRequest decoded = readFully(decode(Messages.toStreamRequest(encoded), new RequestContext()));
+    Assert.assertEquals(decoded.getHeader("Content-Length"), "16");
+
+    // a large entity is streamed, and the encoded length can only be derived from the original one
+    StreamRequest largeWithLength = new StreamRequestBuilder(new URI("http://localhost:7279?q=one"))
+        .setMethod("PUT")
+        .setHeader("Content-Type", "application/json")
+        .setHeader("Content-Length", Integer.toString(LARGE_ENTITY_SIZE))
+        .build(chunked(entity(LARGE_ENTITY_SIZE), 8192));
+    encoded = readFully(encode(largeWithLength));
+    Assert.assertEquals(encoded.getHeader("Content-Length"), Integer.toString(encoded.getEntity().length()));
+    decoded = readFully(decode(new StreamRequestBuilder(encoded).build(chunked(encoded.getEntity(), 8192)),
+        new RequestContext()));
+    Assert.assertNull(decoded.getHeader("Content-Length"));
+
+    StreamRequest largeWithoutLength = new StreamRequestBuilder(new URI("http://localhost:7279?q=one"))
+        .setMethod("PUT")
+        .setHeader("Content-Type", "application/json")
+        .build(chunked(entity(LARGE_ENTITY_SIZE), 8192));
+    encoded = readFully(encode(largeWithoutLength));
+    Assert.assertNull(encoded.getHeader("Content-Length"));
+  }
+
+  @Test
+  public void testLargeEntityIsNotBuffered() throws Exception
+  {
+    // the writer never finishes, so the callbacks can only complete if the entity is streamed through
+    StreamRequest request = new StreamRequestBuilder(new URI("http://localhost:7279?q=one"))
+        .setMethod("PUT")
+        .setHeader("Content-Type", "application/json")
+        .build(EntityStreams.newEntityStream(new EndlessWriter()));
+    StreamRequest encoded = encode(request);
+    Assert.assertTrue(encoded.getHeader("Content-Type").startsWith("multipart/mixed"));
+
+    StreamRequest decoded = decode(encoded, new RequestContext());
+    Assert.assertEquals(decoded.getURI().toString(), "http://localhost:7279?q=one");
+    Assert.assertEquals(decoded.getMethod(), "PUT");
+  }
+
+  @Test
+  public void testDecodeHandConstructedBody() throws Exception
+  {
+    // a preamble, transfer encoding headers, folded headers and an epilogue are all allowed around the parts
+    String body = "This is the preamble\r\n"
+        + "--xyz\r\n"
+        + "Content-Type: application/x-www-form-urlencoded\r\n"
+        + "Content-Transfer-Encoding: 7bit\r\n"
+        + "\r\n"
+        + "ids=1,2,3\r\n"
+        + "--xyz  \r\n"
+        + "Content-Type: application/json;\r\n"
+        + "\tcharset=UTF-8\r\n"
+        + "Content-Transfer-Encoding: binary\r\n"
+        + "\r\n"
+        + "{\"foo\":\"bar\"}\r\n"
+        + "--xyz--\r\n"
+        + "This is the epilogue";
+    StreamRequest request = new StreamRequestBuilder(new URI("http://localhost:7279?debug=true"))
+        .setMethod("POST")
+        .setHeader("X-HTTP-Method-Override", "GET")
+        .setHeader("Content-Type", "multipart/mixed; boundary=xyz")
+        .build(chunked(ByteString.copyString(body, Data.UTF_8_CHARSET), 3));
+
+    RestRequest decoded = readFully(decode(request, new RequestContext()));
+    Assert.assertEquals(decoded.getURI().toString(), "http://localhost:7279?debug=true&ids=1,2,3");
+    Assert.assertEquals(decoded.getMethod(), "GET");
+    Assert.assertEquals(decoded.getHeader("Content-Type"), "application/json; charset=UTF-8");
+    Assert.assertEquals(decoded.getEntity().asString(Data.UTF_8_CHARSET), "{\"foo\":\"bar\"}");
+  }
+
+  @Test
+  public void testDecodeEntityBeforeQuery() throws Exception
+  {
+    // bodies with any other layout are decoded in memory
+    String body = "--xyz\r\n"
+        + "Content-Type: application/json\r\n"
+        + "\r\n"
+        + "{\"foo\":\"bar\"}\r\n"
+        + "--xyz\r\n"
+        + "Content-Type: application/x-www-form-urlencoded\r\n"
+        + "\r\n"
+        + "ids=1,2,3\r\n"
+        + "--xyz--\r\n";
+    StreamRequest request = new StreamRequestBuilder(new URI("http://localhost:7279"))
+        .setMethod("POST")
+        .setHeader("X-HTTP-Method-Override", "PUT")
+        .setHeader("Content-Type", "multipart/mixed; boundary=xyz")
+        .build(chunked(ByteString.copyString(body, Data.UTF_8_CHARSET), 7));
+
+    RestRequest decoded = readFully(decode(request, new RequestContext()));
+    Assert.assertEquals(decoded.getURI().toString(), "http://localhost:7279?ids=1,2,3");
+    Assert.assertEquals(decoded.getMethod(), "PUT");
+    Assert.assertEquals(decoded.getEntity().asString(Data.UTF_8_CHARSET), "{\"foo\":\"bar\"}");
+  }
+
+  private static StreamRequest encode(StreamRequest request) throws Exception
+  {
+    FutureCallback<StreamRequest> callback = new FutureCallback<StreamRequest>();
+    QueryTunnelUtil.encode(request, 0, callback);
+    return callback.get(5, TimeUnit.SECONDS);
+  }
+
+  private static StreamRequest decode(StreamRequest request, RequestContext requestContext) throws Exception
+  {
+    FutureCallback<StreamRequest> callback = new FutureCallback<StreamRequest>();
+    QueryTunnelUtil.decode(request, requestContext, callback);
+    return callback.get(5, TimeUnit.SECONDS);
+  }
+
+  private static RestRequest readFully(StreamRequest request) throws Exception
+  {
+    FutureCallback<RestRequest> callback = new FutureCallback<RestRequest>();
+    Messages.toRestRequest(request, callback);
+    return callback.get(5, TimeUnit.SECONDS);
+  }
+
+  private static ByteString entity(int size)
+  {
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++)
+    {
+      // include the characters of a delimiter, without ever forming one
+      bytes[i] = (byte) "{\r\n--x}".charAt(i % 7);
+    }
+    return ByteString.copy(bytes);
+  }
+
+  private static EntityStream chunked(ByteString content, int chunkSize)
+  {
+    List<Writer> writers = new ArrayList<Writer>();
+    for (int offset = 0; offset < content.length(); offset += chunkSize)
+    {
+      writers.add(new ByteStringWriter(content.slice(offset, Math.min(chunkSize, content.length() - offset))));
+    }
+    return EntityStreams.newEntityStream(new CompositeWriter(writers.toArray(new Writer[writers.size()])));
+  }
+
+  private static class EndlessWriter implements Writer
+  {
+    private final ByteString _chunk = entity(8192);
+    private WriteHandle _wh;
+
+    @Override
+    public void onInit(WriteHandle wh)
+    {
+      _wh = wh;
+    }
+
+    @Override
+    public void onWritePossible()
+    {
+      while (_wh.remaining() > 0)
+      {
+        _wh.write(_chunk);
+      }
+    }
+
+    @Override
+    public void onAbort(Throwable e)
+    {
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.compression;
+
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.DataCodec;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.codec.PsonDataCodec;
+import java.io.ByteArrayInputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Compares the compression time of every {@link EncodingType} on rest.li collection responses encoded as JSON or
+ * PSON. The compression ratio of each combination is printed when its trial starts.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompressionBenchmark
+{
+  @State(Scope.Benchmark)
+  public static class Payload
+  {
+    @Param({"GZIP", "DEFLATE", "BZIP2", "SNAPPY", "SNAPPY_FRAMED", "ZSTD", "LZ4"})
+    String _encoding;
+
+    @Param({"json", "pson"})
+    String _codec;
+
+    @Param({"10", "500"})
+    int _elements;
+
+    Compressor _compressor;
+    byte[] _original;
+    byte[] _compressed;
+
+    @Setup
+    public void setup() throws Exception
+    {
+      DataCodec codec = "json".equals(_codec) ? new JacksonDataCodec() : new PsonDataCodec();
+      _compressor = EncodingType.valueOf(_encoding).getCompressor();
+      _original = codec.mapToBytes(collectionResponse(_elements));
+      _compressed = _compressor.deflate(new ByteArrayInputStream(_original));
+      System.out.printf("%n%s %s %d elements: %d -> %d bytes, ratio %.3f%n", _encoding, _codec, _elements,
+          _original.length, _compressed.length, (double) _compressed.length / _original.length);
+    }
+  }
+
+  @Benchmark
+  public byte[] measureDeflate(Payload payload) throws CompressionException
+  {
+    return payload._compressor.deflate(new ByteArrayInputStream(payload._original));
+  }
+
+  @Benchmark
+  public byte[] measureInflate(Payload payload) throws CompressionException
+  {
+    return payload._compressor.inflate(new ByteArrayInputStream(payload._compressed));
+  }
+
+  private static DataMap collectionResponse(int count)
+  {
+    Random random = new Random(count);
+    DataList elements = new DataList();
+    for (int i = 0; i < count; i++)
+    {
+      DataMap element = new DataMap();
+      element.put("id", random.nextInt(1000000));
+      element.put("urn", "urn:li:member:" + random.nextInt(1000000));
+      element.put("firstName", "First" + random.nextInt(1000));
+      element.put("lastName", "Last" + random.nextInt(1000));
+      element.put("headline", "Software Engineer at Company " + random.nextInt(100));
+      element.put("created", System.currentTimeMillis() - random.nextInt(1000000000));
+      element.put("active", random.nextBoolean());
+      element.put("score", random.nextDouble());
+      DataList tags = new DataList();
+      for (int j = random.nextInt(5); j > 0; j--)
+      {
+        tags.add("tag" + random.nextInt(50));
+      }
+      element.put("tags", tags);
+      elements.add(element);
+    }
+    DataMap paging = new DataMap();
+    paging.put("start", 0);
+    paging.put("count", count);
+    paging.put("total", count * 10);
+    DataMap response = new DataMap();
+    response.put("elements", elements);
+    response.put("paging", paging);
+    return response;
+  }
+}
@@ -0,0 +1,418 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.compression;
+
+import com.linkedin.data.ByteString;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+
+/**
+ * Decides whether and how a response that is eligible for compression is actually compressed.
+ *
+ * {@link ServerCompressionFilter} compresses a response with the encoding preferred by the client whenever the
+ * response is larger than the compression threshold. This policy can override that choice:
+ * <ul>
+ *   <li>when the CPU load reaches the critical load, responses are not compressed;</li>
+ *   <li>when the byte entropy of a prefix of the response shows that it is already compressed, e.g. an image,
+ *       it is not compressed;</li>
+ *   <li>when recent responses of the same content type barely shrank with the chosen encoding, it is not compressed,
+ *       except for one response in {@link #PROBE_INTERVAL} which keeps the statistics current;</li>
+ *   <li>when the CPU load reaches the high load, the fastest encoding accepted by the client is used.</li>
+ * </ul>
+ *
+ * The compression ratio and time of every compressed response are recorded per encoding and content type, and
+ * the number of each {@link Decision} is counted. This class is thread safe.
+ */
+public class AdaptiveCompressionPolicy
+{
+  /**
+   * The outcome of {@link #choose}.
+   */
+  public enum Decision
+  {
+    /** Compress with the encoding preferred by the client. */
+    COMPRESS,
+    /** Compress with a faster encoding accepted by the client, because the CPU load is high. */
+    FASTER_ENCODING,
+    /** Do not compress, because the CPU load is critical. */
+    SKIP_CPU,
+    /** Do not compress, because the sampled prefix is not compressible. */
+    SKIP_INCOMPRESSIBLE,
+    /** Do not compress, because recent responses of the same content type did not compress well. */
+    SKIP_LOW_RATIO
+  }
+
+  public static final int DEFAULT_SAMPLE_SIZE = 4096;
+  public static final double DEFAULT_MAX_ENTROPY = 7.5;
+  public static final double DEFAULT_MAX_RATIO = 0.9;
+  public static final double DEFAULT_HIGH_CPU_LOAD = 0.75;
+  public static final double DEFAULT_CRITICAL_CPU_LOAD = 0.95;
+
+  /**
+   * One in this many responses that would be skipped for a low ratio is compressed anyway.
+   */
+  public static final int PROBE_INTERVAL = 64;
+
+  private static final int MAX_CONTENT_TYPES = 256;
+  private static final String OTHER_CONTENT_TYPE = "*";
+  private static final double EWMA_WEIGHT = 0.2;
+  private static final long CPU_LOAD_SAMPLE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final int _sampleSize;
+  private final double _maxEntropy;
+  private final double _maxRatio;
+  private final double _highCpuLoad;
+  private final double _criticalCpuLoad;
+  private final DoubleSupplier _cpuLoad;
+
+  private final Map<EncodingType, Map<String, EncodingStats>> _stats =
+      new EnumMap<EncodingType, Map<String, EncodingStats>>(EncodingType.class);
+  private final Map<Decision, AtomicLong> _decisions = new EnumMap<Decision, AtomicLong>(Decision.class);
+
+  private volatile double _sampledCpuLoad;
+  private volatile long _cpuLoadSampledAt;
+  private volatile boolean _cpuLoadSampled = false;
+
+  /**
+   * Creates a policy with the default settings, which uses the system load average per processor as CPU load.
+   */
+  public AdaptiveCompressionPolicy()
+  {
+    this(DEFAULT_SAMPLE_SIZE, DEFAULT_MAX_ENTROPY, DEFAULT_MAX_RATIO, DEFAULT_HIGH_CPU_LOAD, DEFAULT_CRITICAL_CPU_LOAD,
+        systemCpuLoad());
+  }
+
+  /**
+   * @param sampleSize number of leading bytes of a response whose entropy is estimated.
+   * @param maxEntropy entropy, in bits per byte, above which a sample is considered not compressible.
+   * @param maxRatio compressed to original size ratio above which an encoding is considered ineffective
+   *                 for a content type.
+   * @param highCpuLoad CPU load, between 0 and 1, from which the fastest accepted encoding is used.
+   * @param criticalCpuLoad CPU load, between 0 and 1, from which responses are not compressed.
+   * @param cpuLoad supplies the current CPU load between 0 and 1. It is sampled at most once per second.
+   */
+  public AdaptiveCompressionPolicy(int sampleSize, double maxEntropy, double maxRatio, double highCpuLoad,
+      double criticalCpuLoad, DoubleSupplier cpuLoad)
+  {
+    if (sampleSize <= 0)
+    {
+      throw new IllegalArgumentException("sampleSize must be positive: " + sampleSize);
+    }
+    if (highCpuLoad > criticalCpuLoad)
+    {
+      throw new IllegalArgumentException("highCpuLoad " + highCpuLoad + " exceeds criticalCpuLoad " + criticalCpuLoad);
+    }
+    _sampleSize = sampleSize;
+    _maxEntropy = maxEntropy;
+    _maxRatio = maxRatio;
+    _highCpuLoad = highCpuLoad;
+    _criticalCpuLoad = criticalCpuLoad;
+    _cpuLoad = cpuLoad;
+    for (EncodingType type : EncodingType.values())
+    {
+      if (type.hasCompressor())
+      {
+        _stats.put(type, new ConcurrentHashMap<String, EncodingStats>());
+      }
+    }
+    for (Decision decision : Decision.values())
+    {
+      _decisions.put(decision, new AtomicLong());
+    }
+  }
+
+  /**
+   * Chooses the encoding of a response.
+   *
+   * @param entity the response entity.
+   * @param contentType the Content-Type of the response, may be null.
+   * @param selected the encoding preferred by the client, which has a compressor.
+   * @param accepted the encodings accepted by the client, as left by {@link AcceptEncoding#chooseBest(List)}.
+   * @return the encoding to compress the response with, or {@link EncodingType#IDENTITY} to not compress it.
+   */
+  public EncodingType choose(ByteString entity, String contentType, EncodingType selected, List<AcceptEncoding> accepted)
+  {
+    final double cpuLoad = getCpuLoad();
+    if (cpuLoad >= _criticalCpuLoad)
+    {
+      return decide(Decision.SKIP_CPU, EncodingType.IDENTITY);
+    }
+
+    if (entropy(entity, _sampleSize) > _maxEntropy)
+    {
+      return decide(Decision.SKIP_INCOMPRESSIBLE, EncodingType.IDENTITY);
+    }
+
+    EncodingType encoding = selected;
+    Decision decision = Decision.COMPRESS;
+    if (cpuLoad >= _highCpuLoad)
+    {
+      encoding = fastest(selected, contentType, accepted);
+      if (encoding != selected)
+      {
+        decision = Decision.FASTER_ENCODING;
+      }
+    }
+
+    final EncodingStats stats = getStats(encoding, contentType);
+    if (stats.getRatio() > _maxRatio && !stats.probe())
+    {
+      return decide(Decision.SKIP_LOW_RATIO, EncodingType.IDENTITY);
+    }
+    return decide(decision, encoding);
+  }
+
+  /**
+   * Records the outcome of compressing a response.
+   *
+   * @param encoding the encoding the response was compressed with.
+   * @param contentType the Content-Type of the response, may be null.
+   * @param originalLength the length of the response entity.
+   * @param compressedLength the length of the compressed entity.
+   * @param nanos the time spent compressing.
+   */
+  public void record(EncodingType encoding, String contentType, int originalLength, int compressedLength, long nanos)
+  {
+    if (originalLength > 0)
+    {
+      getStats(encoding, contentType).update((double) compressedLength / originalLength, (double) nanos / originalLength);
+    }
+  }
+
+  /**
+   * @return the number of times {@link #choose} made the given decision.
+   */
+  public long getDecisionCount(Decision decision)
+  {
+    return _decisions.get(decision).get();
+  }
+
+  /**
+   * @return the recent average compressed to original size ratio of the given encoding for the given content type,
+   *         or 0 if no response has been recorded.
+   */
+  public double getCompressionRatio(EncodingType encoding, String contentType)
+  {
+    return getStats(encoding, contentType).getRatio();
+  }
+
+  /**
+   * @return the recent average compression time, in nanoseconds per original byte, of the given encoding for the
+   *         given content type, or 0 if no response has been recorded.
+   */
+  public double getCompressionNanosPerByte(EncodingType encoding, String contentType)
+  {
+    return getStats(encoding, contentType).getNanosPerByte();
+  }
+
+  /**
+   * @return the last sampled CPU load.
+   */
+  public double getCpuLoad()
+  {
+    final long now = System.nanoTime();
+    if (!_cpuLoadSampled || now - _cpuLoadSampledAt >= CPU_LOAD_SAMPLE_INTERVAL_NANOS)
+    {
+      _sampledCpuLoad = _cpuLoad.getAsDouble();
+      _cpuLoadSampledAt = now;
+      _cpuLoadSampled = true;
+    }
+    return _sampledCpuLoad;
+  }
+
+  @Override
+  public String toString()
+  {
+    final StringBuilder sb = new StringBuilder("AdaptiveCompressionPolicy{");
+    for (Map.Entry<Decision, AtomicLong> entry : _decisions.entrySet())
+    {
+      sb.append(entry.getKey()).append('=').append(entry.getValue().get()).append(", ");
+    }
+    return sb.append("cpuLoad=").append(_sampledCpuLoad).append('}').toString();
+  }
+
+  /**
+   * Estimates the order 0 entropy, in bits per byte, of the first bytes of the given entity.
+   */
+  static double entropy(ByteString entity, int sampleSize)
+  {
+    final int length = Math.min(entity.length(), sampleSize);
+    if (length == 0)
+    {
+      return 0;
+    }
+    final int[] counts = new int[256];
+    for (int i = 0; i < length; i++)
+    {
+      counts[entity.getByte(i) & 0xff]++;
+    }
+    double entropy = 0;
+    for (int count : counts)
+    {
+      if (count > 0)
+      {
+        final double p = (double) count / length;
+        entropy -= p * Math.log(p);
+      }
+    }
+    return entropy / Math.log(2);
+  }
+
+  /**
+   * Returns the fastest of the selected and the accepted encodings. Encodings are compared by their recorded
+   * compression time per byte once all of them have been recorded for the content type, and by their static
+   * {@link #rank} until then, as the two are not comparable.
+   */
+  private EncodingType fastest(EncodingType selected, String contentType, List<AcceptEncoding> accepted)
+  {
+    final List<EncodingType> candidates = new ArrayList<EncodingType>(accepted.size() + 1);
+    candidates.add(selected);
+    boolean measured = getStats(selected, contentType).getNanosPerByte() > 0;
+    for (AcceptEncoding entry : accepted)
+    {
+      final EncodingType type = entry.getType();
+      if (entry.getQuality() > 0 && type.hasCompressor())
+      {
+        candidates.add(type);
+        measured &= getStats(type, contentType).getNanosPerByte() > 0;
+      }
+    }
+
+    EncodingType fastest = selected;
+    double fastestCost = Double.MAX_VALUE;
+    for (EncodingType type : candidates)
+    {
+      final double cost = measured ? getStats(type, contentType).getNanosPerByte() : rank(type);
+      if (cost < fastestCost)
+      {
+        fastest = type;
+        fastestCost = cost;
+      }
+    }
+    return fastest;
+  }
+
+  /**
+   * The relative speed of an encoding, lower is faster.
+   */
+  private static int rank(EncodingType encoding)
+  {
+    switch (encoding)
+    {
+      case SNAPPY:
+      case SNAPPY_FRAMED:
+      case LZ4:
+        return 1;
+      case ZSTD:
+        return 3;
+      case DEFLATE:
+      case GZIP:
+        return 10;
+      default:
+        return 50;
+    }
+  }
+
+  private EncodingType decide(Decision decision, EncodingType encoding)
+  {
+    _decisions.get(decision).incrementAndGet();
+    return encoding;
+  }
+
+  private EncodingStats getStats(EncodingType encoding, String contentType)
+  {
+    final Map<String, EncodingStats> stats = _stats.get(encoding);
+    String key = normalize(contentType);
+    EncodingStats result = stats.get(key);
+    if (result == null)
+    {
+      if (stats.size() >= MAX_CONTENT_TYPES)
+      {
+        key = OTHER_CONTENT_TYPE;
+      }
+      result = stats.computeIfAbsent(key, k -> new EncodingStats());
+    }
+    return result;
+  }
+
+  private static String normalize(String contentType)
+  {
+    if (contentType == null)
+    {
+      return OTHER_CONTENT_TYPE;
+    }
+    final int semicolon = contentType.indexOf(';');
+    return (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim().toLowerCase();
+  }
+
+  private static DoubleSupplier systemCpuLoad()
+  {
+    final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    return () -> Math.max(0, os.getSystemLoadAverage() / os.getAvailableProcessors());
+  }
+
+  /**
+   * Exponentially weighted moving averages of the compression ratio and time of one encoding for one content type.
+   */
+  private static class EncodingStats
+  {
+    private double _ratio = 0;
+    private double _nanosPerByte = 0;
+    private long _skipped = 0;
+
+    private synchronized void update(double ratio, double nanosPerByte)
+    {
+      if (_ratio == 0 && _nanosPerByte == 0)
+      {
+        _ratio = ratio;
+        _nanosPerByte = nanosPerByte;
+      }
+      else
+      {
+        _ratio += EWMA_WEIGHT * (ratio - _ratio);
+        _nanosPerByte += EWMA_WEIGHT * (nanosPerByte - _nanosPerByte);
+      }
+    }
+
+    private synchronized double getRatio()
+    {
+      return _ratio;
+    }
+
+    private synchronized double getNanosPerByte()
+    {
+      return _nanosPerByte;
+    }
+
+    /**
+     * @return whether a response that would be skipped should be compressed to refresh these statistics.
+     */
+    private synchronized boolean probe()
+    {
+      return ++_skipped % PROBE_INTERVAL == 0;
+    }
+  }
+}
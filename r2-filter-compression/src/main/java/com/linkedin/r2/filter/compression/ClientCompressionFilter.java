@@ -48,6 +48,7 @@ public class ClientCompressionFilter implements RestFilter
   private final CompressionConfig _responseCompressionConfig;
   private final String _acceptEncodingHeader;
   private final ClientCompressionHelper _helper;
+  private final CompressionDictionaryStore _dictionaries;
 
 
   /**
@@ -65,6 +66,30 @@ public class ClientCompressionFilter implements RestFilter
                                  EncodingType[] acceptedEncodings,
                                  CompressionConfig responseCompressionConfig,
                                  List<String> responseCompressionOperations)
+  {
+    this(requestContentEncoding, requestCompressionConfig, acceptedEncodings, responseCompressionConfig,
+        responseCompressionOperations, null);
+  }
+
+  /**
+   * Instantiates a client compression filter that also lets the server compress responses with the dictionaries of
+   * the given store.
+   *
+   * @param requestContentEncoding the encoding that should be used to compress requests.
+   * @param requestCompressionConfig config for determining when to compress requests.
+   * @param acceptedEncodings encodings accepted by the client, used to generate Accept-Encoding header.
+   *                          Dictionaries are only used if it includes {@link EncodingType#ZSTD}.
+   * @param responseCompressionConfig config for determining when to ask the server to compress responses.
+   *                                  This overrides the config in the server.
+   * @param responseCompressionOperations the set of operations for which response compression will be turned on.
+   * @param dictionaries the dictionaries held by the client, or null to not use dictionaries.
+   */
+  public ClientCompressionFilter(EncodingType requestContentEncoding,
+                                 CompressionConfig requestCompressionConfig,
+                                 EncodingType[] acceptedEncodings,
+                                 CompressionConfig responseCompressionConfig,
+                                 List<String> responseCompressionOperations,
+                                 CompressionDictionaryStore dictionaries)
   {
     if (requestContentEncoding == null)
     {
@@ -99,6 +124,7 @@ public class ClientCompressionFilter implements RestFilter
     _acceptEncodingHeader = buildAcceptEncodingHeader(acceptedEncodings);
     _responseCompressionConfig = responseCompressionConfig;
     _helper = new ClientCompressionHelper(requestCompressionConfig, responseCompressionOperations);
+    _dictionaries = dictionaries;
   }
 
   /**
@@ -172,6 +198,15 @@ public class ClientCompressionFilter implements RestFilter
       builder.addHeaderValue(HttpConstants.ACCEPT_ENCODING, _acceptEncodingHeader)
           .addHeaderValue(HttpConstants.HEADER_RESPONSE_COMPRESSION_THRESHOLD, Integer.toString(0));
     }
+    if (responseCompressionOverride != CompressionOption.FORCE_OFF && _dictionaries != null)
+    {
+      Set<String> dictionaryIds = _dictionaries.getIds();
+      if (!dictionaryIds.isEmpty())
+      {
+        builder.setHeader(HttpConstants.HEADER_ACCEPT_COMPRESSION_DICTIONARY,
+            String.join(CompressionConstants.ENCODING_DELIMITER, dictionaryIds));
+      }
+    }
     return builder.build();
   }
 
@@ -232,6 +267,12 @@ public class ClientCompressionFilter implements RestFilter
     {
       try
       {
+        String availableDictionary = res.getHeader(HttpConstants.HEADER_AVAILABLE_COMPRESSION_DICTIONARY);
+        if (availableDictionary != null && _dictionaries != null)
+        {
+          _dictionaries.addAvailableId(availableDictionary.trim());
+        }
+
         //Check for header encoding
         String compressionHeader = res.getHeader(HttpConstants.CONTENT_ENCODING);
 
@@ -251,9 +292,21 @@ public class ClientCompressionFilter implements RestFilter
           {
             throw new CompressionException(CompressionConstants.SERVER_ENCODING_ERROR + compressionHeader);
           }
-          byte[] inflated = encoding.getCompressor().inflate(res.getEntity().asInputStream());
+          Compressor compressor = encoding.getCompressor();
+          String dictionaryId = res.getHeader(HttpConstants.HEADER_COMPRESSION_DICTIONARY);
+          if (dictionaryId != null)
+          {
+            CompressionDictionary dictionary = _dictionaries == null ? null : _dictionaries.get(dictionaryId.trim());
+            if (dictionary == null || encoding != EncodingType.ZSTD)
+            {
+              throw new CompressionException(CompressionConstants.SERVER_DICTIONARY_ERROR + dictionaryId);
+            }
+            compressor = dictionary.getCompressor();
+          }
+          byte[] inflated = compressor.inflate(res.getEntity().asInputStream());
           Map<String, String> headers = new HashMap<String, String>(res.getHeaders());
           headers.remove(HttpConstants.CONTENT_ENCODING);
+          headers.remove(HttpConstants.HEADER_COMPRESSION_DICTIONARY);
           headers.put(HttpConstants.CONTENT_LENGTH, Integer.toString(inflated.length));
           res = res.builder().setEntity(inflated).setHeaders(headers).build();
         }
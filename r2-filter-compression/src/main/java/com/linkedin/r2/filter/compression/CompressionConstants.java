@@ -14,6 +14,7 @@ public class CompressionConstants
 
   public static final String UNSUPPORTED_ENCODING = "Unsupported encoding referenced: ";
   public static final String SERVER_ENCODING_ERROR = "Server returned unrecognized content encoding: ";
+  public static final String SERVER_DICTIONARY_ERROR = "Server returned content compressed with an unknown dictionary: ";
   public static final String REQUEST_ANY_ERROR = "ANY may not be used as request encoding type: ";
   public static final String UNKNOWN_ENCODING = "Unknown encoding type: ";
   protected static final String INVALID_THRESHOLD = "Invalid compression threshold: ";
@@ -0,0 +1,120 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.compression;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+
+/**
+ * A zstd dictionary shared by a client and a server, identified by a hash of its content so that both sides can
+ * tell whether they hold the same dictionary.
+ */
+public final class CompressionDictionary
+{
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  private static final int ID_BYTES = 8;
+
+  private final String _id;
+  private final byte[] _content;
+  private volatile Compressor _compressor;
+
+  /**
+   * @param content the dictionary, either trained by zstd or raw content typical of the payloads.
+   */
+  public CompressionDictionary(byte[] content)
+  {
+    if (content.length == 0)
+    {
+      throw new IllegalArgumentException("Empty compression dictionary");
+    }
+    _content = content.clone();
+    _id = idOf(_content);
+  }
+
+  /**
+   * @return the identifier of this dictionary, a hexadecimal prefix of the SHA-256 hash of its content.
+   */
+  public String getId()
+  {
+    return _id;
+  }
+
+  /**
+   * @return a copy of the content of this dictionary.
+   */
+  public byte[] getContent()
+  {
+    return _content.clone();
+  }
+
+  /**
+   * @return a zstd {@link Compressor} that uses this dictionary.
+   */
+  public Compressor getCompressor()
+  {
+    Compressor compressor = _compressor;
+    if (compressor == null)
+    {
+      compressor = new ZstdCompressor(ZstdCompressor.DEFAULT_LEVEL, _content);
+      _compressor = compressor;
+    }
+    return compressor;
+  }
+
+  @Override
+  public boolean equals(Object o)
+  {
+    return o instanceof CompressionDictionary && Arrays.equals(_content, ((CompressionDictionary) o)._content);
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return _id.hashCode();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "CompressionDictionary{id=" + _id + ", size=" + _content.length + "}";
+  }
+
+  /**
+   * @return the identifier of a dictionary with the given content.
+   */
+  public static String idOf(byte[] content)
+  {
+    final byte[] hash;
+    try
+    {
+      hash = MessageDigest.getInstance("SHA-256").digest(content);
+    }
+    catch (NoSuchAlgorithmException e)
+    {
+      throw new IllegalStateException(e);
+    }
+    final char[] id = new char[ID_BYTES * 2];
+    for (int i = 0; i < ID_BYTES; i++)
+    {
+      id[2 * i] = HEX[(hash[i] >> 4) & 0xf];
+      id[2 * i + 1] = HEX[hash[i] & 0xf];
+    }
+    return new String(id);
+  }
+}
@@ -0,0 +1,200 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Holds the {@link CompressionDictionary} instances known locally, and which of them is active, i.e. used to
+ * compress responses, for each key. The key is typically the resource name of a rest.li request.
+ *
+ * A store created with a directory keeps every dictionary in a {@code <id>.dict} file and the active dictionaries in
+ * {@code active.properties}, and loads them when it is created. A store created without a directory is in memory.
+ * This class is thread safe.
+ */
+public class CompressionDictionaryStore
+{
+  private static final String DICTIONARY_SUFFIX = ".dict";
+  private static final String ACTIVE_FILE = "active.properties";
+
+  private final Path _directory;
+  private final Map<String, CompressionDictionary> _dictionaries = new ConcurrentHashMap<String, CompressionDictionary>();
+  private final Map<String, String> _active = new ConcurrentHashMap<String, String>();
+  private final Set<String> _availableIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  /**
+   * Creates an in-memory store.
+   */
+  public CompressionDictionaryStore()
+  {
+    _directory = null;
+  }
+
+  /**
+   * Creates a store persisted in the given directory, and loads the dictionaries already there.
+   *
+   * @throws IOException if the directory cannot be created or read.
+   */
+  public CompressionDictionaryStore(File directory) throws IOException
+  {
+    _directory = directory.toPath();
+    Files.createDirectories(_directory);
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(_directory, "*" + DICTIONARY_SUFFIX))
+    {
+      for (Path file : files)
+      {
+        final CompressionDictionary dictionary = new CompressionDictionary(Files.readAllBytes(file));
+        _dictionaries.put(dictionary.getId(), dictionary);
+      }
+    }
+    final Path activeFile = _directory.resolve(ACTIVE_FILE);
+    if (Files.exists(activeFile))
+    {
+      final Properties active = new Properties();
+      try (InputStream in = Files.newInputStream(activeFile))
+      {
+        active.load(in);
+      }
+      for (String key : active.stringPropertyNames())
+      {
+        final String id = active.getProperty(key);
+        if (_dictionaries.containsKey(id))
+        {
+          _active.put(key, id);
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds a dictionary to this store, persisting it if this store has a directory.
+   *
+   * @return the added dictionary, or the equal dictionary already in this store.
+   */
+  public CompressionDictionary add(byte[] content) throws IOException
+  {
+    final CompressionDictionary dictionary = new CompressionDictionary(content);
+    final CompressionDictionary existing = _dictionaries.get(dictionary.getId());
+    if (existing != null)
+    {
+      return existing;
+    }
+    if (_directory != null)
+    {
+      write(_directory.resolve(dictionary.getId() + DICTIONARY_SUFFIX), content);
+    }
+    _dictionaries.put(dictionary.getId(), dictionary);
+    _availableIds.remove(dictionary.getId());
+    return dictionary;
+  }
+
+  /**
+   * @return the dictionary with the given identifier, or null if this store does not hold it.
+   */
+  public CompressionDictionary get(String id)
+  {
+    return _dictionaries.get(id);
+  }
+
+  /**
+   * @return the identifiers of the dictionaries held by this store.
+   */
+  public Set<String> getIds()
+  {
+    return Collections.unmodifiableSet(new HashSet<String>(_dictionaries.keySet()));
+  }
+
+  /**
+   * Makes the given dictionary the one used for the given key.
+   *
+   * @throws IllegalArgumentException if this store does not hold the dictionary.
+   * @throws IOException if the active dictionaries cannot be persisted.
+   */
+  public synchronized void setActive(String key, String id) throws IOException
+  {
+    if (!_dictionaries.containsKey(id))
+    {
+      throw new IllegalArgumentException("Unknown compression dictionary: " + id);
+    }
+    _active.put(key, id);
+    if (_directory != null)
+    {
+      final Properties active = new Properties();
+      active.putAll(_active);
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      active.store(out, null);
+      write(_directory.resolve(ACTIVE_FILE), out.toByteArray());
+    }
+  }
+
+  /**
+   * @return the dictionary used for the given key, or null if there is none.
+   */
+  public CompressionDictionary getActive(String key)
+  {
+    final String id = _active.get(key);
+    return id == null ? null : _dictionaries.get(id);
+  }
+
+  /**
+   * Records that a peer offers a dictionary, if this store does not hold it yet.
+   */
+  public void addAvailableId(String id)
+  {
+    if (!_dictionaries.containsKey(id))
+    {
+      _availableIds.add(id);
+    }
+  }
+
+  /**
+   * @return the identifiers of the dictionaries offered by peers that this store does not hold, so that they can be
+   *         fetched and {@link #add(byte[]) added}.
+   */
+  public Set<String> getAvailableIds()
+  {
+    return Collections.unmodifiableSet(new HashSet<String>(_availableIds));
+  }
+
+  private void write(Path file, byte[] content) throws IOException
+  {
+    final Path tempFile = Files.createTempFile(_directory, file.getFileName().toString(), ".tmp");
+    try
+    {
+      Files.write(tempFile, content);
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    finally
+    {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+}
@@ -0,0 +1,215 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.compression;
+
+import com.github.luben.zstd.Zstd;
+import com.linkedin.data.ByteString;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Trains a zstd {@link CompressionDictionary} per key from sampled payloads, adds it to a
+ * {@link CompressionDictionaryStore} and makes it the active dictionary of the key.
+ *
+ * Payloads are sampled online with {@link #sample(String, ByteString)} until enough have been collected for a key,
+ * then the dictionary is trained on the given executor. Only a fraction of the payloads is sampled, and at most a
+ * given number of keys is tracked, so that keys derived from client requests cannot exhaust memory. Sampled payloads
+ * are referenced, not copied, until the dictionary is trained. Dictionaries can also be trained offline with
+ * {@link #train(List, int)}. This class is thread safe.
+ */
+public class CompressionDictionaryTrainer
+{
+  private static final Logger LOG = LoggerFactory.getLogger(CompressionDictionaryTrainer.class);
+
+  public static final int DEFAULT_SAMPLES_PER_DICTIONARY = 1000;
+  public static final int DEFAULT_DICTIONARY_SIZE = 16 * 1024;
+  public static final int DEFAULT_MAX_SAMPLE_SIZE = 16 * 1024;
+  public static final double DEFAULT_SAMPLE_RATE = 0.01;
+  public static final int DEFAULT_MAX_KEYS = 32;
+
+  private final CompressionDictionaryStore _store;
+  private final Executor _executor;
+  private final int _samplesPerDictionary;
+  private final int _dictionarySize;
+  private final int _maxSampleSize;
+  private final double _sampleRate;
+  private final int _maxKeys;
+
+  private final Map<String, List<ByteString>> _samples = new ConcurrentHashMap<String, List<ByteString>>();
+  private final Set<String> _trainedKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  public CompressionDictionaryTrainer(CompressionDictionaryStore store, Executor executor)
+  {
+    this(store, executor, DEFAULT_SAMPLES_PER_DICTIONARY, DEFAULT_DICTIONARY_SIZE, DEFAULT_MAX_SAMPLE_SIZE);
+  }
+
+  public CompressionDictionaryTrainer(CompressionDictionaryStore store, Executor executor, int samplesPerDictionary,
+      int dictionarySize, int maxSampleSize)
+  {
+    this(store, executor, samplesPerDictionary, dictionarySize, maxSampleSize, DEFAULT_SAMPLE_RATE, DEFAULT_MAX_KEYS);
+  }
+
+  /**
+   * @param store the store that receives the trained dictionaries.
+   * @param executor the executor that trains the dictionaries.
+   * @param samplesPerDictionary the number of payloads sampled to train the dictionary of a key.
+   * @param dictionarySize the maximum size of a dictionary.
+   * @param maxSampleSize the size above which payloads are not sampled, as they gain little from a dictionary.
+   * @param sampleRate the probability, between 0 and 1, that a payload is sampled.
+   * @param maxKeys the maximum number of keys that are sampled or have a trained dictionary. Payloads of other keys
+   *                are ignored until {@link #retrain(String)} is called for one of these keys.
+   */
+  public CompressionDictionaryTrainer(CompressionDictionaryStore store, Executor executor, int samplesPerDictionary,
+      int dictionarySize, int maxSampleSize, double sampleRate, int maxKeys)
+  {
+    if (sampleRate < 0 || sampleRate > 1)
+    {
+      throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + sampleRate);
+    }
+    _store = store;
+    _executor = executor;
+    _samplesPerDictionary = samplesPerDictionary;
+    _dictionarySize = dictionarySize;
+    _maxSampleSize = maxSampleSize;
+    _sampleRate = sampleRate;
+    _maxKeys = maxKeys;
+  }
+
+  /**
+   * Samples a payload of the given key, unless a dictionary has already been trained for the key, or too many
+   * keys are already tracked.
+   */
+  public void sample(String key, ByteString payload)
+  {
+    if (payload.isEmpty() || payload.length() > _maxSampleSize || _trainedKeys.contains(key)
+        || ThreadLocalRandom.current().nextDouble() >= _sampleRate)
+    {
+      return;
+    }
+    final List<ByteString> samples = getSamples(key);
+    if (samples == null)
+    {
+      return;
+    }
+    final List<ByteString> complete;
+    synchronized (samples)
+    {
+      if (samples.size() >= _samplesPerDictionary)
+      {
+        // training is already scheduled
+        return;
+      }
+      // ByteString is immutable, so the payload is copied when the dictionary is trained, off the request thread.
+      samples.add(payload);
+      complete = samples.size() == _samplesPerDictionary ? samples : null;
+    }
+    if (complete != null)
+    {
+      _executor.execute(() -> trainAndActivate(key, complete));
+    }
+  }
+
+  /**
+   * Returns the samples of the given key, or null if the key is not tracked and no more keys can be.
+   */
+  private List<ByteString> getSamples(String key)
+  {
+    List<ByteString> samples = _samples.get(key);
+    if (samples == null)
+    {
+      synchronized (_samples)
+      {
+        samples = _samples.get(key);
+        if (samples == null)
+        {
+          if (_samples.size() + _trainedKeys.size() >= _maxKeys)
+          {
+            return null;
+          }
+          samples = new ArrayList<ByteString>(_samplesPerDictionary);
+          _samples.put(key, samples);
+        }
+      }
+    }
+    return samples;
+  }
+
+  /**
+   * Samples the payloads of the given key again, to replace its dictionary once enough have been collected.
+   */
+  public void retrain(String key)
+  {
+    _trainedKeys.remove(key);
+  }
+
+  /**
+   * Trains a zstd dictionary.
+   *
+   * @param samples payloads typical of those the dictionary will be used for.
+   * @param dictionarySize the maximum size of the dictionary.
+   * @return the dictionary.
+   * @throws IllegalArgumentException if zstd cannot train a dictionary from the samples, e.g. if they are too few.
+   */
+  public static byte[] train(List<byte[]> samples, int dictionarySize)
+  {
+    final byte[] buffer = new byte[dictionarySize];
+    final long size = Zstd.trainFromBuffer(samples.toArray(new byte[samples.size()][]), buffer);
+    if (Zstd.isError(size))
+    {
+      throw new IllegalArgumentException("Cannot train a compression dictionary: " + Zstd.getErrorName(size));
+    }
+    return Arrays.copyOf(buffer, (int) size);
+  }
+
+  private void trainAndActivate(String key, List<ByteString> samples)
+  {
+    try
+    {
+      final List<byte[]> bytes = new ArrayList<byte[]>(samples.size());
+      for (ByteString sample : samples)
+      {
+        bytes.add(sample.copyBytes());
+      }
+      final CompressionDictionary dictionary = _store.add(train(bytes, _dictionarySize));
+      _store.setActive(key, dictionary.getId());
+      _trainedKeys.add(key);
+      LOG.info("Trained compression dictionary " + dictionary.getId() + " for " + key);
+    }
+    catch (IOException | RuntimeException e)
+    {
+      LOG.warn("Failed to train compression dictionary for " + key, e);
+    }
+    finally
+    {
+      synchronized (_samples)
+      {
+        _samples.remove(key);
+      }
+    }
+  }
+}
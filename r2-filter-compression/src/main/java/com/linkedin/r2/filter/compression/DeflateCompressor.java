@@ -32,6 +32,30 @@ public class DeflateCompressor implements Compressor
 {
   private final static String HTTP_NAME = "deflate";
 
+  private static final ThreadLocal<byte[]> TEMP_BUFFER = new ThreadLocal<byte[]>()
+  {
+    @Override
+    protected byte[] initialValue()
+    {
+      return new byte[CompressionConstants.BUFFER_SIZE];
+    }
+  };
+
+  private final ZlibPool _pool;
+
+  public DeflateCompressor()
+  {
+    this(ZlibPool.getDefault());
+  }
+
+  /**
+   * @param pool the pool to borrow {@link Deflater} and {@link Inflater} instances from.
+   */
+  public DeflateCompressor(ZlibPool pool)
+  {
+    _pool = pool;
+  }
+
   @Override
   public String getContentEncodingName()
   {
@@ -51,43 +75,58 @@ public class DeflateCompressor implements Compressor
       throw new CompressionException(CompressionConstants.DECODING_ERROR + CompressionConstants.BAD_STREAM, e);
     }
 
-    Inflater zlib = new Inflater();
-    zlib.setInput(input);
+    Inflater zlib = _pool.borrowInflater(false);
+    boolean succeeded = false;
+    try
+    {
+      zlib.setInput(input);
 
-    ByteArrayOutputStream output = new ByteArrayOutputStream();
-    byte[] temp = new byte[CompressionConstants.BUFFER_SIZE];
+      ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(input.length, 32));
+      byte[] temp = TEMP_BUFFER.get();
 
-    int bytesRead;
-    while(!zlib.finished())
-    {
-      try
-      {
-        bytesRead = zlib.inflate(temp);
-      }
-      catch (DataFormatException e)
-      {
-        throw new CompressionException(CompressionConstants.DECODING_ERROR + getContentEncodingName(), e);
-      }
-      if (bytesRead == 0)
+      int bytesRead;
+      while(!zlib.finished())
       {
-        if (!zlib.needsInput())
+        try
         {
-          throw new CompressionException(CompressionConstants.DECODING_ERROR + getContentEncodingName());
+          bytesRead = zlib.inflate(temp);
         }
-        else
+        catch (DataFormatException e)
+        {
+          throw new CompressionException(CompressionConstants.DECODING_ERROR + getContentEncodingName(), e);
+        }
+        if (bytesRead == 0)
+        {
+          if (!zlib.needsInput())
+          {
+            throw new CompressionException(CompressionConstants.DECODING_ERROR + getContentEncodingName());
+          }
+          else
+          {
+            break;
+          }
+        }
+
+        if (bytesRead > 0)
         {
-          break;
+          output.write(temp, 0, bytesRead);
         }
       }
 
-      if (bytesRead > 0)
+      succeeded = true;
+      return output.toByteArray();
+    }
+    finally
+    {
+      if (succeeded)
       {
-        output.write(temp, 0, bytesRead);
+        _pool.release(zlib, false);
+      }
+      else
+      {
+        _pool.discard(zlib);
       }
     }
-
-    zlib.end();
-    return output.toByteArray();
   }
 
 
@@ -104,33 +143,48 @@ public class DeflateCompressor implements Compressor
       throw new CompressionException(CompressionConstants.DECODING_ERROR + CompressionConstants.BAD_STREAM, e);
     }
 
-    Deflater zlib = new Deflater();
-    zlib.setInput(input);
-    zlib.finish();
-
-    ByteArrayOutputStream output = new ByteArrayOutputStream();
-    byte[] temp = new byte[CompressionConstants.BUFFER_SIZE];
-
-    int bytesRead;
-    while(!zlib.finished())
+    Deflater zlib = _pool.borrowDeflater(false);
+    boolean succeeded = false;
+    try
     {
-      bytesRead = zlib.deflate(temp);
+      zlib.setInput(input);
+      zlib.finish();
 
-      if (bytesRead == 0)
+      ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(input.length / 2, 32));
+      byte[] temp = TEMP_BUFFER.get();
+
+      int bytesRead;
+      while(!zlib.finished())
       {
-        if (!zlib.needsInput())
-        {
-          throw new CompressionException(CompressionConstants.DECODING_ERROR + getContentEncodingName());
-        }
-        else
+        bytesRead = zlib.deflate(temp);
+
+        if (bytesRead == 0)
         {
-          break;
+          if (!zlib.needsInput())
+          {
+            throw new CompressionException(CompressionConstants.DECODING_ERROR + getContentEncodingName());
+          }
+          else
+          {
+            break;
+          }
         }
+        output.write(temp, 0, bytesRead);
       }
-      output.write(temp, 0, bytesRead);
-    }
-    zlib.end();
 
-    return output.toByteArray();
+      succeeded = true;
+      return output.toByteArray();
+    }
+    finally
+    {
+      if (succeeded)
+      {
+        _pool.release(zlib, false);
+      }
+      else
+      {
+        _pool.discard(zlib);
+      }
+    }
   }
 }
@@ -31,6 +31,8 @@ public enum EncodingType
   BZIP2(new Bzip2Compressor()),
   SNAPPY(new SnappyCompressor()),
   SNAPPY_FRAMED(new SnappyFramedCompressor()),
+  ZSTD(new ZstdCompressor()),
+  LZ4(new Lz4Compressor()),
   IDENTITY("identity"),
   ANY("*");
 
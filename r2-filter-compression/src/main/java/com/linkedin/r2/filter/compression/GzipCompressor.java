@@ -19,8 +19,6 @@ package com.linkedin.r2.filter.compression;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.io.IOUtils;
 
@@ -31,17 +29,32 @@ public class GzipCompressor implements Compressor
 {
   private static final String HTTP_NAME = "gzip";
 
+  private final ZlibPool _pool;
+
+  public GzipCompressor()
+  {
+    this(ZlibPool.getDefault());
+  }
+
+  /**
+   * @param pool the pool to borrow {@link java.util.zip.Deflater} and {@link java.util.zip.Inflater} instances from.
+   */
+  public GzipCompressor(ZlibPool pool)
+  {
+    _pool = pool;
+  }
+
   //Consider changing input param as streams rather than fixed bytes?
   @Override
   public byte[] inflate(InputStream data) throws CompressionException
   {
     ByteArrayOutputStream out;
-    GZIPInputStream gzip = null;
+    PooledInflaterInputStream gzip = null;
 
     try
     {
       out = new ByteArrayOutputStream();
-      gzip = new GZIPInputStream(data);
+      gzip = new PooledInflaterInputStream(data, _pool, true);
 
       IOUtils.copy(gzip, out);
     }
@@ -64,25 +77,23 @@ public class GzipCompressor implements Compressor
   public byte[] deflate(InputStream data) throws CompressionException
   {
     ByteArrayOutputStream out;
-    GZIPOutputStream gzip = null;
+    PooledDeflaterOutputStream gzip = null;
 
     try
     {
       out = new ByteArrayOutputStream();
-      gzip = new GZIPOutputStream(out);
+      gzip = new PooledDeflaterOutputStream(out, _pool, true);
 
-     IOUtils.copy(data, gzip);
+      IOUtils.copy(data, gzip);
+      gzip.close();
     }
     catch (IOException e)
-    {
-      throw new CompressionException(CompressionConstants.DECODING_ERROR + getContentEncodingName(), e);
-    }
-    finally
     {
       if (gzip != null)
       {
-        IOUtils.closeQuietly(gzip);
+        gzip.abort();
       }
+      throw new CompressionException(CompressionConstants.DECODING_ERROR + getContentEncodingName(), e);
     }
 
     return out.toByteArray();
@@ -0,0 +1,152 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+
+/**
+ * A {@link DeflaterOutputStream} that writes the zlib or gzip format with a {@link Deflater} borrowed from a
+ * {@link ZlibPool}. The {@link Deflater} is returned to the pool by {@link #close()}, or discarded by
+ * {@link #abort()} or if finishing the compressed data fails.
+ */
+public class PooledDeflaterOutputStream extends DeflaterOutputStream
+{
+  private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+  private final ZlibLease _lease;
+  private final CRC32 _crc;
+
+  /**
+   * @param out the output stream that receives the compressed data.
+   * @param pool the pool to borrow the {@link Deflater} from.
+   * @param gzip whether to write the gzip format rather than the zlib format.
+   * @throws IOException if the gzip header cannot be written.
+   */
+  public PooledDeflaterOutputStream(OutputStream out, final ZlibPool pool, final boolean gzip) throws IOException
+  {
+    super(out, pool.borrowDeflater(gzip), CompressionConstants.BUFFER_SIZE);
+    final Deflater deflater = def;
+    _lease = new ZlibLease(() -> pool.release(deflater, gzip), () -> pool.discard(deflater));
+    _crc = gzip ? new CRC32() : null;
+    if (gzip)
+    {
+      try
+      {
+        out.write(GZIP_HEADER);
+      }
+      catch (IOException e)
+      {
+        _lease.abort();
+        throw e;
+      }
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException
+  {
+    _lease.enter();
+    try
+    {
+      super.write(b, off, len);
+      if (_crc != null)
+      {
+        _crc.update(b, off, len);
+      }
+    }
+    finally
+    {
+      _lease.exit();
+    }
+  }
+
+  @Override
+  public void finish() throws IOException
+  {
+    _lease.enter();
+    try
+    {
+      finishCompressedData();
+    }
+    finally
+    {
+      _lease.exit();
+    }
+  }
+
+  /**
+   * Finish the compressed data, close the underlying stream and return the {@link Deflater} to the pool.
+   * Closing a closed or aborted stream only closes the underlying stream.
+   */
+  @Override
+  public void close() throws IOException
+  {
+    if (_lease.tryEnter())
+    {
+      boolean finished = false;
+      try
+      {
+        finishCompressedData();
+        finished = true;
+      }
+      finally
+      {
+        _lease.close(finished);
+      }
+    }
+    out.close();
+  }
+
+  /**
+   * Abandon the compressed data and discard the {@link Deflater}. The underlying stream is not closed.
+   * This may be called from any thread.
+   */
+  public void abort()
+  {
+    _lease.abort();
+  }
+
+  private void finishCompressedData() throws IOException
+  {
+    if (!def.finished())
+    {
+      def.finish();
+      while (!def.finished())
+      {
+        deflate();
+      }
+      if (_crc != null)
+      {
+        writeInt((int) _crc.getValue());
+        writeInt((int) def.getBytesRead());
+      }
+    }
+  }
+
+  private void writeInt(int value) throws IOException
+  {
+    out.write(value & 0xff);
+    out.write((value >> 8) & 0xff);
+    out.write((value >> 16) & 0xff);
+    out.write((value >> 24) & 0xff);
+  }
+}
@@ -0,0 +1,276 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+
+/**
+ * An {@link InflaterInputStream} that reads the zlib or gzip format with an {@link Inflater} borrowed from a
+ * {@link ZlibPool}. Like {@link java.util.zip.GZIPInputStream}, concatenated gzip members are read as one stream.
+ * The {@link Inflater} is returned to the pool as soon as the end of the compressed data is read, or by
+ * {@link #close()}. It is discarded instead by {@link #abort()}, if reading fails or if the stream is closed by
+ * another thread while being read.
+ */
+public class PooledInflaterInputStream extends InflaterInputStream
+{
+  private static final int GZIP_MAGIC = 0x8b1f;
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+
+  private final ZlibLease _lease;
+  private final CRC32 _crc;
+  private boolean _failed = false;
+  private boolean _eos = false;
+
+  /**
+   * @param in the input stream that provides the compressed data.
+   * @param pool the pool to borrow the {@link Inflater} from.
+   * @param gzip whether to read the gzip format rather than the zlib format.
+   * @throws IOException if the gzip header cannot be read or is invalid.
+   */
+  public PooledInflaterInputStream(InputStream in, final ZlibPool pool, final boolean gzip) throws IOException
+  {
+    super(in, pool.borrowInflater(gzip), CompressionConstants.BUFFER_SIZE);
+    final Inflater inflater = inf;
+    _lease = new ZlibLease(() -> pool.release(inflater, gzip), () -> pool.discard(inflater));
+    _crc = gzip ? new CRC32() : null;
+    if (gzip)
+    {
+      try
+      {
+        readHeader(in);
+      }
+      catch (IOException | RuntimeException e)
+      {
+        _lease.abort();
+        throw e;
+      }
+    }
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException
+  {
+    if (_eos)
+    {
+      return -1;
+    }
+    _lease.enter();
+    try
+    {
+      int n;
+      while ((n = super.read(b, off, len)) == -1)
+      {
+        if (_crc == null || readTrailer())
+        {
+          _eos = true;
+          return -1;
+        }
+      }
+      if (_crc != null)
+      {
+        _crc.update(b, off, n);
+      }
+      return n;
+    }
+    catch (IOException | RuntimeException e)
+    {
+      _failed = true;
+      throw e;
+    }
+    finally
+    {
+      if (_eos)
+      {
+        _lease.close(true);
+      }
+      else
+      {
+        _lease.exit();
+      }
+    }
+  }
+
+  /**
+   * Close the underlying stream and, unless that was already done at the end of the compressed data, return the
+   * {@link Inflater} to the pool. If the stream is being read by another thread, the {@link Inflater} is discarded by
+   * that thread instead.
+   */
+  @Override
+  public void close() throws IOException
+  {
+    if (_lease.tryEnter())
+    {
+      _lease.close(!_failed);
+    }
+    else
+    {
+      _lease.abort();
+    }
+    in.close();
+  }
+
+  /**
+   * Abandon the compressed data and discard the {@link Inflater}. The underlying stream is not closed.
+   * This may be called from any thread.
+   */
+  public void abort()
+  {
+    _lease.abort();
+  }
+
+  /**
+   * Read the gzip trailer of the current member and the header of the next member if there is one.
+   *
+   * @return whether the end of the stream has been reached.
+   */
+  private boolean readTrailer() throws IOException
+  {
+    final int n = inf.getRemaining();
+    final InputStream trailerIn = n > 0
+        ? new SequenceInputStream(new ByteArrayInputStream(buf, len - n, n), new FilterInputStream(in) {
+            @Override
+            public void close()
+            {
+            }
+          })
+        : in;
+    if (readUInt(trailerIn) != _crc.getValue() || readUInt(trailerIn) != (inf.getBytesWritten() & 0xffffffffL))
+    {
+      throw new ZipException("Corrupt GZIP trailer");
+    }
+
+    // more bytes after the trailer may be another member, the smallest possible member being 18 bytes long
+    if (in.available() > 0 || n > 26)
+    {
+      int m = 8;
+      try
+      {
+        m += readHeader(trailerIn);
+      }
+      catch (IOException e)
+      {
+        // trailing garbage is ignored, like GZIPInputStream does
+        return true;
+      }
+      inf.reset();
+      if (n > m)
+      {
+        inf.setInput(buf, len - n + m, n - m);
+      }
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Read a gzip member header.
+   *
+   * @return the length of the header.
+   */
+  private int readHeader(InputStream headerIn) throws IOException
+  {
+    final CheckedInputStream checkedIn = new CheckedInputStream(headerIn, _crc);
+    _crc.reset();
+    if (readUShort(checkedIn) != GZIP_MAGIC)
+    {
+      throw new ZipException("Not in GZIP format");
+    }
+    if (readUByte(checkedIn) != Deflater.DEFLATED)
+    {
+      throw new ZipException("Unsupported compression method");
+    }
+    final int flags = readUByte(checkedIn);
+    skipBytes(checkedIn, 6);
+    int n = 10;
+    if ((flags & FEXTRA) == FEXTRA)
+    {
+      final int m = readUShort(checkedIn);
+      skipBytes(checkedIn, m);
+      n += m + 2;
+    }
+    if ((flags & FNAME) == FNAME)
+    {
+      do
+      {
+        n++;
+      } while (readUByte(checkedIn) != 0);
+    }
+    if ((flags & FCOMMENT) == FCOMMENT)
+    {
+      do
+      {
+        n++;
+      } while (readUByte(checkedIn) != 0);
+    }
+    if ((flags & FHCRC) == FHCRC)
+    {
+      final int headerCrc = (int) _crc.getValue() & 0xffff;
+      if (readUShort(checkedIn) != headerCrc)
+      {
+        throw new ZipException("Corrupt GZIP header");
+      }
+      n += 2;
+    }
+    _crc.reset();
+    return n;
+  }
+
+  private static long readUInt(InputStream in) throws IOException
+  {
+    final long low = readUShort(in);
+    return ((long) readUShort(in) << 16) | low;
+  }
+
+  private static int readUShort(InputStream in) throws IOException
+  {
+    final int low = readUByte(in);
+    return (readUByte(in) << 8) | low;
+  }
+
+  private static int readUByte(InputStream in) throws IOException
+  {
+    final int b = in.read();
+    if (b == -1)
+    {
+      throw new EOFException();
+    }
+    return b;
+  }
+
+  private static void skipBytes(InputStream in, int n) throws IOException
+  {
+    for (int i = 0; i < n; i++)
+    {
+      readUByte(in);
+    }
+  }
+}
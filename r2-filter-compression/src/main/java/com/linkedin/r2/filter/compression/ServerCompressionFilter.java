@@ -34,6 +34,7 @@ import com.linkedin.r2.message.rest.RestException;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.rest.RestStatus;
 import com.linkedin.r2.transport.http.common.HttpConstants;
 
 /**
@@ -49,8 +50,12 @@ public class ServerCompressionFilter implements RestFilter
 
   private final Set<EncodingType> _supportedEncoding;
   private final ServerCompressionHelper _serverCompressionHelper;
+  private final AdaptiveCompressionPolicy _compressionPolicy;
+  private final CompressionDictionaryStore _dictionaries;
+  private final CompressionDictionaryTrainer _dictionaryTrainer;
 
   private static final String EMPTY = "";
+  private static final String DICTIONARY_KEY = "CompressionDictionaryKey";
 
   /**
    * Instantiates an empty compression filter that does no compression.
@@ -75,11 +80,47 @@ public class ServerCompressionFilter implements RestFilter
     this(AcceptEncoding.parseAcceptEncoding(acceptedFilters), responseCompressionConfig);
   }
 
+  public ServerCompressionFilter(String acceptedFilters, CompressionConfig responseCompressionConfig,
+                                 AdaptiveCompressionPolicy compressionPolicy)
+  {
+    this(AcceptEncoding.parseAcceptEncoding(acceptedFilters), responseCompressionConfig, compressionPolicy);
+  }
+
   /** Instantiates a compression filter
    * that supports the compression methods in the given set in argument.
    * @param supportedEncoding
    */
   public ServerCompressionFilter(EncodingType[] supportedEncoding, CompressionConfig defaultResponseCompressionConfig)
+  {
+    this(supportedEncoding, defaultResponseCompressionConfig, null);
+  }
+
+  /** Instantiates a compression filter
+   * that supports the compression methods in the given set in argument, and lets the given policy decide
+   * whether and how responses above the compression threshold are compressed.
+   * @param supportedEncoding
+   * @param defaultResponseCompressionConfig
+   * @param compressionPolicy adaptive compression policy, or null to always compress with the preferred encoding.
+   */
+  public ServerCompressionFilter(EncodingType[] supportedEncoding, CompressionConfig defaultResponseCompressionConfig,
+                                 AdaptiveCompressionPolicy compressionPolicy)
+  {
+    this(supportedEncoding, defaultResponseCompressionConfig, compressionPolicy, null, null);
+  }
+
+  /** Instantiates a compression filter
+   * that supports the compression methods in the given set in argument, and that also compresses responses with
+   * the active zstd dictionary of their resource when the client holds it. The resource is the first segment of
+   * the request path.
+   * @param supportedEncoding
+   * @param defaultResponseCompressionConfig
+   * @param compressionPolicy adaptive compression policy, or null to always compress with the preferred encoding.
+   * @param dictionaries the dictionaries held by the server, or null to not use dictionaries.
+   * @param dictionaryTrainer trainer of the dictionaries from sampled responses, or null to not train dictionaries.
+   */
+  public ServerCompressionFilter(EncodingType[] supportedEncoding, CompressionConfig defaultResponseCompressionConfig,
+                                 AdaptiveCompressionPolicy compressionPolicy, CompressionDictionaryStore dictionaries,
+                                 CompressionDictionaryTrainer dictionaryTrainer)
   {
     if (defaultResponseCompressionConfig == null)
     {
@@ -89,6 +130,9 @@ public class ServerCompressionFilter implements RestFilter
     _supportedEncoding.add(EncodingType.IDENTITY);
     _supportedEncoding.add(EncodingType.ANY);
     _serverCompressionHelper = new ServerCompressionHelper(defaultResponseCompressionConfig);
+    _compressionPolicy = compressionPolicy;
+    _dictionaries = dictionaries;
+    _dictionaryTrainer = dictionaryTrainer;
   }
 
   /**
@@ -146,6 +190,15 @@ public class ServerCompressionFilter implements RestFilter
       {
         requestContext.putLocalAttr(HttpConstants.HEADER_RESPONSE_COMPRESSION_THRESHOLD,
             _serverCompressionHelper.getResponseCompressionThreshold(req));
+        if (_dictionaries != null)
+        {
+          requestContext.putLocalAttr(DICTIONARY_KEY, getDictionaryKey(req));
+          String acceptedDictionaries = req.getHeader(HttpConstants.HEADER_ACCEPT_COMPRESSION_DICTIONARY);
+          if (acceptedDictionaries != null)
+          {
+            requestContext.putLocalAttr(HttpConstants.HEADER_ACCEPT_COMPRESSION_DICTIONARY, acceptedDictionaries);
+          }
+        }
       }
       nextFilter.onRequest(req, requestContext, wireAttrs);
     }
@@ -180,20 +233,55 @@ public class ServerCompressionFilter implements RestFilter
         EncodingType selectedEncoding = AcceptEncoding.chooseBest(parsedEncodings);
 
         //Check if there exists an acceptable encoding
-        if (selectedEncoding != null)
+        CompressionDictionary dictionary = selectedEncoding == null ? null : getDictionary(res, requestContext);
+        if (dictionary != null && isDictionaryAccepted(dictionary, parsedEncodings, requestContext))
+        {
+          //The client holds the dictionary, which pays off regardless of the compression threshold
+          byte[] compressed = dictionary.getCompressor().deflate(res.getEntity().asInputStream());
+          if (compressed.length < res.getEntity().length())
+          {
+            res = res.builder()
+                .addHeaderValue(HttpConstants.CONTENT_ENCODING, EncodingType.ZSTD.getHttpName())
+                .setHeader(HttpConstants.HEADER_COMPRESSION_DICTIONARY, dictionary.getId())
+                .setEntity(compressed)
+                .build();
+          }
+        }
+        else if (selectedEncoding != null)
         {
+          if (dictionary != null)
+          {
+            //Let the client know about the dictionary, so that it can fetch it
+            res = res.builder().setHeader(HttpConstants.HEADER_AVAILABLE_COMPRESSION_DICTIONARY, dictionary.getId()).build();
+          }
+
           if (selectedEncoding.hasCompressor() &&
               res.getEntity().length() > (Integer) requestContext.getLocalAttr(HttpConstants.HEADER_RESPONSE_COMPRESSION_THRESHOLD))
           {
-            Compressor compressor = selectedEncoding.getCompressor();
-            byte[] compressed = compressor.deflate(res.getEntity().asInputStream());
+            String contentType = res.getHeader(HttpConstants.CONTENT_TYPE);
+            if (_compressionPolicy != null)
+            {
+              selectedEncoding = _compressionPolicy.choose(res.getEntity(), contentType, selectedEncoding, parsedEncodings);
+            }
 
-            if (compressed.length < res.getEntity().length())
+            if (selectedEncoding.hasCompressor())
             {
-              RestResponseBuilder resCompress = res.builder();
-              resCompress.addHeaderValue(HttpConstants.CONTENT_ENCODING, compressor.getContentEncodingName());
-              resCompress.setEntity(compressed);
-              res = resCompress.build();
+              Compressor compressor = selectedEncoding.getCompressor();
+              long start = System.nanoTime();
+              byte[] compressed = compressor.deflate(res.getEntity().asInputStream());
+              if (_compressionPolicy != null)
+              {
+                _compressionPolicy.record(selectedEncoding, contentType, res.getEntity().length(), compressed.length,
+                    System.nanoTime() - start);
+              }
+
+              if (compressed.length < res.getEntity().length())
+              {
+                RestResponseBuilder resCompress = res.builder();
+                resCompress.addHeaderValue(HttpConstants.CONTENT_ENCODING, compressor.getContentEncodingName());
+                resCompress.setEntity(compressed);
+                res = resCompress.build();
+              }
             }
           }
         }
@@ -213,6 +301,62 @@ public class ServerCompressionFilter implements RestFilter
   }
 
 
+  /**
+   * Samples the response for training, and returns the active dictionary of its resource. Only successful
+   * responses are sampled, so that requests for unknown resources do not make the trainer track their keys.
+   */
+  private CompressionDictionary getDictionary(RestResponse res, RequestContext requestContext)
+  {
+    String key = (String) requestContext.getLocalAttr(DICTIONARY_KEY);
+    if (key == null)
+    {
+      return null;
+    }
+    if (_dictionaryTrainer != null && RestStatus.isOK(res.getStatus()))
+    {
+      _dictionaryTrainer.sample(key, res.getEntity());
+    }
+    return _dictionaries.getActive(key);
+  }
+
+  private static boolean isDictionaryAccepted(CompressionDictionary dictionary, List<AcceptEncoding> acceptedEncodings,
+                                              RequestContext requestContext)
+  {
+    String acceptedDictionaries = (String) requestContext.getLocalAttr(HttpConstants.HEADER_ACCEPT_COMPRESSION_DICTIONARY);
+    if (acceptedDictionaries == null)
+    {
+      return false;
+    }
+    boolean zstdAccepted = false;
+    for (AcceptEncoding encoding : acceptedEncodings)
+    {
+      zstdAccepted |= encoding.getType() == EncodingType.ZSTD;
+    }
+    if (zstdAccepted)
+    {
+      for (String id : acceptedDictionaries.split(CompressionConstants.ENCODING_DELIMITER))
+      {
+        if (id.trim().equals(dictionary.getId()))
+        {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static String getDictionaryKey(RestRequest req)
+  {
+    String path = req.getURI().getRawPath();
+    if (path == null)
+    {
+      return EMPTY;
+    }
+    int start = path.startsWith("/") ? 1 : 0;
+    int end = path.indexOf('/', start);
+    return path.substring(start, end < 0 ? path.length() : end);
+  }
+
   @Override
   public void onRestError(Throwable ex, RequestContext requestContext,
                           Map<String, String> wireAttrs,
@@ -0,0 +1,116 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.compression;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Tracks the use of a zlib context borrowed from a {@link ZlibPool} by a stream, so that the context is returned
+ * exactly once: released to the pool when the stream is closed normally, or discarded when the stream fails or is
+ * aborted. An abort may come from another thread while the context is in use, in which case the context is
+ * discarded by the using thread when it is done with it.
+ */
+final class ZlibLease
+{
+  private static final int IDLE = 0;
+  private static final int IN_USE = 1;
+  private static final int ABORTED = 2;
+  private static final int CLOSED = 3;
+
+  private final AtomicInteger _state = new AtomicInteger(IDLE);
+  private final Runnable _release;
+  private final Runnable _discard;
+
+  ZlibLease(Runnable release, Runnable discard)
+  {
+    _release = release;
+    _discard = discard;
+  }
+
+  /**
+   * Start using the context.
+   *
+   * @throws IOException if the stream has been closed or aborted.
+   */
+  void enter() throws IOException
+  {
+    if (!tryEnter())
+    {
+      throw new IOException("Stream closed");
+    }
+  }
+
+  /**
+   * Start using the context if the stream has not been closed or aborted, and is not in use by another thread.
+   */
+  boolean tryEnter()
+  {
+    return _state.compareAndSet(IDLE, IN_USE);
+  }
+
+  /**
+   * Stop using the context. Discards it if the stream was aborted in the meantime.
+   */
+  void exit()
+  {
+    if (!_state.compareAndSet(IN_USE, IDLE))
+    {
+      _discard.run();
+    }
+  }
+
+  /**
+   * Stop using the context for good, releasing it to the pool if it is reusable and the stream was not aborted
+   * in the meantime, or discarding it otherwise.
+   */
+  void close(boolean reusable)
+  {
+    if (_state.compareAndSet(IN_USE, CLOSED) && reusable)
+    {
+      _release.run();
+    }
+    else
+    {
+      _discard.run();
+    }
+  }
+
+  /**
+   * Abort the stream. The context is discarded now if it is not in use, or by the using thread when it exits.
+   */
+  void abort()
+  {
+    while (true)
+    {
+      final int state = _state.get();
+      if (state == ABORTED || state == CLOSED)
+      {
+        return;
+      }
+      if (_state.compareAndSet(state, ABORTED))
+      {
+        if (state == IDLE)
+        {
+          _discard.run();
+        }
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,244 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.compression;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+
+/**
+ * A bounded pool of {@link Deflater} and {@link Inflater} instances.
+ *
+ * Every {@link Deflater} and {@link Inflater} owns a native zlib context, which is expensive to create and is only
+ * freed by {@code end()} or, much later, by the garbage collector. Compressors borrow instances from this pool and
+ * either release them after a successful use, which resets them and makes them available to the next borrower,
+ * or discard them after an error or abort, which ends them. An instance is never shared by two borrowers.
+ *
+ * At most {@code maxIdle} idle instances of each kind are kept. Instances released to a full pool are ended.
+ * This class is thread safe.
+ */
+public class ZlibPool
+{
+  /**
+   * Approximate native memory held by a {@link Deflater} with the default window and memory level.
+   */
+  public static final long DEFLATER_NATIVE_BYTES = 256 * 1024 + 6 * 1024;
+  /**
+   * Approximate native memory held by an {@link Inflater} with the default window.
+   */
+  public static final long INFLATER_NATIVE_BYTES = 32 * 1024 + 7 * 1024;
+  /**
+   * Default maximum number of idle instances of each kind.
+   */
+  public static final int DEFAULT_MAX_IDLE = 2 * Runtime.getRuntime().availableProcessors();
+
+  private static final AtomicLong DEFLATERS_LIVE = new AtomicLong();
+  private static final AtomicLong INFLATERS_LIVE = new AtomicLong();
+  private static final ZlibPool DEFAULT = new ZlibPool(DEFAULT_MAX_IDLE);
+
+  private final int _maxIdle;
+  private final Kind<Deflater> _deflaters = new Kind<Deflater>();
+  private final Kind<Deflater> _nowrapDeflaters = new Kind<Deflater>();
+  private final Kind<Inflater> _inflaters = new Kind<Inflater>();
+  private final Kind<Inflater> _nowrapInflaters = new Kind<Inflater>();
+
+  /**
+   * @param maxIdle maximum number of idle instances of each kind kept by the pool, 0 disables pooling.
+   */
+  public ZlibPool(int maxIdle)
+  {
+    if (maxIdle < 0)
+    {
+      throw new IllegalArgumentException("maxIdle must not be negative: " + maxIdle);
+    }
+    _maxIdle = maxIdle;
+  }
+
+  /**
+   * @return the pool shared by the compressors that are not given a pool explicitly.
+   */
+  public static ZlibPool getDefault()
+  {
+    return DEFAULT;
+  }
+
+  /**
+   * Borrow a {@link Deflater} with the default compression level.
+   *
+   * @param nowrap whether the zlib header and checksum fields are omitted, as in the gzip format.
+   * @return a {@link Deflater} that must later be passed to {@link #release(Deflater, boolean)} or {@link #discard(Deflater)}.
+   */
+  public Deflater borrowDeflater(boolean nowrap)
+  {
+    final Kind<Deflater> kind = nowrap ? _nowrapDeflaters : _deflaters;
+    final Deflater deflater = kind.poll();
+    return deflater != null ? deflater : kind.created(new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap));
+  }
+
+  /**
+   * Borrow an {@link Inflater}.
+   *
+   * @param nowrap whether the zlib header and checksum fields are omitted, as in the gzip format.
+   * @return an {@link Inflater} that must later be passed to {@link #release(Inflater, boolean)} or {@link #discard(Inflater)}.
+   */
+  public Inflater borrowInflater(boolean nowrap)
+  {
+    final Kind<Inflater> kind = nowrap ? _nowrapInflaters : _inflaters;
+    final Inflater inflater = kind.poll();
+    return inflater != null ? inflater : kind.created(new Inflater(nowrap));
+  }
+
+  /**
+   * Return a {@link Deflater} after a successful use. It is reset before it is pooled.
+   *
+   * @param deflater the {@link Deflater} obtained from {@link #borrowDeflater(boolean)} with the same nowrap value.
+   * @param nowrap the value passed to {@link #borrowDeflater(boolean)}.
+   */
+  public void release(Deflater deflater, boolean nowrap)
+  {
+    deflater.reset();
+    if (!(nowrap ? _nowrapDeflaters : _deflaters).offer(deflater, _maxIdle))
+    {
+      discard(deflater);
+    }
+  }
+
+  /**
+   * Return an {@link Inflater} after a successful use. It is reset before it is pooled.
+   *
+   * @param inflater the {@link Inflater} obtained from {@link #borrowInflater(boolean)} with the same nowrap value.
+   * @param nowrap the value passed to {@link #borrowInflater(boolean)}.
+   */
+  public void release(Inflater inflater, boolean nowrap)
+  {
+    inflater.reset();
+    if (!(nowrap ? _nowrapInflaters : _inflaters).offer(inflater, _maxIdle))
+    {
+      discard(inflater);
+    }
+  }
+
+  /**
+   * End a borrowed {@link Deflater} whose state is unknown, e.g. after an error or an abort.
+   */
+  public void discard(Deflater deflater)
+  {
+    deflater.end();
+    DEFLATERS_LIVE.decrementAndGet();
+  }
+
+  /**
+   * End a borrowed {@link Inflater} whose state is unknown, e.g. after an error or an abort.
+   */
+  public void discard(Inflater inflater)
+  {
+    inflater.end();
+    INFLATERS_LIVE.decrementAndGet();
+  }
+
+  /**
+   * @return the number of borrows served by a pooled instance.
+   */
+  public long getHitCount()
+  {
+    return _deflaters._hits.get() + _nowrapDeflaters._hits.get() + _inflaters._hits.get() + _nowrapInflaters._hits.get();
+  }
+
+  /**
+   * @return the number of borrows that created a new instance.
+   */
+  public long getMissCount()
+  {
+    return _deflaters._misses.get() + _nowrapDeflaters._misses.get() + _inflaters._misses.get() + _nowrapInflaters._misses.get();
+  }
+
+  /**
+   * @return the number of idle instances held by this pool.
+   */
+  public int getIdleCount()
+  {
+    return _deflaters._idleCount.get() + _nowrapDeflaters._idleCount.get() + _inflaters._idleCount.get() + _nowrapInflaters._idleCount.get();
+  }
+
+  /**
+   * @return the approximate native memory held by the idle instances of this pool.
+   */
+  public long getIdleNativeMemory()
+  {
+    return (_deflaters._idleCount.get() + _nowrapDeflaters._idleCount.get()) * DEFLATER_NATIVE_BYTES
+        + (_inflaters._idleCount.get() + _nowrapInflaters._idleCount.get()) * INFLATER_NATIVE_BYTES;
+  }
+
+  /**
+   * @return the approximate native memory held by all instances created by any pool that have not been ended,
+   *         whether they are idle or borrowed.
+   */
+  public static long getLiveNativeMemory()
+  {
+    return DEFLATERS_LIVE.get() * DEFLATER_NATIVE_BYTES + INFLATERS_LIVE.get() * INFLATER_NATIVE_BYTES;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "ZlibPool{maxIdle=" + _maxIdle + ", idle=" + getIdleCount() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + "}";
+  }
+
+  /**
+   * The idle instances and counters of one kind of zlib context.
+   */
+  private static class Kind<T>
+  {
+    private final Queue<T> _idle = new ConcurrentLinkedQueue<T>();
+    private final AtomicInteger _idleCount = new AtomicInteger();
+    private final AtomicLong _hits = new AtomicLong();
+    private final AtomicLong _misses = new AtomicLong();
+
+    private T poll()
+    {
+      final T instance = _idle.poll();
+      if (instance != null)
+      {
+        _idleCount.decrementAndGet();
+        _hits.incrementAndGet();
+      }
+      return instance;
+    }
+
+    private T created(T instance)
+    {
+      _misses.incrementAndGet();
+      (instance instanceof Deflater ? DEFLATERS_LIVE : INFLATERS_LIVE).incrementAndGet();
+      return instance;
+    }
+
+    private boolean offer(T instance, int maxIdle)
+    {
+      if (_idleCount.incrementAndGet() > maxIdle)
+      {
+        _idleCount.decrementAndGet();
+        return false;
+      }
+      _idle.add(instance);
+      return true;
+    }
+  }
+}
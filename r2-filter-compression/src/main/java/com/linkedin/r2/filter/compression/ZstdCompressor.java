@@ -0,0 +1,126 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.compression;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Wrapper for the Zstandard compression algorithm.
+ *
+ * A compressor created with a dictionary compresses small payloads with repetitive content, such as rest.li JSON,
+ * much better, but its output can only be inflated by a compressor created with the same dictionary.
+ */
+public class ZstdCompressor implements Compressor
+{
+  private static final String HTTP_NAME = "zstd";
+
+  public static final int DEFAULT_LEVEL = 3;
+
+  private final int _level;
+  private final ZstdDictCompress _compressDictionary;
+  private final ZstdDictDecompress _decompressDictionary;
+
+  public ZstdCompressor()
+  {
+    this(DEFAULT_LEVEL);
+  }
+
+  /**
+   * @param level compression level, from 1 (fastest) to 22 (smallest).
+   */
+  public ZstdCompressor(int level)
+  {
+    _level = level;
+    _compressDictionary = null;
+    _decompressDictionary = null;
+  }
+
+  /**
+   * @param level compression level, from 1 (fastest) to 22 (smallest).
+   * @param dictionary dictionary shared with the peer, as trained by the zstd library.
+   */
+  public ZstdCompressor(int level, byte[] dictionary)
+  {
+    _level = level;
+    _compressDictionary = new ZstdDictCompress(dictionary, level);
+    _decompressDictionary = new ZstdDictDecompress(dictionary);
+  }
+
+  @Override
+  public String getContentEncodingName()
+  {
+    return HTTP_NAME;
+  }
+
+  @Override
+  public byte[] inflate(InputStream data) throws CompressionException
+  {
+    try
+    {
+      byte[] input = IOUtils.toByteArray(data);
+      long size = Zstd.decompressedSize(input);
+      if (size > Integer.MAX_VALUE)
+      {
+        throw new CompressionException(CompressionConstants.DECODING_ERROR + getContentEncodingName());
+      }
+      if (size <= 0)
+      {
+        // the frame does not record its size, e.g. when written by the streaming compressor
+        if (_decompressDictionary != null)
+        {
+          throw new CompressionException(CompressionConstants.DECODING_ERROR + getContentEncodingName());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZstdInputStream zstd = new ZstdInputStream(new ByteArrayInputStream(input)))
+        {
+          IOUtils.copy(zstd, out);
+        }
+        return out.toByteArray();
+      }
+      return _decompressDictionary == null
+          ? Zstd.decompress(input, (int) size)
+          : Zstd.decompress(input, _decompressDictionary, (int) size);
+    }
+    catch (IOException | RuntimeException e)
+    {
+      throw new CompressionException(CompressionConstants.DECODING_ERROR + getContentEncodingName(), e);
+    }
+  }
+
+  @Override
+  public byte[] deflate(InputStream data) throws CompressionException
+  {
+    try
+    {
+      byte[] input = IOUtils.toByteArray(data);
+      return _compressDictionary == null ? Zstd.compress(input, _level) : Zstd.compress(input, _compressDictionary);
+    }
+    catch (IOException | RuntimeException e)
+    {
+      throw new CompressionException(CompressionConstants.DECODING_ERROR + getContentEncodingName(), e);
+    }
+  }
+}
@@ -16,13 +16,14 @@
 
 package com.linkedin.r2.filter.compression.streaming;
 
+import com.linkedin.r2.filter.compression.PooledDeflaterOutputStream;
+import com.linkedin.r2.filter.compression.PooledInflaterInputStream;
+import com.linkedin.r2.filter.compression.ZlibPool;
 import com.linkedin.r2.message.stream.entitystream.EntityStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.concurrent.Executor;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
 
 
 /**
@@ -31,10 +32,21 @@ import java.util.zip.InflaterInputStream;
 public class DeflateCompressor extends AbstractCompressor
 {
   private final Executor _executor;
+  private final ZlibPool _pool;
 
   public DeflateCompressor(Executor executor)
+  {
+    this(executor, ZlibPool.getDefault());
+  }
+
+  /**
+   * @param executor the executor that runs the blocking inflation.
+   * @param pool the pool to borrow {@link java.util.zip.Deflater} and {@link java.util.zip.Inflater} instances from.
+   */
+  public DeflateCompressor(Executor executor, ZlibPool pool)
   {
     _executor = executor;
+    _pool = pool;
   }
 
   @Override
@@ -51,7 +63,7 @@ public class DeflateCompressor extends AbstractCompressor
       @Override
       protected InputStream createInputStream(InputStream in) throws IOException
       {
-        return new InflaterInputStream(in);
+        return new PooledInflaterInputStream(in, _pool, false);
       }
     };
   }
@@ -64,7 +76,7 @@ public class DeflateCompressor extends AbstractCompressor
       @Override
       protected OutputStream createOutputStream(OutputStream out) throws IOException
       {
-        return new DeflaterOutputStream(out);
+        return new PooledDeflaterOutputStream(out, _pool, false);
       }
     };
   }
@@ -18,6 +18,7 @@ package com.linkedin.r2.filter.compression.streaming;
 
 import com.linkedin.data.ByteString;
 import com.linkedin.r2.filter.R2Constants;
+import com.linkedin.r2.filter.compression.PooledDeflaterOutputStream;
 import com.linkedin.r2.message.stream.entitystream.EntityStream;
 import com.linkedin.r2.message.stream.entitystream.ReadHandle;
 import com.linkedin.r2.message.stream.entitystream.Reader;
@@ -74,6 +75,7 @@ abstract class StreamingDeflater implements Reader, Writer
       }
       catch (IOException e)
       {
+        abortOutputStream();
         _wh.error(e);
         cancel();
       }
@@ -97,6 +99,7 @@ abstract class StreamingDeflater implements Reader, Writer
   @Override
   public void onError(Throwable e)
   {
+    abortOutputStream();
     _wh.error(e);
   }
 
@@ -128,6 +131,7 @@ abstract class StreamingDeflater implements Reader, Writer
   @Override
   public void onAbort(Throwable e)
   {
+    abortOutputStream();
     cancel();
   }
 
@@ -137,6 +141,14 @@ abstract class StreamingDeflater implements Reader, Writer
     _readCancelled = true;
   }
 
+  private void abortOutputStream()
+  {
+    if (_out instanceof PooledDeflaterOutputStream)
+    {
+      ((PooledDeflaterOutputStream) _out).abort();
+    }
+  }
+
   abstract protected OutputStream createOutputStream(OutputStream out) throws IOException;
 
   private class BufferedWriterOutputStream extends OutputStream
@@ -18,6 +18,7 @@ package com.linkedin.r2.filter.compression.streaming;
 
 import com.linkedin.data.ByteString;
 import com.linkedin.r2.filter.R2Constants;
+import com.linkedin.r2.filter.compression.PooledInflaterInputStream;
 import com.linkedin.r2.message.stream.entitystream.EntityStream;
 import com.linkedin.r2.message.stream.entitystream.WriteHandle;
 import com.linkedin.r2.message.stream.entitystream.Writer;
@@ -41,6 +42,7 @@ abstract class StreamingInflater extends BufferedReaderInputStream implements Wr
   private final Executor _executor;
   private WriteHandle _wh;
   private InputStream _in;
+  private byte[] _bytes;
 
   private final EntityStream _underlying;
 
@@ -72,7 +74,11 @@ abstract class StreamingInflater extends BufferedReaderInputStream implements Wr
             _in = createInputStream(StreamingInflater.this);
           }
 
-          byte[] bytes = new byte[BUF_SIZE];
+          if (_bytes == null)
+          {
+            _bytes = new byte[BUF_SIZE];
+          }
+          final byte[] bytes = _bytes;
           while (_wh.remaining() > 0)
           {
             int readlen = _in.read(bytes);
@@ -89,6 +95,7 @@ abstract class StreamingInflater extends BufferedReaderInputStream implements Wr
         }
         catch (IOException ex)
         {
+          abortInputStream();
           _wh.error(ex);
         }
       }
@@ -101,6 +108,14 @@ abstract class StreamingInflater extends BufferedReaderInputStream implements Wr
     IOUtils.closeQuietly(_in);
   }
 
+  private void abortInputStream()
+  {
+    if (_in instanceof PooledInflaterInputStream)
+    {
+      ((PooledInflaterInputStream) _in).abort();
+    }
+  }
+
   abstract protected InputStream createInputStream(InputStream in) throws IOException;
 
 }
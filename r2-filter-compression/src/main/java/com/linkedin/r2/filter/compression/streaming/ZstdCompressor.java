@@ -0,0 +1,81 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.compression.streaming;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.linkedin.r2.message.stream.entitystream.EntityStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+
+
+public class ZstdCompressor extends AbstractCompressor
+{
+  public static final int DEFAULT_LEVEL = 3;
+
+  private final Executor _executor;
+  private final int _level;
+
+  public ZstdCompressor(Executor executor)
+  {
+    this(executor, DEFAULT_LEVEL);
+  }
+
+  /**
+   * @param executor the executor that runs the blocking inflation.
+   * @param level compression level, from 1 (fastest) to 22 (smallest).
+   */
+  public ZstdCompressor(Executor executor, int level)
+  {
+    _executor = executor;
+    _level = level;
+  }
+
+  @Override
+  public String getContentEncodingName()
+  {
+    return StreamEncodingType.ZSTD.getHttpName();
+  }
+
+  @Override
+  protected StreamingInflater createInflater(EntityStream underlying)
+  {
+    return new StreamingInflater(underlying, _executor)
+    {
+      @Override
+      protected InputStream createInputStream(InputStream in) throws IOException
+      {
+        return new ZstdInputStream(in);
+      }
+    };
+  }
+
+  @Override
+  protected StreamingDeflater createDeflater(EntityStream underlying)
+  {
+    return new StreamingDeflater(underlying)
+    {
+      @Override
+      protected OutputStream createOutputStream(OutputStream out) throws IOException
+      {
+        return new ZstdOutputStream(out, _level);
+      }
+    };
+  }
+}
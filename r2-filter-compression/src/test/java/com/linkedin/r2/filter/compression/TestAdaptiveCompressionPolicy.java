@@ -0,0 +1,121 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.compression;
+
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.filter.compression.AdaptiveCompressionPolicy.Decision;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestAdaptiveCompressionPolicy
+{
+  private static final String JSON = "application/json";
+  private static final List<AcceptEncoding> ACCEPTED = Arrays.asList(
+      new AcceptEncoding(EncodingType.GZIP, 1.0f),
+      new AcceptEncoding(EncodingType.SNAPPY_FRAMED, 0.5f),
+      new AcceptEncoding(EncodingType.BZIP2, 0.0f));
+
+  @Test
+  public void testCompressibleEntity()
+  {
+    AdaptiveCompressionPolicy policy = policy(0.1);
+
+    Assert.assertEquals(policy.choose(text(), JSON, EncodingType.GZIP, ACCEPTED), EncodingType.GZIP);
+    Assert.assertEquals(policy.getDecisionCount(Decision.COMPRESS), 1);
+  }
+
+  @Test
+  public void testIncompressibleEntity()
+  {
+    AdaptiveCompressionPolicy policy = policy(0.1);
+    byte[] bytes = new byte[8192];
+    new Random(7).nextBytes(bytes);
+
+    Assert.assertTrue(AdaptiveCompressionPolicy.entropy(ByteString.copy(bytes), 4096) > 7.5);
+    Assert.assertEquals(policy.choose(ByteString.copy(bytes), "image/jpeg", EncodingType.GZIP, ACCEPTED),
+        EncodingType.IDENTITY);
+    Assert.assertEquals(policy.getDecisionCount(Decision.SKIP_INCOMPRESSIBLE), 1);
+  }
+
+  @Test
+  public void testCpuLoad()
+  {
+    AdaptiveCompressionPolicy high = policy(0.8);
+    Assert.assertEquals(high.choose(text(), JSON, EncodingType.GZIP, ACCEPTED), EncodingType.SNAPPY_FRAMED);
+    Assert.assertEquals(high.getDecisionCount(Decision.FASTER_ENCODING), 1);
+
+    // the default relative speeds are used until every accepted encoding has a measured time
+    high.record(EncodingType.SNAPPY_FRAMED, JSON, 1000, 500, 100000);
+    Assert.assertEquals(high.choose(text(), JSON, EncodingType.GZIP, ACCEPTED), EncodingType.SNAPPY_FRAMED);
+    Assert.assertEquals(high.getDecisionCount(Decision.FASTER_ENCODING), 2);
+
+    // then measured times are compared, and rejected encodings are never chosen
+    high.record(EncodingType.GZIP, JSON, 1000, 300, 10000);
+    high.record(EncodingType.BZIP2, JSON, 1000, 200, 1);
+    Assert.assertEquals(high.choose(text(), JSON, EncodingType.GZIP, ACCEPTED), EncodingType.GZIP);
+    Assert.assertEquals(high.getDecisionCount(Decision.COMPRESS), 1);
+
+    AdaptiveCompressionPolicy critical = policy(0.99);
+    Assert.assertEquals(critical.choose(text(), JSON, EncodingType.GZIP, ACCEPTED), EncodingType.IDENTITY);
+    Assert.assertEquals(critical.getDecisionCount(Decision.SKIP_CPU), 1);
+  }
+
+  @Test
+  public void testLowRatio()
+  {
+    AdaptiveCompressionPolicy policy = policy(0.1);
+    policy.record(EncodingType.GZIP, "application/json; charset=UTF-8", 1000, 990, 10000);
+    Assert.assertEquals(policy.getCompressionRatio(EncodingType.GZIP, JSON), 0.99);
+    Assert.assertEquals(policy.getCompressionNanosPerByte(EncodingType.GZIP, JSON), 10.0);
+
+    int compressed = 0;
+    for (int i = 0; i < AdaptiveCompressionPolicy.PROBE_INTERVAL; i++)
+    {
+      if (policy.choose(text(), JSON, EncodingType.GZIP, ACCEPTED) == EncodingType.GZIP)
+      {
+        compressed++;
+      }
+    }
+    Assert.assertEquals(compressed, 1);
+    Assert.assertEquals(policy.getDecisionCount(Decision.SKIP_LOW_RATIO), AdaptiveCompressionPolicy.PROBE_INTERVAL - 1);
+
+    // other content types are not affected
+    Assert.assertEquals(policy.choose(text(), "text/plain", EncodingType.GZIP, ACCEPTED), EncodingType.GZIP);
+  }
+
+  private static AdaptiveCompressionPolicy policy(double cpuLoad)
+  {
+    return new AdaptiveCompressionPolicy(AdaptiveCompressionPolicy.DEFAULT_SAMPLE_SIZE,
+        AdaptiveCompressionPolicy.DEFAULT_MAX_ENTROPY, AdaptiveCompressionPolicy.DEFAULT_MAX_RATIO,
+        AdaptiveCompressionPolicy.DEFAULT_HIGH_CPU_LOAD, AdaptiveCompressionPolicy.DEFAULT_CRITICAL_CPU_LOAD,
+        () -> cpuLoad);
+  }
+
+  private static ByteString text()
+  {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 200; i++)
+    {
+      sb.append("{\"id\":").append(i).append(",\"name\":\"record ").append(i).append("\"},");
+    }
+    return ByteString.copyString(sb.toString(), "UTF-8");
+  }
+}
@@ -0,0 +1,196 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.compression;
+
+import com.linkedin.data.ByteString;
+import com.linkedin.r2.filter.CompressionConfig;
+import com.linkedin.r2.filter.NextFilter;
+import com.linkedin.r2.filter.R2Constants;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.transport.http.common.HttpConstants;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestCompressionDictionary
+{
+  private static final byte[] DICTIONARY = ("{\"elements\":[{\"id\":,\"firstName\":\"\",\"lastName\":\"\",\"headline\":\"\"}],"
+      + "\"paging\":{\"start\":0,\"count\":10,\"total\":}}").getBytes(StandardCharsets.UTF_8);
+  private static final byte[] PAYLOAD = ("{\"elements\":[{\"id\":1,\"firstName\":\"Ann\",\"lastName\":\"Lee\",\"headline\":\"Engineer\"}],"
+      + "\"paging\":{\"start\":0,\"count\":10,\"total\":1}}").getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  public void testStore() throws IOException
+  {
+    File directory = Files.createTempDirectory("dictionaries").toFile();
+    try
+    {
+      CompressionDictionaryStore store = new CompressionDictionaryStore(directory);
+      CompressionDictionary dictionary = store.add(DICTIONARY);
+      Assert.assertEquals(dictionary.getId(), CompressionDictionary.idOf(DICTIONARY));
+      Assert.assertSame(store.add(DICTIONARY.clone()), dictionary);
+      store.setActive("greetings", dictionary.getId());
+
+      CompressionDictionaryStore reloaded = new CompressionDictionaryStore(directory);
+      Assert.assertEquals(reloaded.getIds(), Collections.singleton(dictionary.getId()));
+      Assert.assertEquals(reloaded.getActive("greetings"), dictionary);
+      Assert.assertNull(reloaded.getActive("albums"));
+    }
+    finally
+    {
+      FileUtils.deleteDirectory(directory);
+    }
+  }
+
+  @Test
+  public void testAvailableIds() throws IOException
+  {
+    CompressionDictionaryStore store = new CompressionDictionaryStore();
+    String id = CompressionDictionary.idOf(DICTIONARY);
+    store.addAvailableId(id);
+    Assert.assertEquals(store.getAvailableIds(), Collections.singleton(id));
+    store.add(DICTIONARY);
+    Assert.assertTrue(store.getAvailableIds().isEmpty());
+    store.addAvailableId(id);
+    Assert.assertTrue(store.getAvailableIds().isEmpty());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testUnknownActiveDictionary() throws IOException
+  {
+    new CompressionDictionaryStore().setActive("greetings", "0123456789abcdef");
+  }
+
+  @Test
+  public void testTrainerSampling()
+  {
+    List<Runnable> trainings = new ArrayList<Runnable>();
+    CompressionDictionaryTrainer trainer =
+        new CompressionDictionaryTrainer(new CompressionDictionaryStore(), trainings::add, 2, 1024, 1024, 1.0, 2);
+    ByteString payload = ByteString.copy(PAYLOAD);
+    for (String key : Arrays.asList("greetings", "albums", "unknown"))
+    {
+      trainer.sample(key, payload);
+      trainer.sample(key, payload);
+    }
+    // the third key is not tracked, as the trainer tracks at most two keys
+    Assert.assertEquals(trainings.size(), 2);
+
+    CompressionDictionaryTrainer neverSamples =
+        new CompressionDictionaryTrainer(new CompressionDictionaryStore(), trainings::add, 1, 1024, 1024, 0.0, 2);
+    neverSamples.sample("greetings", payload);
+    Assert.assertEquals(trainings.size(), 2);
+  }
+
+  @Test
+  public void testNegotiation() throws Exception
+  {
+    CompressionDictionaryStore serverStore = new CompressionDictionaryStore();
+    String id = serverStore.add(DICTIONARY).getId();
+    serverStore.setActive("greetings", id);
+    ServerCompressionFilter serverFilter = new ServerCompressionFilter(new EncodingType[] { EncodingType.ZSTD, EncodingType.GZIP },
+        new CompressionConfig(Integer.MAX_VALUE), null, serverStore, null);
+
+    // a client that holds the dictionary gets a response compressed with it, even below the compression threshold
+    CompressionDictionaryStore clientStore = new CompressionDictionaryStore();
+    clientStore.add(DICTIONARY);
+    RestResponse response = roundTrip(serverFilter, clientStore);
+    Assert.assertEquals(response.getEntity().copyBytes(), PAYLOAD);
+    Assert.assertNull(response.getHeader(HttpConstants.CONTENT_ENCODING));
+    Assert.assertNull(response.getHeader(HttpConstants.HEADER_COMPRESSION_DICTIONARY));
+
+    // a client that does not is told about it, and gets a response compressed as usual
+    CompressionDictionaryStore emptyStore = new CompressionDictionaryStore();
+    response = roundTrip(serverFilter, emptyStore);
+    Assert.assertEquals(response.getEntity().copyBytes(), PAYLOAD);
+    Assert.assertEquals(emptyStore.getAvailableIds(), Collections.singleton(id));
+  }
+
+  private static RestResponse roundTrip(ServerCompressionFilter serverFilter, CompressionDictionaryStore clientStore)
+      throws Exception
+  {
+    ClientCompressionFilter clientFilter = new ClientCompressionFilter(EncodingType.IDENTITY,
+        new CompressionConfig(Integer.MAX_VALUE), new EncodingType[] { EncodingType.ZSTD, EncodingType.GZIP },
+        new CompressionConfig(Integer.MAX_VALUE), Arrays.asList(ClientCompressionHelper.COMPRESS_ALL_RESPONSES_INDICATOR),
+        clientStore);
+    RequestContext context = new RequestContext();
+    context.putLocalAttr(R2Constants.OPERATION, "get");
+
+    Capture clientOut = new Capture();
+    clientFilter.onRestRequest(new RestRequestBuilder(new URI("/greetings/1")).build(), context,
+        Collections.<String, String>emptyMap(), clientOut);
+    Capture serverOut = new Capture();
+    serverFilter.onRestRequest(clientOut._request, context, Collections.<String, String>emptyMap(), serverOut);
+    serverFilter.onRestResponse(new RestResponseBuilder().setEntity(PAYLOAD).build(), context,
+        Collections.<String, String>emptyMap(), serverOut);
+
+    if (clientStore.getIds().isEmpty())
+    {
+      Assert.assertNull(serverOut._response.getHeader(HttpConstants.HEADER_COMPRESSION_DICTIONARY));
+    }
+    else
+    {
+      Assert.assertEquals(serverOut._response.getHeader(HttpConstants.CONTENT_ENCODING), EncodingType.ZSTD.getHttpName());
+      Assert.assertTrue(serverOut._response.getEntity().length() < PAYLOAD.length);
+    }
+
+    Capture clientIn = new Capture();
+    clientFilter.onRestResponse(serverOut._response, context, Collections.<String, String>emptyMap(), clientIn);
+    Assert.assertNull(clientIn._error);
+    return clientIn._response;
+  }
+
+  private static class Capture implements NextFilter<RestRequest, RestResponse>
+  {
+    private RestRequest _request;
+    private RestResponse _response;
+    private Throwable _error;
+
+    @Override
+    public void onRequest(RestRequest restRequest, RequestContext requestContext, Map<String, String> wireAttrs)
+    {
+      _request = restRequest;
+    }
+
+    @Override
+    public void onResponse(RestResponse restResponse, RequestContext requestContext, Map<String, String> wireAttrs)
+    {
+      _response = restResponse;
+    }
+
+    @Override
+    public void onError(Throwable ex, RequestContext requestContext, Map<String, String> wireAttrs)
+    {
+      _error = ex;
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestZlibPool
+{
+  private static final byte[] DATA = data();
+
+  @Test
+  public void testGzipInteroperability() throws Exception
+  {
+    GzipCompressor compressor = new GzipCompressor(new ZlibPool(1));
+
+    Assert.assertEquals(IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressor.deflate(
+        new ByteArrayInputStream(DATA))))), DATA);
+    Assert.assertEquals(compressor.inflate(new ByteArrayInputStream(gzip(DATA))), DATA);
+  }
+
+  @Test
+  public void testDeflateInteroperability() throws Exception
+  {
+    DeflateCompressor compressor = new DeflateCompressor(new ZlibPool(1));
+
+    Assert.assertEquals(IOUtils.toByteArray(new InflaterInputStream(new ByteArrayInputStream(compressor.deflate(
+        new ByteArrayInputStream(DATA))))), DATA);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    DeflaterOutputStream zlib = new DeflaterOutputStream(out);
+    zlib.write(DATA);
+    zlib.close();
+    Assert.assertEquals(compressor.inflate(new ByteArrayInputStream(out.toByteArray())), DATA);
+  }
+
+  @Test
+  public void testConcatenatedGzipMembers() throws Exception
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(gzip(DATA));
+    out.write(gzip(new byte[] { 1, 2, 3 }));
+    byte[] expected = new byte[DATA.length + 3];
+    System.arraycopy(DATA, 0, expected, 0, DATA.length);
+    expected[DATA.length] = 1;
+    expected[DATA.length + 1] = 2;
+    expected[DATA.length + 2] = 3;
+
+    Assert.assertEquals(new GzipCompressor(new ZlibPool(1)).inflate(new ByteArrayInputStream(out.toByteArray())),
+        expected);
+  }
+
+  @Test
+  public void testCorruptGzipTrailer() throws Exception
+  {
+    ZlibPool pool = new ZlibPool(1);
+    byte[] compressed = gzip(DATA);
+    compressed[compressed.length - 5] ^= 1;
+
+    try
+    {
+      new GzipCompressor(pool).inflate(new ByteArrayInputStream(compressed));
+      Assert.fail("Corrupt trailer should fail decompression");
+    }
+    catch (CompressionException e)
+    {
+      // expected
+    }
+    // the inflater used by the failed decompression is not pooled
+    Assert.assertEquals(pool.getIdleCount(), 0);
+  }
+
+  @Test
+  public void testPoolReuse() throws Exception
+  {
+    ZlibPool pool = new ZlibPool(1);
+    GzipCompressor compressor = new GzipCompressor(pool);
+
+    for (int i = 0; i < 3; i++)
+    {
+      Assert.assertEquals(compressor.inflate(new ByteArrayInputStream(compressor.deflate(new ByteArrayInputStream(DATA)))),
+          DATA);
+    }
+    Assert.assertEquals(pool.getMissCount(), 2);
+    Assert.assertEquals(pool.getHitCount(), 4);
+    Assert.assertEquals(pool.getIdleCount(), 2);
+    Assert.assertEquals(pool.getIdleNativeMemory(), ZlibPool.DEFLATER_NATIVE_BYTES + ZlibPool.INFLATER_NATIVE_BYTES);
+  }
+
+  @Test
+  public void testAbortDiscards() throws Exception
+  {
+    ZlibPool pool = new ZlibPool(1);
+
+    PooledDeflaterOutputStream out = new PooledDeflaterOutputStream(new ByteArrayOutputStream(), pool, true);
+    out.write(DATA);
+    out.abort();
+    try
+    {
+      out.write(DATA);
+      Assert.fail("Writing to an aborted stream should fail");
+    }
+    catch (IOException e)
+    {
+      // expected
+    }
+    out.close();
+
+    PooledInflaterInputStream in = new PooledInflaterInputStream(new ByteArrayInputStream(gzip(DATA)), pool, true);
+    Assert.assertEquals(in.read(), DATA[0] & 0xff);
+    in.abort();
+    in.close();
+
+    Assert.assertEquals(pool.getIdleCount(), 0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNegativeMaxIdle()
+  {
+    new ZlibPool(-1);
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    GZIPOutputStream gzip = new GZIPOutputStream(out);
+    gzip.write(bytes);
+    gzip.close();
+    return out.toByteArray();
+  }
+
+  private static byte[] data()
+  {
+    byte[] bytes = new byte[100 * 1024];
+    Random random = new Random(42);
+    for (int i = 0; i < bytes.length; i++)
+    {
+      bytes[i] = (byte) ('a' + random.nextInt(8));
+    }
+    return bytes;
+  }
+}
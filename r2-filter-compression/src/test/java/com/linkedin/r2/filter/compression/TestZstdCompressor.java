@@ -0,0 +1,73 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.filter.compression;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestZstdCompressor
+{
+  private static final byte[] DICTIONARY = dictionary();
+  private static final byte[] PAYLOAD =
+      "{\"elements\":[{\"id\":1,\"firstName\":\"Ann\",\"lastName\":\"Lee\"}],\"paging\":{\"start\":0,\"count\":10}}"
+          .getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  public void testRoundTrip() throws CompressionException
+  {
+    Compressor compressor = EncodingType.ZSTD.getCompressor();
+    Assert.assertEquals(compressor.getContentEncodingName(), "zstd");
+    Assert.assertEquals(compressor.inflate(new ByteArrayInputStream(compressor.deflate(new ByteArrayInputStream(PAYLOAD)))),
+        PAYLOAD);
+  }
+
+  @Test
+  public void testDictionary() throws CompressionException
+  {
+    ZstdCompressor plain = new ZstdCompressor();
+    ZstdCompressor withDictionary = new ZstdCompressor(ZstdCompressor.DEFAULT_LEVEL, DICTIONARY);
+
+    byte[] compressed = withDictionary.deflate(new ByteArrayInputStream(PAYLOAD));
+    Assert.assertTrue(compressed.length < plain.deflate(new ByteArrayInputStream(PAYLOAD)).length);
+    Assert.assertEquals(withDictionary.inflate(new ByteArrayInputStream(compressed)), PAYLOAD);
+
+    try
+    {
+      plain.inflate(new ByteArrayInputStream(compressed));
+      Assert.fail("Inflating without the dictionary should fail");
+    }
+    catch (CompressionException e)
+    {
+      // expected
+    }
+  }
+
+  private static byte[] dictionary()
+  {
+    // a raw content dictionary, made of content typical of the payloads
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 20; i++)
+    {
+      sb.append("{\"elements\":[{\"id\":").append(i).append(",\"firstName\":\"\",\"lastName\":\"\"}],")
+          .append("\"paging\":{\"start\":0,\"count\":10,\"total\":").append(i).append("}}");
+    }
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -31,6 +31,7 @@ import com.linkedin.r2.message.stream.entitystream.Reader;
 import com.linkedin.r2.transport.common.bridge.common.RequestWithCallback;
 import com.linkedin.r2.transport.common.bridge.common.TransportCallback;
 import com.linkedin.r2.transport.common.bridge.common.TransportResponseImpl;
+import com.linkedin.r2.transport.http.common.NettyByteStrings;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
@@ -115,7 +116,7 @@ class Http2StreamCodec extends Http2ConnectionHandler
       encoder.writeHeaders(ctx, streamId, headers, NO_PADDING, NOT_END_STREAM, headersPromise);
       LOG.debug("Sent HTTP/2 HEADERS frame, stream={}, end={}, headers={}, padding={}bytes",
           new Object[] { streamId, NOT_END_STREAM, headers.size(), NO_PADDING});
-      ByteBuf data = Unpooled.wrappedBuffer(restRequest.getEntity().asByteBuffer());
+      ByteBuf data = NettyByteStrings.toByteBuf(restRequest.getEntity());
       encoder.writeData(ctx, streamId, data, NO_PADDING, END_STREAM, dataPromise);
       LOG.debug("Sent HTTP/2 DATA frame, stream={}, end={}, data={}bytes, padding={}bytes",
           new Object[] { streamId, END_STREAM, data.readableBytes(), NO_PADDING});
@@ -256,7 +257,7 @@ class Http2StreamCodec extends Http2ConnectionHandler
     @Override
     public void onDataAvailable(final ByteString data)
     {
-      ByteBuf content = Unpooled.wrappedBuffer(data.asByteBuffer());
+      ByteBuf content = NettyByteStrings.toByteBuf(data);
       _encoder.writeData(_ctx, _streamId, content, NO_PADDING, NOT_END_STREAM, _ctx.channel().newPromise())
           .addListener(future -> _readHandle.request(1));
       LOG.debug("Sent HTTP/2 DATA frame, stream={}, end={}, data={}bytes, padding={}bytes",
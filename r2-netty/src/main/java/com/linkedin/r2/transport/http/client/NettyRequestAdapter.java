@@ -20,8 +20,8 @@ import com.linkedin.r2.message.Request;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.stream.StreamRequest;
 import com.linkedin.r2.transport.http.common.HttpConstants;
+import com.linkedin.r2.transport.http.common.NettyByteStrings;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
@@ -69,7 +69,7 @@ import static io.netty.util.AsciiString.EMPTY_STRING;
       path = "/";
     }
 
-    ByteBuf content = Unpooled.wrappedBuffer(request.getEntity().asByteBuffer());
+    ByteBuf content = NettyByteStrings.toByteBuf(request.getEntity());
     HttpRequest nettyRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, nettyMethod, path, content);
     nettyRequest.headers().set(HttpConstants.CONTENT_LENGTH, request.getEntity().length());
 
@@ -25,10 +25,10 @@ import com.linkedin.data.ByteString;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestResponseBuilder;
 import com.linkedin.r2.transport.http.common.HttpConstants;
+import com.linkedin.r2.transport.http.common.NettyByteStrings;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
@@ -85,7 +85,7 @@ class RAPClientCodec extends ChannelDuplexHandler
         path = "/";
       }
       ByteString entity = request.getEntity();
-      ByteBuf content = Unpooled.wrappedBuffer(entity.asByteBuffer());
+      ByteBuf content = NettyByteStrings.toByteBuf(entity);
       FullHttpRequest nettyRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, nettyMethod, path, content);
 
       for (Map.Entry<String, String> e : request.getHeaders().entrySet())
@@ -21,8 +21,8 @@ import com.linkedin.r2.filter.R2Constants;
 import com.linkedin.r2.message.stream.StreamRequest;
 import com.linkedin.r2.message.stream.entitystream.ReadHandle;
 import com.linkedin.r2.message.stream.entitystream.Reader;
+import com.linkedin.r2.transport.http.common.NettyByteStrings;
 
-import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
@@ -108,7 +108,7 @@ import io.netty.handler.codec.http.LastHttpContent;
 
     public void onDataAvailable(final ByteString data)
     {
-      HttpContent content = new DefaultHttpContent(Unpooled.wrappedBuffer(data.asByteBuffer()));
+      HttpContent content = new DefaultHttpContent(NettyByteStrings.toByteBuf(data));
       _ctx.write(content).addListener(new ChannelFutureListener()
       {
         @Override
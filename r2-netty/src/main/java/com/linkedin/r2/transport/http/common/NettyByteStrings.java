@@ -0,0 +1,63 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.transport.http.common;
+
+import com.linkedin.data.ByteString;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Converts {@link ByteString}s into Netty {@link ByteBuf}s without copying.
+ *
+ * {@link ByteString#asByteBuffer()} assembles a compound ByteString into one contiguous array before wrapping it.
+ * Wrapping each underlying segment instead yields a {@link io.netty.buffer.CompositeByteBuf} that the channel can
+ * hand to a single gathering write.
+ */
+public final class NettyByteStrings
+{
+  private NettyByteStrings()
+  {
+  }
+
+  /**
+   * Wraps the given {@link ByteString} as a {@link ByteBuf} sharing its underlying bytes. A ByteString made of a
+   * single segment is wrapped directly; a compound ByteString becomes a composite buffer with one component per
+   * segment.
+   *
+   * @param bytes the bytes to wrap
+   * @return a read-only {@link ByteBuf} view of the bytes
+   */
+  public static ByteBuf toByteBuf(ByteString bytes)
+  {
+    List<ByteString> segments = bytes.decompose();
+    if (segments.size() == 1)
+    {
+      return Unpooled.wrappedBuffer(segments.get(0).asByteBuffer());
+    }
+
+    ByteBuffer[] buffers = new ByteBuffer[segments.size()];
+    for (int i = 0; i < buffers.length; i++)
+    {
+      buffers[i] = segments.get(i).asByteBuffer();
+    }
+    return Unpooled.wrappedBuffer(buffers.length, buffers);
+  }
+}
@@ -25,10 +25,10 @@ import com.linkedin.data.ByteString;
 import com.linkedin.r2.message.rest.RestRequestBuilder;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.transport.http.common.HttpConstants;
+import com.linkedin.r2.transport.http.common.NettyByteStrings;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
@@ -108,7 +108,7 @@ class RAPServerCodec extends ChannelDuplexHandler
         throws Exception
     {
       final ByteString entity = response.getEntity();
-      ByteBuf content = Unpooled.wrappedBuffer(entity.asByteBuffer());
+      ByteBuf content = NettyByteStrings.toByteBuf(entity);
 
       HttpResponse nettyResponse =
           new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.valueOf(response.getStatus()), content);
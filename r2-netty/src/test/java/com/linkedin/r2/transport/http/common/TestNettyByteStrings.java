@@ -0,0 +1,70 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.r2.transport.http.common;
+
+import com.linkedin.data.ByteString;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import java.nio.charset.Charset;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestNettyByteStrings
+{
+  private static final Charset CHARSET = Charset.forName("UTF-8");
+
+  @Test
+  public void testSingleSegment()
+  {
+    ByteBuf buf = NettyByteStrings.toByteBuf(ByteString.copyString("hello", CHARSET));
+
+    Assert.assertFalse(buf instanceof CompositeByteBuf);
+    Assert.assertEquals(buf.toString(CHARSET), "hello");
+  }
+
+  @Test
+  public void testEmpty()
+  {
+    ByteBuf buf = NettyByteStrings.toByteBuf(ByteString.empty());
+
+    Assert.assertEquals(buf.readableBytes(), 0);
+  }
+
+  @Test
+  public void testCompoundIsNotAssembled()
+  {
+    byte[] first = "hello ".getBytes(CHARSET);
+    byte[] second = "world".getBytes(CHARSET);
+    ByteString compound = new ByteString.Builder()
+        .append(ByteString.unsafeWrap(first))
+        .append(ByteString.unsafeWrap(second))
+        .build();
+
+    ByteBuf buf = NettyByteStrings.toByteBuf(compound);
+
+    Assert.assertTrue(buf instanceof CompositeByteBuf);
+    Assert.assertEquals(((CompositeByteBuf) buf).numComponents(), 2);
+    Assert.assertEquals(buf.nioBufferCount(), 2);
+    Assert.assertEquals(buf.toString(CHARSET), "hello world");
+
+    // the composite shares the original arrays rather than a copy of them
+    second[0] = 'W';
+    Assert.assertEquals(buf.toString(CHARSET), "hello World");
+  }
+}
@@ -0,0 +1,440 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.client;
+
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.util.None;
+import com.linkedin.data.schema.PathSpec;
+import com.linkedin.data.template.DataTemplateUtil;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.restli.client.multiplexer.MultiplexedRequest;
+import com.linkedin.restli.client.multiplexer.MultiplexedResponse;
+import com.linkedin.restli.client.response.BatchKVResponse;
+import com.linkedin.restli.common.CollectionResponse;
+import com.linkedin.restli.common.ResourceMethod;
+import com.linkedin.restli.common.RestConstants;
+import com.linkedin.restli.internal.client.ResponseImpl;
+
+import java.net.HttpCookie;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A {@link RestClient} decorator that transparently batches concurrent {@link GetRequest}s into BATCH_GET requests.
+ *
+ * GET requests for the same resource are collected for a short window. When the window closes, or when the number of
+ * collected requests reaches the maximum batch size, the collected requests are merged with
+ * {@link BatchGetRequestBuilder#batchKV(List, boolean)} and sent as one {@link BatchGetKVRequest}. The batch response
+ * is split per id with {@link BatchGetRequestUtil#unbatchKVResponse}; an error returned for a single id fails only the
+ * requests for that id, while a failure of the whole batch fails all of them.
+ *
+ * Only GET requests for resources that also support BATCH_GET are batched. Requests are only batched with requests
+ * that have the same base URI template, path keys, query parameters, projection, headers, cookies and
+ * {@link RestliRequestOptions}. A window that collects a single request sends that
+ * request unchanged. Only the {@link RequestContext} of the first request of a batch reaches the transport. All other
+ * requests are passed to the decorated client unchanged.
+ *
+ * This class is not given a transport client of its own: every public {@link RestClient} method that sends a request
+ * is overridden to go through the decorated client. A send method added to RestClient must be overridden here as
+ * well; until it is, calling it on this class fails with an {@link IllegalStateException}.
+ */
+public class BatchingRestClient extends RestClient
+{
+  private final RestClient _restClient;
+  private final ScheduledExecutorService _scheduler;
+  private final long _windowMillis;
+  private final int _maxBatchSize;
+  private final ConcurrentMap<BatchKey, PendingBatch> _pendingBatches =
+      new ConcurrentHashMap<BatchKey, PendingBatch>();
+  private final AtomicLong _batchCount = new AtomicLong();
+  private final AtomicLong _batchedRequestCount = new AtomicLong();
+
+  /**
+   * @param restClient the client that sends the batched and the non-batchable requests.
+   * @param scheduler executor used to close batching windows.
+   * @param windowMillis how long GET requests are collected before the batch is sent.
+   * @param maxBatchSize number of collected GET requests at which the batch is sent without waiting for the window.
+   */
+  public BatchingRestClient(RestClient restClient,
+                            ScheduledExecutorService scheduler,
+                            long windowMillis,
+                            int maxBatchSize)
+  {
+    super(null, restClient.getURIPrefix());
+    if (windowMillis < 0)
+    {
+      throw new IllegalArgumentException("windowMillis must not be negative: " + windowMillis);
+    }
+    if (maxBatchSize < 1)
+    {
+      throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+    }
+    _restClient = restClient;
+    _scheduler = scheduler;
+    _windowMillis = windowMillis;
+    _maxBatchSize = maxBatchSize;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> void sendRequest(final Request<T> request,
+                              final RequestContext requestContext,
+                              final Callback<Response<T>> callback)
+  {
+    if (!isBatchable(request))
+    {
+      _restClient.sendRequest(request, requestContext, callback);
+      return;
+    }
+
+    // isBatchable guarantees a GetRequest, whose response type is a RecordTemplate.
+    enqueue(new PendingGet((GetRequest<RecordTemplate>) (Request<?>) request,
+                           requestContext,
+                           (Callback<Response<RecordTemplate>>) (Callback<?>) callback));
+  }
+
+  private void enqueue(PendingGet get)
+  {
+    final BatchKey key = new BatchKey(get._request);
+    while (true)
+    {
+      PendingBatch batch = _pendingBatches.get(key);
+      if (batch == null)
+      {
+        final PendingBatch newBatch = new PendingBatch();
+        batch = _pendingBatches.putIfAbsent(key, newBatch);
+        if (batch == null)
+        {
+          batch = newBatch;
+          if (_maxBatchSize > 1)
+          {
+            final PendingBatch scheduled = newBatch;
+            try
+            {
+              _scheduler.schedule(new Runnable()
+              {
+                @Override
+                public void run()
+                {
+                  flush(key, scheduled);
+                }
+              }, _windowMillis, TimeUnit.MILLISECONDS);
+            }
+            catch (RejectedExecutionException e)
+            {
+              // without a window the batch would never be sent; send the requests that joined it and this one now.
+              flush(key, newBatch);
+              _restClient.sendRequest(get._request, get._requestContext, get._callback);
+              return;
+            }
+          }
+        }
+      }
+
+      final int size = batch.add(get);
+      if (size < 0)
+      {
+        // the batch was flushed concurrently; it removes itself from the map before it is sent.
+        _pendingBatches.remove(key, batch);
+        continue;
+      }
+      if (size >= _maxBatchSize)
+      {
+        flush(key, batch);
+      }
+      return;
+    }
+  }
+
+  private void flush(BatchKey key, PendingBatch batch)
+  {
+    _pendingBatches.remove(key, batch);
+    final List<PendingGet> gets = batch.close();
+    if (gets == null || gets.isEmpty())
+    {
+      return;
+    }
+
+    if (gets.size() == 1)
+    {
+      final PendingGet get = gets.get(0);
+      _restClient.sendRequest(get._request, get._requestContext, get._callback);
+      return;
+    }
+
+    final BatchGetKVRequest<Object, RecordTemplate> batchRequest;
+    try
+    {
+      final List<BatchGetKVRequest<Object, RecordTemplate>> batchRequests =
+          new ArrayList<BatchGetKVRequest<Object, RecordTemplate>>(gets.size());
+      for (PendingGet get : gets)
+      {
+        batchRequests.add(BatchGetRequestBuilder.<Object, RecordTemplate>batchKV(get._request));
+      }
+      batchRequest = BatchGetRequestBuilder.batchKV(batchRequests, false);
+    }
+    catch (RuntimeException e)
+    {
+      // requests that cannot be merged are sent individually.
+      for (PendingGet get : gets)
+      {
+        _restClient.sendRequest(get._request, get._requestContext, get._callback);
+      }
+      return;
+    }
+
+    _batchCount.incrementAndGet();
+    _batchedRequestCount.addAndGet(gets.size());
+    _restClient.sendRequest(batchRequest,
+                            gets.get(0)._requestContext,
+                            new Callback<Response<BatchKVResponse<Object, RecordTemplate>>>()
+    {
+      @Override
+      public void onSuccess(Response<BatchKVResponse<Object, RecordTemplate>> response)
+      {
+        final Set<Object> deliveredIds = new HashSet<Object>();
+        for (PendingGet get : gets)
+        {
+          final Response<RecordTemplate> getResponse;
+          try
+          {
+            getResponse = unbatch(batchRequest, response, get, !deliveredIds.add(get._request.getObjectId()));
+          }
+          catch (Exception e)
+          {
+            get._callback.onError(e);
+            continue;
+          }
+          get._callback.onSuccess(getResponse);
+        }
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+        for (PendingGet get : gets)
+        {
+          get._callback.onError(e);
+        }
+      }
+    });
+  }
+
+  private static Response<RecordTemplate> unbatch(BatchGetKVRequest<Object, RecordTemplate> batchRequest,
+                                                  Response<BatchKVResponse<Object, RecordTemplate>> batchResponse,
+                                                  PendingGet get,
+                                                  boolean copy)
+      throws Exception
+  {
+    final Response<RecordTemplate> response =
+        BatchGetRequestUtil.unbatchKVResponse(batchRequest, batchResponse, get._request.getObjectId());
+    if (!copy)
+    {
+      return response;
+    }
+
+    // several requests for the same id share one result in the batch response; each of them gets its own copy.
+    final RecordTemplate entity = DataTemplateUtil.wrap(response.getEntity().data().copy(),
+                                                        get._request.getEntityClass());
+    return new ResponseImpl<RecordTemplate>(response, entity);
+  }
+
+  private static boolean isBatchable(Request<?> request)
+  {
+    return request instanceof GetRequest
+        && ((GetRequest<?>) request).getObjectId() != null
+        && !request.getResourceProperties().isKeylessResource()
+        && request.getResourceProperties().getSupportedMethods().contains(ResourceMethod.BATCH_GET)
+        && request.getInputRecord() == null
+        && request.getStreamingAttachments() == null
+        && (request.getRequestOptions() == null || !request.getRequestOptions().getAcceptResponseAttachments());
+  }
+
+  /**
+   * @return number of BATCH_GET requests sent on behalf of batched GET requests.
+   */
+  public long getBatchCount()
+  {
+    return _batchCount.get();
+  }
+
+  /**
+   * @return number of GET requests that were sent as part of a BATCH_GET request.
+   */
+  public long getBatchedRequestCount()
+  {
+    return _batchedRequestCount.get();
+  }
+
+  @Override
+  public void shutdown(Callback<None> callback)
+  {
+    _restClient.shutdown(callback);
+  }
+
+  @Override
+  @Deprecated
+  public <T> void sendRestRequest(Request<T> request, RequestContext requestContext, Callback<RestResponse> callback)
+  {
+    _restClient.sendRestRequest(request, requestContext, callback);
+  }
+
+  @Override
+  public <T extends RecordTemplate> void sendStreamingCollectionRequest(Request<CollectionResponse<T>> request,
+                                                                        RequestContext requestContext,
+                                                                        StreamingCollectionCallback<T> callback)
+  {
+    _restClient.sendStreamingCollectionRequest(request, requestContext, callback);
+  }
+
+  @Override
+  public void sendRequest(MultiplexedRequest multiplexedRequest)
+  {
+    _restClient.sendRequest(multiplexedRequest);
+  }
+
+  @Override
+  public void sendRequest(MultiplexedRequest multiplexedRequest, Callback<MultiplexedResponse> callback)
+  {
+    _restClient.sendRequest(multiplexedRequest, callback);
+  }
+
+  private static class PendingGet
+  {
+    private final GetRequest<RecordTemplate> _request;
+    private final RequestContext _requestContext;
+    private final Callback<Response<RecordTemplate>> _callback;
+
+    PendingGet(GetRequest<RecordTemplate> request,
+               RequestContext requestContext,
+               Callback<Response<RecordTemplate>> callback)
+    {
+      _request = request;
+      _requestContext = requestContext;
+      _callback = callback;
+    }
+  }
+
+  /**
+   * GET requests collected within one window. Once closed, no more requests can be added.
+   */
+  private static class PendingBatch
+  {
+    private List<PendingGet> _gets = new ArrayList<PendingGet>();
+
+    /**
+     * @return the number of collected requests including the added one, or -1 if the batch is already closed.
+     */
+    synchronized int add(PendingGet get)
+    {
+      if (_gets == null)
+      {
+        return -1;
+      }
+      _gets.add(get);
+      return _gets.size();
+    }
+
+    synchronized List<PendingGet> close()
+    {
+      final List<PendingGet> gets = _gets;
+      _gets = null;
+      return gets;
+    }
+  }
+
+  private static class BatchKey
+  {
+    private final Class<?> _entityClass;
+    private final String _baseUriTemplate;
+    private final Map<String, Object> _pathKeys;
+    private final Map<String, Object> _queryParams;
+    private final Set<PathSpec> _fields;
+    private final Map<String, String> _headers;
+    private final List<HttpCookie> _cookies;
+    private final RestliRequestOptions _requestOptions;
+
+    BatchKey(GetRequest<?> request)
+    {
+      _entityClass = request.getEntityClass();
+      _baseUriTemplate = request.getBaseUriTemplate();
+      _pathKeys = request.getPathKeys();
+      _queryParams = new HashMap<String, Object>(request.getQueryParamsObjects());
+      _queryParams.remove(RestConstants.FIELDS_PARAM);
+      _fields = request.getFields();
+      _headers = request.getHeaders();
+      _cookies = request.getCookies();
+      _requestOptions = request.getRequestOptions();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (this == o)
+      {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass())
+      {
+        return false;
+      }
+
+      final BatchKey other = (BatchKey) o;
+      return _entityClass.equals(other._entityClass)
+          && equal(_baseUriTemplate, other._baseUriTemplate)
+          && equal(_pathKeys, other._pathKeys)
+          && _queryParams.equals(other._queryParams)
+          && equal(_fields, other._fields)
+          && equal(_headers, other._headers)
+          && equal(_cookies, other._cookies)
+          && equal(_requestOptions, other._requestOptions);
+    }
+
+    @Override
+    public int hashCode()
+    {
+      int result = _entityClass.hashCode();
+      result = 31 * result + (_baseUriTemplate != null ? _baseUriTemplate.hashCode() : 0);
+      result = 31 * result + (_pathKeys != null ? _pathKeys.hashCode() : 0);
+      result = 31 * result + _queryParams.hashCode();
+      result = 31 * result + (_fields != null ? _fields.hashCode() : 0);
+      result = 31 * result + (_headers != null ? _headers.hashCode() : 0);
+      result = 31 * result + (_cookies != null ? _cookies.hashCode() : 0);
+      result = 31 * result + (_requestOptions != null ? _requestOptions.hashCode() : 0);
+      return result;
+    }
+
+    private static boolean equal(Object o1, Object o2)
+    {
+      return o1 == null ? o2 == null : o1.equals(o2);
+    }
+  }
+}
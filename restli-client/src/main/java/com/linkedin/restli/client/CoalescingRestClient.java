@@ -0,0 +1,316 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.client;
+
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.util.None;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.restli.client.multiplexer.MultiplexedRequest;
+import com.linkedin.restli.client.multiplexer.MultiplexedResponse;
+import com.linkedin.restli.client.util.RestliRequestUriSignature;
+import com.linkedin.restli.common.CollectionResponse;
+import com.linkedin.restli.internal.client.ResponseImpl;
+import com.linkedin.restli.internal.common.ProtocolVersionUtil;
+
+import java.net.HttpCookie;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A {@link RestClient} decorator that coalesces identical in-flight requests ("single-flight").
+ *
+ * While a safe (GET) request without a request body is in flight, further requests that are identical to it are not
+ * sent. Instead they wait for the response of the in-flight request, and each of them receives its own copy of the
+ * response entity, decoded by its own request's decoder. Two requests are identical when they are of the same class
+ * and their {@link RestliRequestUriSignature}, headers, cookies and {@link RestliRequestOptions} are equal.
+ *
+ * Only the {@link RequestContext} of the request that is actually sent reaches the transport; the request contexts of
+ * coalesced requests are ignored. All other requests are passed to the decorated client unchanged.
+ *
+ * This class is not given a transport client of its own: every public {@link RestClient} method that sends a request
+ * is overridden to go through the decorated client. A send method added to RestClient must be overridden here as
+ * well; until it is, calling it on this class fails with an {@link IllegalStateException}.
+ */
+public class CoalescingRestClient extends RestClient
+{
+  private final RestClient _restClient;
+  private final ConcurrentMap<RequestKey, InFlightRequest> _inFlightRequests =
+      new ConcurrentHashMap<RequestKey, InFlightRequest>();
+  private final AtomicLong _sentCount = new AtomicLong();
+  private final AtomicLong _coalescedCount = new AtomicLong();
+
+  /**
+   * @param restClient the client that sends the requests which are not coalesced.
+   */
+  public CoalescingRestClient(RestClient restClient)
+  {
+    super(null, restClient.getURIPrefix());
+    _restClient = restClient;
+  }
+
+  @Override
+  public <T> void sendRequest(final Request<T> request,
+                              final RequestContext requestContext,
+                              final Callback<Response<T>> callback)
+  {
+    if (!isCoalescable(request))
+    {
+      _restClient.sendRequest(request, requestContext, callback);
+      return;
+    }
+
+    final RequestKey key = new RequestKey(request);
+    while (true)
+    {
+      final InFlightRequest existing = _inFlightRequests.get(key);
+      if (existing != null)
+      {
+        if (existing.addWaiter(new Waiter<T>(request, callback)))
+        {
+          _coalescedCount.incrementAndGet();
+          return;
+        }
+        // the in-flight request completed concurrently; it removes itself from the map before completing.
+        _inFlightRequests.remove(key, existing);
+        continue;
+      }
+
+      final InFlightRequest inFlightRequest = new InFlightRequest();
+      if (_inFlightRequests.putIfAbsent(key, inFlightRequest) == null)
+      {
+        _sentCount.incrementAndGet();
+        _restClient.sendRequest(request, requestContext, new Callback<Response<T>>()
+        {
+          @Override
+          public void onSuccess(Response<T> response)
+          {
+            // waiters copy the entity before it is handed to the original caller, who may modify it.
+            for (Waiter<?> waiter : complete(key, inFlightRequest))
+            {
+              waiter.onSuccess(response);
+            }
+            callback.onSuccess(response);
+          }
+
+          @Override
+          public void onError(Throwable e)
+          {
+            for (Waiter<?> waiter : complete(key, inFlightRequest))
+            {
+              waiter.onError(e);
+            }
+            callback.onError(e);
+          }
+        });
+        return;
+      }
+    }
+  }
+
+  private List<Waiter<?>> complete(RequestKey key, InFlightRequest inFlightRequest)
+  {
+    _inFlightRequests.remove(key, inFlightRequest);
+    return inFlightRequest.complete();
+  }
+
+  private static boolean isCoalescable(Request<?> request)
+  {
+    return request.isSafe()
+        && request.getInputRecord() == null
+        && request.getStreamingAttachments() == null
+        && (request.getRequestOptions() == null || !request.getRequestOptions().getAcceptResponseAttachments());
+  }
+
+  /**
+   * @return number of requests that were sent through the decorated client because no identical request was in flight.
+   */
+  public long getSentRequestCount()
+  {
+    return _sentCount.get();
+  }
+
+  /**
+   * @return number of requests that were answered with the response of an identical in-flight request.
+   */
+  public long getCoalescedRequestCount()
+  {
+    return _coalescedCount.get();
+  }
+
+  @Override
+  public void shutdown(Callback<None> callback)
+  {
+    _restClient.shutdown(callback);
+  }
+
+  @Override
+  @Deprecated
+  public <T> void sendRestRequest(Request<T> request, RequestContext requestContext, Callback<RestResponse> callback)
+  {
+    _restClient.sendRestRequest(request, requestContext, callback);
+  }
+
+  @Override
+  public <T extends RecordTemplate> void sendStreamingCollectionRequest(Request<CollectionResponse<T>> request,
+                                                                        RequestContext requestContext,
+                                                                        StreamingCollectionCallback<T> callback)
+  {
+    _restClient.sendStreamingCollectionRequest(request, requestContext, callback);
+  }
+
+  @Override
+  public void sendRequest(MultiplexedRequest multiplexedRequest)
+  {
+    _restClient.sendRequest(multiplexedRequest);
+  }
+
+  @Override
+  public void sendRequest(MultiplexedRequest multiplexedRequest, Callback<MultiplexedResponse> callback)
+  {
+    _restClient.sendRequest(multiplexedRequest, callback);
+  }
+
+  /**
+   * Callbacks waiting for the response of an in-flight request. Once completed, no more waiters can be added.
+   */
+  private static class InFlightRequest
+  {
+    private List<Waiter<?>> _waiters = new ArrayList<Waiter<?>>();
+
+    synchronized boolean addWaiter(Waiter<?> waiter)
+    {
+      if (_waiters == null)
+      {
+        return false;
+      }
+      _waiters.add(waiter);
+      return true;
+    }
+
+    synchronized List<Waiter<?>> complete()
+    {
+      final List<Waiter<?>> waiters = _waiters;
+      _waiters = null;
+      return waiters;
+    }
+  }
+
+  private static class Waiter<T>
+  {
+    private final Request<T> _request;
+    private final Callback<Response<T>> _callback;
+
+    Waiter(Request<T> request, Callback<Response<T>> callback)
+    {
+      _request = request;
+      _callback = callback;
+    }
+
+    void onSuccess(Response<?> response)
+    {
+      final T entity;
+      try
+      {
+        entity = copyEntity(response);
+      }
+      catch (Exception e)
+      {
+        _callback.onError(new RestLiDecodingException("Could not copy coalesced response", e));
+        return;
+      }
+      _callback.onSuccess(new ResponseImpl<T>(response, entity));
+    }
+
+    void onError(Throwable e)
+    {
+      _callback.onError(e);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T copyEntity(Response<?> response) throws Exception
+    {
+      final Object entity = response.getEntity();
+      if (entity instanceof RecordTemplate)
+      {
+        final DataMap data = ((RecordTemplate) entity).data().copy();
+        final Map<String, String> headers = response.getHeaders();
+        return _request.getResponseDecoder().wrapResponse(data, headers,
+                                                          ProtocolVersionUtil.extractProtocolVersion(headers));
+      }
+      // requests are only coalesced with requests of the same class, so the entity type matches.
+      return (T) entity;
+    }
+  }
+
+  private static class RequestKey
+  {
+    private final Class<?> _requestClass;
+    private final RestliRequestUriSignature _signature;
+    private final Map<String, String> _headers;
+    private final List<HttpCookie> _cookies;
+    private final RestliRequestOptions _requestOptions;
+
+    RequestKey(Request<?> request)
+    {
+      _requestClass = request.getClass();
+      _signature = new RestliRequestUriSignature(request, RestliRequestUriSignature.ALL_FIELDS);
+      _headers = request.getHeaders();
+      _cookies = request.getCookies();
+      _requestOptions = request.getRequestOptions();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (this == o)
+      {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass())
+      {
+        return false;
+      }
+
+      final RequestKey other = (RequestKey) o;
+      return _requestClass.equals(other._requestClass)
+          && _signature.equals(other._signature)
+          && (_headers == null ? other._headers == null : _headers.equals(other._headers))
+          && (_cookies == null ? other._cookies == null : _cookies.equals(other._cookies))
+          && (_requestOptions == null ? other._requestOptions == null : _requestOptions.equals(other._requestOptions));
+    }
+
+    @Override
+    public int hashCode()
+    {
+      int result = _requestClass.hashCode();
+      result = 31 * result + _signature.hashCode();
+      result = 31 * result + (_headers != null ? _headers.hashCode() : 0);
+      result = 31 * result + (_cookies != null ? _cookies.hashCode() : 0);
+      result = 31 * result + (_requestOptions != null ? _requestOptions.hashCode() : 0);
+      return result;
+    }
+  }
+}
@@ -45,6 +45,7 @@ import com.linkedin.restli.client.multiplexer.MultiplexedRequest;
 import com.linkedin.restli.client.multiplexer.MultiplexedResponse;
 import com.linkedin.restli.client.uribuilders.MultiplexerUriBuilder;
 import com.linkedin.restli.client.uribuilders.RestliUriBuilderUtil;
+import com.linkedin.restli.common.CollectionResponse;
 import com.linkedin.restli.common.HttpMethod;
 import com.linkedin.restli.common.OperationNameGenerator;
 import com.linkedin.restli.common.ProtocolVersion;
@@ -52,8 +53,10 @@ import com.linkedin.restli.common.ResourceMethod;
 import com.linkedin.restli.common.RestConstants;
 import com.linkedin.restli.common.attachments.RestLiAttachmentDataSourceWriter;
 import com.linkedin.restli.common.attachments.RestLiDataSourceIterator;
+import com.linkedin.restli.internal.client.CollectionElementsReader;
 import com.linkedin.restli.internal.client.RequestBodyTransformer;
 import com.linkedin.restli.internal.client.ResponseFutureImpl;
+import com.linkedin.restli.internal.client.RestResponseDecoder;
 import com.linkedin.restli.internal.common.AllProtocolVersions;
 import com.linkedin.restli.internal.common.AttachmentUtils;
 import com.linkedin.restli.internal.common.CookieUtil;
@@ -165,7 +168,21 @@ public class RestClient
    */
   public void shutdown(Callback<None> callback)
   {
-    _client.shutdown(callback);
+    getClient().shutdown(callback);
+  }
+
+  /**
+   * Decorators such as {@link CoalescingRestClient} are constructed without a transport client and must override every
+   * method that sends a request. This fails clearly when one of those methods is not overridden.
+   */
+  private Client getClient()
+  {
+    if (_client == null)
+    {
+      throw new IllegalStateException(getClass().getName()
+          + " has no transport client and must override every RestClient method that sends a request");
+    }
+    return _client;
   }
 
   /**
@@ -279,6 +296,99 @@ public class RestClient
     }
   }
 
+  /**
+   * Sends a finder or get_all request and delivers the elements of the collection response as they are decoded,
+   * without first reading the whole response into memory.
+   *
+   * The request is sent through the streaming transport and JSON is requested, so that a server returning a
+   * {@code StreamingCollectionResult} can push the elements as it produces them. Responses from other servers, and
+   * non-JSON responses, are delivered element by element once they have been read completely.
+   *
+   * @param request the finder or get_all request to send
+   * @param requestContext context for the request
+   * @param callback receives the elements, then the response envelope with paging and metadata. In the event of an
+   *                 error, the callback will receive a {@link com.linkedin.r2.RemoteInvocationException}. If a valid
+   *                 error response was received from the remote server, the callback will receive a
+   *                 {@link RestLiResponseException} containing the error details.
+   */
+  public <T extends RecordTemplate> void sendStreamingCollectionRequest(final Request<CollectionResponse<T>> request,
+                                                                        final RequestContext requestContext,
+                                                                        final StreamingCollectionCallback<T> callback)
+  {
+    if (request.getStreamingAttachments() != null || request.getRequestOptions().getAcceptResponseAttachments())
+    {
+      throw new UnsupportedOperationException("Cannot stream collection elements of requests with attachments!");
+    }
+
+    final RestResponseDecoder<CollectionResponse<T>> decoder = request.getResponseDecoder();
+    @SuppressWarnings("unchecked")
+    final Class<T> elementClass = (Class<T>) decoder.getEntityClass();
+    final RestLiStreamCallbackAdapter<CollectionResponse<T>> errorAdapter =
+        new RestLiStreamCallbackAdapter<CollectionResponse<T>>(decoder, new Callback<Response<CollectionResponse<T>>>()
+        {
+          @Override
+          public void onError(Throwable e)
+          {
+            callback.onError(e);
+          }
+
+          @Override
+          public void onSuccess(Response<CollectionResponse<T>> result)
+          {
+            callback.onSuccess(result);
+          }
+        });
+
+    final RestliRequestOptions requestOptions = new RestliRequestOptionsBuilder(request.getRequestOptions())
+        .setAcceptTypes(Collections.singletonList(AcceptType.JSON))
+        .build();
+    final RecordTemplate input = request.getInputRecord();
+    final ProtocolVersion protocolVersion;
+    final URI requestUri;
+    try
+    {
+      protocolVersion = getProtocolVersionForService(request);
+      requestUri = RestliUriBuilderUtil.createUriBuilder(request, _uriPrefix, protocolVersion).build();
+    }
+    catch (Exception e)
+    {
+      errorAdapter.onError(e);
+      return;
+    }
+
+    sendStreamRequestImpl(requestContext,
+                          requestUri,
+                          request.getMethod(),
+                          input != null ? RequestBodyTransformer.transform(request, protocolVersion) : null,
+                          request.getHeaders(),
+                          CookieUtil.encodeCookies(request.getCookies()),
+                          request.getMethodName(),
+                          protocolVersion,
+                          requestOptions,
+                          null,
+                          new Callback<StreamResponse>()
+                          {
+                            @Override
+                            public void onError(Throwable e)
+                            {
+                              errorAdapter.onError(e);
+                            }
+
+                            @Override
+                            public void onSuccess(StreamResponse result)
+                            {
+                              try
+                              {
+                                CollectionElementsReader.decode(result, decoder, elementClass, callback);
+                              }
+                              catch (Exception e)
+                              {
+                                errorAdapter.onError(e);
+                              }
+                            }
+                          });
+  }
+
   private <T> void sendStreamRequest(final Request<T> request,
                                      RequestContext requestContext,
                                      Callback<StreamResponse> callback)
@@ -354,7 +464,7 @@ public class RestClient
                                 AllProtocolVersions.PREVIOUS_PROTOCOL_VERSION,
                                 AllProtocolVersions.LATEST_PROTOCOL_VERSION,
                                 AllProtocolVersions.NEXT_PROTOCOL_VERSION,
-                                getAnnouncedVersion(_client.getMetadata(new URI(_uriPrefix + request.getServiceName()))),
+                                getAnnouncedVersion(getClient().getMetadata(new URI(_uriPrefix + request.getServiceName()))),
                                 request.getRequestOptions().getProtocolVersionOption(),
                                 _forceUseNextVersionOverride);
     }
@@ -700,7 +810,7 @@ public class RestClient
     {
       RestRequest restRequest = buildMultiplexedRequest(multiplexedRequest);
       RequestContext requestContext = new RequestContext();
-      _client.restRequest(restRequest, requestContext, muxCallback);
+      getClient().restRequest(restRequest, requestContext, muxCallback);
     }
     catch (Exception e)
     {
@@ -721,10 +831,10 @@ public class RestClient
     switch (type)
     {
       case PSON:
-        requestBuilder.setEntity(PSON_DATA_CODEC.mapToBytes(multiplexedPayload));
+        requestBuilder.setEntity(ByteString.copyFromDataMap(multiplexedPayload, PSON_DATA_CODEC));
         break;
       case JSON:
-        requestBuilder.setEntity(JACKSON_DATA_CODEC.mapToBytes(multiplexedPayload));
+        requestBuilder.setEntity(ByteString.copyFromDataMap(multiplexedPayload, JACKSON_DATA_CODEC));
         break;
       default:
         throw new IllegalStateException("Unknown ContentType:" + type);
@@ -774,7 +884,7 @@ public class RestClient
       requestContext.putLocalAttr(R2Constants.OPERATION, operation);
       requestContext.putLocalAttr(R2Constants.REQUEST_COMPRESSION_OVERRIDE, requestOptions.getRequestCompressionOverride());
       requestContext.putLocalAttr(R2Constants.RESPONSE_COMPRESSION_OVERRIDE, requestOptions.getResponseCompressionOverride());
-      _client.restRequest(request, requestContext, callback);
+      getClient().restRequest(request, requestContext, callback);
     }
     catch (Exception e)
     {
@@ -823,7 +933,7 @@ public class RestClient
       requestContext.putLocalAttr(R2Constants.REQUEST_COMPRESSION_OVERRIDE, requestOptions.getRequestCompressionOverride());
       requestContext.putLocalAttr(R2Constants.RESPONSE_COMPRESSION_OVERRIDE,
                                   requestOptions.getResponseCompressionOverride());
-      _client.streamRequest(request, requestContext, callback);
+      getClient().streamRequest(request, requestContext, callback);
     }
     catch (Exception e)
     {
@@ -858,10 +968,10 @@ public class RestClient
       switch (type)
       {
         case PSON:
-          requestBuilder.setEntity(PSON_DATA_CODEC.mapToBytes(dataMap));
+          requestBuilder.setEntity(ByteString.copyFromDataMap(dataMap, PSON_DATA_CODEC));
           break;
         case JSON:
-          requestBuilder.setEntity(JACKSON_DATA_CODEC.mapToBytes(dataMap));
+          requestBuilder.setEntity(ByteString.copyFromDataMap(dataMap, JACKSON_DATA_CODEC));
           break;
         default:
           throw new IllegalStateException("Unknown ContentType:" + type);
@@ -916,10 +1026,10 @@ public class RestClient
       switch (type)
       {
         case PSON:
-          firstPartWriter = new ByteStringWriter(ByteString.copy(PSON_DATA_CODEC.mapToBytes(dataMap)));
+          firstPartWriter = new ByteStringWriter(ByteString.copyFromDataMap(dataMap, PSON_DATA_CODEC));
           break;
         case JSON:
-          firstPartWriter = new ByteStringWriter(ByteString.copy(JACKSON_DATA_CODEC.mapToBytes(dataMap)));
+          firstPartWriter = new ByteStringWriter(ByteString.copyFromDataMap(dataMap, JACKSON_DATA_CODEC));
           break;
         default:
           throw new IllegalStateException("Unknown ContentType:" + type);
@@ -954,10 +1064,9 @@ public class RestClient
     }
     else
     {
-      //Note that for it to reach this state, acceptResponseAttachments must be true. Otherwise there are no request
-      //attachments and there is no desire to receive response attachments, which means this request should have directly
-      //taken the RestRequest code path.
-      assert(acceptResponseAttachments == true);
+      //Note that for it to reach this state, acceptResponseAttachments must be true or the response is a streamed
+      //collection. Otherwise there are no request attachments and there is no desire to receive a streamed response,
+      //which means this request should have directly taken the RestRequest code path.
 
       return Messages.toStreamRequest(buildRestRequest(uri, method, dataMap, headers, cookies,
                                                        protocolVersion, contentType, acceptTypes,
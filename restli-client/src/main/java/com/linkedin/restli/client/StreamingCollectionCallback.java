@@ -0,0 +1,49 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.client;
+
+
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.restli.common.CollectionResponse;
+
+
+/**
+ * Receives the elements of a finder or get_all response as they are decoded, see
+ * {@link RestClient#sendStreamingCollectionRequest(Request, com.linkedin.r2.message.RequestContext, StreamingCollectionCallback)}.
+ *
+ * Methods are invoked sequentially on the thread that delivers the response entity. The next part of the entity is
+ * only requested from the transport after {@link #onElement(RecordTemplate)} returns.
+ *
+ * @param <T> element type
+ */
+public interface StreamingCollectionCallback<T extends RecordTemplate>
+{
+  /**
+   * Invoked for every element of the collection, in response order.
+   */
+  void onElement(T element);
+
+  /**
+   * Invoked once after the last element. The entity of the response carries paging and metadata, but no elements.
+   */
+  void onSuccess(Response<CollectionResponse<T>> response);
+
+  /**
+   * Invoked if the request fails or the response cannot be decoded. No further methods are invoked afterwards.
+   */
+  void onError(Throwable e);
+}
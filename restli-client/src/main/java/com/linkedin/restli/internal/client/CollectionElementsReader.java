@@ -0,0 +1,348 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.internal.client;
+
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.data.ByteString;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.template.DataTemplateUtil;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.r2.message.stream.StreamResponse;
+import com.linkedin.r2.message.stream.entitystream.ReadHandle;
+import com.linkedin.r2.message.stream.entitystream.Reader;
+import com.linkedin.restli.client.Response;
+import com.linkedin.restli.client.RestLiDecodingException;
+import com.linkedin.restli.client.StreamingCollectionCallback;
+import com.linkedin.restli.common.CollectionResponse;
+import com.linkedin.restli.common.RestConstants;
+import com.linkedin.restli.internal.common.CookieUtil;
+import com.linkedin.restli.internal.common.ProtocolVersionUtil;
+
+import java.io.ByteArrayOutputStream;
+
+
+/**
+ * Decodes a JSON encoded {@link CollectionResponse} incrementally from an entity stream, delivering each element to a
+ * {@link StreamingCollectionCallback} as soon as its bytes have arrived.
+ *
+ * The reader tracks the JSON nesting of the entity. The objects inside the top level {@code elements} array are cut
+ * out and decoded one by one; everything else is kept and decoded at the end as the envelope carrying paging and
+ * metadata. Only one element is buffered at a time.
+ *
+ * @param <T> element type
+ */
+public class CollectionElementsReader<T extends RecordTemplate> implements Reader
+{
+  private static final JacksonDataCodec CODEC = new JacksonDataCodec();
+
+  private final StreamResponse _streamResponse;
+  private final RestResponseDecoder<CollectionResponse<T>> _decoder;
+  private final Class<T> _elementClass;
+  private final StreamingCollectionCallback<T> _callback;
+
+  private final ByteArrayOutputStream _envelope = new ByteArrayOutputStream();
+  private final StringBuilder _string = new StringBuilder();
+  private ByteArrayOutputStream _element = null;
+  private String _lastTopLevelString = null;
+  private int _depth = 0;
+  private boolean _inString = false;
+  private boolean _escaped = false;
+  private boolean _inElements = false;
+
+  private ReadHandle _rh;
+  private boolean _failed = false;
+
+  public CollectionElementsReader(StreamResponse streamResponse,
+                                  RestResponseDecoder<CollectionResponse<T>> decoder,
+                                  Class<T> elementClass,
+                                  StreamingCollectionCallback<T> callback)
+  {
+    _streamResponse = streamResponse;
+    _decoder = decoder;
+    _elementClass = elementClass;
+    _callback = callback;
+  }
+
+  /**
+   * Delivers the elements of the given response to the callback. JSON entities are decoded incrementally; other
+   * entities, e.g. PSON, are read completely and then delivered element by element.
+   */
+  public static <T extends RecordTemplate> void decode(final StreamResponse streamResponse,
+                                                       final RestResponseDecoder<CollectionResponse<T>> decoder,
+                                                       final Class<T> elementClass,
+                                                       final StreamingCollectionCallback<T> callback)
+      throws RestLiDecodingException
+  {
+    final String contentType = streamResponse.getHeader(RestConstants.HEADER_CONTENT_TYPE);
+    if (contentType == null || contentType.toLowerCase().startsWith(RestConstants.HEADER_VALUE_APPLICATION_JSON))
+    {
+      streamResponse.getEntityStream().setReader(
+          new CollectionElementsReader<T>(streamResponse, decoder, elementClass, callback));
+      return;
+    }
+
+    decoder.decodeResponse(streamResponse, new Callback<Response<CollectionResponse<T>>>()
+    {
+      @Override
+      public void onError(Throwable e)
+      {
+        callback.onError(e);
+      }
+
+      @Override
+      public void onSuccess(Response<CollectionResponse<T>> response)
+      {
+        final CollectionResponse<T> collection = response.getEntity();
+        if (collection == null)
+        {
+          callback.onSuccess(response);
+          return;
+        }
+
+        final CollectionResponse<T> envelope;
+        try
+        {
+          final DataMap envelopeData = new DataMap(collection.data());
+          envelopeData.remove(CollectionResponse.ELEMENTS);
+          envelope = new CollectionResponse<T>(envelopeData, elementClass);
+        }
+        catch (Exception e)
+        {
+          callback.onError(e);
+          return;
+        }
+
+        for (T element : collection.getElements())
+        {
+          callback.onElement(element);
+        }
+        callback.onSuccess(new ResponseImpl<CollectionResponse<T>>(response, envelope));
+      }
+    });
+  }
+
+  @Override
+  public void onInit(ReadHandle rh)
+  {
+    _rh = rh;
+    _rh.request(1);
+  }
+
+  @Override
+  public void onDataAvailable(ByteString data)
+  {
+    if (_failed)
+    {
+      return;
+    }
+
+    try
+    {
+      final byte[] bytes = data.copyBytes();
+      for (byte b : bytes)
+      {
+        consume(b);
+      }
+    }
+    catch (Exception e)
+    {
+      fail(e);
+      return;
+    }
+    _rh.request(1);
+  }
+
+  @Override
+  public void onDone()
+  {
+    if (_failed)
+    {
+      return;
+    }
+
+    final Response<CollectionResponse<T>> response;
+    try
+    {
+      if (_depth != 0 || _inString)
+      {
+        throw new RestLiDecodingException("Truncated collection response", null);
+      }
+
+      final DataMap envelopeData = _envelope.size() == 0 ? null : CODEC.bytesToMap(_envelope.toByteArray());
+      final CollectionResponse<T> envelope = _decoder.wrapResponse(envelopeData, _streamResponse.getHeaders(),
+          ProtocolVersionUtil.extractProtocolVersion(_streamResponse.getHeaders()));
+      response = new ResponseImpl<CollectionResponse<T>>(_streamResponse.getStatus(),
+                                                         _streamResponse.getHeaders(),
+                                                         CookieUtil.decodeSetCookies(_streamResponse.getCookies()),
+                                                         envelope,
+                                                         null);
+    }
+    catch (Exception e)
+    {
+      _failed = true;
+      _callback.onError(e instanceof RestLiDecodingException ? e : new RestLiDecodingException("Could not decode REST response", e));
+      return;
+    }
+    _callback.onSuccess(response);
+  }
+
+  @Override
+  public void onError(Throwable e)
+  {
+    if (!_failed)
+    {
+      _failed = true;
+      _callback.onError(e);
+    }
+  }
+
+  private void fail(Exception e)
+  {
+    _failed = true;
+    _rh.cancel();
+    _callback.onError(e instanceof RestLiDecodingException ? e : new RestLiDecodingException("Could not decode REST response", e));
+  }
+
+  private void consume(byte b) throws Exception
+  {
+    if (_element != null)
+    {
+      consumeElementByte(b);
+      return;
+    }
+
+    if (_inElements && _depth == 2 && !_inString)
+    {
+      if (b == '{')
+      {
+        _element = new ByteArrayOutputStream();
+        _element.write(b);
+        _depth++;
+      }
+      else if (b == ']')
+      {
+        _inElements = false;
+        _depth--;
+        _envelope.write(b);
+      }
+      else if (b != ',' && !isWhitespace(b))
+      {
+        throw new RestLiDecodingException("Unexpected non-record element in collection response", null);
+      }
+      // separators between elements are dropped, which leaves an empty elements array in the envelope.
+      return;
+    }
+
+    _envelope.write(b);
+    if (_inString)
+    {
+      if (_escaped)
+      {
+        _escaped = false;
+      }
+      else if (b == '\\')
+      {
+        _escaped = true;
+      }
+      else if (b == '"')
+      {
+        _inString = false;
+        if (_depth == 1)
+        {
+          _lastTopLevelString = _string.toString();
+        }
+      }
+      else if (_depth == 1)
+      {
+        _string.append((char) b);
+      }
+      return;
+    }
+
+    switch (b)
+    {
+      case '"':
+        _inString = true;
+        _string.setLength(0);
+        break;
+      case '{':
+        _depth++;
+        break;
+      case '[':
+        _depth++;
+        _inElements = _depth == 2 && CollectionResponse.ELEMENTS.equals(_lastTopLevelString);
+        break;
+      case '}':
+      case ']':
+        _depth--;
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void consumeElementByte(byte b) throws Exception
+  {
+    _element.write(b);
+    if (_inString)
+    {
+      if (_escaped)
+      {
+        _escaped = false;
+      }
+      else if (b == '\\')
+      {
+        _escaped = true;
+      }
+      else if (b == '"')
+      {
+        _inString = false;
+      }
+      return;
+    }
+
+    switch (b)
+    {
+      case '"':
+        _inString = true;
+        break;
+      case '{':
+      case '[':
+        _depth++;
+        break;
+      case '}':
+      case ']':
+        _depth--;
+        if (_depth == 2)
+        {
+          final byte[] elementBytes = _element.toByteArray();
+          _element = null;
+          _callback.onElement(DataTemplateUtil.wrap(CODEC.bytesToMap(elementBytes), _elementClass));
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static boolean isWhitespace(byte b)
+  {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+  }
+}
@@ -24,7 +24,11 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.Map;
 
 import com.linkedin.data.DataMap;
+import com.linkedin.data.schema.DataSchema;
+import com.linkedin.data.schema.RecordDataSchema;
+import com.linkedin.data.template.DataTemplateUtil;
 import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.data.template.TemplateRuntimeException;
 import com.linkedin.restli.common.ProtocolVersion;
 import com.linkedin.restli.common.RestConstants;
 
@@ -49,10 +53,25 @@ public class EntityResponseDecoder<T extends RecordTemplate> extends RestRespons
     return _entityClass;
   }
 
+  @Override
+  protected RecordDataSchema getEntitySchema()
+  {
+    try
+    {
+      DataSchema schema = DataTemplateUtil.getSchema(_entityClass);
+      return schema instanceof RecordDataSchema ? (RecordDataSchema) schema : null;
+    }
+    catch (TemplateRuntimeException e)
+    {
+      // the entity class does not provide its schema, decode without coercion.
+      return null;
+    }
+  }
+
   @Override
   public T wrapResponse(DataMap dataMap, Map<String, String> headers, ProtocolVersion version)
                   throws NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException
   {
-    return dataMap == null ? null : _entityClass.getConstructor(DataMap.class).newInstance(dataMap);
+    return dataMap == null ? null : DataTemplateUtil.wrap(dataMap, _entityClass);
   }
 }
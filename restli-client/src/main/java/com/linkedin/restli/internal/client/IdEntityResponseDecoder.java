@@ -17,6 +17,7 @@
 package com.linkedin.restli.internal.client;
 
 import com.linkedin.data.DataMap;
+import com.linkedin.data.template.DataTemplateUtil;
 import com.linkedin.data.template.RecordTemplate;
 import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.restli.client.Response;
@@ -84,7 +85,7 @@ public class IdEntityResponseDecoder<K, V extends RecordTemplate> extends RestRe
   {
     String id = HeaderUtil.getIdHeaderValue(headers);
     K key = id == null ? null : (K) ResponseUtils.convertKey(id, _keyType, _keyParts, _complexKeyType, version);
-    V entity = dataMap == null ? null : _entityClass.getConstructor(DataMap.class).newInstance(dataMap);
+    V entity = dataMap == null ? null : DataTemplateUtil.wrap(dataMap, _entityClass);
     return new IdEntityResponse<K, V>(key, entity);
   }
 }
@@ -24,6 +24,7 @@ package com.linkedin.restli.internal.client;
 import com.linkedin.common.callback.Callback;
 import com.linkedin.data.ByteString;
 import com.linkedin.data.DataMap;
+import com.linkedin.data.schema.RecordDataSchema;
 import com.linkedin.multipart.MultiPartMIMEReader;
 import com.linkedin.multipart.MultiPartMIMEReaderCallback;
 import com.linkedin.multipart.SinglePartMIMEReaderCallback;
@@ -130,7 +131,9 @@ public abstract class RestResponseDecoder<T>
 
     try
     {
-      DataMap dataMap = (entity.isEmpty()) ? null : DataMapConverter.bytesToDataMap(headers, entity);
+      RecordDataSchema schema = getEntitySchema();
+      DataMap dataMap = (entity.isEmpty()) ? null :
+        (schema == null) ? DataMapConverter.bytesToDataMap(headers, entity) : DataMapConverter.bytesToDataMap(headers, entity, schema);
       response.setEntity(wrapResponse(dataMap, headers, ProtocolVersionUtil.extractProtocolVersion(response.getHeaders())));
       return response;
     }
@@ -301,6 +304,18 @@ public abstract class RestResponseDecoder<T>
 
   public abstract Class<?> getEntityClass();
 
+  /**
+   * Returns the schema of the response body, if the body is decoded with values coerced to the types
+   * expected by the schema. Coercing values while decoding avoids coercing them each time they are
+   * accessed through the response templates.
+   *
+   * @return the schema of the response body, or null if values are not coerced while decoding.
+   */
+  protected RecordDataSchema getEntitySchema()
+  {
+    return null;
+  }
+
   /**
    * @deprecated use {@link #wrapResponse(com.linkedin.data.DataMap, java.util.Map, com.linkedin.restli.common.ProtocolVersion)}
    */
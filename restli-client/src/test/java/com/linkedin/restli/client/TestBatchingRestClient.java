@@ -0,0 +1,382 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.client;
+
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.callback.FutureCallback;
+import com.linkedin.common.util.None;
+import com.linkedin.data.ByteString;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.template.DynamicRecordMetadata;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.stream.StreamRequest;
+import com.linkedin.r2.message.stream.StreamResponse;
+import com.linkedin.r2.transport.common.AbstractClient;
+import com.linkedin.restli.client.response.BatchKVResponse;
+import com.linkedin.restli.common.CollectionResponse;
+import com.linkedin.restli.common.ErrorResponse;
+import com.linkedin.restli.common.ResourceMethod;
+import com.linkedin.restli.common.ResourceSpecImpl;
+import com.linkedin.restli.common.RestConstants;
+import com.linkedin.restli.internal.common.AllProtocolVersions;
+
+import java.net.HttpCookie;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class TestBatchingRestClient
+{
+  private ScheduledExecutorService _scheduler;
+
+  @BeforeClass
+  public void setUp()
+  {
+    _scheduler = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  @AfterClass
+  public void tearDown()
+  {
+    _scheduler.shutdownNow();
+  }
+
+  @Test
+  public void testGetsAreBatched() throws Exception
+  {
+    DeferredClient client = new DeferredClient();
+    BatchingRestClient restClient =
+        new BatchingRestClient(new RestClient(client, "http://localhost/"), _scheduler, TimeUnit.HOURS.toMillis(1), 3);
+
+    FutureCallback<Response<ErrorResponse>> first = new FutureCallback<Response<ErrorResponse>>();
+    FutureCallback<Response<ErrorResponse>> second = new FutureCallback<Response<ErrorResponse>>();
+    FutureCallback<Response<ErrorResponse>> third = new FutureCallback<Response<ErrorResponse>>();
+    restClient.sendRequest(getRequest(1L), first);
+    restClient.sendRequest(getRequest(2L), second);
+    Assert.assertEquals(client.getRequestCount(), 0);
+
+    restClient.sendRequest(getRequest(2L), third);
+    Assert.assertEquals(client.getRequestCount(), 1);
+    Assert.assertTrue(client.getRequest(0).getURI().toString().contains("ids="));
+    Assert.assertEquals(restClient.getBatchCount(), 1L);
+    Assert.assertEquals(restClient.getBatchedRequestCount(), 3L);
+
+    DataMap results = new DataMap();
+    results.put("1", new ErrorResponse().setMessage("one").data());
+    results.put("2", new ErrorResponse().setMessage("two").data());
+    client.respondBatch(0, results, new DataMap());
+
+    Assert.assertEquals(first.get().getEntity().getMessage(), "one");
+    ErrorResponse secondEntity = second.get().getEntity();
+    ErrorResponse thirdEntity = third.get().getEntity();
+    Assert.assertEquals(secondEntity.getMessage(), "two");
+    Assert.assertEquals(thirdEntity.getMessage(), "two");
+    Assert.assertNotSame(secondEntity.data(), thirdEntity.data());
+  }
+
+  @Test
+  public void testPerKeyErrorFailsOnlyThatRequest() throws Exception
+  {
+    DeferredClient client = new DeferredClient();
+    BatchingRestClient restClient =
+        new BatchingRestClient(new RestClient(client, "http://localhost/"), _scheduler, TimeUnit.HOURS.toMillis(1), 2);
+
+    FutureCallback<Response<ErrorResponse>> first = new FutureCallback<Response<ErrorResponse>>();
+    FutureCallback<Response<ErrorResponse>> second = new FutureCallback<Response<ErrorResponse>>();
+    restClient.sendRequest(getRequest(1L), first);
+    restClient.sendRequest(getRequest(2L), second);
+    Assert.assertEquals(client.getRequestCount(), 1);
+
+    DataMap results = new DataMap();
+    results.put("1", new ErrorResponse().setMessage("one").data());
+    DataMap errors = new DataMap();
+    errors.put("2", new ErrorResponse().setStatus(404).setMessage("missing").data());
+    client.respondBatch(0, results, errors);
+
+    Assert.assertEquals(first.get().getEntity().getMessage(), "one");
+    try
+    {
+      second.get();
+      Assert.fail("expected the request to fail");
+    }
+    catch (ExecutionException e)
+    {
+      Assert.assertTrue(e.getCause() instanceof RestLiResponseException);
+      Assert.assertEquals(((RestLiResponseException) e.getCause()).getStatus(), 404);
+    }
+  }
+
+  @Test
+  public void testBatchErrorIsFannedOut() throws Exception
+  {
+    DeferredClient client = new DeferredClient();
+    BatchingRestClient restClient =
+        new BatchingRestClient(new RestClient(client, "http://localhost/"), _scheduler, TimeUnit.HOURS.toMillis(1), 2);
+
+    FutureCallback<Response<ErrorResponse>> first = new FutureCallback<Response<ErrorResponse>>();
+    FutureCallback<Response<ErrorResponse>> second = new FutureCallback<Response<ErrorResponse>>();
+    restClient.sendRequest(getRequest(1L), first);
+    restClient.sendRequest(getRequest(2L), second);
+
+    client.getCallback(0).onError(new IllegalStateException("boom"));
+    for (FutureCallback<Response<ErrorResponse>> callback : Arrays.asList(first, second))
+    {
+      try
+      {
+        callback.get();
+        Assert.fail("expected the request to fail");
+      }
+      catch (ExecutionException e)
+      {
+        Assert.assertNotNull(e.getCause());
+      }
+    }
+  }
+
+  @Test
+  public void testSingleRequestIsSentUnchangedWhenWindowCloses() throws Exception
+  {
+    DeferredClient client = new DeferredClient();
+    BatchingRestClient restClient =
+        new BatchingRestClient(new RestClient(client, "http://localhost/"), _scheduler, 10L, 10);
+
+    FutureCallback<Response<ErrorResponse>> callback = new FutureCallback<Response<ErrorResponse>>();
+    restClient.sendRequest(getRequest(1L), callback);
+
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+    while (client.getRequestCount() == 0 && System.currentTimeMillis() < deadline)
+    {
+      Thread.sleep(5L);
+    }
+    Assert.assertEquals(client.getRequestCount(), 1);
+    Assert.assertFalse(client.getRequest(0).getURI().toString().contains("ids="));
+    Assert.assertEquals(restClient.getBatchCount(), 0L);
+
+    client.respond(0, new ErrorResponse().setMessage("one").data());
+    Assert.assertEquals(callback.get().getEntity().getMessage(), "one");
+  }
+
+  @Test
+  public void testGetsAreSentWhenWindowCannotBeScheduled() throws Exception
+  {
+    DeferredClient client = new DeferredClient();
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    scheduler.shutdown();
+    BatchingRestClient restClient =
+        new BatchingRestClient(new RestClient(client, "http://localhost/"), scheduler, TimeUnit.HOURS.toMillis(1), 10);
+
+    FutureCallback<Response<ErrorResponse>> first = new FutureCallback<Response<ErrorResponse>>();
+    FutureCallback<Response<ErrorResponse>> second = new FutureCallback<Response<ErrorResponse>>();
+    restClient.sendRequest(getRequest(1L), first);
+    restClient.sendRequest(getRequest(1L), second);
+
+    // the scheduler rejects the window, so no batch is left pending and each request is sent right away
+    Assert.assertEquals(client.getRequestCount(), 2);
+    Assert.assertFalse(client.getRequest(0).getURI().toString().contains("ids="));
+    Assert.assertEquals(restClient.getBatchCount(), 0L);
+
+    client.respond(0, new ErrorResponse().setMessage("one").data());
+    client.respond(1, new ErrorResponse().setMessage("two").data());
+    Assert.assertEquals(first.get().getEntity().getMessage(), "one");
+    Assert.assertEquals(second.get().getEntity().getMessage(), "two");
+  }
+
+  @Test
+  public void testGetsForGetOnlyResourceAreNotBatched() throws Exception
+  {
+    DeferredClient client = new DeferredClient();
+    BatchingRestClient restClient =
+        new BatchingRestClient(new RestClient(client, "http://localhost/"), _scheduler, TimeUnit.HOURS.toMillis(1), 2);
+
+    FutureCallback<Response<ErrorResponse>> first = new FutureCallback<Response<ErrorResponse>>();
+    FutureCallback<Response<ErrorResponse>> second = new FutureCallback<Response<ErrorResponse>>();
+    restClient.sendRequest(getRequest(1L, EnumSet.of(ResourceMethod.GET)), first);
+    restClient.sendRequest(getRequest(2L, EnumSet.of(ResourceMethod.GET)), second);
+
+    // sent right away and unchanged; the resource would reject a BATCH_GET
+    Assert.assertEquals(client.getRequestCount(), 2);
+    Assert.assertFalse(client.getRequest(0).getURI().toString().contains("ids="));
+    Assert.assertFalse(client.getRequest(1).getURI().toString().contains("ids="));
+    Assert.assertEquals(restClient.getBatchCount(), 0L);
+
+    client.respond(0, new ErrorResponse().setMessage("one").data());
+    client.respond(1, new ErrorResponse().setMessage("two").data());
+    Assert.assertEquals(first.get().getEntity().getMessage(), "one");
+    Assert.assertEquals(second.get().getEntity().getMessage(), "two");
+  }
+
+  @Test
+  public void testStreamingCollectionRequestIsDelegated()
+  {
+    DeferredClient client = new DeferredClient();
+    BatchingRestClient restClient =
+        new BatchingRestClient(new RestClient(client, "http://localhost/"), _scheduler, TimeUnit.HOURS.toMillis(1), 2);
+
+    restClient.sendStreamingCollectionRequest(getAllRequest(), new RequestContext(), ignoringCallback());
+    Assert.assertEquals(client.getStreamRequestCount(), 1);
+  }
+
+  private static GetAllRequest<ErrorResponse> getAllRequest()
+  {
+    return new GetAllRequest<ErrorResponse>(Collections.<String, String>emptyMap(),
+                                            Collections.<HttpCookie>emptyList(),
+                                            ErrorResponse.class,
+                                            new ResourceSpecImpl(),
+                                            Collections.<String, Object>emptyMap(),
+                                            Collections.<String, Class<?>>emptyMap(),
+                                            "foo",
+                                            Collections.<String, Object>emptyMap(),
+                                            RestliRequestOptions.DEFAULT_OPTIONS,
+                                            null);
+  }
+
+  private static StreamingCollectionCallback<ErrorResponse> ignoringCallback()
+  {
+    return new StreamingCollectionCallback<ErrorResponse>()
+    {
+      @Override
+      public void onElement(ErrorResponse element)
+      {
+      }
+
+      @Override
+      public void onSuccess(Response<CollectionResponse<ErrorResponse>> response)
+      {
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+      }
+    };
+  }
+
+  private static Request<ErrorResponse> getRequest(Object id)
+  {
+    return getRequest(id, EnumSet.of(ResourceMethod.GET, ResourceMethod.BATCH_GET));
+  }
+
+  private static Request<ErrorResponse> getRequest(Object id, Set<ResourceMethod> supportedMethods)
+  {
+    return new GetRequest<ErrorResponse>(Collections.<String, String>emptyMap(),
+                                         Collections.<HttpCookie>emptyList(),
+                                         ErrorResponse.class,
+                                         id,
+                                         Collections.<String, Object>emptyMap(),
+                                         Collections.<String, Class<?>>emptyMap(),
+                                         new ResourceSpecImpl(supportedMethods,
+                                                              Collections.<String, DynamicRecordMetadata>emptyMap(),
+                                                              Collections.<String, DynamicRecordMetadata>emptyMap(),
+                                                              Long.class,
+                                                              ErrorResponse.class,
+                                                              Collections.<String, Object>emptyMap()),
+                                         "foo",
+                                         Collections.<String, Object>emptyMap(),
+                                         RestliRequestOptions.DEFAULT_OPTIONS);
+  }
+
+  /**
+   * Client which keeps requests in flight until the test responds to them.
+   */
+  private static class DeferredClient extends AbstractClient
+  {
+    private final List<RestRequest> _requests = new ArrayList<RestRequest>();
+    private final List<Callback<RestResponse>> _callbacks = new ArrayList<Callback<RestResponse>>();
+    private final List<StreamRequest> _streamRequests = new ArrayList<StreamRequest>();
+
+    @Override
+    public synchronized void restRequest(RestRequest request,
+                                         RequestContext requestContext,
+                                         Callback<RestResponse> callback)
+    {
+      _requests.add(request);
+      _callbacks.add(callback);
+    }
+
+    @Override
+    public synchronized void streamRequest(StreamRequest request,
+                                           RequestContext requestContext,
+                                           Callback<StreamResponse> callback)
+    {
+      _streamRequests.add(request);
+    }
+
+    @Override
+    public void shutdown(Callback<None> callback)
+    {
+      callback.onSuccess(None.none());
+    }
+
+    synchronized int getRequestCount()
+    {
+      return _requests.size();
+    }
+
+    synchronized int getStreamRequestCount()
+    {
+      return _streamRequests.size();
+    }
+
+    synchronized RestRequest getRequest(int index)
+    {
+      return _requests.get(index);
+    }
+
+    synchronized Callback<RestResponse> getCallback(int index)
+    {
+      return _callbacks.get(index);
+    }
+
+    void respondBatch(int index, DataMap results, DataMap errors) throws Exception
+    {
+      DataMap entity = new DataMap();
+      entity.put(BatchKVResponse.RESULTS, results);
+      entity.put(BatchKVResponse.ERRORS, errors);
+      respond(index, entity);
+    }
+
+    void respond(int index, DataMap entity) throws Exception
+    {
+      RestResponse response = new RestResponseBuilder()
+          .setStatus(200)
+          .setHeader(RestConstants.HEADER_RESTLI_PROTOCOL_VERSION,
+                     AllProtocolVersions.RESTLI_PROTOCOL_1_0_0.getProtocolVersion().toString())
+          .setHeader(RestConstants.HEADER_CONTENT_TYPE, RestConstants.HEADER_VALUE_APPLICATION_JSON)
+          .setEntity(ByteString.copy(new JacksonDataCodec().mapToBytes(entity)))
+          .build();
+      getCallback(index).onSuccess(response);
+    }
+  }
+}
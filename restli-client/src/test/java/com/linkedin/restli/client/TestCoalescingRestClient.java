@@ -0,0 +1,294 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.client;
+
+
+import com.linkedin.common.callback.Callback;
+import com.linkedin.common.callback.FutureCallback;
+import com.linkedin.common.util.None;
+import com.linkedin.data.ByteString;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestRequest;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.stream.StreamRequest;
+import com.linkedin.r2.message.stream.StreamResponse;
+import com.linkedin.r2.transport.common.AbstractClient;
+import com.linkedin.restli.client.multiplexer.MultiplexedRequestBuilder;
+import com.linkedin.restli.client.multiplexer.MultiplexedResponse;
+import com.linkedin.restli.common.CollectionResponse;
+import com.linkedin.restli.common.ErrorResponse;
+import com.linkedin.restli.common.ResourceSpecImpl;
+import com.linkedin.restli.common.RestConstants;
+import com.linkedin.restli.internal.common.AllProtocolVersions;
+
+import java.net.HttpCookie;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestCoalescingRestClient
+{
+  @Test
+  public void testIdenticalRequestsAreCoalesced() throws Exception
+  {
+    DeferredClient client = new DeferredClient();
+    CoalescingRestClient restClient = new CoalescingRestClient(new RestClient(client, "http://localhost/"));
+
+    FutureCallback<Response<ErrorResponse>> first = new FutureCallback<Response<ErrorResponse>>();
+    FutureCallback<Response<ErrorResponse>> second = new FutureCallback<Response<ErrorResponse>>();
+    restClient.sendRequest(getRequest(1L), first);
+    restClient.sendRequest(getRequest(1L), second);
+
+    Assert.assertEquals(client._callbacks.size(), 1);
+    Assert.assertEquals(restClient.getSentRequestCount(), 1L);
+    Assert.assertEquals(restClient.getCoalescedRequestCount(), 1L);
+
+    client.respond(0, "hello");
+
+    ErrorResponse firstEntity = first.get().getEntity();
+    ErrorResponse secondEntity = second.get().getEntity();
+    Assert.assertEquals(firstEntity.getMessage(), "hello");
+    Assert.assertEquals(secondEntity.getMessage(), "hello");
+    Assert.assertNotSame(firstEntity.data(), secondEntity.data());
+
+    secondEntity.setMessage("changed");
+    Assert.assertEquals(firstEntity.getMessage(), "hello");
+  }
+
+  @Test
+  public void testDifferentRequestsAreNotCoalesced() throws Exception
+  {
+    DeferredClient client = new DeferredClient();
+    CoalescingRestClient restClient = new CoalescingRestClient(new RestClient(client, "http://localhost/"));
+
+    FutureCallback<Response<ErrorResponse>> first = new FutureCallback<Response<ErrorResponse>>();
+    FutureCallback<Response<ErrorResponse>> second = new FutureCallback<Response<ErrorResponse>>();
+    restClient.sendRequest(getRequest(1L), first);
+    restClient.sendRequest(getRequest(2L), second);
+
+    Assert.assertEquals(client._callbacks.size(), 2);
+    Assert.assertEquals(restClient.getCoalescedRequestCount(), 0L);
+
+    client.respond(0, "one");
+    client.respond(1, "two");
+    Assert.assertEquals(first.get().getEntity().getMessage(), "one");
+    Assert.assertEquals(second.get().getEntity().getMessage(), "two");
+  }
+
+  @Test
+  public void testCompletedRequestIsSentAgain() throws Exception
+  {
+    DeferredClient client = new DeferredClient();
+    CoalescingRestClient restClient = new CoalescingRestClient(new RestClient(client, "http://localhost/"));
+
+    FutureCallback<Response<ErrorResponse>> first = new FutureCallback<Response<ErrorResponse>>();
+    restClient.sendRequest(getRequest(1L), first);
+    client.respond(0, "first");
+    Assert.assertEquals(first.get().getEntity().getMessage(), "first");
+
+    FutureCallback<Response<ErrorResponse>> second = new FutureCallback<Response<ErrorResponse>>();
+    restClient.sendRequest(getRequest(1L), second);
+    Assert.assertEquals(client._callbacks.size(), 2);
+    client.respond(1, "second");
+    Assert.assertEquals(second.get().getEntity().getMessage(), "second");
+  }
+
+  @Test
+  public void testErrorIsFannedOut() throws Exception
+  {
+    DeferredClient client = new DeferredClient();
+    CoalescingRestClient restClient = new CoalescingRestClient(new RestClient(client, "http://localhost/"));
+
+    FutureCallback<Response<ErrorResponse>> first = new FutureCallback<Response<ErrorResponse>>();
+    FutureCallback<Response<ErrorResponse>> second = new FutureCallback<Response<ErrorResponse>>();
+    restClient.sendRequest(getRequest(1L), first);
+    restClient.sendRequest(getRequest(1L), second);
+
+    client._callbacks.get(0).onError(new IllegalStateException("boom"));
+    for (FutureCallback<Response<ErrorResponse>> callback : Arrays.asList(first, second))
+    {
+      try
+      {
+        callback.get();
+        Assert.fail("expected the request to fail");
+      }
+      catch (java.util.concurrent.ExecutionException e)
+      {
+        Assert.assertNotNull(e.getCause());
+      }
+    }
+  }
+
+  @Test
+  public void testEveryPublicSendMethodIsDelegated() throws Exception
+  {
+    DeferredClient client = new DeferredClient();
+    CoalescingRestClient restClient = new CoalescingRestClient(new RestClient(client, "http://localhost/"));
+    RequestBuilder<Request<ErrorResponse>> requestBuilder = new RequestBuilder<Request<ErrorResponse>>()
+    {
+      @Override
+      public Request<ErrorResponse> build()
+      {
+        return getRequest(1L);
+      }
+    };
+
+    // distinct ids keep the requests from being coalesced with each other
+    restClient.sendRequest(getRequest(1L));
+    restClient.sendRequest(getRequest(2L), ErrorHandlingBehavior.TREAT_SERVER_ERROR_AS_SUCCESS);
+    restClient.sendRequest(getRequest(3L), new RequestContext());
+    restClient.sendRequest(getRequest(4L), new RequestContext(), ErrorHandlingBehavior.FAIL_ON_ERROR);
+    restClient.sendRequest(getRequest(5L), new FutureCallback<Response<ErrorResponse>>());
+    restClient.sendRequest(getRequest(6L), new RequestContext(), new FutureCallback<Response<ErrorResponse>>());
+    Assert.assertEquals(client._callbacks.size(), 6);
+    client.respond(0, "done");
+
+    restClient.sendRequest(requestBuilder);
+    client.respond(6, "done");
+    restClient.sendRequest(requestBuilder, ErrorHandlingBehavior.FAIL_ON_ERROR);
+    client.respond(7, "done");
+    restClient.sendRequest(requestBuilder, new RequestContext());
+    client.respond(8, "done");
+    restClient.sendRequest(requestBuilder, new RequestContext(), ErrorHandlingBehavior.FAIL_ON_ERROR);
+    client.respond(9, "done");
+    restClient.sendRequest(requestBuilder, new FutureCallback<Response<ErrorResponse>>());
+    client.respond(10, "done");
+    restClient.sendRequest(requestBuilder, new RequestContext(), new FutureCallback<Response<ErrorResponse>>());
+    Assert.assertEquals(client._callbacks.size(), 12);
+
+    restClient.sendRestRequest(getRequest(1L), new RequestContext(), new FutureCallback<RestResponse>());
+    Assert.assertEquals(client._callbacks.size(), 13);
+
+    restClient.sendRequest(MultiplexedRequestBuilder.createParallelRequest()
+                               .addRequest(getRequest(1L), new FutureCallback<Response<ErrorResponse>>())
+                               .build());
+    restClient.sendRequest(MultiplexedRequestBuilder.createParallelRequest()
+                               .addRequest(getRequest(1L), new FutureCallback<Response<ErrorResponse>>())
+                               .build(),
+                           new FutureCallback<MultiplexedResponse>());
+    Assert.assertEquals(client._callbacks.size(), 15);
+
+    restClient.sendStreamingCollectionRequest(getAllRequest(), new RequestContext(), ignoringCallback());
+    Assert.assertEquals(client._streamRequests.size(), 1);
+
+    FutureCallback<None> shutdownCallback = new FutureCallback<None>();
+    restClient.shutdown(shutdownCallback);
+    shutdownCallback.get();
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testMissingTransportClientFailsClearly()
+  {
+    new RestClient(null, "http://localhost/").shutdown(new FutureCallback<None>());
+  }
+
+  private static GetAllRequest<ErrorResponse> getAllRequest()
+  {
+    return new GetAllRequest<ErrorResponse>(Collections.<String, String>emptyMap(),
+                                            Collections.<HttpCookie>emptyList(),
+                                            ErrorResponse.class,
+                                            new ResourceSpecImpl(),
+                                            Collections.<String, Object>emptyMap(),
+                                            Collections.<String, Class<?>>emptyMap(),
+                                            "foo",
+                                            Collections.<String, Object>emptyMap(),
+                                            RestliRequestOptions.DEFAULT_OPTIONS,
+                                            null);
+  }
+
+  private static StreamingCollectionCallback<ErrorResponse> ignoringCallback()
+  {
+    return new StreamingCollectionCallback<ErrorResponse>()
+    {
+      @Override
+      public void onElement(ErrorResponse element)
+      {
+      }
+
+      @Override
+      public void onSuccess(Response<CollectionResponse<ErrorResponse>> response)
+      {
+      }
+
+      @Override
+      public void onError(Throwable e)
+      {
+      }
+    };
+  }
+
+  private static Request<ErrorResponse> getRequest(Object id)
+  {
+    return new GetRequest<ErrorResponse>(Collections.<String, String>emptyMap(),
+                                         Collections.<HttpCookie>emptyList(),
+                                         ErrorResponse.class,
+                                         id,
+                                         Collections.<String, Object>emptyMap(),
+                                         Collections.<String, Class<?>>emptyMap(),
+                                         new ResourceSpecImpl(),
+                                         "foo",
+                                         Collections.<String, Object>emptyMap(),
+                                         RestliRequestOptions.DEFAULT_OPTIONS);
+  }
+
+  /**
+   * Client which keeps requests in flight until the test responds to them.
+   */
+  private static class DeferredClient extends AbstractClient
+  {
+    private final List<Callback<RestResponse>> _callbacks = new ArrayList<Callback<RestResponse>>();
+    private final List<StreamRequest> _streamRequests = new ArrayList<StreamRequest>();
+
+    @Override
+    public void restRequest(RestRequest request, RequestContext requestContext, Callback<RestResponse> callback)
+    {
+      _callbacks.add(callback);
+    }
+
+    @Override
+    public void streamRequest(StreamRequest request, RequestContext requestContext, Callback<StreamResponse> callback)
+    {
+      _streamRequests.add(request);
+    }
+
+    @Override
+    public void shutdown(Callback<None> callback)
+    {
+      callback.onSuccess(None.none());
+    }
+
+    void respond(int index, String message) throws Exception
+    {
+      ErrorResponse entity = new ErrorResponse().setMessage(message);
+      RestResponse response = new RestResponseBuilder()
+          .setStatus(200)
+          .setHeader(RestConstants.HEADER_RESTLI_PROTOCOL_VERSION,
+                     AllProtocolVersions.RESTLI_PROTOCOL_1_0_0.getProtocolVersion().toString())
+          .setHeader(RestConstants.HEADER_CONTENT_TYPE, RestConstants.HEADER_VALUE_APPLICATION_JSON)
+          .setEntity(ByteString.copy(new JacksonDataCodec().mapToBytes(entity.data())))
+          .build();
+      _callbacks.get(index).onSuccess(response);
+    }
+  }
+}
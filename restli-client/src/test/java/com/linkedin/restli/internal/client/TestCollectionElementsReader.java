@@ -0,0 +1,191 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.internal.client;
+
+
+import com.linkedin.data.ByteString;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.codec.PsonDataCodec;
+import com.linkedin.r2.message.stream.StreamResponse;
+import com.linkedin.r2.message.stream.StreamResponseBuilder;
+import com.linkedin.r2.message.stream.entitystream.EntityStreams;
+import com.linkedin.r2.message.stream.entitystream.WriteHandle;
+import com.linkedin.r2.message.stream.entitystream.Writer;
+import com.linkedin.restli.client.Response;
+import com.linkedin.restli.client.RestLiDecodingException;
+import com.linkedin.restli.client.StreamingCollectionCallback;
+import com.linkedin.restli.client.test.TestRecord;
+import com.linkedin.restli.common.CollectionMetadata;
+import com.linkedin.restli.common.CollectionResponse;
+import com.linkedin.restli.common.RestConstants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestCollectionElementsReader
+{
+  @Test
+  public void testElementsAreDeliveredIncrementally() throws Exception
+  {
+    final byte[] entity = new JacksonDataCodec().mapToBytes(createCollection(10));
+
+    // split the entity at every possible position to exercise elements and strings spanning chunks.
+    for (int split = 1; split < entity.length; split++)
+    {
+      final ByteString first = ByteString.copy(Arrays.copyOfRange(entity, 0, split));
+      final ByteString second = ByteString.copy(Arrays.copyOfRange(entity, split, entity.length));
+      final CapturingCallback callback = decode(RestConstants.HEADER_VALUE_APPLICATION_JSON, first, second);
+
+      Assert.assertNull(callback._error);
+      verify(callback, 10);
+    }
+  }
+
+  @Test
+  public void testEmptyCollection() throws Exception
+  {
+    final CapturingCallback callback = decode(RestConstants.HEADER_VALUE_APPLICATION_JSON,
+        ByteString.copy(new JacksonDataCodec().mapToBytes(createCollection(0))));
+
+    Assert.assertNull(callback._error);
+    verify(callback, 0);
+  }
+
+  @Test
+  public void testNonJsonResponse() throws Exception
+  {
+    final CapturingCallback callback = decode(RestConstants.HEADER_VALUE_APPLICATION_PSON,
+        ByteString.copy(new PsonDataCodec().mapToBytes(createCollection(3))));
+
+    Assert.assertNull(callback._error);
+    verify(callback, 3);
+  }
+
+  @Test
+  public void testTruncatedResponse() throws Exception
+  {
+    final byte[] entity = new JacksonDataCodec().mapToBytes(createCollection(3));
+    final CapturingCallback callback = decode(RestConstants.HEADER_VALUE_APPLICATION_JSON,
+        ByteString.copy(Arrays.copyOfRange(entity, 0, entity.length / 2)));
+
+    Assert.assertTrue(callback._error instanceof RestLiDecodingException);
+    Assert.assertNull(callback._response);
+  }
+
+  private static DataMap createCollection(int count)
+  {
+    final DataList elements = new DataList();
+    for (int i = 0; i < count; i++)
+    {
+      elements.add(new TestRecord().setId(i).setMessage("message \"" + i + "\" {[,]}").data());
+    }
+
+    final DataMap collection = new DataMap();
+    collection.put(CollectionResponse.ELEMENTS, elements);
+    collection.put(CollectionResponse.PAGING, new CollectionMetadata().setStart(0).setCount(count).setTotal(100).data());
+    return collection;
+  }
+
+  private static void verify(CapturingCallback callback, int count)
+  {
+    Assert.assertEquals(callback._elements.size(), count);
+    for (int i = 0; i < count; i++)
+    {
+      Assert.assertEquals(callback._elements.get(i).getId().longValue(), i);
+      Assert.assertEquals(callback._elements.get(i).getMessage(), "message \"" + i + "\" {[,]}");
+    }
+
+    final CollectionResponse<TestRecord> envelope = callback._response.getEntity();
+    Assert.assertTrue(envelope.getElements().isEmpty());
+    Assert.assertEquals(envelope.getPaging().getTotal().intValue(), 100);
+    Assert.assertEquals(envelope.getPaging().getCount(), count);
+  }
+
+  private static CapturingCallback decode(String contentType, final ByteString... chunks) throws Exception
+  {
+    final Writer writer = new Writer()
+    {
+      private WriteHandle _wh;
+      private int _index = 0;
+
+      @Override
+      public void onInit(WriteHandle wh)
+      {
+        _wh = wh;
+      }
+
+      @Override
+      public void onWritePossible()
+      {
+        while (_wh.remaining() > 0)
+        {
+          if (_index == chunks.length)
+          {
+            _wh.done();
+            return;
+          }
+          _wh.write(chunks[_index++]);
+        }
+      }
+
+      @Override
+      public void onAbort(Throwable e)
+      {
+      }
+    };
+
+    final StreamResponse response = new StreamResponseBuilder()
+        .setHeader(RestConstants.HEADER_CONTENT_TYPE, contentType)
+        .build(EntityStreams.newEntityStream(writer));
+    final CapturingCallback callback = new CapturingCallback();
+    CollectionElementsReader.decode(response, new CollectionResponseDecoder<TestRecord>(TestRecord.class),
+                                    TestRecord.class, callback);
+    return callback;
+  }
+
+  private static class CapturingCallback implements StreamingCollectionCallback<TestRecord>
+  {
+    private final List<TestRecord> _elements = new ArrayList<TestRecord>();
+    private Response<CollectionResponse<TestRecord>> _response;
+    private Throwable _error;
+
+    @Override
+    public void onElement(TestRecord element)
+    {
+      _elements.add(element);
+    }
+
+    @Override
+    public void onSuccess(Response<CollectionResponse<TestRecord>> response)
+    {
+      _response = response;
+    }
+
+    @Override
+    public void onError(Throwable e)
+    {
+      _error = e;
+    }
+  }
+}
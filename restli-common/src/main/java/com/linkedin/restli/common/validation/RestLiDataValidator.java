@@ -68,6 +68,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The Rest.li data validator validates Rest.li data using information from the data schema
@@ -125,6 +126,9 @@ public class RestLiDataValidator
   private final ResourceMethod _resourceMethod;
   // To be passed into DataSchemaAnnotationValidator.
   private final Map<String, Class<? extends Validator>> _validatorClassMap;
+  // Children of arrays and maps with at least this many children are validated in parallel by _forkJoinPool.
+  private int _parallelThreshold = Integer.MAX_VALUE;
+  private ForkJoinPool _forkJoinPool = null;
 
   private static final String INSTANTIATION_ERROR = "InstantiationException while trying to instantiate the record template class";
   private static final String ILLEGAL_ACCESS_ERROR = "IllegalAccessException while trying to instantiate the record template class";
@@ -276,6 +280,31 @@ public class RestLiDataValidator
     _validatorClassMap = Collections.unmodifiableMap(validatorClassMap);
   }
 
+  /**
+   * Validate the children of arrays and maps that have at least the specified number of children in parallel.
+   * Custom validators in the validator class map must be thread-safe.
+   *
+   * @param parallelThreshold number of children at or above which children are validated in parallel
+   * @param forkJoinPool pool used for parallel validation, or null to use the common pool
+   * @see ValidationOptions#setParallelThreshold(int)
+   */
+  public void setParallelValidation(int parallelThreshold, ForkJoinPool forkJoinPool)
+  {
+    if (parallelThreshold < 1)
+    {
+      throw new IllegalArgumentException("parallelThreshold must be at least 1");
+    }
+    _parallelThreshold = parallelThreshold;
+    _forkJoinPool = forkJoinPool;
+  }
+
+  private ValidationOptions parallelOptions(ValidationOptions validationOptions)
+  {
+    validationOptions.setParallelThreshold(_parallelThreshold);
+    validationOptions.setForkJoinPool(_forkJoinPool);
+    return validationOptions;
+  }
+
   private class DataValidator extends DataSchemaAnnotationValidator
   {
     private DataValidator(DataSchema schema)
@@ -485,7 +514,7 @@ public class RestLiDataValidator
     // Custom validation rules and Rest.li annotations for set operations are checked here.
     // It's okay if required fields are absent in a partial update request, so use ignore mode.
     return ValidateDataAgainstSchema.validate(new SimpleDataElement(entity.data(), entity.schema()),
-        new ValidationOptions(RequiredMode.IGNORE), new DataValidator(entity.schema()));
+        parallelOptions(new ValidationOptions(RequiredMode.IGNORE)), new DataValidator(entity.schema()));
   }
 
   private ValidationResult checkNewRecordsAreNotMissingFields(RecordTemplate entity, MessageList<Message> messages)
@@ -498,7 +527,7 @@ public class RestLiDataValidator
         // Replace $set with the field name to get the full path
         path[path.length - 1] = message.getFormat();
         DataElement element = DataElementUtil.element(new SimpleDataElement(entity.data(), entity.schema()), path);
-        ValidationResult result = ValidateDataAgainstSchema.validate(element, new ValidationOptions());
+        ValidationResult result = ValidateDataAgainstSchema.validate(element, parallelOptions(new ValidationOptions()));
         if (!result.isValid())
         {
           return result;
@@ -556,7 +585,7 @@ public class RestLiDataValidator
 
   private ValidationResult validateInputEntity(RecordTemplate entity)
   {
-    ValidationOptions validationOptions = new ValidationOptions();
+    ValidationOptions validationOptions = parallelOptions(new ValidationOptions());
     if (readOnlyOptional.contains(_resourceMethod))
     {
       // Even if ReadOnly fields are non-optional, the client cannot supply them in a create request, so they should be treated as optional.
@@ -579,7 +608,7 @@ public class RestLiDataValidator
         buildSchemaByProjection(originalSchema, projectionMask.getDataMap()) : originalSchema;
 
       DataSchemaAnnotationValidator validator = new DataSchemaAnnotationValidator(validatingSchema);
-      return ValidateDataAgainstSchema.validate(entity.data(), validatingSchema, new ValidationOptions(), validator);
+      return ValidateDataAgainstSchema.validate(entity.data(), validatingSchema, parallelOptions(new ValidationOptions()), validator);
     }
     catch (TemplateRuntimeException e)
     {
@@ -19,6 +19,7 @@ package com.linkedin.restli.internal.common;
 import com.linkedin.data.DataList;
 import com.linkedin.data.DataMap;
 import com.linkedin.data.collections.CheckedUtil;
+import com.linkedin.data.template.DataTemplateUtil;
 import com.linkedin.data.template.RecordTemplate;
 import com.linkedin.restli.common.ComplexKeySpec;
 import com.linkedin.restli.common.CompoundKey;
@@ -56,7 +57,7 @@ public class CreateIdEntityStatusDecoder<K, V extends RecordTemplate> extends Cr
     V entity = null;
     if (dataMap.get("error") == null && dataMap.get("entity") != null)
     {
-      entity = _valueType.getType().getConstructor(DataMap.class).newInstance(dataMap.get("entity"));
+      entity = DataTemplateUtil.wrap(dataMap.get("entity"), _valueType.getType());
       CheckedUtil.addWithoutChecking(listElements, entity.data());
     }
     finalMap.put("entity", listElements);
@@ -21,6 +21,7 @@ import com.linkedin.data.ByteString;
 import com.linkedin.data.DataMap;
 import com.linkedin.data.codec.JacksonDataCodec;
 import com.linkedin.data.codec.PsonDataCodec;
+import com.linkedin.data.schema.RecordDataSchema;
 import com.linkedin.restli.common.RestConstants;
 import com.linkedin.restli.internal.common.ContentTypeUtil.ContentType;
 import javax.activation.MimeTypeParseException;
@@ -106,6 +107,32 @@ public class DataMapConverter
     }
   }
 
+  /**
+   * Convert from ByteString to DataMap based on the given Content-Type header value, coercing values
+   * to the types expected by the given schema while they are decoded.
+   * @param headers headers of the HTTP request or response
+   * @param bytes ByteString to convert
+   * @param schema schema of the DataMap
+   * @return converted DataMap.  ByteString is decoded based on content-type specified in the headers
+   * @throws MimeTypeParseException throws this exception when content type is not parsable.
+   * @throws IOException throws this exception when serializing to ByteString failed.
+   */
+  public static DataMap bytesToDataMap(Map<String, String> headers, ByteString bytes, RecordDataSchema schema)
+      throws MimeTypeParseException, IOException
+  {
+    ContentType contentType = ContentTypeUtil.getContentType(getContentTypeHeader(headers));
+
+    if (contentType == ContentType.PSON)
+    {
+      // PSON preserves the types of the encoded values.
+      return PSON_DATA_CODEC.readMap(bytes.asInputStream());
+    }
+    else
+    {
+      return JACKSON_DATA_CODEC.readMap(bytes.asInputStream(), schema);
+    }
+  }
+
   private static String getContentTypeHeader(Map<String, String> headers)
   {
     return headers.get(RestConstants.HEADER_CONTENT_TYPE);
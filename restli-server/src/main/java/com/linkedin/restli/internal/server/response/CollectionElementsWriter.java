@@ -0,0 +1,221 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.internal.server.response;
+
+
+import com.linkedin.data.ByteString;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.transform.filter.request.MaskTree;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.r2.message.stream.entitystream.WriteHandle;
+import com.linkedin.r2.message.stream.entitystream.Writer;
+import com.linkedin.restli.common.CollectionResponse;
+import com.linkedin.restli.common.RestConstants;
+import com.linkedin.restli.internal.server.util.RestUtils;
+import com.linkedin.restli.server.ProjectionMode;
+
+import java.util.Iterator;
+import java.util.function.IntFunction;
+
+
+/**
+ * Writes a JSON encoded {@link CollectionResponse} onto an entity stream, pulling the elements from an
+ * {@link Iterator} only as the stream is able to accept more data.
+ *
+ * The output is {@code {"elements":[...]}} followed by the remaining fields of the given envelope, i.e. paging and
+ * custom metadata, so clients that read the whole entity decode it like any other collection response. Elements are
+ * projected as they are written and grouped into chunks of roughly {@link #DEFAULT_CHUNK_SIZE} bytes. As the number of
+ * elements is only known once they have all been written, the paging of the envelope, whose links depend on it, can
+ * be rebuilt at that point.
+ *
+ * If the iterator implements {@link AutoCloseable}, it is closed once writing finishes, fails or is aborted.
+ */
+public class CollectionElementsWriter implements Writer
+{
+  public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+  private static final JacksonDataCodec CODEC = new JacksonDataCodec();
+  private static final ByteString ELEMENTS_START =
+      ByteString.copyString("{\"" + CollectionResponse.ELEMENTS + "\":[", RestConstants.DEFAULT_CHARSET);
+  private static final ByteString ELEMENTS_SEPARATOR = ByteString.copyString(",", RestConstants.DEFAULT_CHARSET);
+  private static final ByteString ELEMENTS_END = ByteString.copyString("]", RestConstants.DEFAULT_CHARSET);
+  private static final ByteString OBJECT_END = ByteString.copyString("}", RestConstants.DEFAULT_CHARSET);
+
+  private final Iterator<? extends RecordTemplate> _elements;
+  private final DataMap _envelope;
+  private final ProjectionMode _projectionMode;
+  private final MaskTree _projectionMask;
+  private final IntFunction<DataMap> _paging;
+  private final int _chunkSize;
+
+  private WriteHandle _wh;
+  private boolean _started = false;
+  private int _count = 0;
+  private boolean _finished = false;
+
+  /**
+   * @param elements provides the elements to write.
+   * @param envelope the collection response without elements; its remaining fields are written after the elements.
+   * @param projectionMode projection mode applied to each element.
+   * @param projectionMask projection mask applied to each element, may be null.
+   */
+  public CollectionElementsWriter(Iterator<? extends RecordTemplate> elements,
+                                  DataMap envelope,
+                                  ProjectionMode projectionMode,
+                                  MaskTree projectionMask)
+  {
+    this(elements, envelope, projectionMode, projectionMask, null);
+  }
+
+  /**
+   * @param elements provides the elements to write.
+   * @param envelope the collection response without elements; its remaining fields are written after the elements.
+   * @param projectionMode projection mode applied to each element.
+   * @param projectionMask projection mask applied to each element, may be null.
+   * @param paging builds the paging of the response from the number of written elements. It replaces the paging of
+   *               the envelope, if the envelope has one. If null, the paging of the envelope is written unchanged.
+   */
+  public CollectionElementsWriter(Iterator<? extends RecordTemplate> elements,
+                                  DataMap envelope,
+                                  ProjectionMode projectionMode,
+                                  MaskTree projectionMask,
+                                  IntFunction<DataMap> paging)
+  {
+    this(elements, envelope, projectionMode, projectionMask, paging, DEFAULT_CHUNK_SIZE);
+  }
+
+  CollectionElementsWriter(Iterator<? extends RecordTemplate> elements,
+                           DataMap envelope,
+                           ProjectionMode projectionMode,
+                           MaskTree projectionMask,
+                           IntFunction<DataMap> paging,
+                           int chunkSize)
+  {
+    _elements = elements;
+    _envelope = envelope;
+    _projectionMode = projectionMode;
+    _projectionMask = projectionMask;
+    _paging = paging;
+    _chunkSize = chunkSize;
+  }
+
+  @Override
+  public void onInit(WriteHandle wh)
+  {
+    _wh = wh;
+  }
+
+  @Override
+  public void onWritePossible()
+  {
+    while (!_finished && _wh.remaining() > 0)
+    {
+      final ByteString chunk;
+      try
+      {
+        chunk = nextChunk();
+      }
+      catch (Exception e)
+      {
+        finish();
+        _wh.error(e);
+        return;
+      }
+
+      _wh.write(chunk);
+      if (_finished)
+      {
+        _wh.done();
+      }
+    }
+  }
+
+  @Override
+  public void onAbort(Throwable e)
+  {
+    finish();
+  }
+
+  private ByteString nextChunk() throws Exception
+  {
+    final ByteString.Builder builder = new ByteString.Builder();
+    int size = 0;
+    if (!_started)
+    {
+      _started = true;
+      builder.append(ELEMENTS_START);
+      size += ELEMENTS_START.length();
+    }
+
+    while (size < _chunkSize && _elements.hasNext())
+    {
+      final RecordTemplate element = _elements.next();
+      if (element == null)
+      {
+        throw new IllegalStateException("Unexpected null encountered. Null element inside of a streamed collection.");
+      }
+
+      final ByteString encoded =
+          ByteString.copyFromDataMap(RestUtils.projectFields(element.data(), _projectionMode, _projectionMask), CODEC);
+      if (_count > 0)
+      {
+        builder.append(ELEMENTS_SEPARATOR);
+        size += ELEMENTS_SEPARATOR.length();
+      }
+      _count++;
+      builder.append(encoded);
+      size += encoded.length();
+    }
+
+    if (size < _chunkSize)
+    {
+      // the iterator is exhausted; close the array and append the rest of the envelope.
+      builder.append(ELEMENTS_END);
+      final DataMap rest = new DataMap(_envelope);
+      rest.remove(CollectionResponse.ELEMENTS);
+      if (_paging != null && rest.containsKey(CollectionResponse.PAGING))
+      {
+        rest.put(CollectionResponse.PAGING, _paging.apply(_count));
+      }
+      if (rest.isEmpty())
+      {
+        builder.append(OBJECT_END);
+      }
+      else
+      {
+        // the encoded map is "{...}"; replace its opening brace with the separator after the elements array.
+        final ByteString encodedRest = ByteString.copyFromDataMap(rest, CODEC);
+        builder.append(ELEMENTS_SEPARATOR);
+        builder.append(encodedRest.slice(1, encodedRest.length() - 1));
+      }
+      finish();
+    }
+
+    return builder.build();
+  }
+
+  private void finish()
+  {
+    if (_finished)
+    {
+      return;
+    }
+    _finished = true;
+    StreamingCollectionResponse.closeQuietly(_elements);
+  }
+}
@@ -18,13 +18,16 @@ package com.linkedin.restli.internal.server.response;
 
 
 import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
 import com.linkedin.data.collections.CheckedUtil;
 import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.r2.message.RequestContext;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.restli.common.CollectionMetadata;
 import com.linkedin.restli.common.CollectionResponse;
 import com.linkedin.restli.common.HttpStatus;
 import com.linkedin.restli.internal.server.RoutingResult;
+import com.linkedin.restli.internal.server.ServerResourceContext;
 import com.linkedin.restli.internal.server.methods.AnyRecord;
 import com.linkedin.restli.internal.server.util.RestUtils;
 import com.linkedin.restli.server.CollectionResult;
@@ -33,11 +36,15 @@ import com.linkedin.restli.server.RestLiResponseData;
 import com.linkedin.restli.server.RestLiServiceException;
 import com.linkedin.restli.server.ProjectionMode;
 import com.linkedin.restli.server.ResourceContext;
+import com.linkedin.restli.server.StreamingCollectionResult;
 
 import java.net.HttpCookie;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntFunction;
 
 
 public class CollectionResponseBuilder implements RestLiResponseBuilder
@@ -77,6 +84,45 @@ public class CollectionResponseBuilder implements RestLiResponseBuilder
 
       return buildRestLiResponseData(request, routingResult, result, PageIncrement.RELATIVE, null, null, headers, cookies);
     }
+    else if (object instanceof StreamingCollectionResult)
+    {
+      @SuppressWarnings({ "unchecked" })
+      StreamingCollectionResult<? extends RecordTemplate, ? extends RecordTemplate> streamingResult =
+          (StreamingCollectionResult<? extends RecordTemplate, ? extends RecordTemplate>) object;
+      final Iterator<? extends RecordTemplate> elementIterator = streamingResult.getElementIterator();
+      final ServerResourceContext resourceContext = (ServerResourceContext) routingResult.getContext();
+      final RequestContext requestContext = resourceContext.getRawRequestContext();
+
+      final List<? extends RecordTemplate> elements;
+      if (StreamingCollectionResponse.isEnabled(requestContext, resourceContext.getResponseMimeType()))
+      {
+        // the elements are projected and encoded by CollectionElementsWriter when the response is written, and the
+        // paging, whose next link depends on the number of elements, is rebuilt once they have all been written.
+        final PageIncrement pageIncrement = streamingResult.getPageIncrement();
+        final Integer total = streamingResult.getTotal();
+        final IntFunction<DataMap> paging = count ->
+            buildProjectedPaging(request, routingResult, Collections.nCopies(count, null), pageIncrement, total).data();
+        StreamingCollectionResponse.attach(requestContext,
+                                           new StreamingCollectionResponse(elementIterator,
+                                                                           resourceContext.getProjectionMode(),
+                                                                           resourceContext.getProjectionMask(),
+                                                                           paging));
+        elements = Collections.<RecordTemplate>emptyList();
+      }
+      else
+      {
+        final List<RecordTemplate> materialized = new ArrayList<RecordTemplate>();
+        while (elementIterator.hasNext())
+        {
+          materialized.add(elementIterator.next());
+        }
+        StreamingCollectionResponse.closeQuietly(elementIterator);
+        elements = materialized;
+      }
+
+      return buildRestLiResponseData(request, routingResult, elements, streamingResult.getPageIncrement(),
+                                     streamingResult.getMetadata(), streamingResult.getTotal(), headers, cookies);
+    }
     else
     {
       @SuppressWarnings({ "unchecked" })
@@ -110,27 +156,8 @@ public class CollectionResponseBuilder implements RestLiResponseBuilder
     //Extract the resource context that contains projection information for root object entities, metadata and paging.
     final ResourceContext resourceContext = routingResult.getContext();
 
-    //Calculate paging metadata and apply projection
-    final CollectionMetadata paging =
-        RestUtils.buildMetadata(request.getURI(), resourceContext, routingResult.getResourceMethod(),
-                                elements, pageIncrement, totalResults);
-
-    //PagingMetadata cannot be null at this point so we skip the null check. Notice here that we are using automatic
-    //intentionally since resource methods cannot explicitly project paging. However, it should be noted that client
-    //resource methods have the option of selectively setting the total to null. This happens if a client decides
-    //that they want the total in the paging response, which the resource method will see in their paging path spec,
-    //and then specify total when they create CollectionResult. Restli will then also subsequently separately project
-    //paging using this same path spec.
-    //Note that there is no chance of potential data loss here:
-    //If the client decides they don't want total in their paging response, then the resource method will
-    //see the lack of total in their paging path spec and then decide to set total to null. We will then also exclude it
-    //when we project paging.
-    //If the client decides they want total in their paging response, then the resource method will see total in their
-    //paging path spec and then decide to set total to a non null value. We will then also include it when we project
-    //paging.
-    final RecordTemplate anyRecord = new AnyRecord(RestUtils.projectFields(paging.data(),
-        ProjectionMode.AUTOMATIC, resourceContext.getPagingProjectionMask()));
-    final CollectionMetadata projectedPaging = new CollectionMetadata(anyRecord.data());
+    final CollectionMetadata projectedPaging =
+        buildProjectedPaging(request, routingResult, elements, pageIncrement, totalResults);
 
     //For root object entities
     List<AnyRecord> processedElements = new ArrayList<AnyRecord>(elements.size());
@@ -179,4 +206,38 @@ public class CollectionResponseBuilder implements RestLiResponseBuilder
 
     return responseData;
   }
+
+  /**
+   * Calculates the paging metadata of a collection response and applies the paging projection.
+   */
+  private static CollectionMetadata buildProjectedPaging(final RestRequest request,
+                                                         final RoutingResult routingResult,
+                                                         final List<?> elements,
+                                                         final PageIncrement pageIncrement,
+                                                         final Integer totalResults)
+  {
+    final ResourceContext resourceContext = routingResult.getContext();
+
+    //Calculate paging metadata and apply projection
+    final CollectionMetadata paging =
+        RestUtils.buildMetadata(request.getURI(), resourceContext, routingResult.getResourceMethod(),
+                                elements, pageIncrement, totalResults);
+
+    //PagingMetadata cannot be null at this point so we skip the null check. Notice here that we are using automatic
+    //intentionally since resource methods cannot explicitly project paging. However, it should be noted that client
+    //resource methods have the option of selectively setting the total to null. This happens if a client decides
+    //that they want the total in the paging response, which the resource method will see in their paging path spec,
+    //and then specify total when they create CollectionResult. Restli will then also subsequently separately project
+    //paging using this same path spec.
+    //Note that there is no chance of potential data loss here:
+    //If the client decides they don't want total in their paging response, then the resource method will
+    //see the lack of total in their paging path spec and then decide to set total to null. We will then also exclude it
+    //when we project paging.
+    //If the client decides they want total in their paging response, then the resource method will see total in their
+    //paging path spec and then decide to set total to a non null value. We will then also include it when we project
+    //paging.
+    final RecordTemplate anyRecord = new AnyRecord(RestUtils.projectFields(paging.data(),
+        ProjectionMode.AUTOMATIC, resourceContext.getPagingProjectionMask()));
+    return new CollectionMetadata(anyRecord.data());
+  }
 }
@@ -0,0 +1,150 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.internal.server.response;
+
+
+import com.linkedin.data.DataMap;
+import com.linkedin.data.transform.filter.request.MaskTree;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.r2.message.RequestContext;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.stream.StreamResponse;
+import com.linkedin.r2.message.stream.StreamResponseBuilder;
+import com.linkedin.r2.message.stream.entitystream.EntityStreams;
+import com.linkedin.r2.message.stream.entitystream.Writer;
+import com.linkedin.restli.common.RestConstants;
+import com.linkedin.restli.internal.server.util.DataMapUtils;
+import com.linkedin.restli.server.ProjectionMode;
+
+import java.util.Iterator;
+import java.util.function.IntFunction;
+
+
+/**
+ * Carries the elements of a {@link com.linkedin.restli.server.StreamingCollectionResult} from the response builder to
+ * the point where the {@link StreamResponse} is created.
+ *
+ * The streaming transport marks the {@link RequestContext} with {@link #enable(RequestContext)} before the request is
+ * dispatched. {@link CollectionResponseBuilder} then attaches the element iterator instead of materializing the
+ * elements, and the response envelope is built without elements. When the response is sent, the envelope and the
+ * iterator are combined by a {@link CollectionElementsWriter}, which rebuilds the paging of the envelope once the
+ * number of elements is known.
+ */
+public class StreamingCollectionResponse
+{
+  private static final String ENABLED_KEY = "RESTLI_STREAMING_COLLECTION_ENABLED";
+  private static final String RESPONSE_KEY = "RESTLI_STREAMING_COLLECTION_RESPONSE";
+
+  private final Iterator<? extends RecordTemplate> _elements;
+  private final ProjectionMode _projectionMode;
+  private final MaskTree _projectionMask;
+  private final IntFunction<DataMap> _paging;
+
+  /**
+   * @param paging builds the projected paging of the response from the number of streamed elements.
+   */
+  StreamingCollectionResponse(Iterator<? extends RecordTemplate> elements,
+                              ProjectionMode projectionMode,
+                              MaskTree projectionMask,
+                              IntFunction<DataMap> paging)
+  {
+    _elements = elements;
+    _projectionMode = projectionMode;
+    _projectionMask = projectionMask;
+    _paging = paging;
+  }
+
+  /**
+   * Marks the request as being served by a transport that can stream collection elements.
+   */
+  public static void enable(RequestContext requestContext)
+  {
+    requestContext.putLocalAttr(ENABLED_KEY, Boolean.TRUE);
+  }
+
+  /**
+   * @return true if collection elements can be streamed for the request with the given response mime type.
+   */
+  static boolean isEnabled(RequestContext requestContext, String responseMimeType)
+  {
+    return requestContext != null
+        && Boolean.TRUE.equals(requestContext.getLocalAttr(ENABLED_KEY))
+        && RestConstants.HEADER_VALUE_APPLICATION_JSON.equalsIgnoreCase(responseMimeType);
+  }
+
+  static void attach(RequestContext requestContext, StreamingCollectionResponse response)
+  {
+    requestContext.putLocalAttr(RESPONSE_KEY, response);
+  }
+
+  /**
+   * Removes the streaming collection response attached to the request, if any.
+   *
+   * @return the attached response, or null if the response elements are not streamed.
+   */
+  public static StreamingCollectionResponse detach(RequestContext requestContext)
+  {
+    return (StreamingCollectionResponse) requestContext.removeLocalAttr(RESPONSE_KEY);
+  }
+
+  /**
+   * Creates the {@link StreamResponse} for the given envelope, streaming the elements after the envelope's fields.
+   *
+   * @param envelope the response built by rest.li, whose entity is a collection response without elements.
+   */
+  public StreamResponse toStreamResponse(RestResponse envelope)
+  {
+    return new StreamResponseBuilder(envelope).build(EntityStreams.newEntityStream(createWriter(envelope)));
+  }
+
+  /**
+   * Creates a {@link Writer} that writes the elements followed by the fields of the given envelope.
+   *
+   * @param envelope the response built by rest.li, whose entity is a collection response without elements.
+   */
+  public Writer createWriter(RestResponse envelope)
+  {
+    final DataMap envelopeData = DataMapUtils.readMap(envelope);
+    return new CollectionElementsWriter(_elements, envelopeData, _projectionMode, _projectionMask, _paging);
+  }
+
+  /**
+   * Releases the element source of a response that is not going to be sent.
+   */
+  public void discard()
+  {
+    closeQuietly(_elements);
+  }
+
+  /**
+   * Closes the given element source if it is {@link AutoCloseable}.
+   */
+  static void closeQuietly(Iterator<?> elements)
+  {
+    if (elements instanceof AutoCloseable)
+    {
+      try
+      {
+        ((AutoCloseable) elements).close();
+      }
+      catch (Exception e)
+      {
+        // nothing more can be done for an element source that fails to close.
+      }
+    }
+  }
+}
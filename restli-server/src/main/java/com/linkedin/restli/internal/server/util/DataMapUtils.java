@@ -21,6 +21,7 @@ import com.linkedin.data.ByteString;
 import com.linkedin.data.DataComplex;
 import com.linkedin.data.DataList;
 import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.DataCodec;
 import com.linkedin.data.codec.JacksonDataCodec;
 import com.linkedin.data.codec.PsonDataCodec;
 import com.linkedin.data.schema.DataSchema;
@@ -321,14 +322,15 @@ public class DataMapUtils
   }
 
   /**
-   * Encode {@link DataMap} as a ByteString using {@link ByteString} unsafeWrap.
+   * Encode {@link DataMap} as a ByteString using {@link JacksonDataCodec}, writing directly into the buffer
+   * backing the ByteString.
    *
    * @param dataMap input {@link DataMap}
    * @return ByteString
    */
   public static ByteString mapToByteString(final DataMap dataMap)
   {
-    return ByteString.unsafeWrap(DataMapUtils.mapToBytes(dataMap));
+    return mapToByteString(dataMap, CODEC);
   }
 
   public static byte[] listToBytes(final DataList dataList)
@@ -378,13 +380,26 @@ public class DataMapUtils
   }
 
   /**
-   * Encode the {@link DataMap} as a ByteString using {@link ByteString} unsafeWrap.
+   * Encode the {@link DataMap} as a ByteString using {@link PsonDataCodec}, writing directly into the buffer
+   * backing the ByteString.
    *
    * @param dataMap input {@link DataMap}
    * @return ByteString
    */
   public static ByteString mapToPsonByteString(final DataMap dataMap)
   {
-    return ByteString.unsafeWrap(DataMapUtils.mapToPsonBytes(dataMap));
+    return mapToByteString(dataMap, PSON_DATA_CODEC);
+  }
+
+  private static ByteString mapToByteString(final DataMap dataMap, final DataCodec codec)
+  {
+    try
+    {
+      return ByteString.copyFromDataMap(dataMap, codec);
+    }
+    catch (IOException e)
+    {
+      throw new RestLiInternalException(e);
+    }
   }
 }
@@ -37,6 +37,7 @@ import com.linkedin.r2.message.rest.RestResponse;
 import com.linkedin.r2.message.stream.StreamRequest;
 import com.linkedin.r2.message.stream.StreamResponse;
 import com.linkedin.r2.message.stream.entitystream.ByteStringWriter;
+import com.linkedin.r2.message.stream.entitystream.Writer;
 import com.linkedin.r2.util.URIUtil;
 import com.linkedin.restli.common.HttpStatus;
 import com.linkedin.restli.common.ProtocolVersion;
@@ -60,6 +61,7 @@ import com.linkedin.restli.internal.server.filter.RestLiFilterResponseContextFac
 import com.linkedin.restli.internal.server.methods.MethodAdapterRegistry;
 import com.linkedin.restli.internal.server.methods.arguments.RestLiArgumentBuilder;
 import com.linkedin.restli.internal.server.response.ErrorResponseBuilder;
+import com.linkedin.restli.internal.server.response.StreamingCollectionResponse;
 import com.linkedin.restli.internal.server.model.ResourceMethodDescriptor;
 import com.linkedin.restli.internal.server.model.ResourceMethodDescriptor.InterfaceType;
 import com.linkedin.restli.internal.server.model.ResourceModel;
@@ -665,7 +667,7 @@ public class RestLiServer extends BaseRestServer
           //move forward with this request.
           //It is important to note that the server's response may include attachments so we factor that into
           //consideration upon completion of this request.
-          final StreamResponseCallbackAdaptor streamResponseCallbackAdaptor = new StreamResponseCallbackAdaptor(callback);
+          final StreamResponseCallbackAdaptor streamResponseCallbackAdaptor = new StreamResponseCallbackAdaptor(callback, requestContext);
 
           //We must also check to see if this was a debug request.
           final RestLiDebugRequestHandler debugHandlerForRequest = findDebugRequestHandler(request);
@@ -677,6 +679,7 @@ public class RestLiServer extends BaseRestServer
           }
           else
           {
+            StreamingCollectionResponse.enable(requestContext);
             handleResourceRequest(result, requestContext, streamResponseCallbackAdaptor, null, false);
           }
         }
@@ -764,7 +767,7 @@ public class RestLiServer extends BaseRestServer
         //callback will be invoked on onDrainComplete().
 
         _restRequestBuilder.setEntity(_requestPayload);
-        final StreamResponseCallbackAdaptor streamResponseCallbackAdaptor = new StreamResponseCallbackAdaptor(_streamResponseCallback);
+        final StreamResponseCallbackAdaptor streamResponseCallbackAdaptor = new StreamResponseCallbackAdaptor(_streamResponseCallback, _requestContext);
 
         //We have to be able to handle debug requests as well.
         final RestLiDebugRequestHandler debugHandlerForRequest = findDebugRequestHandler(_streamRequest);
@@ -776,6 +779,7 @@ public class RestLiServer extends BaseRestServer
         }
         else
         {
+          StreamingCollectionResponse.enable(_requestContext);
           handleResourceRequest(_restRequestBuilder.build(), _requestContext, streamResponseCallbackAdaptor,
                                 new RestLiAttachmentReader(_multiPartMIMEReader), false);
         }
@@ -808,7 +812,7 @@ public class RestLiServer extends BaseRestServer
       //invoked.
 
       _restRequestBuilder.setEntity(_requestPayload);
-      final StreamResponseCallbackAdaptor streamResponseCallbackAdaptor = new StreamResponseCallbackAdaptor(_streamResponseCallback);
+      final StreamResponseCallbackAdaptor streamResponseCallbackAdaptor = new StreamResponseCallbackAdaptor(_streamResponseCallback, _requestContext);
 
       //We have to be able to handle debug requests as well.
       final RestLiDebugRequestHandler debugHandlerForRequest = findDebugRequestHandler(_streamRequest);
@@ -820,6 +824,7 @@ public class RestLiServer extends BaseRestServer
       else
       {
         //We have no attachments so we pass null for the reader.
+        StreamingCollectionResponse.enable(_requestContext);
         handleResourceRequest(_restRequestBuilder.build(), _requestContext, streamResponseCallbackAdaptor, null, false);
       }
     }
@@ -895,10 +900,13 @@ public class RestLiServer extends BaseRestServer
   private class StreamResponseCallbackAdaptor implements RequestExecutionCallback<RestResponse>
   {
     private final Callback<StreamResponse> _streamResponseCallback;
+    private final RequestContext _requestContext;
 
-    private StreamResponseCallbackAdaptor(final Callback<StreamResponse> streamResponseCallback)
+    private StreamResponseCallbackAdaptor(final Callback<StreamResponse> streamResponseCallback,
+                                          final RequestContext requestContext)
     {
       _streamResponseCallback = streamResponseCallback;
+      _requestContext = requestContext;
     }
 
     @Override
@@ -944,6 +952,13 @@ public class RestLiServer extends BaseRestServer
         }
       }
 
+      //Release the elements of a streaming collection response that will not be sent.
+      final StreamingCollectionResponse streamingCollectionResponse = StreamingCollectionResponse.detach(_requestContext);
+      if (streamingCollectionResponse != null)
+      {
+        streamingCollectionResponse.discard();
+      }
+
       //Drop all attachments to send back on the ground as well.
       if (responseAttachments != null)
       {
@@ -963,9 +978,13 @@ public class RestLiServer extends BaseRestServer
       //There may potentially be attachments included in the response. Note that unlike the client side request builders,
       //here it is possible to have a non-null attachment list with 0 attachments due to the way the builder in
       //RestLiResponseAttachments works. Therefore we have to make sure its a non zero size as well.
+      //The elements of a streaming collection response are written after the envelope built by rest.li.
+      final StreamingCollectionResponse streamingCollectionResponse = StreamingCollectionResponse.detach(_requestContext);
       if (responseAttachments != null && responseAttachments.getResponseAttachmentsBuilder().getCurrentSize() > 0)
       {
-        final ByteStringWriter firstPartWriter = new ByteStringWriter(result.getEntity());
+        final Writer firstPartWriter = streamingCollectionResponse != null
+            ? streamingCollectionResponse.createWriter(result)
+            : new ByteStringWriter(result.getEntity());
         final MultiPartMIMEWriter multiPartMIMEWriter =
             AttachmentUtils.createMultiPartMIMEWriter(firstPartWriter, result.getHeader(RestConstants.HEADER_CONTENT_TYPE),
                                                       responseAttachments.getResponseAttachmentsBuilder());
@@ -980,6 +999,10 @@ public class RestLiServer extends BaseRestServer
                                                                                    result.getCookies());
         _streamResponseCallback.onSuccess(streamResponse);
       }
+      else if (streamingCollectionResponse != null)
+      {
+        _streamResponseCallback.onSuccess(streamingCollectionResponse.toStreamResponse(result));
+      }
       else
       {
         _streamResponseCallback.onSuccess(Messages.toStreamResponse(result));
@@ -0,0 +1,74 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.server;
+
+
+import com.linkedin.data.template.RecordTemplate;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+
+/**
+ * A {@link CollectionResult} whose elements are produced lazily by an {@link Iterator}.
+ *
+ * Finder and get_all methods may return this type to stream a large collection to the client. When the request
+ * arrives through the streaming transport and JSON is the response content type, the elements are pulled from the
+ * iterator and encoded one by one onto the response entity stream as the transport is able to accept them, so the
+ * full collection is never held in memory. Otherwise the iterator is drained into a list and the response is built
+ * as for any other {@link CollectionResult}.
+ *
+ * Paging links are computed without knowledge of the streamed elements, so a next page link is only produced when
+ * the total is known. Rest.li filters see an empty element list for a streamed response.
+ *
+ * If the iterator implements {@link AutoCloseable}, it is closed once the response has been written or abandoned.
+ */
+public class StreamingCollectionResult<T extends RecordTemplate, MD extends RecordTemplate> extends CollectionResult<T, MD>
+{
+  private final Iterator<? extends T> _elementIterator;
+
+  /**
+   * @param elementIterator provides the elements of the collection.
+   */
+  public StreamingCollectionResult(final Iterator<? extends T> elementIterator)
+  {
+    this(elementIterator, null, null);
+  }
+
+  /**
+   * @param elementIterator provides the elements of the collection.
+   * @param total provides the total elements, may be null.
+   * @param metadata provides search result metadata, as defined by the application.
+   */
+  public StreamingCollectionResult(final Iterator<? extends T> elementIterator, final Integer total, final MD metadata)
+  {
+    super(Collections.<T>emptyList(), total, metadata);
+    if (elementIterator == null)
+    {
+      throw new IllegalArgumentException("elementIterator must not be null");
+    }
+    _elementIterator = elementIterator;
+  }
+
+  /**
+   * @return the iterator that produces the elements of the collection.
+   */
+  public Iterator<? extends T> getElementIterator()
+  {
+    return _elementIterator;
+  }
+}
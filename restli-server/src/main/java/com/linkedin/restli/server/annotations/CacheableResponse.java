@@ -0,0 +1,42 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.server.annotations;
+
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Marks a GET or BATCH_GET resource method as cacheable by
+ * {@link com.linkedin.restli.server.filter.ResponseCacheFilter}. Responses of methods without this annotation are
+ * never cached.
+ *
+ * The resource method must be idempotent and its response must only depend on the request URI, i.e. the resource
+ * path, keys, projection and query parameters.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CacheableResponse
+{
+  /**
+   * @return the number of milliseconds a cached response stays valid.
+   */
+  long ttlMillis() default 60000L;
+}
@@ -0,0 +1,276 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.server.filter;
+
+
+import com.linkedin.data.DataMap;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Size bounded, LRU ordered store of response entities used by {@link ResponseCacheFilter}.
+ *
+ * Entries expire after their time-to-live and are evicted in least-recently-used order whenever either the entry
+ * limit or the byte limit is exceeded. The size of an entry is the length of its JSON encoding. All operations are
+ * thread-safe.
+ *
+ * Counters for hits, misses, not-modified responses, evictions and byte savings are exposed so that the effectiveness
+ * of the cache can be monitored.
+ */
+public class ResponseCache
+{
+  private final int _maxEntries;
+  private final long _maxBytes;
+  private final LongSupplier _clock;
+
+  private final LinkedHashMap<String, Entry> _entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+  private long _totalBytes = 0L;
+
+  private final AtomicLong _hitCount = new AtomicLong();
+  private final AtomicLong _missCount = new AtomicLong();
+  private final AtomicLong _notModifiedCount = new AtomicLong();
+  private final AtomicLong _evictionCount = new AtomicLong();
+  private final AtomicLong _hitBytes = new AtomicLong();
+  private final AtomicLong _notModifiedBytes = new AtomicLong();
+
+  /**
+   * @param maxEntries maximum number of entries kept in the cache.
+   * @param maxBytes maximum total encoded size of the entries kept in the cache.
+   */
+  public ResponseCache(int maxEntries, long maxBytes)
+  {
+    this(maxEntries, maxBytes, System::currentTimeMillis);
+  }
+
+  ResponseCache(int maxEntries, long maxBytes, LongSupplier clock)
+  {
+    if (maxEntries <= 0 || maxBytes <= 0)
+    {
+      throw new IllegalArgumentException("Cache limits must be positive");
+    }
+    _maxEntries = maxEntries;
+    _maxBytes = maxBytes;
+    _clock = clock;
+  }
+
+  /**
+   * Look up a live entry. Expired entries are removed and reported as misses.
+   *
+   * @param key cache key.
+   * @return the entry, or null if there is no live entry for the key.
+   */
+  Entry get(String key)
+  {
+    final Entry entry;
+    synchronized (this)
+    {
+      Entry found = _entries.get(key);
+      if (found != null && found._expiresAt <= _clock.getAsLong())
+      {
+        remove(key);
+        found = null;
+      }
+      entry = found;
+    }
+
+    if (entry == null)
+    {
+      _missCount.incrementAndGet();
+    }
+    else
+    {
+      _hitCount.incrementAndGet();
+      _hitBytes.addAndGet(entry._size);
+    }
+    return entry;
+  }
+
+  /**
+   * Store an entry, replacing any existing entry with the same key. Entries larger than the byte limit are not stored,
+   * but still remove the existing entry.
+   *
+   * @param key cache key.
+   * @param data read-only response entity.
+   * @param eTag entity tag of the encoded entity.
+   * @param size size of the encoded entity in bytes.
+   * @param ttlMillis time-to-live of the entry.
+   * @return the entry that was created.
+   */
+  Entry put(String key, DataMap data, String eTag, int size, long ttlMillis)
+  {
+    final Entry entry = new Entry(data, eTag, size, _clock.getAsLong() + ttlMillis);
+    synchronized (this)
+    {
+      remove(key);
+      if (size > _maxBytes)
+      {
+        // the resource outgrew the cache; an entry stored earlier for the same key is stale now.
+        return entry;
+      }
+
+      _entries.put(key, entry);
+      _totalBytes += size;
+
+      final Iterator<Entry> it = _entries.values().iterator();
+      while ((_entries.size() > _maxEntries || _totalBytes > _maxBytes) && it.hasNext())
+      {
+        _totalBytes -= it.next()._size;
+        it.remove();
+        _evictionCount.incrementAndGet();
+      }
+    }
+    return entry;
+  }
+
+  void recordNotModified(Entry entry)
+  {
+    _notModifiedCount.incrementAndGet();
+    _notModifiedBytes.addAndGet(entry._size);
+  }
+
+  private void remove(String key)
+  {
+    final Entry removed = _entries.remove(key);
+    if (removed != null)
+    {
+      _totalBytes -= removed._size;
+    }
+  }
+
+  /**
+   * Remove all entries from the cache. Counters are not reset.
+   */
+  public synchronized void invalidateAll()
+  {
+    _entries.clear();
+    _totalBytes = 0L;
+  }
+
+  /**
+   * @return number of entries currently in the cache, including entries that have expired but not yet been removed.
+   */
+  public synchronized int size()
+  {
+    return _entries.size();
+  }
+
+  /**
+   * @return total encoded size of the entries currently in the cache.
+   */
+  public synchronized long getTotalBytes()
+  {
+    return _totalBytes;
+  }
+
+  /**
+   * @return number of lookups that found a live entry. Each key of a BATCH_GET counts as one lookup.
+   */
+  public long getHitCount()
+  {
+    return _hitCount.get();
+  }
+
+  /**
+   * @return number of lookups that did not find a live entry.
+   */
+  public long getMissCount()
+  {
+    return _missCount.get();
+  }
+
+  /**
+   * @return number of 304 Not Modified responses returned because the client already holds the current entity.
+   */
+  public long getNotModifiedCount()
+  {
+    return _notModifiedCount.get();
+  }
+
+  /**
+   * @return number of entries evicted because a size limit was exceeded.
+   */
+  public long getEvictionCount()
+  {
+    return _evictionCount.get();
+  }
+
+  /**
+   * @return total encoded size of the entities served from the cache instead of the resource.
+   */
+  public long getHitBytes()
+  {
+    return _hitBytes.get();
+  }
+
+  /**
+   * @return total encoded size of the entities that were not sent because of 304 Not Modified responses.
+   */
+  public long getNotModifiedBytes()
+  {
+    return _notModifiedBytes.get();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "ResponseCache{size=" + size()
+        + ", totalBytes=" + getTotalBytes()
+        + ", hits=" + getHitCount()
+        + ", misses=" + getMissCount()
+        + ", notModified=" + getNotModifiedCount()
+        + ", evictions=" + getEvictionCount()
+        + ", hitBytes=" + getHitBytes()
+        + ", notModifiedBytes=" + getNotModifiedBytes()
+        + "}";
+  }
+
+  static final class Entry
+  {
+    private final DataMap _data;
+    private final String _eTag;
+    private final int _size;
+    private final long _expiresAt;
+
+    private Entry(DataMap data, String eTag, int size, long expiresAt)
+    {
+      _data = data;
+      _eTag = eTag;
+      _size = size;
+      _expiresAt = expiresAt;
+    }
+
+    DataMap getData()
+    {
+      return _data;
+    }
+
+    String getETag()
+    {
+      return _eTag;
+    }
+
+    int getSize()
+    {
+      return _size;
+    }
+  }
+}
@@ -0,0 +1,381 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.server.filter;
+
+
+import com.linkedin.data.Data;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.data.transform.filter.request.MaskTree;
+import com.linkedin.restli.common.HttpStatus;
+import com.linkedin.restli.common.ProtocolVersion;
+import com.linkedin.restli.common.ResourceMethod;
+import com.linkedin.restli.common.RestConstants;
+import com.linkedin.restli.internal.common.URIParamUtils;
+import com.linkedin.restli.internal.server.methods.AnyRecord;
+import com.linkedin.restli.internal.server.response.BatchResponseEnvelope.BatchResponseEntry;
+import com.linkedin.restli.internal.server.util.DataMapUtils;
+import com.linkedin.restli.server.RestLiRequestData;
+import com.linkedin.restli.server.RestLiResponseData;
+import com.linkedin.restli.server.annotations.CacheableResponse;
+
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+
+/**
+ * Rest.li filter that caches the responses of GET and BATCH_GET methods annotated with {@link CacheableResponse}.
+ *
+ * Entities are cached by resource path, key, query parameters (including the projection) and protocol version.
+ * A GET that hits the cache is answered without invoking the resource. A BATCH_GET is answered from the cache for the
+ * keys that hit, and only the missing keys are forwarded to the resource.
+ *
+ * Every cached GET response carries an {@code ETag} header. A GET whose {@code If-None-Match} header matches the
+ * entity tag of the current entity is answered with 304 Not Modified and an empty body.
+ *
+ * Responses served from the cache skip the onRequest() and onResponse() methods of all filters that come after this
+ * one in the filter chain, so this filter should usually be registered first.
+ */
+public class ResponseCacheFilter implements Filter
+{
+  public static final String HEADER_ETAG = "ETag";
+  public static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+  private static final String CACHE_KEY = ResponseCacheFilter.class.getName() + ".key";
+  private static final String CACHE_TTL = ResponseCacheFilter.class.getName() + ".ttl";
+  private static final String CACHED_ENTRY = ResponseCacheFilter.class.getName() + ".entry";
+  private static final String CACHED_BATCH_ENTRIES = ResponseCacheFilter.class.getName() + ".batchEntries";
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final ResponseCache _cache;
+
+  public ResponseCacheFilter(ResponseCache cache)
+  {
+    _cache = cache;
+  }
+
+  /**
+   * @return the {@link ResponseCache} backing this filter.
+   */
+  public ResponseCache getCache()
+  {
+    return _cache;
+  }
+
+  @Override
+  public CompletableFuture<Void> onRequest(final FilterRequestContext requestContext)
+  {
+    final CacheableResponse cacheable = getCacheableAnnotation(requestContext);
+    if (cacheable == null)
+    {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    final Map<String, Object> scratchpad = requestContext.getFilterScratchpad();
+    final String baseKey = buildBaseKey(requestContext);
+    scratchpad.put(CACHE_KEY, baseKey);
+    scratchpad.put(CACHE_TTL, cacheable.ttlMillis());
+
+    if (requestContext.getMethodType() == ResourceMethod.GET)
+    {
+      final ResponseCache.Entry entry = _cache.get(baseKey);
+      if (entry != null)
+      {
+        scratchpad.put(CACHED_ENTRY, entry);
+        return cacheHit();
+      }
+    }
+    else
+    {
+      final RestLiRequestData requestData = requestContext.getRequestData();
+      final ProtocolVersion protocolVersion = requestContext.getRestliProtocolVersion();
+      final Map<Object, ResponseCache.Entry> hits = new HashMap<Object, ResponseCache.Entry>();
+      final Iterator<?> it = requestData.getBatchKeys().iterator();
+      while (it.hasNext())
+      {
+        final Object key = it.next();
+        final ResponseCache.Entry entry = _cache.get(buildBatchEntryKey(baseKey, key, protocolVersion));
+        if (entry != null)
+        {
+          hits.put(key, entry);
+          it.remove();
+        }
+      }
+
+      if (!hits.isEmpty())
+      {
+        scratchpad.put(CACHED_BATCH_ENTRIES, hits);
+        if (requestData.getBatchKeys().isEmpty())
+        {
+          return cacheHit();
+        }
+      }
+    }
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<Void> onResponse(final FilterRequestContext requestContext,
+                                            final FilterResponseContext responseContext)
+  {
+    final Map<String, Object> scratchpad = requestContext.getFilterScratchpad();
+    final String baseKey = (String) scratchpad.get(CACHE_KEY);
+    final RestLiResponseData responseData = responseContext.getResponseData();
+    if (baseKey == null || responseData.isErrorResponse())
+    {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    final long ttlMillis = (Long) scratchpad.get(CACHE_TTL);
+    if (requestContext.getMethodType() == ResourceMethod.GET)
+    {
+      final RecordTemplate record = responseData.getRecordResponseEnvelope().getRecord();
+      if (responseData.getStatus() == HttpStatus.S_200_OK && record != null)
+      {
+        final ResponseCache.Entry entry = store(baseKey, record.data(), ttlMillis);
+        respondWithEntry(requestContext, responseData, entry, false);
+      }
+    }
+    else
+    {
+      final ProtocolVersion protocolVersion = requestContext.getRestliProtocolVersion();
+      final Map<Object, BatchResponseEntry> responses =
+          (Map<Object, BatchResponseEntry>) responseData.getBatchResponseEnvelope().getBatchResponseMap();
+      for (Map.Entry<Object, BatchResponseEntry> response : responses.entrySet())
+      {
+        final BatchResponseEntry responseEntry = response.getValue();
+        if (!responseEntry.hasException() && responseEntry.getRecord() != null
+            && (responseEntry.getStatus() == null || responseEntry.getStatus() == HttpStatus.S_200_OK))
+        {
+          store(buildBatchEntryKey(baseKey, response.getKey(), protocolVersion), responseEntry.getRecord().data(),
+                ttlMillis);
+        }
+      }
+
+      final Map<Object, ResponseCache.Entry> hits = (Map<Object, ResponseCache.Entry>) scratchpad.get(CACHED_BATCH_ENTRIES);
+      if (hits != null)
+      {
+        final Map<Object, BatchResponseEntry> merged = new HashMap<Object, BatchResponseEntry>(responses);
+        merged.putAll(toBatchResponseEntries(hits));
+        responseData.getBatchResponseEnvelope().setBatchResponseMap(merged, responseData.getStatus());
+      }
+    }
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<Void> onError(Throwable th,
+                                         final FilterRequestContext requestContext,
+                                         final FilterResponseContext responseContext)
+  {
+    if (!(th instanceof CacheHitSignal))
+    {
+      return Filter.super.onError(th, requestContext, responseContext);
+    }
+
+    final Map<String, Object> scratchpad = requestContext.getFilterScratchpad();
+    final RestLiResponseData responseData = responseContext.getResponseData();
+    if (requestContext.getMethodType() == ResourceMethod.GET)
+    {
+      respondWithEntry(requestContext, responseData, (ResponseCache.Entry) scratchpad.get(CACHED_ENTRY), true);
+    }
+    else
+    {
+      final Map<Object, ResponseCache.Entry> hits = (Map<Object, ResponseCache.Entry>) scratchpad.get(CACHED_BATCH_ENTRIES);
+      responseData.getBatchResponseEnvelope().setBatchResponseMap(toBatchResponseEntries(hits), HttpStatus.S_200_OK);
+    }
+
+    // Completing normally turns the short-circuit signal back into a successful response.
+    return CompletableFuture.completedFuture(null);
+  }
+
+  private ResponseCache.Entry store(String key, DataMap data, long ttlMillis)
+  {
+    final DataMap copy;
+    try
+    {
+      copy = data.copy();
+    }
+    catch (CloneNotSupportedException e)
+    {
+      throw new IllegalStateException(e);
+    }
+    copy.makeReadOnly();
+
+    final byte[] encoded = DataMapUtils.mapToBytes(copy);
+    return _cache.put(key, copy, computeETag(encoded), encoded.length, ttlMillis);
+  }
+
+  private void respondWithEntry(FilterRequestContext requestContext,
+                                RestLiResponseData responseData,
+                                ResponseCache.Entry entry,
+                                boolean fromCache)
+  {
+    responseData.getHeaders().put(HEADER_ETAG, entry.getETag());
+    if (matchesETag(requestContext.getRequestHeaders().get(HEADER_IF_NONE_MATCH), entry.getETag()))
+    {
+      _cache.recordNotModified(entry);
+      responseData.getRecordResponseEnvelope().setRecord(null, HttpStatus.S_304_NOT_MODIFIED);
+    }
+    else if (fromCache)
+    {
+      responseData.getRecordResponseEnvelope().setRecord(new AnyRecord(copyOf(entry.getData())), HttpStatus.S_200_OK);
+    }
+  }
+
+  private static Map<Object, BatchResponseEntry> toBatchResponseEntries(Map<Object, ResponseCache.Entry> hits)
+  {
+    final Map<Object, BatchResponseEntry> entries = new HashMap<Object, BatchResponseEntry>(hits.size());
+    for (Map.Entry<Object, ResponseCache.Entry> hit : hits.entrySet())
+    {
+      entries.put(hit.getKey(), new BatchResponseEntry(null, new AnyRecord(copyOf(hit.getValue().getData()))));
+    }
+    return entries;
+  }
+
+  private static DataMap copyOf(DataMap data)
+  {
+    // cached entities are read-only and shared between requests, so every response gets its own mutable copy.
+    try
+    {
+      return data.copy();
+    }
+    catch (CloneNotSupportedException e)
+    {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static CacheableResponse getCacheableAnnotation(FilterRequestContext requestContext)
+  {
+    final ResourceMethod methodType = requestContext.getMethodType();
+    final Method method = requestContext.getMethod();
+    if (method == null || (methodType != ResourceMethod.GET && methodType != ResourceMethod.BATCH_GET))
+    {
+      return null;
+    }
+    // responses keyed by alternative keys can not be matched against the canonical keys of the request.
+    if (methodType == ResourceMethod.BATCH_GET
+        && requestContext.getQueryParameters().containsKey(RestConstants.ALT_KEY_PARAM))
+    {
+      return null;
+    }
+    return method.getAnnotation(CacheableResponse.class);
+  }
+
+  private static String buildBaseKey(FilterRequestContext requestContext)
+  {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(requestContext.getRestliProtocolVersion()).append(' ');
+    sb.append(requestContext.getRequestURI().getRawPath());
+    for (Map.Entry<String, Object> param : Data.orderMapEntries(requestContext.getQueryParameters()))
+    {
+      if (!RestConstants.QUERY_BATCH_IDS_PARAM.equals(param.getKey()))
+      {
+        sb.append(' ').append(param.getKey()).append('=');
+        Data.dump(null, param.getValue(), "", sb);
+      }
+    }
+
+    final MaskTree projectionMask = requestContext.getProjectionMask();
+    if (projectionMask != null)
+    {
+      sb.append(' ');
+      Data.dump(null, projectionMask.getDataMap(), "", sb);
+    }
+    return sb.toString();
+  }
+
+  private static String buildBatchEntryKey(String baseKey, Object key, ProtocolVersion protocolVersion)
+  {
+    return baseKey + ' ' + URIParamUtils.encodeKeyForBody(key, false, protocolVersion);
+  }
+
+  private static String computeETag(byte[] encoded)
+  {
+    final byte[] digest;
+    try
+    {
+      digest = MessageDigest.getInstance("MD5").digest(encoded);
+    }
+    catch (NoSuchAlgorithmException e)
+    {
+      throw new IllegalStateException(e);
+    }
+
+    final char[] chars = new char[digest.length * 2 + 2];
+    chars[0] = '"';
+    for (int i = 0; i < digest.length; i++)
+    {
+      chars[i * 2 + 1] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+      chars[i * 2 + 2] = HEX_DIGITS[digest[i] & 0xF];
+    }
+    chars[chars.length - 1] = '"';
+    return new String(chars);
+  }
+
+  static boolean matchesETag(String ifNoneMatch, String eTag)
+  {
+    if (ifNoneMatch == null)
+    {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(","))
+    {
+      candidate = candidate.trim();
+      if (candidate.startsWith("W/"))
+      {
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals("*") || candidate.equals(eTag))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static CompletableFuture<Void> cacheHit()
+  {
+    final CompletableFuture<Void> future = new CompletableFuture<Void>();
+    future.completeExceptionally(CacheHitSignal.INSTANCE);
+    return future;
+  }
+
+  /**
+   * Fails the request phase of the filter chain so that the resource is not invoked. {@link #onError} of this filter
+   * is the first to see the signal, and replaces the error with the cached response.
+   */
+  private static final class CacheHitSignal extends RuntimeException
+  {
+    private static final long serialVersionUID = 1L;
+    private static final CacheHitSignal INSTANCE = new CacheHitSignal();
+
+    private CacheHitSignal()
+    {
+      super("Response served from cache", null, false, false);
+    }
+  }
+}
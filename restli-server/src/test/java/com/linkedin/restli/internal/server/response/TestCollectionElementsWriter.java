@@ -0,0 +1,279 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.internal.server.response;
+
+
+import com.linkedin.data.ByteString;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.JacksonDataCodec;
+import com.linkedin.data.transform.filter.request.MaskOperation;
+import com.linkedin.data.transform.filter.request.MaskTree;
+import com.linkedin.pegasus.generator.examples.Foo;
+import com.linkedin.r2.message.stream.entitystream.WriteHandle;
+import com.linkedin.restli.common.CollectionMetadata;
+import com.linkedin.restli.common.CollectionResponse;
+import com.linkedin.restli.server.ProjectionMode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestCollectionElementsWriter
+{
+  private static final JacksonDataCodec CODEC = new JacksonDataCodec();
+
+  @Test
+  public void testWritesElementsAndEnvelope() throws Exception
+  {
+    final List<Foo> elements = generateElements(50);
+    final CollectionMetadata paging = new CollectionMetadata().setStart(0).setCount(50).setTotal(100);
+    final DataMap envelope = new DataMap();
+    envelope.put(CollectionResponse.PAGING, paging.data());
+
+    final CapturingWriteHandle wh = new CapturingWriteHandle(Integer.MAX_VALUE);
+    final CollectionElementsWriter writer =
+        new CollectionElementsWriter(elements.iterator(), envelope, ProjectionMode.AUTOMATIC, null, null, 64);
+    writer.onInit(wh);
+    writer.onWritePossible();
+
+    Assert.assertTrue(wh._done);
+    Assert.assertNull(wh._error);
+    Assert.assertTrue(wh._chunks.size() > 1);
+
+    final DataMap written = CODEC.bytesToMap(wh.getBytes());
+    final DataList writtenElements = written.getDataList(CollectionResponse.ELEMENTS);
+    Assert.assertEquals(writtenElements.size(), elements.size());
+    for (int i = 0; i < elements.size(); i++)
+    {
+      Assert.assertEquals(writtenElements.get(i), elements.get(i).data());
+    }
+    Assert.assertEquals(written.get(CollectionResponse.PAGING), paging.data());
+  }
+
+  @Test
+  public void testPagingIsRebuiltFromWrittenElements() throws Exception
+  {
+    final List<Foo> elements = generateElements(30);
+    final DataMap envelope = new DataMap();
+    envelope.put(CollectionResponse.PAGING, new CollectionMetadata().setStart(0).setCount(10).data());
+
+    final List<Integer> counts = new ArrayList<Integer>();
+    final CapturingWriteHandle wh = new CapturingWriteHandle(Integer.MAX_VALUE);
+    final CollectionElementsWriter writer = new CollectionElementsWriter(elements.iterator(), envelope,
+        ProjectionMode.AUTOMATIC, null, count -> {
+          counts.add(count);
+          return new CollectionMetadata().setStart(0).setCount(10).setTotal(count).data();
+        }, 64);
+    writer.onInit(wh);
+    writer.onWritePossible();
+
+    Assert.assertTrue(wh._done);
+    Assert.assertEquals(counts, Collections.singletonList(elements.size()));
+    final DataMap written = CODEC.bytesToMap(wh.getBytes());
+    Assert.assertEquals(new CollectionMetadata(written.getDataMap(CollectionResponse.PAGING)).getTotal().intValue(),
+        elements.size());
+  }
+
+  @Test
+  public void testEmptyCollectionWithoutEnvelopeFields() throws Exception
+  {
+    final CapturingWriteHandle wh = new CapturingWriteHandle(Integer.MAX_VALUE);
+    final CollectionElementsWriter writer =
+        new CollectionElementsWriter(new ArrayList<Foo>().iterator(), new DataMap(), ProjectionMode.AUTOMATIC, null);
+    writer.onInit(wh);
+    writer.onWritePossible();
+
+    Assert.assertTrue(wh._done);
+    final DataMap written = CODEC.bytesToMap(wh.getBytes());
+    Assert.assertEquals(written.size(), 1);
+    Assert.assertTrue(written.getDataList(CollectionResponse.ELEMENTS).isEmpty());
+  }
+
+  @Test
+  public void testProjection() throws Exception
+  {
+    final DataMap mask = new DataMap();
+    mask.put("stringField", MaskOperation.POSITIVE_MASK_OP.getRepresentation());
+
+    final CapturingWriteHandle wh = new CapturingWriteHandle(Integer.MAX_VALUE);
+    final CollectionElementsWriter writer = new CollectionElementsWriter(
+        generateElements(2).iterator(), new DataMap(), ProjectionMode.AUTOMATIC, new MaskTree(mask));
+    writer.onInit(wh);
+    writer.onWritePossible();
+
+    final DataList written = CODEC.bytesToMap(wh.getBytes()).getDataList(CollectionResponse.ELEMENTS);
+    Assert.assertEquals(written.get(0), new Foo().setStringField("f0").data());
+    Assert.assertEquals(written.get(1), new Foo().setStringField("f1").data());
+  }
+
+  @Test
+  public void testElementsAreOnlyProducedWhenRequested() throws Exception
+  {
+    final CountingIterator elements = new CountingIterator(generateElements(100).iterator());
+    final CapturingWriteHandle wh = new CapturingWriteHandle(1);
+    final CollectionElementsWriter writer =
+        new CollectionElementsWriter(elements, new DataMap(), ProjectionMode.AUTOMATIC, null, null, 16);
+    writer.onInit(wh);
+
+    writer.onWritePossible();
+    Assert.assertEquals(wh._chunks.size(), 1);
+    final int consumed = elements._count;
+    Assert.assertTrue(consumed < 100);
+
+    writer.onWritePossible();
+    Assert.assertEquals(wh._chunks.size(), 1);
+    Assert.assertEquals(elements._count, consumed);
+
+    wh._remaining = Integer.MAX_VALUE;
+    writer.onWritePossible();
+    Assert.assertTrue(wh._done);
+    Assert.assertEquals(elements._count, 100);
+    Assert.assertEquals(CODEC.bytesToMap(wh.getBytes()).getDataList(CollectionResponse.ELEMENTS).size(), 100);
+  }
+
+  @Test
+  public void testErrorFromElementSource()
+  {
+    final Iterator<Foo> elements = new Iterator<Foo>()
+    {
+      @Override
+      public boolean hasNext()
+      {
+        return true;
+      }
+
+      @Override
+      public Foo next()
+      {
+        throw new IllegalStateException("boom");
+      }
+
+      @Override
+      public void remove()
+      {
+        throw new UnsupportedOperationException();
+      }
+    };
+
+    final CapturingWriteHandle wh = new CapturingWriteHandle(Integer.MAX_VALUE);
+    final CollectionElementsWriter writer =
+        new CollectionElementsWriter(elements, new DataMap(), ProjectionMode.AUTOMATIC, null);
+    writer.onInit(wh);
+    writer.onWritePossible();
+
+    Assert.assertFalse(wh._done);
+    Assert.assertTrue(wh._error instanceof IllegalStateException);
+  }
+
+  private static List<Foo> generateElements(int count)
+  {
+    final List<Foo> elements = new ArrayList<Foo>();
+    for (int i = 0; i < count; i++)
+    {
+      elements.add(new Foo().setStringField("f" + i).setIntField(i));
+    }
+    return elements;
+  }
+
+  private static class CountingIterator implements Iterator<Foo>
+  {
+    private final Iterator<Foo> _delegate;
+    private int _count = 0;
+
+    CountingIterator(Iterator<Foo> delegate)
+    {
+      _delegate = delegate;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+      return _delegate.hasNext();
+    }
+
+    @Override
+    public Foo next()
+    {
+      _count++;
+      return _delegate.next();
+    }
+
+    @Override
+    public void remove()
+    {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  static class CapturingWriteHandle implements WriteHandle
+  {
+    private final List<ByteString> _chunks = new ArrayList<ByteString>();
+    private int _remaining;
+    private boolean _done = false;
+    private Throwable _error = null;
+
+    CapturingWriteHandle(int remaining)
+    {
+      _remaining = remaining;
+    }
+
+    @Override
+    public void write(ByteString data)
+    {
+      Assert.assertTrue(_remaining > 0);
+      _chunks.add(data);
+      if (_remaining != Integer.MAX_VALUE)
+      {
+        _remaining--;
+      }
+    }
+
+    @Override
+    public void done()
+    {
+      _done = true;
+    }
+
+    @Override
+    public void error(Throwable throwable)
+    {
+      _error = throwable;
+    }
+
+    @Override
+    public int remaining()
+    {
+      return _remaining;
+    }
+
+    byte[] getBytes()
+    {
+      final ByteString.Builder builder = new ByteString.Builder();
+      for (ByteString chunk : _chunks)
+      {
+        builder.append(chunk);
+      }
+      return builder.build().copyBytes();
+    }
+  }
+}
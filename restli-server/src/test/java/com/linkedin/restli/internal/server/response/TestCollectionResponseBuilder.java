@@ -18,19 +18,26 @@ package com.linkedin.restli.internal.server.response;
 
 
 import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.JacksonDataCodec;
 import com.linkedin.data.schema.PathSpec;
 import com.linkedin.data.template.RecordTemplate;
 import com.linkedin.data.transform.filter.request.MaskOperation;
 import com.linkedin.data.transform.filter.request.MaskTree;
 import com.linkedin.pegasus.generator.examples.Foo;
 import com.linkedin.pegasus.generator.examples.Fruits;
+import com.linkedin.r2.message.RequestContext;
 import com.linkedin.r2.message.rest.RestRequest;
 import com.linkedin.r2.message.rest.RestRequestBuilder;
+import com.linkedin.r2.message.rest.RestResponse;
+import com.linkedin.r2.message.rest.RestResponseBuilder;
+import com.linkedin.r2.message.stream.entitystream.Writer;
 import com.linkedin.restli.common.CollectionMetadata;
 import com.linkedin.restli.common.CollectionResponse;
 import com.linkedin.restli.common.LinkArray;
 import com.linkedin.restli.common.ResourceMethod;
+import com.linkedin.restli.common.RestConstants;
 import com.linkedin.restli.internal.server.RoutingResult;
+import com.linkedin.restli.internal.server.ServerResourceContext;
 import com.linkedin.restli.internal.server.model.Parameter;
 import com.linkedin.restli.internal.server.model.ResourceMethodDescriptor;
 import com.linkedin.restli.server.CollectionResult;
@@ -38,6 +45,7 @@ import com.linkedin.restli.server.ProjectionMode;
 import com.linkedin.restli.server.ResourceContext;
 import com.linkedin.restli.server.RestLiResponseData;
 import com.linkedin.restli.server.RestLiServiceException;
+import com.linkedin.restli.server.StreamingCollectionResult;
 
 import java.net.HttpCookie;
 import java.net.URI;
@@ -60,6 +68,8 @@ import org.easymock.EasyMock;
  */
 public class TestCollectionResponseBuilder
 {
+  private static final JacksonDataCodec CODEC = new JacksonDataCodec();
+
   @DataProvider(name = "testData")
   public Object[][] dataProvider() throws CloneNotSupportedException
   {
@@ -271,6 +281,63 @@ public class TestCollectionResponseBuilder
     }
   }
 
+  @Test
+  public void testStreamingPagingIsBuiltFromStreamedElements() throws Exception
+  {
+    RestRequest request = getRestRequest();
+    RequestContext requestContext = new RequestContext();
+    StreamingCollectionResponse.enable(requestContext);
+
+    ServerResourceContext mockContext = EasyMock.createNiceMock(ServerResourceContext.class);
+    EasyMock.expect(mockContext.getRawRequestContext()).andReturn(requestContext).anyTimes();
+    EasyMock.expect(mockContext.getResponseMimeType()).andReturn(RestConstants.HEADER_VALUE_APPLICATION_JSON).anyTimes();
+    EasyMock.expect(mockContext.getRequestHeaders()).andReturn(ResponseBuilderUtil.getHeaders()).anyTimes();
+    EasyMock.expect(mockContext.getRawRequest()).andReturn(request).anyTimes();
+    EasyMock.expect(mockContext.getProjectionMode()).andReturn(ProjectionMode.AUTOMATIC).anyTimes();
+    EasyMock.replay(mockContext);
+    ResourceMethodDescriptor mockDescriptor = EasyMock.createNiceMock(ResourceMethodDescriptor.class);
+    EasyMock.expect(mockDescriptor.getParametersWithType(EasyMock.<Parameter.ParamType>anyObject()))
+        .andReturn(Collections.<Parameter<?>>emptyList()).anyTimes();
+    EasyMock.expect(mockDescriptor.getType()).andReturn(ResourceMethod.FINDER).anyTimes();
+    EasyMock.replay(mockDescriptor);
+    RoutingResult routingResult = new RoutingResult(mockContext, mockDescriptor);
+
+    // a full page of elements, which has a next link
+    List<Foo> elements = new ArrayList<Foo>();
+    for (int i = 0; i < RestConstants.DEFAULT_COUNT; i++)
+    {
+      elements.add(new Foo().setIntField(i));
+    }
+
+    CollectionResponseBuilder responseBuilder = new CollectionResponseBuilder();
+    RestLiResponseData responseData =
+        responseBuilder.buildRestLiResponseData(request, routingResult, new StreamingCollectionResult<Foo, Foo>(elements.iterator()),
+                                                ResponseBuilderUtil.getHeaders(), Collections.<HttpCookie>emptyList());
+    DataMap envelope = responseBuilder.buildResponse(routingResult, responseData).getEntity().data();
+
+    // the envelope is built before the elements are streamed, so its paging has no next link yet
+    Assert.assertTrue(new CollectionMetadata(envelope.getDataMap(CollectionResponse.PAGING)).getLinks().isEmpty());
+
+    StreamingCollectionResponse streamingResponse = StreamingCollectionResponse.detach(requestContext);
+    Assert.assertNotNull(streamingResponse);
+    RestResponse envelopeResponse = new RestResponseBuilder()
+        .setHeader(RestConstants.HEADER_CONTENT_TYPE, RestConstants.HEADER_VALUE_APPLICATION_JSON)
+        .setEntity(CODEC.mapToBytes(envelope))
+        .build();
+    Writer writer = streamingResponse.createWriter(envelopeResponse);
+    TestCollectionElementsWriter.CapturingWriteHandle wh =
+        new TestCollectionElementsWriter.CapturingWriteHandle(Integer.MAX_VALUE);
+    writer.onInit(wh);
+    writer.onWritePossible();
+
+    DataMap written = CODEC.bytesToMap(wh.getBytes());
+    Assert.assertEquals(written.getDataList(CollectionResponse.ELEMENTS).size(), elements.size());
+    LinkArray links = new CollectionMetadata(written.getDataMap(CollectionResponse.PAGING)).getLinks();
+    Assert.assertEquals(links.size(), 1);
+    Assert.assertEquals(links.get(0).getRel(), "next");
+    Assert.assertTrue(links.get(0).getHref().contains("start=" + RestConstants.DEFAULT_COUNT), links.get(0).getHref());
+  }
+
   @SuppressWarnings("deprecation")
   private static ResourceContext getMockResourceContext(MaskTree dataMaskTree,
                                                         MaskTree metadataMaskTree,
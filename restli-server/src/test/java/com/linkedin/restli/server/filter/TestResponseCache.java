@@ -0,0 +1,136 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.server.filter;
+
+
+import com.linkedin.data.DataMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class TestResponseCache
+{
+  @Test
+  public void testHitAndMiss()
+  {
+    ResponseCache cache = new ResponseCache(10, 1000L);
+    assertNull(cache.get("a"));
+    cache.put("a", new DataMap(), "\"tag\"", 10, 1000L);
+
+    ResponseCache.Entry entry = cache.get("a");
+    assertNotNull(entry);
+    assertEquals(entry.getETag(), "\"tag\"");
+    assertEquals(cache.getHitCount(), 1L);
+    assertEquals(cache.getMissCount(), 1L);
+    assertEquals(cache.getHitBytes(), 10L);
+  }
+
+  @Test
+  public void testExpiration()
+  {
+    AtomicLong now = new AtomicLong(0L);
+    ResponseCache cache = new ResponseCache(10, 1000L, now::get);
+    cache.put("a", new DataMap(), "\"tag\"", 10, 100L);
+
+    now.set(99L);
+    assertNotNull(cache.get("a"));
+    now.set(100L);
+    assertNull(cache.get("a"));
+    assertEquals(cache.size(), 0);
+    assertEquals(cache.getTotalBytes(), 0L);
+  }
+
+  @Test
+  public void testLruEvictionByEntries()
+  {
+    ResponseCache cache = new ResponseCache(2, 1000L);
+    cache.put("a", new DataMap(), "\"a\"", 10, 1000L);
+    cache.put("b", new DataMap(), "\"b\"", 10, 1000L);
+    // touch "a" so that "b" becomes the least recently used entry
+    cache.get("a");
+    cache.put("c", new DataMap(), "\"c\"", 10, 1000L);
+
+    assertNotNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("c"));
+    assertEquals(cache.getEvictionCount(), 1L);
+  }
+
+  @Test
+  public void testEvictionByBytes()
+  {
+    ResponseCache cache = new ResponseCache(10, 25L);
+    cache.put("a", new DataMap(), "\"a\"", 10, 1000L);
+    cache.put("b", new DataMap(), "\"b\"", 10, 1000L);
+    cache.put("c", new DataMap(), "\"c\"", 10, 1000L);
+
+    assertEquals(cache.size(), 2);
+    assertEquals(cache.getTotalBytes(), 20L);
+    assertNull(cache.get("a"));
+
+    // entries larger than the whole cache are never stored
+    cache.put("d", new DataMap(), "\"d\"", 30, 1000L);
+    assertNull(cache.get("d"));
+    assertEquals(cache.size(), 2);
+  }
+
+  @Test
+  public void testOversizedEntryRemovesStaleEntry()
+  {
+    ResponseCache cache = new ResponseCache(10, 25L);
+    cache.put("a", new DataMap(), "\"small\"", 10, 1000L);
+    cache.put("a", new DataMap(), "\"large\"", 30, 1000L);
+
+    assertNull(cache.get("a"));
+    assertEquals(cache.size(), 0);
+    assertEquals(cache.getTotalBytes(), 0L);
+  }
+
+  @Test
+  public void testReplaceUpdatesTotalBytes()
+  {
+    ResponseCache cache = new ResponseCache(10, 1000L);
+    cache.put("a", new DataMap(), "\"a\"", 10, 1000L);
+    cache.put("a", new DataMap(), "\"a2\"", 15, 1000L);
+
+    assertEquals(cache.size(), 1);
+    assertEquals(cache.getTotalBytes(), 15L);
+    assertEquals(cache.get("a").getETag(), "\"a2\"");
+
+    cache.invalidateAll();
+    assertEquals(cache.size(), 0);
+    assertEquals(cache.getTotalBytes(), 0L);
+  }
+
+  @Test
+  public void testMatchesETag()
+  {
+    assertFalse(ResponseCacheFilter.matchesETag(null, "\"abc\""));
+    assertTrue(ResponseCacheFilter.matchesETag("\"abc\"", "\"abc\""));
+    assertTrue(ResponseCacheFilter.matchesETag("\"xyz\", W/\"abc\"", "\"abc\""));
+    assertTrue(ResponseCacheFilter.matchesETag("*", "\"abc\""));
+    assertFalse(ResponseCacheFilter.matchesETag("\"xyz\"", "\"abc\""));
+  }
+}
@@ -0,0 +1,342 @@
+/*
+   Copyright (c) 2016 LinkedIn Corp.
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.linkedin.restli.server.filter;
+
+
+import com.linkedin.data.DataMap;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.restli.common.HttpStatus;
+import com.linkedin.restli.common.ProtocolVersion;
+import com.linkedin.restli.common.ResourceMethod;
+import com.linkedin.restli.internal.common.AllProtocolVersions;
+import com.linkedin.restli.internal.server.methods.AnyRecord;
+import com.linkedin.restli.internal.server.response.BatchResponseEnvelope;
+import com.linkedin.restli.internal.server.response.BatchResponseEnvelope.BatchResponseEntry;
+import com.linkedin.restli.internal.server.response.RecordResponseEnvelope;
+import com.linkedin.restli.server.RestLiRequestData;
+import com.linkedin.restli.server.RestLiRequestDataImpl;
+import com.linkedin.restli.server.RestLiResponseData;
+import com.linkedin.restli.server.annotations.CacheableResponse;
+
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.Test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class TestResponseCacheFilter
+{
+  private static final ProtocolVersion PROTOCOL_VERSION =
+      AllProtocolVersions.RESTLI_PROTOCOL_2_0_0.getProtocolVersion();
+
+  @Test
+  public void testGetMissIsCachedWithETag() throws Exception
+  {
+    ResponseCacheFilter filter = new ResponseCacheFilter(new ResponseCache(10, 10000L));
+    FilterRequestContext requestContext = getContext(Collections.<String, String>emptyMap());
+
+    assertFalse(filter.onRequest(requestContext).isCompletedExceptionally());
+
+    FilterResponseContext responseContext = recordResponse(new AnyRecord(entity("one")));
+    filter.onResponse(requestContext, responseContext).get();
+
+    assertNotNull(responseContext.getResponseData().getHeaders().get(ResponseCacheFilter.HEADER_ETAG));
+    assertEquals(filter.getCache().size(), 1);
+  }
+
+  @Test
+  public void testGetHitShortCircuitsResource() throws Exception
+  {
+    ResponseCacheFilter filter = new ResponseCacheFilter(new ResponseCache(10, 10000L));
+    String eTag = primeGet(filter, "one");
+
+    FilterRequestContext requestContext = getContext(Collections.<String, String>emptyMap());
+    CompletableFuture<Void> requestFuture = filter.onRequest(requestContext);
+    assertTrue(requestFuture.isCompletedExceptionally());
+
+    FilterResponseContext responseContext = recordResponse(null);
+    CompletableFuture<Void> errorFuture = filter.onError(causeOf(requestFuture), requestContext, responseContext);
+    assertFalse(errorFuture.isCompletedExceptionally());
+
+    RecordResponseEnvelope envelope = responseContext.getResponseData().getRecordResponseEnvelope();
+    ArgumentCaptor<RecordTemplate> record = ArgumentCaptor.forClass(RecordTemplate.class);
+    verify(envelope).setRecord(record.capture(), eq(HttpStatus.S_200_OK));
+    assertEquals(record.getValue().data(), entity("one"));
+    assertFalse(record.getValue().data().isReadOnly());
+    assertEquals(responseContext.getResponseData().getHeaders().get(ResponseCacheFilter.HEADER_ETAG), eTag);
+    assertEquals(filter.getCache().getHitCount(), 1L);
+  }
+
+  @Test
+  public void testMatchingIfNoneMatchReturnsNotModified() throws Exception
+  {
+    ResponseCacheFilter filter = new ResponseCacheFilter(new ResponseCache(10, 10000L));
+    String eTag = primeGet(filter, "one");
+
+    FilterRequestContext requestContext =
+        getContext(Collections.singletonMap(ResponseCacheFilter.HEADER_IF_NONE_MATCH, eTag));
+    CompletableFuture<Void> requestFuture = filter.onRequest(requestContext);
+    FilterResponseContext responseContext = recordResponse(null);
+    filter.onError(causeOf(requestFuture), requestContext, responseContext).get();
+
+    RecordResponseEnvelope envelope = responseContext.getResponseData().getRecordResponseEnvelope();
+    verify(envelope).setRecord((RecordTemplate) isNull(), eq(HttpStatus.S_304_NOT_MODIFIED));
+    verify(envelope, never()).setRecord(any(RecordTemplate.class), eq(HttpStatus.S_200_OK));
+    assertEquals(filter.getCache().getNotModifiedCount(), 1L);
+  }
+
+  @Test
+  public void testNonMatchingIfNoneMatchReturnsEntity() throws Exception
+  {
+    ResponseCacheFilter filter = new ResponseCacheFilter(new ResponseCache(10, 10000L));
+    primeGet(filter, "one");
+
+    FilterRequestContext requestContext =
+        getContext(Collections.singletonMap(ResponseCacheFilter.HEADER_IF_NONE_MATCH, "\"stale\""));
+    CompletableFuture<Void> requestFuture = filter.onRequest(requestContext);
+    FilterResponseContext responseContext = recordResponse(null);
+    filter.onError(causeOf(requestFuture), requestContext, responseContext).get();
+
+    RecordResponseEnvelope envelope = responseContext.getResponseData().getRecordResponseEnvelope();
+    verify(envelope).setRecord(any(RecordTemplate.class), eq(HttpStatus.S_200_OK));
+    assertEquals(filter.getCache().getNotModifiedCount(), 0L);
+  }
+
+  @Test
+  public void testOtherErrorsArePropagated() throws Exception
+  {
+    ResponseCacheFilter filter = new ResponseCacheFilter(new ResponseCache(10, 10000L));
+    FilterRequestContext requestContext = getContext(Collections.<String, String>emptyMap());
+    filter.onRequest(requestContext);
+
+    IllegalStateException error = new IllegalStateException("boom");
+    CompletableFuture<Void> errorFuture = filter.onError(error, requestContext, recordResponse(null));
+    assertTrue(errorFuture.isCompletedExceptionally());
+    assertTrue(causeOf(errorFuture) == error);
+  }
+
+  @Test
+  public void testBatchGetPartialHitForwardsMissesAndMerges() throws Exception
+  {
+    ResponseCacheFilter filter = new ResponseCacheFilter(new ResponseCache(10, 10000L));
+    Map<Object, BatchResponseEntry> primed = new HashMap<Object, BatchResponseEntry>();
+    primed.put(1L, new BatchResponseEntry(HttpStatus.S_200_OK, new AnyRecord(entity("one"))));
+    primed.put(2L, new BatchResponseEntry(HttpStatus.S_200_OK, new AnyRecord(entity("two"))));
+    FilterRequestContext primeContext = batchGetContext(1L, 2L);
+    filter.onRequest(primeContext).get();
+    filter.onResponse(primeContext, batchResponse(primed)).get();
+
+    FilterRequestContext requestContext = batchGetContext(1L, 2L, 3L);
+    assertFalse(filter.onRequest(requestContext).isCompletedExceptionally());
+    // only the key that missed the cache reaches the resource
+    assertEquals(requestContext.getRequestData().getBatchKeys(), Collections.singletonList(3L));
+
+    Map<Object, BatchResponseEntry> fetched = new HashMap<Object, BatchResponseEntry>();
+    fetched.put(3L, new BatchResponseEntry(HttpStatus.S_200_OK, new AnyRecord(entity("three"))));
+    FilterResponseContext responseContext = batchResponse(fetched);
+    filter.onResponse(requestContext, responseContext).get();
+
+    Map<?, BatchResponseEntry> merged = captureBatchResponseMap(responseContext, HttpStatus.S_200_OK);
+    assertEquals(merged.size(), 3);
+    assertEquals(merged.get(1L).getRecord().data(), entity("one"));
+    assertEquals(merged.get(2L).getRecord().data(), entity("two"));
+    assertEquals(merged.get(3L).getRecord().data(), entity("three"));
+    assertEquals(filter.getCache().size(), 3);
+  }
+
+  @Test
+  public void testBatchGetFullHitShortCircuitsResource() throws Exception
+  {
+    ResponseCacheFilter filter = new ResponseCacheFilter(new ResponseCache(10, 10000L));
+    Map<Object, BatchResponseEntry> primed = new HashMap<Object, BatchResponseEntry>();
+    primed.put(1L, new BatchResponseEntry(HttpStatus.S_200_OK, new AnyRecord(entity("one"))));
+    primed.put(2L, new BatchResponseEntry(HttpStatus.S_200_OK, new AnyRecord(entity("two"))));
+    FilterRequestContext primeContext = batchGetContext(1L, 2L);
+    filter.onRequest(primeContext).get();
+    filter.onResponse(primeContext, batchResponse(primed)).get();
+
+    FilterRequestContext requestContext = batchGetContext(1L, 2L);
+    CompletableFuture<Void> requestFuture = filter.onRequest(requestContext);
+    assertTrue(requestFuture.isCompletedExceptionally());
+    assertTrue(requestContext.getRequestData().getBatchKeys().isEmpty());
+
+    FilterResponseContext responseContext = batchResponse(Collections.<Object, BatchResponseEntry>emptyMap());
+    filter.onError(causeOf(requestFuture), requestContext, responseContext).get();
+
+    Map<?, BatchResponseEntry> served = captureBatchResponseMap(responseContext, HttpStatus.S_200_OK);
+    assertEquals(served.size(), 2);
+    assertEquals(served.get(1L).getRecord().data(), entity("one"));
+    assertEquals(served.get(2L).getRecord().data(), entity("two"));
+  }
+
+  @Test
+  public void testBatchGetErrorsAreNotCached() throws Exception
+  {
+    ResponseCacheFilter filter = new ResponseCacheFilter(new ResponseCache(10, 10000L));
+    Map<Object, BatchResponseEntry> responses = new HashMap<Object, BatchResponseEntry>();
+    responses.put(1L, new BatchResponseEntry(HttpStatus.S_200_OK, new AnyRecord(entity("one"))));
+    responses.put(2L, new BatchResponseEntry(HttpStatus.S_404_NOT_FOUND, (RecordTemplate) null));
+    FilterRequestContext requestContext = batchGetContext(1L, 2L);
+    filter.onRequest(requestContext).get();
+    filter.onResponse(requestContext, batchResponse(responses)).get();
+
+    assertEquals(filter.getCache().size(), 1);
+  }
+
+  private static String primeGet(ResponseCacheFilter filter, String message) throws Exception
+  {
+    FilterRequestContext requestContext = getContext(Collections.<String, String>emptyMap());
+    filter.onRequest(requestContext).get();
+    FilterResponseContext responseContext = recordResponse(new AnyRecord(entity(message)));
+    filter.onResponse(requestContext, responseContext).get();
+    return responseContext.getResponseData().getHeaders().get(ResponseCacheFilter.HEADER_ETAG);
+  }
+
+  private static DataMap entity(String message)
+  {
+    DataMap data = new DataMap();
+    data.put("message", message);
+    return data;
+  }
+
+  private static Throwable causeOf(CompletableFuture<Void> future) throws InterruptedException
+  {
+    try
+    {
+      future.get();
+    }
+    catch (ExecutionException e)
+    {
+      return e.getCause();
+    }
+    throw new AssertionError("expected the future to complete exceptionally");
+  }
+
+  private static FilterRequestContext getContext(Map<String, String> headers) throws Exception
+  {
+    FilterRequestContext context = requestContext(ResourceMethod.GET, "get", "/greetings/1", headers);
+    when(context.getRequestData()).thenReturn(new RestLiRequestDataImpl.Builder().key(1L).build());
+    return context;
+  }
+
+  private static FilterRequestContext batchGetContext(Object... ids) throws Exception
+  {
+    FilterRequestContext context =
+        requestContext(ResourceMethod.BATCH_GET, "batchGet", "/greetings", Collections.<String, String>emptyMap());
+    when(context.getRequestData()).thenReturn(new RestLiRequestDataImpl.Builder().batchKeys(Arrays.asList(ids)).build());
+    return context;
+  }
+
+  private static FilterRequestContext requestContext(ResourceMethod methodType,
+                                                     String methodName,
+                                                     String path,
+                                                     Map<String, String> headers) throws Exception
+  {
+    Method method = CacheableResource.class.getMethod(methodName, methodType == ResourceMethod.GET ? Long.class : Set.class);
+    FilterRequestContext context = mock(FilterRequestContext.class);
+    when(context.getMethodType()).thenReturn(methodType);
+    when(context.getMethod()).thenReturn(method);
+    when(context.getRequestURI()).thenReturn(URI.create(path));
+    when(context.getRestliProtocolVersion()).thenReturn(PROTOCOL_VERSION);
+    when(context.getQueryParameters()).thenReturn(new DataMap());
+    when(context.getRequestHeaders()).thenReturn(headers);
+    when(context.getFilterScratchpad()).thenReturn(new HashMap<String, Object>());
+    return context;
+  }
+
+  private static FilterResponseContext recordResponse(RecordTemplate record)
+  {
+    RecordResponseEnvelope envelope = mock(RecordResponseEnvelope.class);
+    when(envelope.getRecord()).thenReturn(record);
+    RestLiResponseData responseData = responseData(HttpStatus.S_200_OK);
+    when(responseData.getRecordResponseEnvelope()).thenReturn(envelope);
+    return responseContext(responseData);
+  }
+
+  private static FilterResponseContext batchResponse(Map<Object, BatchResponseEntry> responses)
+  {
+    BatchResponseEnvelope envelope = mock(BatchResponseEnvelope.class);
+    doReturn(responses).when(envelope).getBatchResponseMap();
+    RestLiResponseData responseData = responseData(HttpStatus.S_200_OK);
+    when(responseData.getBatchResponseEnvelope()).thenReturn(envelope);
+    return responseContext(responseData);
+  }
+
+  private static RestLiResponseData responseData(HttpStatus status)
+  {
+    RestLiResponseData responseData = mock(RestLiResponseData.class);
+    when(responseData.getStatus()).thenReturn(status);
+    when(responseData.isErrorResponse()).thenReturn(false);
+    when(responseData.getHeaders()).thenReturn(new HashMap<String, String>());
+    return responseData;
+  }
+
+  private static FilterResponseContext responseContext(RestLiResponseData responseData)
+  {
+    FilterResponseContext responseContext = mock(FilterResponseContext.class);
+    when(responseContext.getResponseData()).thenReturn(responseData);
+    return responseContext;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Map<?, BatchResponseEntry> captureBatchResponseMap(FilterResponseContext responseContext,
+                                                                    HttpStatus status)
+  {
+    ArgumentCaptor<Map> map = ArgumentCaptor.forClass(Map.class);
+    verify(responseContext.getResponseData().getBatchResponseEnvelope()).setBatchResponseMap(map.capture(), eq(status));
+    return (Map<?, BatchResponseEntry>) map.getValue();
+  }
+
+  /**
+   * Supplies the annotated resource methods that the filter inspects.
+   */
+  public static class CacheableResource
+  {
+    @CacheableResponse
+    public RecordTemplate get(Long id)
+    {
+      return null;
+    }
+
+    @CacheableResponse
+    public Map<Long, RecordTemplate> batchGet(Set<Long> ids)
+    {
+      return null;
+    }
+  }
+}